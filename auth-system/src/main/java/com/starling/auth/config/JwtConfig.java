@@ -1,9 +1,15 @@
 package com.starling.auth.config;
 
+import com.nimbusds.jose.jwk.source.JWKSource;
+import com.nimbusds.jose.proc.SecurityContext;
+import com.starling.auth.service.jwt.JwtSigningKeys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.oauth2.jose.jws.SignatureAlgorithm;
+import org.springframework.security.oauth2.jwt.JwsHeader;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
+import org.springframework.security.oauth2.jwt.JwtEncoderParameters;
 import org.springframework.security.oauth2.jwt.NimbusJwtEncoder;
 
 import javax.crypto.SecretKey;
@@ -12,9 +18,25 @@ import javax.crypto.spec.SecretKeySpec;
 @Configuration
 public class JwtConfig {
 
+    /**
+     * HS256 with the shared secret by default. With {@code starling.jwt.signing.algorithm=ES256}
+     * tokens are signed with the active key of {@link JwtSigningKeys} and carry its kid, so
+     * verifiers can check them against the cached public keys at /.well-known/jwks.json.
+     */
     @Bean
     public JwtEncoder jwtEncoder(
-            @Value("${starling.jwt.secret}") String secret) {
+            JwtSigningKeys signingKeys,
+            @Value("${starling.jwt.secret:}") String secret) {
+        if (signingKeys.isAsymmetric()) {
+            JWKSource<SecurityContext> keys = (selector, context) -> selector.select(signingKeys.privateKeys());
+            NimbusJwtEncoder encoder = new NimbusJwtEncoder(keys);
+            return parameters -> {
+                JwsHeader header = JwsHeader.with(SignatureAlgorithm.ES256)
+                        .keyId(signingKeys.activeKey().getKeyID())
+                        .build();
+                return encoder.encode(JwtEncoderParameters.from(header, parameters.getClaims()));
+            };
+        }
         if (secret == null || secret.isBlank()) {
             throw new IllegalStateException(
                     "STARLING_JWT_SECRET must be set. " +
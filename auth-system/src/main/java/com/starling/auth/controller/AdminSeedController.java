@@ -1,5 +1,7 @@
 package com.starling.auth.controller;
 
+import com.starling.auth.model.Identity;
+import com.starling.auth.service.keycloak.KeycloakDirectorySyncService;
 import com.starling.auth.service.seed.CaseAssignmentSeedService;
 import com.starling.auth.service.seed.CaseSeedService;
 import com.starling.auth.service.seed.EduCaseSeedService;
@@ -7,10 +9,19 @@ import com.starling.auth.service.seed.EduCuratorSeedService;
 import com.starling.auth.service.seed.IdentitySeedService;
 import com.starling.auth.service.seed.PatientSeedService;
 import com.starling.auth.service.seed.WorklistSyncService;
+import com.starling.auth.service.seed.job.SeedJobService;
+import com.starling.auth.service.seed.job.SeedStage;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/admin/seed")
@@ -23,6 +34,8 @@ public class AdminSeedController {
     private final CaseAssignmentSeedService caseAssignmentSeedService;
     private final EduCaseSeedService eduCaseSeedService;
     private final EduCuratorSeedService eduCuratorSeedService;
+    private final SeedJobService seedJobService;
+    private final KeycloakDirectorySyncService keycloakDirectorySyncService;
 
     public AdminSeedController(
             IdentitySeedService identitySeedService,
@@ -31,7 +44,9 @@ public class AdminSeedController {
             CaseSeedService caseSeedService,
             CaseAssignmentSeedService caseAssignmentSeedService,
             EduCaseSeedService eduCaseSeedService,
-            EduCuratorSeedService eduCuratorSeedService) {
+            EduCuratorSeedService eduCuratorSeedService,
+            SeedJobService seedJobService,
+            KeycloakDirectorySyncService keycloakDirectorySyncService) {
         this.identitySeedService = identitySeedService;
         this.worklistSyncService = worklistSyncService;
         this.patientSeedService = patientSeedService;
@@ -39,6 +54,11 @@ public class AdminSeedController {
         this.caseAssignmentSeedService = caseAssignmentSeedService;
         this.eduCaseSeedService = eduCaseSeedService;
         this.eduCuratorSeedService = eduCuratorSeedService;
+        this.seedJobService = seedJobService;
+        this.keycloakDirectorySyncService = keycloakDirectorySyncService;
+    }
+
+    public record StartSeedJobRequest(List<SeedStage> stages) {
     }
 
     @PostMapping("/identities")
@@ -75,4 +95,59 @@ public class AdminSeedController {
     public ResponseEntity<EduCuratorSeedService.SeedRunResult> seedEduCurators() {
         return ResponseEntity.ok(eduCuratorSeedService.seedFromFile());
     }
+
+    /**
+     * Starts syncing identities and IdP group roles with the Keycloak realm in the background;
+     * poll the returned run. 409 while a sync runs.
+     */
+    @PostMapping("/keycloak-sync")
+    public ResponseEntity<?> syncKeycloakDirectory() {
+        return keycloakDirectorySyncService.start()
+                .<ResponseEntity<?>>map(run -> ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .location(URI.create("/admin/seed/keycloak-sync/" + run.id()))
+                        .body(run))
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(Map.of("error", "conflict", "message", "A Keycloak directory sync is already running")));
+    }
+
+    @GetMapping("/keycloak-sync/{runId}")
+    public ResponseEntity<KeycloakDirectorySyncService.SyncRun> getKeycloakSync(@PathVariable UUID runId) {
+        return ResponseEntity.ok(keycloakDirectorySyncService.getRun(runId));
+    }
+
+    // ── Orchestrated seed jobs ──────────────────────────────────────
+
+    /** Runs the requested stages (all when omitted) in dependency order; 409 while another job runs. */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> startJob(
+            @RequestBody(required = false) StartSeedJobRequest request,
+            @AuthenticationPrincipal Identity actor) {
+        return seedJobService
+                .start(request != null ? request.stages() : null, actor != null ? actor.getUsername() : null)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElseGet(AdminSeedController::jobAlreadyRunning);
+    }
+
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<SeedJobService.SeedJobSnapshot> getJob(@PathVariable UUID jobId) {
+        return ResponseEntity.ok(seedJobService.getJob(jobId));
+    }
+
+    @GetMapping(value = "/jobs/{jobId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamJob(@PathVariable UUID jobId) {
+        return seedJobService.subscribe(jobId);
+    }
+
+    /** Re-runs the stages of a failed or interrupted job that did not complete. */
+    @PostMapping("/jobs/{jobId}/resume")
+    public ResponseEntity<?> resumeJob(@PathVariable UUID jobId) {
+        return seedJobService.resume(jobId)
+                .<ResponseEntity<?>>map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job))
+                .orElseGet(AdminSeedController::jobAlreadyRunning);
+    }
+
+    private static ResponseEntity<?> jobAlreadyRunning() {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "conflict", "message", "A seed job is already running"));
+    }
 }
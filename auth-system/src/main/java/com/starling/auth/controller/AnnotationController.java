@@ -1,73 +1,194 @@
 package com.starling.auth.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starling.auth.dto.AnnotationDtos.AnnotationChanges;
+import com.starling.auth.dto.AnnotationDtos.AnnotationImportResult;
+import com.starling.auth.dto.AnnotationDtos.AnnotationRequest;
+import com.starling.auth.dto.AnnotationDtos.AnnotationResponse;
 import com.starling.auth.model.Identity;
+import com.starling.auth.service.annotation.AnnotationBinaryCodec;
+import com.starling.auth.service.annotation.AnnotationFeatureSource;
+import com.starling.auth.service.annotation.AnnotationGeometry.Bounds;
+import com.starling.auth.service.annotation.AnnotationService;
+import com.starling.auth.service.annotation.AnnotationService.AnnotationQuery;
+import com.starling.auth.service.annotation.GeoJsonFeatureReader;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collections;
-import java.util.Map;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.UUID;
 
 /**
- * Annotation persistence API stubs.
+ * Viewer annotation persistence for clinical cases.
  *
- * These endpoints define the contract for viewer annotation persistence
- * but are not yet implemented. They return 501 Not Implemented with
- * descriptive messages so the viewer can detect and handle accordingly.
+ * Annotations are GeoJSON geometries in level-0 slide pixels, linked to a case and one of
+ * its slides. The viewer fetches only what intersects the current viewport with
+ * {@code ?slideId&bbox=minX,minY,maxX,maxY&level}; see {@link AnnotationService}. Bulk
+ * transfer of AI annotation sets uses the binary encoding of {@link AnnotationBinaryCodec},
+ * selected by content negotiation; bulk imports also accept GeoJSON FeatureCollections.
+ * Every create, update and delete is audited; a bulk import is audited once as a whole.
  *
- * Future implementation will store GeoJSON annotation geometries linked
- * to cases and slides, with full audit trail integration.
+ * Open viewers stay current by polling {@code /changes?slideId&since=version}. Updates and
+ * deletes must send the annotation's version as {@code If-Match}; writes return it as ETag.
  */
 @RestController
 @RequestMapping("/api/cases/{accession}/annotations")
 public class AnnotationController {
 
-    private static final Map<String, String> NOT_IMPLEMENTED =
-            Map.of("error", "not_implemented", "message", "Annotation persistence not yet implemented");
+    private static final MediaType BINARY = MediaType.parseMediaType(AnnotationBinaryCodec.MEDIA_TYPE);
 
+    private static final String GEO_JSON = "application/geo+json";
+
+    private final AnnotationService annotationService;
+    private final ObjectMapper objectMapper;
+
+    public AnnotationController(AnnotationService annotationService, ObjectMapper objectMapper) {
+        this.annotationService = annotationService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * JSON by default; clients that accept {@value AnnotationBinaryCodec#MEDIA_TYPE} get the
+     * same listing streamed in the compact binary encoding.
+     */
     @GetMapping
-    public ResponseEntity<Map<String, String>> listAnnotations(
+    public ResponseEntity<?> listAnnotations(
             @PathVariable String accession,
             @RequestParam(required = false) String slideId,
+            @RequestParam(required = false) String bbox,
+            @RequestParam(required = false) Integer level,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
             @AuthenticationPrincipal Identity identity) {
         if (identity == null) {
             return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.status(501).body(NOT_IMPLEMENTED);
+        Bounds viewport = bbox != null && !bbox.isBlank() ? Bounds.parse(bbox) : null;
+
+        if (acceptsBinary(accept)) {
+            AnnotationQuery query = annotationService.prepareList(identity, accession, slideId, viewport, level);
+            StreamingResponseBody body = out -> annotationService.writeBinary(query, out);
+            return ResponseEntity.ok().contentType(BINARY).body(body);
+        }
+        return ResponseEntity.ok(annotationService.list(identity, accession, slideId, viewport, level));
     }
 
-    @PostMapping
-    public ResponseEntity<Map<String, String>> createAnnotation(
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<AnnotationResponse> createAnnotation(
             @PathVariable String accession,
-            @RequestBody Map<String, Object> body,
+            @RequestBody AnnotationRequest body,
             @AuthenticationPrincipal Identity identity) {
         if (identity == null) {
             return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.status(501).body(NOT_IMPLEMENTED);
+        return withETag(ResponseEntity.status(201), annotationService.create(identity, accession, body));
+    }
+
+    /** Changes on one slide after {@code since}, the version from the previous poll. */
+    @GetMapping("/changes")
+    public ResponseEntity<AnnotationChanges> annotationChanges(
+            @PathVariable String accession,
+            @RequestParam String slideId,
+            @RequestParam(defaultValue = "0") long since,
+            @AuthenticationPrincipal Identity identity) {
+        if (identity == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(annotationService.changes(identity, accession, slideId, since));
+    }
+
+    /** Bulk import of a binary annotation stream, decoded as it arrives. */
+    @PostMapping(consumes = AnnotationBinaryCodec.MEDIA_TYPE)
+    public ResponseEntity<AnnotationImportResult> importAnnotations(
+            @PathVariable String accession,
+            InputStream body,
+            @AuthenticationPrincipal Identity identity) throws IOException {
+        if (identity == null) {
+            return ResponseEntity.status(401).build();
+        }
+        AnnotationFeatureSource source = new AnnotationBinaryCodec.Reader(body);
+        return importResponse(annotationService.importFeatures(identity, accession, "binary", source));
+    }
+
+    /**
+     * Bulk import of a GeoJSON FeatureCollection, e.g. AI model output. Features without a
+     * {@code slideId} property go to the {@code slideId} given here.
+     */
+    @PostMapping(consumes = GEO_JSON)
+    public ResponseEntity<AnnotationImportResult> importGeoJson(
+            @PathVariable String accession,
+            @RequestParam(required = false) String slideId,
+            InputStream body,
+            @AuthenticationPrincipal Identity identity) throws IOException {
+        if (identity == null) {
+            return ResponseEntity.status(401).build();
+        }
+        AnnotationFeatureSource source = new GeoJsonFeatureReader(objectMapper, body, slideId);
+        return importResponse(annotationService.importFeatures(identity, accession, "geojson", source));
     }
 
     @PutMapping("/{annotationId}")
-    public ResponseEntity<Map<String, String>> updateAnnotation(
+    public ResponseEntity<AnnotationResponse> updateAnnotation(
             @PathVariable String accession,
             @PathVariable UUID annotationId,
-            @RequestBody Map<String, Object> body,
+            @RequestBody AnnotationRequest body,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal Identity identity) {
         if (identity == null) {
             return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.status(501).body(NOT_IMPLEMENTED);
+        return withETag(ResponseEntity.ok(),
+                annotationService.update(identity, accession, annotationId, body, parseVersion(ifMatch)));
     }
 
     @DeleteMapping("/{annotationId}")
-    public ResponseEntity<Map<String, String>> deleteAnnotation(
+    public ResponseEntity<Void> deleteAnnotation(
             @PathVariable String accession,
             @PathVariable UUID annotationId,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @AuthenticationPrincipal Identity identity) {
         if (identity == null) {
             return ResponseEntity.status(401).build();
         }
-        return ResponseEntity.status(501).body(NOT_IMPLEMENTED);
+        annotationService.delete(identity, accession, annotationId, parseVersion(ifMatch));
+        return ResponseEntity.noContent().build();
+    }
+
+    /** Slides committed before a stream error stay imported, so the result is returned either way. */
+    private static ResponseEntity<AnnotationImportResult> importResponse(AnnotationImportResult result) {
+        return ResponseEntity.status(result.error() == null ? 201 : 400).body(result);
+    }
+
+    private static ResponseEntity<AnnotationResponse> withETag(
+            ResponseEntity.BodyBuilder builder, AnnotationResponse annotation) {
+        return builder.eTag("\"" + annotation.version() + "\"").body(annotation);
+    }
+
+    /** The annotation version from an If-Match header such as {@code "42"}; null when absent. */
+    static Long parseVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank()) {
+            return null;
+        }
+        String tag = ifMatch.strip();
+        if (tag.startsWith("W/")) {
+            tag = tag.substring(2);
+        }
+        if (tag.length() >= 2 && tag.startsWith("\"") && tag.endsWith("\"")) {
+            tag = tag.substring(1, tag.length() - 1);
+        }
+        try {
+            return Long.parseLong(tag);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match must carry an annotation version");
+        }
+    }
+
+    private static boolean acceptsBinary(String accept) {
+        return accept != null && MediaType.parseMediaTypes(accept).stream()
+                .anyMatch(BINARY::equalsTypeAndSubtype);
     }
 }
@@ -0,0 +1,52 @@
+package com.starling.auth.controller;
+
+import com.starling.auth.dto.AuthzDecisionDtos.DecisionBatchRequest;
+import com.starling.auth.dto.AuthzDecisionDtos.DecisionBatchResponse;
+import com.starling.auth.service.access.AccessDecisionService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Batch read-access decisions for the tile server (see {@link AccessDecisionService}).
+ *
+ * Not a user endpoint: callers authenticate with the shared
+ * {@code starling.authz.decision.service-key} in {@value #SERVICE_KEY_HEADER}. The endpoint
+ * answers 404 while no key is configured.
+ */
+@RestController
+public class AuthzDecisionController {
+
+    static final String SERVICE_KEY_HEADER = "X-Starling-Service-Key";
+
+    private final AccessDecisionService accessDecisionService;
+    private final byte[] serviceKey;
+
+    public AuthzDecisionController(
+            AccessDecisionService accessDecisionService,
+            @Value("${starling.authz.decision.service-key:}") String serviceKey) {
+        this.accessDecisionService = accessDecisionService;
+        this.serviceKey = serviceKey.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @PostMapping("/internal/authz/decisions")
+    public ResponseEntity<DecisionBatchResponse> decide(
+            @RequestHeader(value = SERVICE_KEY_HEADER, required = false) String key,
+            @RequestBody DecisionBatchRequest request) {
+        if (serviceKey.length == 0) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        if (key == null || !MessageDigest.isEqual(serviceKey, key.getBytes(StandardCharsets.UTF_8))) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid service key");
+        }
+        return ResponseEntity.ok(new DecisionBatchResponse(accessDecisionService.decide(request.queries())));
+    }
+}
@@ -66,10 +66,13 @@ public class EduController {
     }
 
     @GetMapping("/collections")
-    public ResponseEntity<List<EduNamedCollectionResponse>> listCollections(
-            @AuthenticationPrincipal Object principal) {
+    public ResponseEntity<EduNamedCollectionPage> listCollections(
+            @AuthenticationPrincipal Object principal,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "50") Integer pageSize) {
         UUID currentUserId = resolveCurrentUserId(principal);
-        return ResponseEntity.ok(eduCollectionService.listCollections(currentUserId));
+        int effectivePageSize = pageSize != null && pageSize > 0 && pageSize <= 200 ? pageSize : 50;
+        return ResponseEntity.ok(eduCollectionService.listCollections(currentUserId, cursor, effectivePageSize));
     }
 
     @GetMapping("/collections/{id}")
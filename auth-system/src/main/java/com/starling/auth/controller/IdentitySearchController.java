@@ -1,14 +1,11 @@
 package com.starling.auth.controller;
 
-import com.starling.auth.model.db.IdentityEntity;
-import com.starling.auth.model.db.RoleEntity;
-import com.starling.auth.repository.IdentityRepository;
-import org.springframework.data.domain.PageRequest;
+import com.starling.auth.service.IdentitySearchService;
+import com.starling.auth.service.IdentitySearchService.IdentitySearchResult;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.UUID;
 
 /**
  * Identity search endpoint for suggest boxes (e.g. pathologist assignment).
@@ -19,31 +16,10 @@ import java.util.UUID;
 @RequestMapping("/api/identities")
 public class IdentitySearchController {
 
-    private final IdentityRepository identityRepository;
+    private final IdentitySearchService identitySearchService;
 
-    public IdentitySearchController(IdentityRepository identityRepository) {
-        this.identityRepository = identityRepository;
-    }
-
-    public record IdentitySearchResult(
-            UUID identityId,
-            String displayName,
-            String displayShort,
-            String email,
-            List<String> roles) {
-
-        public static IdentitySearchResult from(IdentityEntity entity) {
-            List<String> roleNames = entity.getRoles().stream()
-                    .map(RoleEntity::getName)
-                    .sorted()
-                    .toList();
-            return new IdentitySearchResult(
-                    entity.getIdentityId(),
-                    entity.getDisplayName(),
-                    entity.getDisplayShort(),
-                    entity.getEmail(),
-                    roleNames);
-        }
+    public IdentitySearchController(IdentitySearchService identitySearchService) {
+        this.identitySearchService = identitySearchService;
     }
 
     @GetMapping("/search")
@@ -57,14 +33,6 @@ public class IdentitySearchController {
 
         int effectiveLimit = Math.min(Math.max(limit, 1), 50);
 
-        List<IdentitySearchResult> results = identityRepository
-                .searchByTerm(query.trim(), PageRequest.of(0, effectiveLimit))
-                .getContent()
-                .stream()
-                .filter(IdentityEntity::isActive)
-                .map(IdentitySearchResult::from)
-                .toList();
-
-        return ResponseEntity.ok(results);
+        return ResponseEntity.ok(identitySearchService.search(query, effectiveLimit));
     }
 }
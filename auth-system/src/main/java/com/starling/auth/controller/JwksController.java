@@ -0,0 +1,40 @@
+package com.starling.auth.controller;
+
+import com.starling.auth.service.jwt.JwtSigningKeys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Public keys for verifying authz tokens offline. Verifiers cache the set for
+ * {@code starling.jwt.jwks.max-age-seconds} and pick the key by the token's kid; a new key
+ * is published for longer than that before it signs anything (see {@link JwtSigningKeys}).
+ * Empty in HS256 mode.
+ */
+@RestController
+public class JwksController {
+
+    private final JwtSigningKeys signingKeys;
+    private final CacheControl cacheControl;
+
+    public JwksController(
+            JwtSigningKeys signingKeys,
+            @Value("${starling.jwt.jwks.max-age-seconds:300}") long maxAgeSeconds) {
+        this.signingKeys = signingKeys;
+        this.cacheControl = CacheControl.maxAge(Duration.ofSeconds(maxAgeSeconds)).cachePublic();
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<Map<String, Object>> jwks() {
+        Map<String, Object> jwks = signingKeys.jwks();
+        return ResponseEntity.ok()
+                .cacheControl(cacheControl)
+                .eTag("\"" + Integer.toHexString(jwks.hashCode()) + "\"")
+                .body(jwks);
+    }
+}
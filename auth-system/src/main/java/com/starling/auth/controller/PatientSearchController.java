@@ -0,0 +1,44 @@
+package com.starling.auth.controller;
+
+import com.starling.auth.dto.PatientDtos.PatientSearchResult;
+import com.starling.auth.model.Identity;
+import com.starling.auth.service.PatientSearchService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Patient search endpoint for OmniSearch and case linking.
+ * Accepts an MRN, a name (optionally with a date of birth token) or a bare dob.
+ * Requires CASE_VIEW.
+ */
+@RestController
+@RequestMapping("/api/patients")
+public class PatientSearchController {
+
+    private final PatientSearchService patientSearchService;
+
+    public PatientSearchController(PatientSearchService patientSearchService) {
+        this.patientSearchService = patientSearchService;
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<PatientSearchResult>> search(
+            @RequestParam(value = "q", required = false) String query,
+            @RequestParam(value = "dob", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate dob,
+            @RequestParam(value = "limit", defaultValue = "10") int limit,
+            @AuthenticationPrincipal Identity actor) {
+
+        if ((query == null || query.isBlank()) && dob == null) {
+            return ResponseEntity.ok(List.of());
+        }
+
+        int effectiveLimit = Math.min(Math.max(limit, 1), 50);
+
+        return ResponseEntity.ok(patientSearchService.search(actor, query, dob, effectiveLimit));
+    }
+}
@@ -3,6 +3,7 @@ package com.starling.auth.controller;
 import com.starling.auth.model.Identity;
 import com.starling.auth.model.db.ResearchAccessGrantEntity;
 import com.starling.auth.service.ResearchGrantService;
+import com.starling.auth.service.access.CohortAccessService.CohortSize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
@@ -61,6 +62,14 @@ public class ResearchGrantController {
         return researchGrantService.listGrants(requester, identityId);
     }
 
+    @GetMapping("/{grantId}/cohort-size")
+    public CohortSize cohortSize(
+            @AuthenticationPrincipal Object principal,
+            @PathVariable UUID grantId) {
+        Identity requester = requireIdentity(principal);
+        return researchGrantService.cohortSize(requester, grantId);
+    }
+
     @DeleteMapping("/{grantId}")
     public Map<String, Object> revokeGrant(
             @AuthenticationPrincipal Object principal,
@@ -0,0 +1,99 @@
+package com.starling.auth.dto;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public final class AnnotationDtos {
+
+    private AnnotationDtos() {
+    }
+
+    // ── Request Records ─────────────────────────────────────────────
+
+    /**
+     * Create or replace an annotation.
+     *
+     * @param slideId  slide identifier (wsi.slides.slide_id) within the case
+     * @param geometry GeoJSON geometry in level-0 slide pixels
+     */
+    public record AnnotationRequest(
+            String slideId,
+            String annotationType,
+            Map<String, Object> geometry,
+            String label,
+            String description,
+            Map<String, Object> properties) {
+    }
+
+    // ── Response Records ────────────────────────────────────────────
+
+    /**
+     * @param bbox    [minX, minY, maxX, maxY] in level-0 slide pixels
+     * @param version slide version of the last write; send it as {@code If-Match} to update
+     *                or delete the annotation
+     */
+    public record AnnotationResponse(
+            UUID id,
+            String slideId,
+            String annotationType,
+            Map<String, Object> geometry,
+            List<Double> bbox,
+            String label,
+            String description,
+            Map<String, Object> properties,
+            UUID authorId,
+            String authorDisplay,
+            Instant createdAt,
+            Instant updatedAt,
+            long version) {
+    }
+
+    /**
+     * What changed on a slide after the client's version.
+     *
+     * @param version  current slide version; pass it as {@code since} on the next poll
+     * @param resync   the delta cannot be served (too old or too large); refetch the slide
+     *                 and continue from the highest {@code version} seen
+     * @param upserted annotations created or updated after {@code since}, in version order
+     * @param deleted  ids of annotations deleted after {@code since}
+     */
+    public record AnnotationChanges(
+            String slideId,
+            long version,
+            boolean resync,
+            List<AnnotationResponse> upserted,
+            List<UUID> deleted) {
+    }
+
+    // ── Bulk Import ─────────────────────────────────────────────────
+
+    /**
+     * Outcome of a bulk import. Each slide is committed on its own, so when {@code error} is
+     * set the slides listed in {@code slides} were still imported.
+     */
+    public record AnnotationImportResult(
+            int received,
+            int created,
+            int rejected,
+            List<AnnotationSlideImport> slides,
+            List<AnnotationImportRejection> rejections,
+            String error,
+            long durationMs) {
+    }
+
+    public record AnnotationSlideImport(
+            String slideId,
+            int created) {
+    }
+
+    /**
+     * @param index 0-based position of the feature in the uploaded stream
+     */
+    public record AnnotationImportRejection(
+            int index,
+            String slideId,
+            String reason) {
+    }
+}
@@ -0,0 +1,46 @@
+package com.starling.auth.dto;
+
+import java.util.List;
+
+public final class AuthzDecisionDtos {
+
+    private AuthzDecisionDtos() {
+    }
+
+    public static final String RESOURCE_SLIDE = "slide";
+    public static final String RESOURCE_CASE = "case";
+
+    // ── Request Records ─────────────────────────────────────────────
+
+    /**
+     * May {@code subject} read the resource?
+     *
+     * @param subject      the authz token's sub (the identity's external subject)
+     * @param resourceType {@value #RESOURCE_SLIDE} (wsi.slides.slide_id) or
+     *                     {@value #RESOURCE_CASE} (accession number)
+     */
+    public record DecisionQuery(
+            String subject,
+            String resourceType,
+            String resourceId) {
+    }
+
+    public record DecisionBatchRequest(
+            List<DecisionQuery> queries) {
+    }
+
+    // ── Response Records ────────────────────────────────────────────
+
+    /**
+     * @param ttlSeconds how long the caller may reuse this answer
+     */
+    public record DecisionResult(
+            boolean allow,
+            long ttlSeconds) {
+    }
+
+    /** One result per query, in request order. */
+    public record DecisionBatchResponse(
+            List<DecisionResult> results) {
+    }
+}
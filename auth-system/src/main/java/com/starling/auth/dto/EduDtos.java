@@ -110,6 +110,11 @@ public final class EduDtos {
             OffsetDateTime createdAt) {
     }
 
+    public record EduNamedCollectionPage(
+            List<EduNamedCollectionResponse> items,
+            String nextCursor) {
+    }
+
     public record EduNamedCollectionDetail(
             UUID id,
             String name,
@@ -0,0 +1,36 @@
+package com.starling.auth.dto;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * DTOs for master patient index search.
+ */
+public final class PatientDtos {
+
+    private PatientDtos() {
+    }
+
+    /**
+     * Match quality, best first: exact MRN, MRN/family-name prefix, given/display-name
+     * or word prefix, substring.
+     */
+    public enum PatientMatchType {
+        EXACT_MRN,
+        PRIMARY_PREFIX,
+        NAME_PREFIX,
+        SUBSTRING
+    }
+
+    public record PatientSearchResult(
+            UUID id,
+            String mrn,
+            String displayName,
+            String givenName,
+            String familyName,
+            LocalDate dob,
+            String sex,
+            boolean testPatient,
+            PatientMatchType matchType) {
+    }
+}
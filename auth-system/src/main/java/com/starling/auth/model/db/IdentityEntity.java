@@ -4,7 +4,9 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.annotations.SQLJoinTableRestriction;
 import org.hibernate.annotations.UuidGenerator;
@@ -94,7 +96,11 @@ public class IdentityEntity {
     @Column(name = "last_seen_at")
     private OffsetDateTime lastSeenAt;
 
-    @ManyToMany(fetch = FetchType.EAGER)
+    /**
+     * Current role assignments. Loaded on first access, so only read inside a transaction;
+     * listing and permission paths use the aggregated role-name queries in IdentityRepository.
+     */
+    @ManyToMany(fetch = FetchType.LAZY)
     @JoinTable(
             schema = "iam",
             name = "identity_role",
@@ -102,6 +108,8 @@ public class IdentityEntity {
             inverseJoinColumns = @JoinColumn(name = "role_id"))
     @SQLJoinTableRestriction("effective_to IS NULL OR effective_to > now()")
     @Builder.Default
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     private Set<RoleEntity> roles = new HashSet<>();
 
     @PreUpdate
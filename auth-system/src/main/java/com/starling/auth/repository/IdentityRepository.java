@@ -1,13 +1,13 @@
 package com.starling.auth.repository;
 
 import com.starling.auth.model.db.IdentityEntity;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -21,11 +21,125 @@ public interface IdentityRepository extends JpaRepository<IdentityEntity, UUID>
 
     Optional<IdentityEntity> findByUsername(String username);
 
-    @Query("SELECT i FROM IdentityEntity i WHERE " +
-            "LOWER(i.email) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(i.username) LIKE LOWER(CONCAT('%', :search, '%')) OR " +
-            "LOWER(i.displayName) LIKE LOWER(CONCAT('%', :search, '%'))")
-    Page<IdentityEntity> searchByTerm(@Param("search") String search, Pageable pageable);
+    /**
+     * Suggest-box search for short terms: active identities whose name, username or email
+     * starts with {@code prefix} (a LIKE pattern, e.g. "ab%"). Whole-field prefixes rank
+     * ahead of given/family-name prefixes.
+     * Columns: identity_id, display_name, display_short, email, role_names (comma-separated).
+     */
+    @Query(value = """
+            select i.identity_id, i.display_name, i.display_short, i.email,
+                   (select string_agg(r.name, ',' order by r.name)
+                    from iam.identity_role ir
+                    join iam.role r on r.role_id = ir.role_id
+                    where ir.identity_id = i.identity_id
+                      and (ir.effective_to is null or ir.effective_to > now())) as role_names
+            from iam.identity i
+            where i.is_active
+              and (lower(i.display_name) like :prefix
+                   or lower(i.display_short) like :prefix
+                   or lower(i.username) like :prefix
+                   or lower(i.email) like :prefix
+                   or lower(i.given_name) like :prefix
+                   or lower(i.family_name) like :prefix)
+            order by case
+                         when lower(i.display_name) like :prefix
+                              or lower(i.display_short) like :prefix
+                              or lower(i.username) like :prefix
+                              or lower(i.email) like :prefix then 0
+                         else 1
+                     end,
+                     i.display_name
+            limit :limit
+            """, nativeQuery = true)
+    List<Object[]> suggestByPrefix(@Param("prefix") String prefix, @Param("limit") int limit);
 
-    Page<IdentityEntity> findByIsActive(boolean isActive, Pageable pageable);
+    /**
+     * Suggest-box search for terms of three or more characters, served by the trigram index
+     * ix_iam_identity_search_trgm. Ranked exact prefix, then word prefix, then substring.
+     * {@code contains} is "%term%", {@code prefix} is "term%", {@code wordPrefix} is "% term%".
+     * Columns: identity_id, display_name, display_short, email, role_names (comma-separated).
+     */
+    @Query(value = """
+            select i.identity_id, i.display_name, i.display_short, i.email,
+                   (select string_agg(r.name, ',' order by r.name)
+                    from iam.identity_role ir
+                    join iam.role r on r.role_id = ir.role_id
+                    where ir.identity_id = i.identity_id
+                      and (ir.effective_to is null or ir.effective_to > now())) as role_names
+            from iam.identity i
+            where i.is_active
+              and lower(coalesce(i.display_name, '') || ' ' || coalesce(i.display_short, '') || ' ' ||
+                        coalesce(i.username, '') || ' ' || coalesce(i.email, '')) like :contains
+            order by case
+                         when lower(i.display_name) like :prefix
+                              or lower(i.display_short) like :prefix
+                              or lower(i.username) like :prefix
+                              or lower(i.email) like :prefix then 0
+                         when ' ' || translate(lower(coalesce(i.display_name, '') || ' ' || coalesce(i.display_short, '') || ' ' ||
+                                                     coalesce(i.username, '') || ' ' || coalesce(i.email, '')),
+                                               '.@_-', '    ') like :wordPrefix then 1
+                         else 2
+                     end,
+                     i.display_name
+            limit :limit
+            """, nativeQuery = true)
+    List<Object[]> suggestBySubstring(
+            @Param("contains") String contains,
+            @Param("prefix") String prefix,
+            @Param("wordPrefix") String wordPrefix,
+            @Param("limit") int limit);
+
+    /**
+     * Full load for the in-process identity directory: every active identity.
+     * Columns: identity_id, display_name, display_short, username, email, given_name,
+     * family_name, is_active, role_names (comma-separated).
+     */
+    @Query(value = DIRECTORY_ROW_SELECT + " where i.is_active", nativeQuery = true)
+    List<Object[]> findActiveDirectoryRows();
+
+    /**
+     * Incremental refresh for the in-process identity directory. Inactive identities are
+     * returned too so the caller can evict them. {@code ids} must not be empty.
+     */
+    @Query(value = DIRECTORY_ROW_SELECT + " where i.identity_id in (:ids)", nativeQuery = true)
+    List<Object[]> findDirectoryRowsByIds(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Bulk username resolution for seeding: identities whose username or seeded
+     * {@code attributes.seed_username} is in {@code usernames}. Loads no roles.
+     * Columns: identity_id, display_name, username, seed_username. {@code usernames} must not be empty.
+     */
+    @Query(value = """
+            select i.identity_id, i.display_name, i.username, i.attributes ->> 'seed_username' as seed_username
+            from iam.identity i
+            where i.username in (:usernames)
+               or i.attributes ->> 'seed_username' in (:usernames)
+            """, nativeQuery = true)
+    List<Object[]> findSeedIdentityRows(@Param("usernames") Collection<String> usernames);
+
+    /**
+     * Names of the roles currently assigned to an identity, sorted. Empty both for an identity
+     * without roles and for an unknown identity.
+     */
+    @Query(value = """
+            select r.name
+            from iam.identity_role ir
+            join iam.role r on r.role_id = ir.role_id
+            where ir.identity_id = :identityId
+              and (ir.effective_to is null or ir.effective_to > now())
+            order by r.name
+            """, nativeQuery = true)
+    List<String> findActiveRoleNames(@Param("identityId") UUID identityId);
+
+    String DIRECTORY_ROW_SELECT = """
+            select i.identity_id, i.display_name, i.display_short, i.username, i.email,
+                   i.given_name, i.family_name, i.is_active,
+                   (select string_agg(r.name, ',' order by r.name)
+                    from iam.identity_role ir
+                    join iam.role r on r.role_id = ir.role_id
+                    where ir.identity_id = i.identity_id
+                      and (ir.effective_to is null or ir.effective_to > now())) as role_names
+            from iam.identity i
+            """;
 }
@@ -15,17 +15,17 @@ public interface IdpGroupMappingRepository extends JpaRepository<IdpGroupMapping
 
     List<IdpGroupMappingEntity> findByGroupNameIn(List<String> groupNames);
 
+    /**
+     * Every (provider, group) → role pair, for the in-memory mapping in UserRoleMapper.
+     * Columns: provider_id, group_name, role_name.
+     */
     @Query(value = """
-            select distinct r.name
+            select g.provider_id, g.group_name, r.name
             from iam.idp_group g
             join iam.idp_group_role gr on gr.idp_group_id = g.idp_group_id
             join iam.role r on r.role_id = gr.role_id
-            where g.provider_id = :providerId
-              and g.group_name in (:groupNames)
             """, nativeQuery = true)
-    List<String> findRoleNamesByProviderIdAndGroupNames(
-            @Param("providerId") String providerId,
-            @Param("groupNames") List<String> groupNames);
+    List<Object[]> findGroupRoleRows();
 
     @Query(value = """
             select g.idp_group_id, g.provider_id, g.group_name, g.description,
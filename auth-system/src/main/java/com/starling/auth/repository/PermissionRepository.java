@@ -3,7 +3,6 @@ package com.starling.auth.repository;
 import com.starling.auth.model.db.PermissionEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
-import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -11,12 +10,17 @@ import java.util.UUID;
 
 @Repository
 public interface PermissionRepository extends JpaRepository<PermissionEntity, UUID> {
+    /**
+     * Every role with its permissions, one row per (role, permission); roles without
+     * permissions appear once with a null permission name.
+     * Columns: role_id, name, description, is_system, permission_name.
+     */
     @Query(value = """
-            select distinct p.name
-            from iam.permission p
-            join iam.role_permission rp on rp.permission_id = p.permission_id
-            join iam.role r on r.role_id = rp.role_id
-            where r.name in (:roleNames)
+            select r.role_id, r.name, r.description, r.is_system, p.name as permission_name
+            from iam.role r
+            left join iam.role_permission rp on rp.role_id = r.role_id
+            left join iam.permission p on p.permission_id = rp.permission_id
+            order by r.name, p.name
             """, nativeQuery = true)
-    List<String> findPermissionNamesByRoleNames(@Param("roleNames") List<String> roleNames);
+    List<Object[]> findRolePermissionRows();
 }
@@ -0,0 +1,42 @@
+package com.starling.auth.repository.jdbc;
+
+import com.starling.auth.dto.EduDtos.EduCaseListItem;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Maps edu case list rows to {@link EduCaseListItem}.
+ *
+ * Expected columns: id, case_id, status, specimen_type, metadata (jsonb), anatomic_site,
+ * primary_diagnosis, primary_curator_display, slide_count.
+ */
+@Component
+public class EduCaseListItemRowMapper implements RowMapper<EduCaseListItem> {
+
+    private final JsonbColumnReader jsonbColumnReader;
+
+    public EduCaseListItemRowMapper(JsonbColumnReader jsonbColumnReader) {
+        this.jsonbColumnReader = jsonbColumnReader;
+    }
+
+    @Override
+    public EduCaseListItem mapRow(ResultSet rs, int rowNum) throws SQLException {
+        EduCaseMetadata metadata = jsonbColumnReader.read(rs, "metadata", EduCaseMetadata.class);
+        return new EduCaseListItem(
+                rs.getObject("id", UUID.class),
+                rs.getString("case_id"),
+                rs.getString("status"),
+                rs.getString("specimen_type"),
+                rs.getString("anatomic_site"),
+                rs.getString("primary_diagnosis"),
+                rs.getString("primary_curator_display"),
+                rs.getInt("slide_count"),
+                metadata != null ? metadata.teachingCategory() : null,
+                metadata != null ? metadata.difficultyLevel() : null,
+                metadata != null ? metadata.curriculumTags() : null);
+    }
+}
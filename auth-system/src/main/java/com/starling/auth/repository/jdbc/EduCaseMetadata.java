@@ -0,0 +1,17 @@
+package com.starling.auth.repository.jdbc;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Typed view of the teaching fields in wsi_edu.cases.metadata.
+ * Other keys in the jsonb document are ignored.
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record EduCaseMetadata(
+        @JsonProperty("teaching_category") String teachingCategory,
+        @JsonProperty("difficulty_level") String difficultyLevel,
+        @JsonProperty("curriculum_tags") List<String> curriculumTags) {
+}
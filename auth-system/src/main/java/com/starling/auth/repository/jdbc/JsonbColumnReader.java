@@ -0,0 +1,60 @@
+package com.starling.auth.repository.jdbc;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.postgresql.util.PGobject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads jsonb columns from JdbcTemplate result sets into typed records.
+ *
+ * Uses the application {@link ObjectMapper} (see JacksonConfig) and caches one immutable
+ * {@link ObjectReader} per target type, so row mapping never constructs mappers or
+ * re-resolves deserializers.
+ */
+@Component
+public class JsonbColumnReader {
+
+    private static final Logger log = LoggerFactory.getLogger(JsonbColumnReader.class);
+
+    private final ObjectMapper objectMapper;
+    private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+    public JsonbColumnReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Returns the column value deserialized as {@code type}, or null when the column is
+     * SQL NULL or holds malformed JSON.
+     */
+    public <T> T read(ResultSet rs, String column, Class<T> type) throws SQLException {
+        String json = rawJson(rs.getObject(column));
+        if (json == null || json.isBlank()) {
+            return null;
+        }
+        try {
+            return readers.computeIfAbsent(type, objectMapper::readerFor).readValue(json);
+        } catch (Exception e) {
+            log.warn("Unreadable jsonb in column {}: {}", column, e.getMessage());
+            return null;
+        }
+    }
+
+    private static String rawJson(Object value) {
+        if (value instanceof PGobject pg) {
+            return pg.getValue();
+        }
+        if (value instanceof String str) {
+            return str;
+        }
+        return null;
+    }
+}
@@ -4,12 +4,17 @@ import com.starling.auth.dto.AdminDtos.*;
 import com.starling.auth.model.Identity;
 import com.starling.auth.model.db.*;
 import com.starling.auth.repository.*;
+import com.starling.auth.service.access.AccessChangedEvent;
+import com.starling.auth.service.access.ActiveGrantRegistry;
+import com.starling.auth.service.directory.IdentityChangedEvent;
 import jakarta.persistence.criteria.Predicate;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -20,9 +25,25 @@ import java.util.stream.Collectors;
 @Service
 public class AdminService {
 
+    /**
+     * Admin identity list rows with role names aggregated in place, so a page is one query.
+     * total_count is the match count before LIMIT/OFFSET.
+     */
+    private static final String IDENTITY_SUMMARY_SELECT = """
+            SELECT i.identity_id, i.display_name, i.display_short, i.email, i.username,
+                   i.is_active, i.last_seen_at, i.created_at,
+                   (SELECT string_agg(r.name, ',' ORDER BY r.name)
+                    FROM iam.identity_role ir
+                    JOIN iam.role r ON r.role_id = ir.role_id
+                    WHERE ir.identity_id = i.identity_id
+                      AND (ir.effective_to IS NULL OR ir.effective_to > now())) AS role_names,
+                   count(*) OVER () AS total_count
+            FROM iam.identity i
+            """;
+
     private final IdentityRepository identityRepository;
     private final RoleRepository roleRepository;
-    private final PermissionRepository permissionRepository;
+    private final RolePermissionMatrix rolePermissionMatrix;
     private final IdpGroupMappingRepository idpGroupMappingRepository;
     private final AuditEventRepository auditEventRepository;
     private final BreakGlassGrantRepository breakGlassGrantRepository;
@@ -31,11 +52,15 @@ public class AdminService {
     private final UserFeedbackRepository userFeedbackRepository;
     private final AuthzPermissionService authzPermissionService;
     private final AuthAuditService authAuditService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ActiveGrantRegistry activeGrantRegistry;
+    private final DashboardStatsService dashboardStatsService;
+    private final JdbcTemplate jdbcTemplate;
 
     public AdminService(
             IdentityRepository identityRepository,
             RoleRepository roleRepository,
-            PermissionRepository permissionRepository,
+            RolePermissionMatrix rolePermissionMatrix,
             IdpGroupMappingRepository idpGroupMappingRepository,
             AuditEventRepository auditEventRepository,
             BreakGlassGrantRepository breakGlassGrantRepository,
@@ -43,10 +68,14 @@ public class AdminService {
             SessionDeviceRepository sessionDeviceRepository,
             UserFeedbackRepository userFeedbackRepository,
             AuthzPermissionService authzPermissionService,
-            AuthAuditService authAuditService) {
+            AuthAuditService authAuditService,
+            ApplicationEventPublisher eventPublisher,
+            ActiveGrantRegistry activeGrantRegistry,
+            DashboardStatsService dashboardStatsService,
+            JdbcTemplate jdbcTemplate) {
         this.identityRepository = identityRepository;
         this.roleRepository = roleRepository;
-        this.permissionRepository = permissionRepository;
+        this.rolePermissionMatrix = rolePermissionMatrix;
         this.idpGroupMappingRepository = idpGroupMappingRepository;
         this.auditEventRepository = auditEventRepository;
         this.breakGlassGrantRepository = breakGlassGrantRepository;
@@ -55,6 +84,10 @@ public class AdminService {
         this.userFeedbackRepository = userFeedbackRepository;
         this.authzPermissionService = authzPermissionService;
         this.authAuditService = authAuditService;
+        this.eventPublisher = eventPublisher;
+        this.activeGrantRegistry = activeGrantRegistry;
+        this.dashboardStatsService = dashboardStatsService;
+        this.jdbcTemplate = jdbcTemplate;
     }
 
     // ── Identities ─────────────────────────────────────────────────
@@ -64,23 +97,47 @@ public class AdminService {
         authzPermissionService.requirePermission(actor, "ADMIN_USERS", "IDENTITY", null, "listIdentities");
         size = Math.max(1, Math.min(size, 100));
         page = Math.max(0, page);
-        Pageable pageable = PageRequest.of(page, size, Sort.by("displayName").ascending());
-        Page<IdentityEntity> result;
 
+        String where = "";
+        List<Object> params = new ArrayList<>();
         if (search != null && !search.isBlank()) {
-            result = identityRepository.searchByTerm(search.trim(), pageable);
+            where = " WHERE lower(i.email) LIKE ? OR lower(i.username) LIKE ? OR lower(i.display_name) LIKE ?";
+            String pattern = "%" + search.trim().toLowerCase(Locale.ROOT) + "%";
+            params.addAll(List.of(pattern, pattern, pattern));
         } else if (active != null) {
-            result = identityRepository.findByIsActive(active, pageable);
-        } else {
-            result = identityRepository.findAll(pageable);
+            where = " WHERE i.is_active = ?";
+            params.add(active);
         }
 
-        List<IdentitySummary> content = result.getContent().stream()
-                .map(this::toIdentitySummary)
-                .toList();
+        long[] total = { -1 };
+        List<Object> pageParams = new ArrayList<>(params);
+        pageParams.add(size);
+        pageParams.add((long) page * size);
+        List<IdentitySummary> content = jdbcTemplate.query(
+                IDENTITY_SUMMARY_SELECT + where + " ORDER BY i.display_name, i.identity_id LIMIT ? OFFSET ?",
+                (rs, rowNum) -> {
+                    total[0] = rs.getLong("total_count");
+                    String roleNames = rs.getString("role_names");
+                    return new IdentitySummary(
+                            rs.getObject("identity_id", UUID.class),
+                            rs.getString("display_name"),
+                            rs.getString("display_short"),
+                            rs.getString("email"),
+                            rs.getString("username"),
+                            rs.getBoolean("is_active"),
+                            roleNames != null ? List.of(roleNames.split(",")) : List.of(),
+                            rs.getObject("last_seen_at", OffsetDateTime.class),
+                            rs.getObject("created_at", OffsetDateTime.class));
+                },
+                pageParams.toArray());
+        if (total[0] < 0) {
+            // Empty page: the window count came back with no rows, so count separately
+            total[0] = page == 0 ? 0 : jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM iam.identity i" + where, Long.class, params.toArray());
+        }
 
-        return new PageResponse<>(content, result.getNumber(), result.getSize(),
-                result.getTotalElements(), result.getTotalPages());
+        int totalPages = (int) ((total[0] + size - 1) / size);
+        return new PageResponse<>(content, page, size, total[0], totalPages);
     }
 
     @Transactional(readOnly = true)
@@ -99,6 +156,7 @@ public class AdminService {
         entity.setActive(active);
         entity.setUpdatedAt(OffsetDateTime.now());
         identityRepository.save(entity);
+        eventPublisher.publishEvent(new IdentityChangedEvent(identityId));
 
         if (active) {
             authAuditService.recordIdentityActivated(actor, identityId);
@@ -120,6 +178,7 @@ public class AdminService {
         identity.getRoles().add(role);
         identity.setUpdatedAt(OffsetDateTime.now());
         identityRepository.save(identity);
+        eventPublisher.publishEvent(new IdentityChangedEvent(identityId));
 
         authAuditService.recordRoleAssigned(actor, roleId, role.getName(), "LOCAL_ADMIN");
     }
@@ -135,6 +194,7 @@ public class AdminService {
         identity.getRoles().removeIf(r -> r.getRoleId().equals(roleId));
         identity.setUpdatedAt(OffsetDateTime.now());
         identityRepository.save(identity);
+        eventPublisher.publishEvent(new IdentityChangedEvent(identityId));
 
         authAuditService.recordRoleRevoked(actor, roleId, role.getName(), "LOCAL_ADMIN");
     }
@@ -152,15 +212,10 @@ public class AdminService {
     @Transactional(readOnly = true)
     public List<RolePermissionRow> getRolePermissionMatrix(Identity actor) {
         authzPermissionService.requirePermission(actor, "ADMIN_USERS", "ROLE", null, "getRolePermissionMatrix");
-        List<RoleEntity> roles = roleRepository.findAll(Sort.by("name"));
-        return roles.stream().map(role -> {
-            List<String> permNames = permissionRepository
-                    .findPermissionNamesByRoleNames(List.of(role.getName()))
-                    .stream().sorted().toList();
-            return new RolePermissionRow(
-                    role.getRoleId(), role.getName(), role.getDescription(),
-                    role.isSystem(), permNames);
-        }).toList();
+        return rolePermissionMatrix.roles().stream()
+                .map(role -> new RolePermissionRow(
+                        role.roleId(), role.name(), role.description(), role.system(), role.permissions()))
+                .toList();
     }
 
     // ── IdP Mappings ───────────────────────────────────────────────
@@ -206,6 +261,7 @@ public class AdminService {
         }
 
         entity = idpGroupMappingRepository.save(entity);
+        eventPublisher.publishEvent(new UserRoleMapper.IdpMappingsChangedEvent());
 
         authAuditService.recordIdpMappingCreated(actor, entity.getIdpGroupId(),
                 request.groupName(), roleNames);
@@ -220,6 +276,7 @@ public class AdminService {
         IdpGroupMappingEntity entity = idpGroupMappingRepository.findById(mappingId)
                 .orElseThrow(() -> new IllegalStateException("IdP mapping not found: " + mappingId));
         idpGroupMappingRepository.delete(entity);
+        eventPublisher.publishEvent(new UserRoleMapper.IdpMappingsChangedEvent());
         authAuditService.recordIdpMappingDeleted(actor, mappingId, entity.getGroupName());
     }
 
@@ -272,8 +329,10 @@ public class AdminService {
     @Transactional(readOnly = true)
     public List<BreakGlassGrantSummary> listActiveBreakGlassGrants(Identity actor) {
         authzPermissionService.requirePermission(actor, "ADMIN_USERS", "BREAK_GLASS_GRANT", null, "listActiveBreakGlassGrants");
-        return breakGlassGrantRepository.findByRevokedAtIsNullAndExpiresAtAfter(OffsetDateTime.now())
-                .stream()
+        List<BreakGlassGrantEntity> grants = activeGrantRegistry.isFresh()
+                ? activeGrantRegistry.activeBreakGlassGrants()
+                : breakGlassGrantRepository.findByRevokedAtIsNullAndExpiresAtAfter(OffsetDateTime.now());
+        return grants.stream()
                 .map(g -> new BreakGlassGrantSummary(
                         g.getGrantId(), g.getIdentityId(), g.getScopeEntityType(),
                         g.getScopeEntityId(), g.getReasonCode(), g.getJustification(),
@@ -292,6 +351,7 @@ public class AdminService {
         grant.setRevokedByIdentityId(stored.map(IdentityEntity::getIdentityId).orElse(null));
         breakGlassGrantRepository.save(grant);
         authAuditService.recordBreakGlassRevoked(actor, grantId);
+        eventPublisher.publishEvent(new AccessChangedEvent(grant.getIdentityId()));
     }
 
     // ── Research Grants ────────────────────────────────────────────
@@ -299,8 +359,10 @@ public class AdminService {
     @Transactional(readOnly = true)
     public List<ResearchGrantSummary> listActiveResearchGrants(Identity actor) {
         authzPermissionService.requirePermission(actor, "ADMIN_USERS", "RESEARCH_GRANT", null, "listActiveResearchGrants");
-        return researchAccessGrantRepository.findByRevokedAtIsNullAndExpiresAtAfter(OffsetDateTime.now())
-                .stream()
+        List<ResearchAccessGrantEntity> grants = activeGrantRegistry.isFresh()
+                ? activeGrantRegistry.activeResearchGrants()
+                : researchAccessGrantRepository.findByRevokedAtIsNullAndExpiresAtAfter(OffsetDateTime.now());
+        return grants.stream()
                 .map(g -> new ResearchGrantSummary(
                         g.getGrantId(), g.getIdentityId(), g.getScopeType(),
                         g.getScopeEntityId(), g.getProtocolId(), g.getReason(),
@@ -322,6 +384,7 @@ public class AdminService {
         }
         researchAccessGrantRepository.save(grant);
         authAuditService.recordResearchGrantRevoked(actor, grantId, reason);
+        eventPublisher.publishEvent(new AccessChangedEvent(grant.getIdentityId()));
     }
 
     // ── Devices ────────────────────────────────────────────────────
@@ -352,22 +415,8 @@ public class AdminService {
 
     // ── Dashboard ──────────────────────────────────────────────────
 
-    @Transactional(readOnly = true)
     public DashboardSummary getDashboardSummary() {
-        long totalIdentities = identityRepository.count();
-        long activeIdentities = identityRepository.findByIsActive(true, PageRequest.of(0, 1)).getTotalElements();
-        long totalRoles = roleRepository.count();
-        long activeDevices = sessionDeviceRepository.countByRevokedAtIsNull();
-        long activeBG = breakGlassGrantRepository
-                .findByRevokedAtIsNullAndExpiresAtAfter(OffsetDateTime.now()).size();
-        long activeResearch = researchAccessGrantRepository
-                .findByRevokedAtIsNullAndExpiresAtAfter(OffsetDateTime.now()).size();
-
-        long pendingFeedback = userFeedbackRepository.countByStatus("pending");
-
-        return new DashboardSummary(
-                totalIdentities, activeIdentities, totalRoles,
-                activeDevices, activeBG, activeResearch, pendingFeedback);
+        return dashboardStatsService.current();
     }
 
     // ── Feedback ─────────────────────────────────────────────────
@@ -446,19 +495,6 @@ public class AdminService {
 
     // ── Mappers ────────────────────────────────────────────────────
 
-    private IdentitySummary toIdentitySummary(IdentityEntity entity) {
-        List<String> roleNames = entity.getRoles() == null ? List.of()
-                : entity.getRoles().stream()
-                        .map(RoleEntity::getName)
-                        .filter(n -> n != null && !n.isBlank())
-                        .sorted()
-                        .toList();
-        return new IdentitySummary(
-                entity.getIdentityId(), entity.getDisplayName(), entity.getDisplayShort(),
-                entity.getEmail(), entity.getUsername(), entity.isActive(),
-                roleNames, entity.getLastSeenAt(), entity.getCreatedAt());
-    }
-
     private IdentityDetail toIdentityDetail(IdentityEntity entity) {
         List<RoleSummary> roles = entity.getRoles() == null ? List.of()
                 : entity.getRoles().stream()
@@ -1,5 +1,7 @@
 package com.starling.auth.service;
 
+import com.starling.auth.dto.AnnotationDtos.AnnotationImportResult;
+import com.starling.auth.dto.AnnotationDtos.AnnotationSlideImport;
 import com.starling.auth.dto.ViewerEventDtos.ViewerEvent;
 import com.starling.auth.model.Identity;
 import com.starling.auth.model.db.AuditEventEntity;
@@ -15,6 +17,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 @Service
 public class AuthAuditService {
@@ -206,6 +209,56 @@ public class AuthAuditService {
         auditEventRepository.save(event);
     }
 
+    public void recordAnnotationCreated(Identity actor, UUID annotationId, String accession, String slideId) {
+        recordAnnotationEvent(actor, "VIEWER_ANNOTATION_CREATED", annotationId, accession, slideId);
+    }
+
+    public void recordAnnotationUpdated(Identity actor, UUID annotationId, String accession, String slideId) {
+        recordAnnotationEvent(actor, "VIEWER_ANNOTATION_UPDATED", annotationId, accession, slideId);
+    }
+
+    public void recordAnnotationDeleted(Identity actor, UUID annotationId, String accession, String slideId) {
+        recordAnnotationEvent(actor, "VIEWER_ANNOTATION_DELETED", annotationId, accession, slideId);
+    }
+
+    /** One event per bulk import, in place of an event per imported feature. */
+    public void recordAnnotationsImported(
+            Identity actor, UUID caseId, String accession, String format, AnnotationImportResult result) {
+        AuditEventEntity event = baseEvent(actor, "VIEWER_ANNOTATIONS_IMPORTED",
+                result.error() == null ? "SUCCESS" : "PARTIAL", null);
+        event.setTargetEntityType("CASE");
+        event.setTargetEntityId(caseId);
+        event.setDetails("Annotations imported: " + result.created() + " of " + result.received());
+        if (result.error() != null) {
+            event.setOutcomeReason(result.error());
+        }
+        Map<String, Object> meta = new HashMap<>();
+        meta.put("source", "auth-system");
+        meta.put("accessionNumber", accession);
+        meta.put("format", format);
+        meta.put("received", result.received());
+        meta.put("created", result.created());
+        meta.put("rejected", result.rejected());
+        meta.put("slides", result.slides().stream()
+                .collect(Collectors.toMap(AnnotationSlideImport::slideId, AnnotationSlideImport::created, Integer::sum)));
+        meta.put("durationMs", result.durationMs());
+        event.setMetadata(meta);
+        auditEventRepository.save(event);
+    }
+
+    private void recordAnnotationEvent(
+            Identity actor, String eventType, UUID annotationId, String accession, String slideId) {
+        AuditEventEntity event = baseEvent(actor, eventType, "SUCCESS", null);
+        event.setTargetEntityType("ANNOTATION");
+        event.setTargetEntityId(annotationId);
+        event.setMetadata(Map.of(
+                "source", "auth-system",
+                "accessionNumber", accession,
+                "slideId", slideId
+        ));
+        auditEventRepository.save(event);
+    }
+
     private AuditEventEntity baseEvent(Identity identity, String eventType, String outcome, HttpServletRequest request) {
         Optional<IdentityEntity> storedIdentity = identityRepository
                 .findByProviderIdAndExternalSubject(identity.getProviderId(), identity.getExternalSubject());
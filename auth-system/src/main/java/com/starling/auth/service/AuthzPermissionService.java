@@ -3,7 +3,6 @@ package com.starling.auth.service;
 import com.starling.auth.model.Identity;
 import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.IdentityRepository;
-import com.starling.auth.repository.PermissionRepository;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -13,40 +12,34 @@ import java.util.UUID;
 public class AuthzPermissionService {
 
     private final IdentityRepository identityRepository;
-    private final PermissionRepository permissionRepository;
+    private final RolePermissionMatrix rolePermissionMatrix;
     private final AuthAuditService authAuditService;
 
     public AuthzPermissionService(
             IdentityRepository identityRepository,
-            PermissionRepository permissionRepository,
+            RolePermissionMatrix rolePermissionMatrix,
             AuthAuditService authAuditService) {
         this.identityRepository = identityRepository;
-        this.permissionRepository = permissionRepository;
+        this.rolePermissionMatrix = rolePermissionMatrix;
         this.authAuditService = authAuditService;
     }
 
     public List<String> resolveRoleNames(UUID identityId) {
-        IdentityEntity entity = identityRepository.findById(identityId)
-                .orElseThrow(() -> new IllegalStateException("Identity not found"));
-        return entity.getRoles() == null
-                ? List.of()
-                : entity.getRoles().stream()
-                        .map(role -> role == null ? null : role.getName())
-                        .filter(name -> name != null && !name.isBlank())
-                        .distinct()
-                        .sorted()
-                        .toList();
+        List<String> roleNames = identityRepository.findActiveRoleNames(identityId);
+        if (roleNames.isEmpty() && !identityRepository.existsById(identityId)) {
+            throw new IllegalStateException("Identity not found");
+        }
+        return roleNames.stream()
+                .filter(name -> name != null && !name.isBlank())
+                .distinct()
+                .toList();
     }
 
     public List<String> resolvePermissionsForRoles(List<String> roleNames) {
         if (roleNames == null || roleNames.isEmpty()) {
             return List.of();
         }
-        return permissionRepository.findPermissionNamesByRoleNames(roleNames).stream()
-                .filter(name -> name != null && !name.isBlank())
-                .distinct()
-                .sorted()
-                .toList();
+        return rolePermissionMatrix.permissionsFor(roleNames);
     }
 
     public boolean hasPermission(Identity identity, String permission) {
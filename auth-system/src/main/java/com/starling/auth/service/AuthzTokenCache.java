@@ -0,0 +1,157 @@
+package com.starling.auth.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-identity cache of minted authz tokens for {@link AuthzTokenService}.
+ *
+ * A token is served until its refresh point (a fraction of its lifetime), after which the
+ * next caller mints a new one. A mint that started before an invalidation of its identity is
+ * returned to its caller but not cached, so roles read just before a change can never outlive
+ * it in the cache. Mints are stamped from a generation counter and each invalidation records
+ * its stamp per key and per identity, so one identity's change neither scans the cache nor
+ * discards other identities' mints. Recorded stamps are pruned on each eviction pass; mints
+ * that started before the last prune are simply not cached.
+ */
+final class AuthzTokenCache {
+
+    record Key(String providerId, String externalSubject) {
+    }
+
+    /** A minted token and when it should be replaced. */
+    record Entry(
+            Key key,
+            UUID identityId,
+            String authzVersion,
+            String tokenValue,
+            Instant expiresAt,
+            Instant refreshAt,
+            AtomicLong lastUsedMillis) {
+
+        boolean reusableAt(Instant now, String currentAuthzVersion) {
+            return now.isBefore(refreshAt) && authzVersion.equals(currentAuthzVersion);
+        }
+    }
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentMap<Key, Long> keyInvalidatedAt = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Long> identityInvalidatedAt = new ConcurrentHashMap<>();
+    private volatile long clearedAt;
+    private volatile long prunedAt;
+    private final int maxEntries;
+
+    AuthzTokenCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /** Refresh point at {@code refreshRatio} of the way from issue to expiry. */
+    static Instant refreshAt(Instant issuedAt, Instant expiresAt, double refreshRatio) {
+        long lifetimeMillis = Duration.between(issuedAt, expiresAt).toMillis();
+        return issuedAt.plusMillis((long) (lifetimeMillis * refreshRatio));
+    }
+
+    /** The cached token for {@code key} if it is still within its refresh window. */
+    Entry get(Key key, Instant now, String authzVersion) {
+        Entry entry = entries.get(key);
+        if (entry == null || !entry.reusableAt(now, authzVersion)) {
+            return null;
+        }
+        entry.lastUsedMillis().set(now.toEpochMilli());
+        return entry;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches {@code entry} unless its key or identity was invalidated since
+     * {@code generationAtStart}.
+     */
+    boolean put(Entry entry, long generationAtStart) {
+        if (invalidatedSince(entry, generationAtStart)) {
+            return false;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(entry.key())) {
+            return false;
+        }
+        entries.merge(entry.key(), entry,
+                (existing, minted) -> minted.expiresAt().isAfter(existing.expiresAt()) ? minted : existing);
+        // An invalidation that raced the merge must still win.
+        if (invalidatedSince(entry, generationAtStart)) {
+            entries.remove(entry.key(), entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the token of {@code key} and any other token of {@code identityId}. Pass a null
+     * key when it is unknown (the identity is gone); the identity's tokens are then found by a
+     * scan.
+     */
+    void invalidateIdentity(UUID identityId, Key key) {
+        long stamp = generation.incrementAndGet();
+        identityInvalidatedAt.merge(identityId, stamp, Math::max);
+        if (key != null) {
+            keyInvalidatedAt.merge(key, stamp, Math::max);
+            entries.remove(key);
+        } else {
+            entries.values().removeIf(entry -> entry.identityId().equals(identityId));
+        }
+    }
+
+    void invalidateAll() {
+        clearedAt = generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * Entries that will reach their refresh point within {@code lead} and were used within
+     * {@code idle}; tokens nobody is asking for are left to lapse.
+     */
+    List<Entry> dueForPremint(Instant now, Duration lead, Duration idle) {
+        Instant horizon = now.plus(lead);
+        long usedSince = now.minus(idle).toEpochMilli();
+        return entries.values().stream()
+                .filter(entry -> !horizon.isBefore(entry.refreshAt()))
+                .filter(entry -> entry.lastUsedMillis().get() >= usedSince)
+                .toList();
+    }
+
+    /** Drops expired tokens and tokens idle for longer than {@code idle}. */
+    int evict(Instant now, Duration idle) {
+        long usedSince = now.minus(idle).toEpochMilli();
+        int before = entries.size();
+        entries.values().removeIf(entry ->
+                !now.isBefore(entry.expiresAt()) || entry.lastUsedMillis().get() < usedSince);
+        pruneInvalidations();
+        return before - entries.size();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private boolean invalidatedSince(Entry entry, long generationAtStart) {
+        return clearedAt > generationAtStart
+                || prunedAt > generationAtStart
+                || keyInvalidatedAt.getOrDefault(entry.key(), 0L) > generationAtStart
+                || identityInvalidatedAt.getOrDefault(entry.identityId(), 0L) > generationAtStart;
+    }
+
+    private void pruneInvalidations() {
+        long mark = generation.get();
+        // Raise the floor first, so a mint the pruned stamps would have rejected stays rejected
+        prunedAt = mark;
+        keyInvalidatedAt.values().removeIf(stamp -> stamp <= mark);
+        identityInvalidatedAt.values().removeIf(stamp -> stamp <= mark);
+    }
+}
@@ -3,21 +3,60 @@ package com.starling.auth.service;
 import com.starling.auth.model.Identity;
 import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.service.AuthzTokenCache.Entry;
+import com.starling.auth.service.AuthzTokenCache.Key;
+import com.starling.auth.service.RolePermissionMatrix.RolePermissionsChangedEvent;
+import com.starling.auth.service.access.AccessChangedEvent;
+import com.starling.auth.service.access.AccessScopeService;
+import com.starling.auth.service.access.AccessScopeService.AccessScope;
+import com.starling.auth.service.access.ScopeSetCodec;
+import com.starling.auth.service.directory.IdentityChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.security.oauth2.jwt.JwtClaimsSet;
 import org.springframework.security.oauth2.jwt.JwtEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Mints the short-lived authz JWTs presented to the tile server.
+ *
+ * Tokens are cached per identity and reused until {@code starling.jwt.cache.refresh-ratio}
+ * of their lifetime has passed, so the many viewer windows refreshing tokens cost neither
+ * role lookups nor signatures. Cached tokens are dropped when an
+ * {@link IdentityChangedEvent} (role assignment, activation) commits, and are never served
+ * under a different authz version. Tokens still in use are re-minted in the background
+ * shortly before their refresh point.
+ *
+ * With {@code starling.jwt.scope.enabled=true} tokens also carry a {@code starling_scope}
+ * claim describing which cases and slides the holder may read (see {@link AccessScopeService}),
+ * so the tile server can decide per tile without calling back:
+ * <ul>
+ *   <li>{@code {"v":1,"all":true}}: every clinical case;</li>
+ *   <li>{@code {"v":1,"alg":"gcs-sha256","cases":..,"slides":..}}: the listed accession numbers
+ *       and slide ids, encoded by {@link ScopeSetCodec};</li>
+ *   <li>{@code {"v":1,"overflow":true}}: too many to embed, or a research cohort; ask
+ *       auth-system per request.</li>
+ * </ul>
+ * A scoped token never outlives the earliest grant it includes, and cached tokens are dropped
+ * when an {@link AccessChangedEvent} commits.
+ */
 @Service
 public class AuthzTokenService {
 
+    private static final Logger log = LoggerFactory.getLogger(AuthzTokenService.class);
+
     private final IdentityRepository identityRepository;
     private final AuthzPermissionService authzPermissionService;
     private final JwtEncoder jwtEncoder;
@@ -25,15 +64,32 @@ public class AuthzTokenService {
     private final String audience;
     private final String authzVersion;
     private final long ttlSeconds;
+    private final boolean cacheEnabled;
+    private final double refreshRatio;
+    private final Duration premintLead;
+    private final AuthzTokenCache cache;
+    private final AccessScopeService accessScopeService;
+    private final boolean scopeEnabled;
+    private final int scopeMaxEntries;
 
     public AuthzTokenService(
             IdentityRepository identityRepository,
             AuthzPermissionService authzPermissionService,
             JwtEncoder jwtEncoder,
+            AccessScopeService accessScopeService,
             @Value("${starling.jwt.issuer:starling}") String issuer,
             @Value("${starling.jwt.audience:starling-tile-server}") String audience,
             @Value("${starling.authz.version:2026.01.26+dev}") String authzVersion,
-            @Value("${starling.jwt.ttl-seconds:600}") long ttlSeconds) {
+            @Value("${starling.jwt.ttl-seconds:600}") long ttlSeconds,
+            @Value("${starling.jwt.cache.enabled:true}") boolean cacheEnabled,
+            @Value("${starling.jwt.cache.refresh-ratio:0.8}") double refreshRatio,
+            @Value("${starling.jwt.cache.premint-interval-ms:15000}") long premintIntervalMs,
+            @Value("${starling.jwt.cache.max-entries:10000}") int maxEntries,
+            @Value("${starling.jwt.scope.enabled:false}") boolean scopeEnabled,
+            @Value("${starling.jwt.scope.max-entries:500}") int scopeMaxEntries) {
+        if (refreshRatio <= 0 || refreshRatio > 1) {
+            throw new IllegalArgumentException("starling.jwt.cache.refresh-ratio must be in (0, 1]");
+        }
         this.identityRepository = identityRepository;
         this.authzPermissionService = authzPermissionService;
         this.jwtEncoder = jwtEncoder;
@@ -41,14 +97,104 @@ public class AuthzTokenService {
         this.audience = audience;
         this.authzVersion = authzVersion;
         this.ttlSeconds = ttlSeconds;
+        this.cacheEnabled = cacheEnabled;
+        this.refreshRatio = refreshRatio;
+        this.premintLead = Duration.ofMillis(premintIntervalMs);
+        this.cache = new AuthzTokenCache(maxEntries);
+        this.accessScopeService = accessScopeService;
+        this.scopeEnabled = scopeEnabled;
+        this.scopeMaxEntries = scopeMaxEntries;
     }
 
     public record TokenResponse(String accessToken, String tokenType, long expiresInSeconds, String starlingAuthzVersion) {
     }
 
     public TokenResponse mintToken(Identity identity) {
+        Key key = new Key(identity.getProviderId(), identity.getExternalSubject());
+        Instant now = Instant.now();
+        Entry entry = cacheEnabled ? cache.get(key, now, authzVersion) : null;
+        if (entry == null) {
+            entry = mint(key, now.toEpochMilli());
+        }
+        long expiresIn = Math.max(0, Duration.between(now, entry.expiresAt()).toSeconds());
+        return new TokenResponse(entry.tokenValue(), "Bearer", expiresIn, authzVersion);
+    }
+
+    /** Drops cached tokens after role or activation changes commit. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdentityChanged(IdentityChangedEvent event) {
+        if (event.identityId() != null) {
+            invalidate(event.identityId());
+        }
+    }
+
+    /** Drops cached tokens after case assignments or grants change, for scoped tokens. */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessChanged(AccessChangedEvent event) {
+        if (scopeEnabled && event.identityId() != null) {
+            invalidate(event.identityId());
+        }
+    }
+
+    /** Drops every cached token, e.g. after role permissions change. */
+    @EventListener(RolePermissionsChangedEvent.class)
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Re-mints tokens that are still in use and will reach their refresh point before the
+     * next run, and evicts the rest once they expire or go idle.
+     */
+    @Scheduled(
+            fixedDelayString = "${starling.jwt.cache.premint-interval-ms:15000}",
+            initialDelayString = "${starling.jwt.cache.premint-interval-ms:15000}")
+    public void premint() {
+        if (!cacheEnabled) {
+            return;
+        }
+        Instant now = Instant.now();
+        Duration idle = Duration.ofSeconds(ttlSeconds);
+        List<Entry> due = cache.dueForPremint(now, premintLead, idle);
+        int reminted = 0;
+        for (Entry entry : due) {
+            try {
+                mint(entry.key(), entry.lastUsedMillis().get());
+                reminted++;
+            } catch (RuntimeException e) {
+                log.warn("Background token mint failed for {}: {}", entry.key().externalSubject(), e.getMessage());
+            }
+        }
+        int evicted = cache.evict(now, idle);
+        if (reminted > 0 || evicted > 0) {
+            log.debug("Authz token cache: {} re-minted, {} evicted, {} cached", reminted, evicted, cache.size());
+        }
+    }
+
+    private void invalidate(UUID identityId) {
+        cache.invalidateIdentity(identityId, identityRepository.findById(identityId)
+                .map(entity -> new Key(entity.getProviderId(), entity.getExternalSubject()))
+                .orElse(null));
+    }
+
+    static Map<String, Object> scopeClaim(AccessScope scope, int maxEntries) {
+        if (scope.unrestricted()) {
+            return Map.of("v", 1, "all", true);
+        }
+        if (!scope.cohorts().isEmpty() || scope.caseAccessions().size() + scope.slideIds().size() > maxEntries) {
+            return Map.of("v", 1, "overflow", true);
+        }
+        return Map.of(
+                "v", 1,
+                "alg", ScopeSetCodec.ALGORITHM,
+                "cases", ScopeSetCodec.encode(scope.caseAccessions()),
+                "slides", ScopeSetCodec.encode(scope.slideIds()));
+    }
+
+    private Entry mint(Key key, long lastUsedMillis) {
+        long generation = cache.generation();
         IdentityEntity entity = identityRepository
-                .findByProviderIdAndExternalSubject(identity.getProviderId(), identity.getExternalSubject())
+                .findByProviderIdAndExternalSubject(key.providerId(), key.externalSubject())
                 .orElseThrow(() -> new IllegalStateException("Identity not found for token issuance"));
 
         List<String> roleNames = authzPermissionService.resolveRoleNames(entity.getIdentityId());
@@ -57,19 +203,30 @@ public class AuthzTokenService {
         Instant now = Instant.now();
         Instant expiresAt = now.plusSeconds(ttlSeconds);
 
-        JwtClaimsSet claims = JwtClaimsSet.builder()
+        JwtClaimsSet.Builder claims = JwtClaimsSet.builder()
                 .issuer(issuer)
                 .audience(List.of(audience))
-                .subject(identity.getExternalSubject())
+                .subject(key.externalSubject())
                 .issuedAt(now)
-                .expiresAt(expiresAt)
                 .claim("roles", roleNames)
                 .claim("permissions", permissions)
-                .claim("starling_authz_version", authzVersion)
-                .build();
+                .claim("starling_authz_version", authzVersion);
+        if (scopeEnabled) {
+            AccessScope scope = accessScopeService.resolve(entity.getIdentityId(), permissions);
+            if (scope.validUntil() != null && scope.validUntil().isBefore(expiresAt)) {
+                expiresAt = scope.validUntil();
+            }
+            claims.claim("starling_scope", scopeClaim(scope, scopeMaxEntries));
+        }
+        claims.expiresAt(expiresAt);
 
-        Jwt jwt = jwtEncoder.encode(org.springframework.security.oauth2.jwt.JwtEncoderParameters.from(claims));
+        Jwt jwt = jwtEncoder.encode(org.springframework.security.oauth2.jwt.JwtEncoderParameters.from(claims.build()));
 
-        return new TokenResponse(jwt.getTokenValue(), "Bearer", ttlSeconds, authzVersion);
+        Entry entry = new Entry(key, entity.getIdentityId(), authzVersion, jwt.getTokenValue(), expiresAt,
+                AuthzTokenCache.refreshAt(now, expiresAt, refreshRatio), new AtomicLong(lastUsedMillis));
+        if (cacheEnabled) {
+            cache.put(entry, generation);
+        }
+        return entry;
     }
 }
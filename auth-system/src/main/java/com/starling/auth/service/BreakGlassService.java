@@ -5,7 +5,9 @@ import com.starling.auth.model.db.BreakGlassGrantEntity;
 import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.BreakGlassGrantRepository;
 import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.service.access.AccessChangedEvent;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
@@ -20,6 +22,7 @@ public class BreakGlassService {
     private final IdentityRepository identityRepository;
     private final AuthzPermissionService authzPermissionService;
     private final AuthAuditService authAuditService;
+    private final ApplicationEventPublisher eventPublisher;
     private final long defaultTtlHours;
 
     public BreakGlassService(
@@ -27,11 +30,13 @@ public class BreakGlassService {
             IdentityRepository identityRepository,
             AuthzPermissionService authzPermissionService,
             AuthAuditService authAuditService,
+            ApplicationEventPublisher eventPublisher,
             @Value("${starling.break-glass.ttl-hours:24}") long defaultTtlHours) {
         this.breakGlassGrantRepository = breakGlassGrantRepository;
         this.identityRepository = identityRepository;
         this.authzPermissionService = authzPermissionService;
         this.authAuditService = authAuditService;
+        this.eventPublisher = eventPublisher;
         this.defaultTtlHours = defaultTtlHours;
     }
 
@@ -67,6 +72,7 @@ public class BreakGlassService {
 
         BreakGlassGrantEntity saved = breakGlassGrantRepository.save(grant);
         authAuditService.recordBreakGlassInvoked(identity, saved.getGrantId(), scopeEntityType, scopeEntityId, reasonCode);
+        eventPublisher.publishEvent(new AccessChangedEvent(identityId));
         return saved;
     }
 
@@ -90,6 +96,7 @@ public class BreakGlassService {
         grant.setRevokedByIdentityId(identityId);
         BreakGlassGrantEntity saved = breakGlassGrantRepository.save(grant);
         authAuditService.recordBreakGlassRevoked(identity, grantId);
+        eventPublisher.publishEvent(new AccessChangedEvent(grant.getIdentityId()));
         return saved;
     }
 
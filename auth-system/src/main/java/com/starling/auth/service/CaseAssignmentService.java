@@ -9,6 +9,8 @@ import com.starling.auth.repository.CasePathologistRepository;
 import com.starling.auth.repository.CaseRepository;
 import com.starling.auth.repository.IdentityRepository;
 import com.starling.auth.repository.WorklistRepository;
+import com.starling.auth.service.access.AccessChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -31,16 +33,19 @@ public class CaseAssignmentService {
     private final CaseRepository caseRepository;
     private final IdentityRepository identityRepository;
     private final WorklistRepository worklistRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     public CaseAssignmentService(
             CasePathologistRepository casePathologistRepository,
             CaseRepository caseRepository,
             IdentityRepository identityRepository,
-            WorklistRepository worklistRepository) {
+            WorklistRepository worklistRepository,
+            ApplicationEventPublisher eventPublisher) {
         this.casePathologistRepository = casePathologistRepository;
         this.caseRepository = caseRepository;
         this.identityRepository = identityRepository;
         this.worklistRepository = worklistRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     @Transactional
@@ -83,6 +88,7 @@ public class CaseAssignmentService {
                 .build();
 
         entity = casePathologistRepository.save(entity);
+        eventPublisher.publishEvent(new AccessChangedEvent(request.identityId()));
 
         if ("PRIMARY".equals(designation)) {
             syncWorklistPrimary(caseEntity.getCaseId(), identity.getIdentityId(), identity.getDisplayName());
@@ -99,6 +105,7 @@ public class CaseAssignmentService {
         boolean wasPrimary = "PRIMARY".equals(assignment.getDesignation());
 
         casePathologistRepository.delete(assignment);
+        eventPublisher.publishEvent(new AccessChangedEvent(identityId));
 
         if (wasPrimary) {
             CaseEntity caseEntity = caseRepository.findById(caseId).orElse(null);
@@ -145,6 +152,7 @@ public class CaseAssignmentService {
                 });
 
         syncWorklistPrimary(caseEntity.getCaseId(), newIdentity.getIdentityId(), newIdentity.getDisplayName());
+        eventPublisher.publishEvent(new AccessChangedEvent(newIdentityId));
 
         return toResponse(entity, caseEntity, newIdentity);
     }
@@ -14,19 +14,19 @@ public class CustomOidcUserService extends OidcUserService {
 
     private final UserRoleMapper userRoleMapper;
     private final com.starling.auth.repository.IdentityRepository identityRepository;
-    private final com.starling.auth.repository.RoleRepository roleRepository;
     private final AuthAuditService authAuditService;
+    private final org.springframework.context.ApplicationEventPublisher eventPublisher;
     private final String providerIdFallback;
 
     public CustomOidcUserService(UserRoleMapper userRoleMapper,
             com.starling.auth.repository.IdentityRepository identityRepository,
-            com.starling.auth.repository.RoleRepository roleRepository,
             AuthAuditService authAuditService,
+            org.springframework.context.ApplicationEventPublisher eventPublisher,
             @Value("${starling.oidc.provider-id:local-oidc}") String providerIdFallback) {
         this.userRoleMapper = userRoleMapper;
         this.identityRepository = identityRepository;
-        this.roleRepository = roleRepository;
         this.authAuditService = authAuditService;
+        this.eventPublisher = eventPublisher;
         this.providerIdFallback = providerIdFallback;
     }
 
@@ -59,6 +59,9 @@ public class CustomOidcUserService extends OidcUserService {
                     return com.starling.auth.model.db.IdentityEntity.builder().build();
                 });
 
+        boolean newIdentity = entity.getIdentityId() == null;
+        java.util.List<Object> searchableBefore = searchableFields(entity);
+
         if (entity.getProviderId() == null) {
             entity.setProviderId(providerId);
         }
@@ -120,10 +123,7 @@ public class CustomOidcUserService extends OidcUserService {
         if (entity.getRoles() != null) {
             existingRoles.addAll(entity.getRoles());
         }
-        java.util.Set<com.starling.auth.model.db.RoleEntity> dbRoles = new java.util.HashSet<>();
-        for (com.starling.auth.model.Role roleEnum : calculatedRoles) {
-            roleRepository.findByName(roleEnum.name()).ifPresent(dbRoles::add);
-        }
+        java.util.Set<com.starling.auth.model.db.RoleEntity> dbRoles = userRoleMapper.roleEntities(calculatedRoles);
         entity.setRoles(dbRoles);
 
         Identity auditIdentity = Identity.builder()
@@ -156,7 +156,13 @@ public class CustomOidcUserService extends OidcUserService {
             }
         }
 
-        identityRepository.save(entity);
+        entity = identityRepository.save(entity);
+        // Most logins change nothing but last_seen_at; only real changes invalidate caches
+        if (newIdentity || !existingRoleNames.equals(newRoleNames)
+                || !searchableBefore.equals(searchableFields(entity))) {
+            eventPublisher.publishEvent(
+                    new com.starling.auth.service.directory.IdentityChangedEvent(entity.getIdentityId()));
+        }
         log.info("Persisted identity for user: {}", email);
         authAuditService.recordLoginSuccess(auditIdentity);
 
@@ -190,6 +196,14 @@ public class CustomOidcUserService extends OidcUserService {
      * OIDC claims may contain Instant, URL, or other types that Hibernate's
      * internal Jackson ObjectMapper cannot serialize to JSONB.
      */
+    /** The fields whose change {@link com.starling.auth.service.directory.IdentityChangedEvent} reports, besides roles. */
+    private static java.util.List<Object> searchableFields(com.starling.auth.model.db.IdentityEntity entity) {
+        return java.util.Arrays.asList(
+                entity.getProviderId(), entity.getExternalSubject(), entity.isActive(),
+                entity.getDisplayName(), entity.getDisplayShort(), entity.getUsername(), entity.getEmail(),
+                entity.getGivenName(), entity.getFamilyName());
+    }
+
     private java.util.Map<String, Object> sanitizeAttributes(java.util.Map<String, Object> attributes) {
         if (attributes == null) return java.util.Collections.emptyMap();
         java.util.Map<String, Object> safe = new java.util.HashMap<>();
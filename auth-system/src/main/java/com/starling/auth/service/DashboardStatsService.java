@@ -0,0 +1,91 @@
+package com.starling.auth.service;
+
+import com.starling.auth.dto.AdminDtos.DashboardSummary;
+import com.starling.auth.service.access.ActiveGrantRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Admin dashboard counters, served from an in-memory snapshot.
+ *
+ * The snapshot is taken by one statement of filtered counts and refreshed every
+ * {@code starling.admin.dashboard.refresh-ms}, so dashboard polling never touches the
+ * database. Grant counts come from the {@link ActiveGrantRegistry} instead while it is fresh,
+ * since it tracks grant changes and expiries as they happen.
+ */
+@Service
+public class DashboardStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardStatsService.class);
+
+    private static final String STATS_SQL = """
+            SELECT i.total AS total_identities, i.active AS active_identities,
+                   r.total AS total_roles, d.active AS active_devices,
+                   bg.active AS active_break_glass, rg.active AS active_research,
+                   f.pending AS pending_feedback
+            FROM (SELECT count(*) AS total, count(*) FILTER (WHERE is_active) AS active
+                  FROM iam.identity) i,
+                 (SELECT count(*) AS total FROM iam.role) r,
+                 (SELECT count(*) FILTER (WHERE revoked_at IS NULL) AS active
+                  FROM iam.session_device) d,
+                 (SELECT count(*) FILTER (WHERE revoked_at IS NULL AND expires_at > now()) AS active
+                  FROM iam.break_glass_grant) bg,
+                 (SELECT count(*) FILTER (WHERE revoked_at IS NULL AND expires_at > now()) AS active
+                  FROM iam.research_access_grant) rg,
+                 (SELECT count(*) FILTER (WHERE status = 'pending') AS pending
+                  FROM iam.user_feedback) f
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ActiveGrantRegistry activeGrantRegistry;
+
+    private volatile DashboardSummary snapshot;
+
+    public DashboardStatsService(JdbcTemplate jdbcTemplate, ActiveGrantRegistry activeGrantRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.activeGrantRegistry = activeGrantRegistry;
+    }
+
+    public DashboardSummary current() {
+        DashboardSummary current = snapshot;
+        if (current == null) {
+            current = load();
+        }
+        if (!activeGrantRegistry.isFresh()) {
+            return current;
+        }
+        return new DashboardSummary(
+                current.totalIdentities(), current.activeIdentities(), current.totalRoles(),
+                current.activeDevices(),
+                activeGrantRegistry.countActiveBreakGlassGrants(),
+                activeGrantRegistry.countActiveResearchGrants(),
+                current.pendingFeedback());
+    }
+
+    @Scheduled(
+            fixedDelayString = "${starling.admin.dashboard.refresh-ms:15000}",
+            initialDelayString = "${starling.admin.dashboard.refresh-ms:15000}")
+    public void refresh() {
+        try {
+            load();
+        } catch (RuntimeException e) {
+            log.warn("Dashboard stats refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private DashboardSummary load() {
+        DashboardSummary loaded = jdbcTemplate.queryForObject(STATS_SQL, (rs, rowNum) -> new DashboardSummary(
+                rs.getLong("total_identities"),
+                rs.getLong("active_identities"),
+                rs.getLong("total_roles"),
+                rs.getLong("active_devices"),
+                rs.getLong("active_break_glass"),
+                rs.getLong("active_research"),
+                rs.getLong("pending_feedback")));
+        snapshot = loaded;
+        return loaded;
+    }
+}
@@ -7,6 +7,7 @@ import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.EduCaseCuratorRepository;
 import com.starling.auth.repository.EduCaseRepository;
 import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.repository.jdbc.EduCaseListItemRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,20 +21,22 @@ public class EduCaseService {
     private final EduCaseCuratorRepository curatorRepository;
     private final IdentityRepository identityRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final EduCaseListItemRowMapper eduCaseListItemRowMapper;
 
     public EduCaseService(
             EduCaseRepository eduCaseRepository,
             EduCaseCuratorRepository curatorRepository,
             IdentityRepository identityRepository,
-            JdbcTemplate jdbcTemplate) {
+            JdbcTemplate jdbcTemplate,
+            EduCaseListItemRowMapper eduCaseListItemRowMapper) {
         this.eduCaseRepository = eduCaseRepository;
         this.curatorRepository = curatorRepository;
         this.identityRepository = identityRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.eduCaseListItemRowMapper = eduCaseListItemRowMapper;
     }
 
     @Transactional(readOnly = true)
-    @SuppressWarnings("unchecked")
     public EduPageResponse<EduCaseListItem> listCases(EduSearchRequest request) {
         int pageSize = request.effectivePageSize();
         int offset = request.effectivePage() * pageSize;
@@ -104,6 +107,9 @@ public class EduCaseService {
                 SELECT c.id, c.case_id, c.status, c.specimen_type, c.metadata,
                        (SELECT p.anatomic_site FROM wsi_edu.parts p WHERE p.case_id = c.id LIMIT 1) AS anatomic_site,
                        (SELECT p.final_diagnosis FROM wsi_edu.parts p WHERE p.case_id = c.id LIMIT 1) AS primary_diagnosis,
+                       (SELECT i.display_name FROM wsi_edu.case_curators cc
+                        JOIN iam.identity i ON i.identity_id = cc.identity_id
+                        WHERE cc.case_id = c.id AND cc.role = 'PRIMARY_CURATOR') AS primary_curator_display,
                        (SELECT COUNT(*) FROM wsi_edu.slides s
                         JOIN wsi_edu.blocks b ON s.block_id = b.id
                         JOIN wsi_edu.parts p ON b.part_id = p.id
@@ -113,32 +119,7 @@ public class EduCaseService {
         params.add(pageSize);
         params.add(offset);
 
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql, params.toArray());
-
-        List<EduCaseListItem> items = rows.stream().map(row -> {
-            UUID caseUuid = (UUID) row.get("id");
-            Map<String, Object> metadata = parseJsonb(row.get("metadata"));
-
-            // Look up primary curator display
-            String primaryCuratorDisplay = curatorRepository.findByCaseIdAndRole(caseUuid, "PRIMARY_CURATOR")
-                    .map(cc -> identityRepository.findById(cc.getIdentityId())
-                            .map(IdentityEntity::getDisplayName)
-                            .orElse(null))
-                    .orElse(null);
-
-            return new EduCaseListItem(
-                    caseUuid,
-                    (String) row.get("case_id"),
-                    (String) row.get("status"),
-                    (String) row.get("specimen_type"),
-                    (String) row.get("anatomic_site"),
-                    (String) row.get("primary_diagnosis"),
-                    primaryCuratorDisplay,
-                    ((Number) row.get("slide_count")).intValue(),
-                    metadata != null ? (String) metadata.get("teaching_category") : null,
-                    metadata != null ? (String) metadata.get("difficulty_level") : null,
-                    metadata != null ? (List<String>) metadata.get("curriculum_tags") : null);
-        }).toList();
+        List<EduCaseListItem> items = jdbcTemplate.query(sql, eduCaseListItemRowMapper, params.toArray());
 
         int totalPages = (int) Math.ceil((double) totalItems / pageSize);
 
@@ -299,19 +280,4 @@ public class EduCaseService {
 
         return new EduFacetCounts(byAnatomicSite, bySpecimenType, byDifficulty, byStain);
     }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> parseJsonb(Object jsonbValue) {
-        if (jsonbValue instanceof Map) {
-            return (Map<String, Object>) jsonbValue;
-        }
-        if (jsonbValue instanceof String str) {
-            try {
-                return new com.fasterxml.jackson.databind.ObjectMapper().readValue(str, Map.class);
-            } catch (Exception e) {
-                return Map.of();
-            }
-        }
-        return Map.of();
-    }
 }
@@ -5,10 +5,13 @@ import com.starling.auth.model.db.EduNamedCollectionEntity;
 import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.EduNamedCollectionRepository;
 import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.repository.jdbc.EduCaseListItemRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
 import java.util.*;
 
 @Service
@@ -17,36 +20,80 @@ public class EduCollectionService {
     private final EduNamedCollectionRepository collectionRepository;
     private final IdentityRepository identityRepository;
     private final JdbcTemplate jdbcTemplate;
+    private final EduCaseListItemRowMapper eduCaseListItemRowMapper;
 
     public EduCollectionService(
             EduNamedCollectionRepository collectionRepository,
             IdentityRepository identityRepository,
-            JdbcTemplate jdbcTemplate) {
+            JdbcTemplate jdbcTemplate,
+            EduCaseListItemRowMapper eduCaseListItemRowMapper) {
         this.collectionRepository = collectionRepository;
         this.identityRepository = identityRepository;
         this.jdbcTemplate = jdbcTemplate;
+        this.eduCaseListItemRowMapper = eduCaseListItemRowMapper;
     }
 
+    /**
+     * Lists collections visible to the user (owned + DEPARTMENT + INSTITUTION), newest first.
+     * Visibility, owner display name and case counts are resolved in a single query;
+     * pagination is keyset-based on (created_at, id) so deep pages stay index-bound.
+     */
     @Transactional(readOnly = true)
-    public List<EduNamedCollectionResponse> listCollections(UUID userId) {
-        // Show owned + DEPARTMENT + INSTITUTION visibility
-        List<EduNamedCollectionEntity> collections;
+    public EduNamedCollectionPage listCollections(UUID userId, String cursor, int pageSize) {
+        StringBuilder where = new StringBuilder();
+        List<Object> params = new ArrayList<>();
+
         if (userId != null) {
-            // Get collections the user can see
-            collections = collectionRepository.findAll().stream()
-                    .filter(c -> c.getOwnerId().equals(userId)
-                            || "DEPARTMENT".equals(c.getVisibility())
-                            || "INSTITUTION".equals(c.getVisibility()))
-                    .toList();
+            where.append("WHERE (nc.owner_id = ?::uuid OR nc.visibility IN ('DEPARTMENT', 'INSTITUTION'))");
+            params.add(userId.toString());
         } else {
-            collections = collectionRepository.findByVisibilityIn(List.of("DEPARTMENT", "INSTITUTION"));
+            where.append("WHERE nc.visibility IN ('DEPARTMENT', 'INSTITUTION')");
+        }
+
+        if (cursor != null && !cursor.isBlank()) {
+            CollectionCursor after = CollectionCursor.decode(cursor);
+            where.append(" AND (nc.created_at, nc.id) < (?, ?::uuid)");
+            params.add(after.createdAt());
+            params.add(after.id().toString());
         }
 
-        return collections.stream().map(this::toResponse).toList();
+        String sql = """
+                SELECT nc.id, nc.name, nc.description, nc.owner_id, nc.visibility, nc.created_at,
+                       i.display_name AS owner_display,
+                       cc.case_count
+                FROM wsi_edu.named_collections nc
+                LEFT JOIN iam.identity i ON i.identity_id = nc.owner_id
+                CROSS JOIN LATERAL (
+                    SELECT COUNT(*) AS case_count
+                    FROM wsi_edu.collection_cases c
+                    WHERE c.collection_id = nc.id) cc
+                """ + where + " ORDER BY nc.created_at DESC, nc.id DESC LIMIT ?";
+        // Fetch one extra row to learn whether another page exists
+        params.add(pageSize + 1);
+
+        List<EduNamedCollectionResponse> rows = jdbcTemplate.query(sql, (rs, rowNum) ->
+                new EduNamedCollectionResponse(
+                        rs.getObject("id", UUID.class),
+                        rs.getString("name"),
+                        rs.getString("description"),
+                        rs.getObject("owner_id", UUID.class),
+                        rs.getString("owner_display"),
+                        rs.getString("visibility"),
+                        rs.getInt("case_count"),
+                        rs.getObject("created_at", OffsetDateTime.class)),
+                params.toArray());
+
+        if (rows.size() <= pageSize) {
+            return new EduNamedCollectionPage(rows, null);
+        }
+        List<EduNamedCollectionResponse> page = rows.subList(0, pageSize);
+        EduNamedCollectionResponse last = page.getLast();
+        return new EduNamedCollectionPage(
+                List.copyOf(page),
+                new CollectionCursor(last.createdAt(), last.id()).encode());
     }
 
     @Transactional(readOnly = true)
-    @SuppressWarnings("unchecked")
     public EduNamedCollectionDetail getCollectionDetail(UUID collectionId) {
         EduNamedCollectionEntity entity = collectionRepository.findById(collectionId).orElse(null);
         if (entity == null) return null;
@@ -56,10 +103,11 @@ public class EduCollectionService {
                 .orElse(null);
 
         // Get member cases ordered by sequence
-        List<Map<String, Object>> caseRows = jdbcTemplate.queryForList("""
+        List<EduCaseListItem> cases = jdbcTemplate.query("""
                 SELECT c.id, c.case_id, c.status, c.specimen_type, c.metadata,
                        (SELECT p.anatomic_site FROM wsi_edu.parts p WHERE p.case_id = c.id LIMIT 1) AS anatomic_site,
                        (SELECT p.final_diagnosis FROM wsi_edu.parts p WHERE p.case_id = c.id LIMIT 1) AS primary_diagnosis,
+                       NULL AS primary_curator_display,
                        (SELECT COUNT(*) FROM wsi_edu.slides s
                         JOIN wsi_edu.blocks b ON s.block_id = b.id
                         JOIN wsi_edu.parts p ON b.part_id = p.id
@@ -68,23 +116,7 @@ public class EduCollectionService {
                 JOIN wsi_edu.collection_cases cc ON c.id = cc.case_id
                 WHERE cc.collection_id = ?::uuid
                 ORDER BY cc.sequence, c.case_id
-                """, collectionId.toString());
-
-        List<EduCaseListItem> cases = caseRows.stream().map(row -> {
-            Map<String, Object> metadata = parseJsonb(row.get("metadata"));
-            return new EduCaseListItem(
-                    (UUID) row.get("id"),
-                    (String) row.get("case_id"),
-                    (String) row.get("status"),
-                    (String) row.get("specimen_type"),
-                    (String) row.get("anatomic_site"),
-                    (String) row.get("primary_diagnosis"),
-                    null,
-                    ((Number) row.get("slide_count")).intValue(),
-                    metadata != null ? (String) metadata.get("teaching_category") : null,
-                    metadata != null ? (String) metadata.get("difficulty_level") : null,
-                    metadata != null ? (List<String>) metadata.get("curriculum_tags") : null);
-        }).toList();
+                """, eduCaseListItemRowMapper, collectionId.toString());
 
         return new EduNamedCollectionDetail(
                 entity.getId(),
@@ -96,39 +128,27 @@ public class EduCollectionService {
                 entity.getCreatedAt());
     }
 
-    private EduNamedCollectionResponse toResponse(EduNamedCollectionEntity entity) {
-        String ownerDisplay = identityRepository.findById(entity.getOwnerId())
-                .map(IdentityEntity::getDisplayName)
-                .orElse(null);
+    /**
+     * Opaque keyset cursor: URL-safe base64 of "{created_at}|{id}" for the last row of a page.
+     */
+    private record CollectionCursor(OffsetDateTime createdAt, UUID id) {
 
-        int caseCount = jdbcTemplate.queryForObject(
-                "SELECT COUNT(*) FROM wsi_edu.collection_cases WHERE collection_id = ?::uuid",
-                Integer.class,
-                entity.getId().toString());
-
-        return new EduNamedCollectionResponse(
-                entity.getId(),
-                entity.getName(),
-                entity.getDescription(),
-                entity.getOwnerId(),
-                ownerDisplay,
-                entity.getVisibility(),
-                caseCount,
-                entity.getCreatedAt());
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> parseJsonb(Object jsonbValue) {
-        if (jsonbValue instanceof Map) {
-            return (Map<String, Object>) jsonbValue;
+        String encode() {
+            String raw = createdAt.toString() + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
         }
-        if (jsonbValue instanceof String str) {
+
+        static CollectionCursor decode(String cursor) {
             try {
-                return new com.fasterxml.jackson.databind.ObjectMapper().readValue(str, Map.class);
-            } catch (Exception e) {
-                return Map.of();
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new CollectionCursor(
+                        OffsetDateTime.parse(raw.substring(0, sep)),
+                        UUID.fromString(raw.substring(sep + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid collection cursor");
             }
         }
-        return Map.of();
     }
 }
@@ -0,0 +1,80 @@
+package com.starling.auth.service;
+
+import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.service.directory.IdentityDirectory;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Ranked identity search for suggest boxes (pathologist assignment, OmniSearch).
+ *
+ * Active filtering, ranking and the limit are applied in SQL, so a page is never short
+ * because of rows dropped after the fact. Terms shorter than three characters cannot use
+ * trigrams and take the prefix-only path.
+ *
+ * When the optional in-process {@link IdentityDirectory} is enabled and fresh, the same
+ * prefix, word-prefix and substring matches are served from memory instead; SQL is used
+ * whenever it is stale.
+ */
+@Service
+public class IdentitySearchService {
+
+    static final int MIN_TRIGRAM_TERM_LENGTH = 3;
+
+    private final IdentityRepository identityRepository;
+    private final IdentityDirectory identityDirectory;
+
+    public IdentitySearchService(IdentityRepository identityRepository, IdentityDirectory identityDirectory) {
+        this.identityRepository = identityRepository;
+        this.identityDirectory = identityDirectory;
+    }
+
+    public record IdentitySearchResult(
+            UUID identityId,
+            String displayName,
+            String displayShort,
+            String email,
+            List<String> roles) {
+    }
+
+    public List<IdentitySearchResult> search(String query, int limit) {
+        if (query == null || query.isBlank()) {
+            return List.of();
+        }
+        if (identityDirectory.isFresh()) {
+            return identityDirectory.search(query, limit).stream()
+                    .map(e -> new IdentitySearchResult(
+                            e.identityId(), e.displayName(), e.displayShort(), e.email(), e.roles()))
+                    .toList();
+        }
+
+        String term = escapeLike(query.trim().toLowerCase(Locale.ROOT));
+
+        List<Object[]> rows = query.trim().length() < MIN_TRIGRAM_TERM_LENGTH
+                ? identityRepository.suggestByPrefix(term + "%", limit)
+                : identityRepository.suggestBySubstring("%" + term + "%", term + "%", "% " + term + "%", limit);
+
+        return rows.stream().map(IdentitySearchService::toResult).toList();
+    }
+
+    private static IdentitySearchResult toResult(Object[] row) {
+        String roleNames = (String) row[4];
+        return new IdentitySearchResult(
+                (UUID) row[0],
+                (String) row[1],
+                (String) row[2],
+                (String) row[3],
+                roleNames != null && !roleNames.isBlank()
+                        ? Arrays.asList(roleNames.split(","))
+                        : List.of());
+    }
+
+    /** Escapes LIKE metacharacters so user input is matched literally (default escape is '\'). */
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
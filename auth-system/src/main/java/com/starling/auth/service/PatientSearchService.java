@@ -0,0 +1,221 @@
+package com.starling.auth.service;
+
+import com.starling.auth.dto.PatientDtos.PatientMatchType;
+import com.starling.auth.dto.PatientDtos.PatientSearchResult;
+import com.starling.auth.model.Identity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Ranked master patient index search (OmniSearch, case linking).
+ *
+ * A term that looks like an MRN is first tried as an exact match on the unique MRN index.
+ * A date token in the query (or an explicit {@code dob}) qualifies the lookup by date of
+ * birth. Multi-word queries go through the V7 full-text index on display_name; single terms
+ * use the V16 trigram index, or the prefix indexes when they are too short for trigrams.
+ * Ranking, the active filter and the limit are all applied in SQL.
+ */
+@Service
+public class PatientSearchService {
+
+    static final int MIN_TRIGRAM_TERM_LENGTH = 3;
+
+    private static final DateTimeFormatter US_DATE = DateTimeFormatter.ofPattern("M/d/uuuu");
+
+    private static final String SELECT_COLUMNS = """
+            SELECT p.id, p.mrn, p.display_name, p.given_name, p.family_name, p.dob, p.sex, p.is_test_patient
+            """;
+
+    /** Must match the expression of ix_core_patients_search_trgm. */
+    private static final String SEARCH_EXPRESSION =
+            "lower(p.mrn || ' ' || p.display_name || ' ' || p.family_name || ' ' || p.given_name)";
+
+    private static final String RANK_EXPRESSION = """
+            CASE
+                WHEN lower(p.mrn) = ? THEN 0
+                WHEN lower(p.mrn) LIKE ? OR lower(p.family_name) LIKE ? THEN 1
+                WHEN lower(p.given_name) LIKE ? OR lower(p.display_name) LIKE ?
+                     OR lower(p.display_name) LIKE ? THEN 2
+                ELSE 3
+            END
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final AuthzPermissionService authzPermissionService;
+
+    public PatientSearchService(JdbcTemplate jdbcTemplate, AuthzPermissionService authzPermissionService) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.authzPermissionService = authzPermissionService;
+    }
+
+    public List<PatientSearchResult> search(Identity actor, String query, LocalDate dob, int limit) {
+        authzPermissionService.requirePermission(actor, "CASE_VIEW", "PATIENT", null, "searchPatients");
+
+        ParsedQuery parsed = ParsedQuery.parse(query, dob);
+        if (parsed.terms().isEmpty() && parsed.dob() == null) {
+            return List.of();
+        }
+
+        if (parsed.terms().size() == 1 && looksLikeMrn(parsed.terms().getFirst())) {
+            List<PatientSearchResult> exact = findByExactMrn(parsed.terms().getFirst(), parsed.dob());
+            if (!exact.isEmpty()) {
+                return exact;
+            }
+        }
+
+        return findRanked(parsed, limit);
+    }
+
+    private List<PatientSearchResult> findByExactMrn(String mrn, LocalDate dob) {
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS)
+                .append(", 0 AS match_rank FROM core.patients p WHERE p.mrn = ? AND p.is_active = true");
+        List<Object> params = new ArrayList<>();
+        params.add(mrn);
+        if (dob != null) {
+            sql.append(" AND p.dob = ?");
+            params.add(Date.valueOf(dob));
+        }
+        return jdbcTemplate.query(sql.toString(), PatientSearchService::mapRow, params.toArray());
+    }
+
+    private List<PatientSearchResult> findRanked(ParsedQuery parsed, int limit) {
+        List<Object> params = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(SELECT_COLUMNS);
+
+        if (parsed.terms().isEmpty()) {
+            sql.append(", 3 AS match_rank");
+        } else {
+            String lowered = parsed.terms().getFirst().toLowerCase(Locale.ROOT);
+            String term = escapeLike(lowered);
+            sql.append(", ").append(RANK_EXPRESSION).append(" AS match_rank");
+            // The equality is not a LIKE, so it takes the term unescaped
+            params.add(lowered);
+            params.add(term + "%");
+            params.add(term + "%");
+            params.add(term + "%");
+            params.add(term + "%");
+            params.add("% " + term + "%");
+        }
+
+        sql.append(" FROM core.patients p WHERE p.is_active = true");
+
+        if (parsed.dob() != null) {
+            sql.append(" AND p.dob = ?");
+            params.add(Date.valueOf(parsed.dob()));
+        }
+
+        if (parsed.terms().size() > 1) {
+            String tsQuery = toPrefixTsQuery(parsed.terms());
+            if (tsQuery.isEmpty()) {
+                return List.of();
+            }
+            sql.append(" AND to_tsvector('simple', coalesce(p.display_name, '')) @@ to_tsquery('simple', ?)");
+            params.add(tsQuery);
+        } else if (parsed.terms().size() == 1) {
+            String term = escapeLike(parsed.terms().getFirst().toLowerCase(Locale.ROOT));
+            if (parsed.terms().getFirst().length() < MIN_TRIGRAM_TERM_LENGTH) {
+                sql.append(" AND (lower(p.mrn) LIKE ? OR lower(p.family_name) LIKE ? OR lower(p.given_name) LIKE ?)");
+                params.add(term + "%");
+                params.add(term + "%");
+                params.add(term + "%");
+            } else {
+                sql.append(" AND ").append(SEARCH_EXPRESSION).append(" LIKE ?");
+                params.add("%" + term + "%");
+            }
+        }
+
+        sql.append(" ORDER BY match_rank, p.family_name, p.given_name, p.dob LIMIT ?");
+        params.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), PatientSearchService::mapRow, params.toArray());
+    }
+
+    private static PatientSearchResult mapRow(ResultSet rs, int rowNum) throws SQLException {
+        Date dob = rs.getDate("dob");
+        return new PatientSearchResult(
+                rs.getObject("id", UUID.class),
+                rs.getString("mrn"),
+                rs.getString("display_name"),
+                rs.getString("given_name"),
+                rs.getString("family_name"),
+                dob != null ? dob.toLocalDate() : null,
+                rs.getString("sex"),
+                rs.getBoolean("is_test_patient"),
+                PatientMatchType.values()[rs.getInt("match_rank")]);
+    }
+
+    /** A single term containing a digit is tried as an MRN first, e.g. "MRN-004512" or "00451277". */
+    static boolean looksLikeMrn(String term) {
+        return term.chars().anyMatch(Character::isDigit);
+    }
+
+    /**
+     * Builds {@code tok1:* & tok2:*} from the given terms. Everything but letters and digits is
+     * dropped so user input can never produce tsquery syntax.
+     */
+    static String toPrefixTsQuery(List<String> terms) {
+        List<String> tokens = new ArrayList<>();
+        for (String term : terms) {
+            String token = term.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]", "");
+            if (!token.isEmpty()) {
+                tokens.add(token + ":*");
+            }
+        }
+        return String.join(" & ", tokens);
+    }
+
+    /** Escapes LIKE metacharacters so user input is matched literally (default escape is '\'). */
+    static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Query split into name/MRN terms and an optional date of birth. An explicit dob wins over
+     * a date token in the text; a recognised date token is never used as a name term.
+     */
+    record ParsedQuery(List<String> terms, LocalDate dob) {
+
+        static ParsedQuery parse(String query, LocalDate explicitDob) {
+            List<String> terms = new ArrayList<>();
+            LocalDate dob = explicitDob;
+            if (query != null) {
+                for (String token : query.trim().replace(",", " ").split("\\s+")) {
+                    if (token.isEmpty()) {
+                        continue;
+                    }
+                    LocalDate date = parseDate(token);
+                    if (date != null) {
+                        if (dob == null) {
+                            dob = date;
+                        }
+                    } else {
+                        terms.add(token);
+                    }
+                }
+            }
+            return new ParsedQuery(List.copyOf(terms), dob);
+        }
+
+        private static LocalDate parseDate(String token) {
+            if (token.indexOf('-') != 4 && token.indexOf('/') < 0) {
+                return null;
+            }
+            try {
+                return token.indexOf('/') >= 0 ? LocalDate.parse(token, US_DATE) : LocalDate.parse(token);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -5,7 +5,12 @@ import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.model.db.ResearchAccessGrantEntity;
 import com.starling.auth.repository.IdentityRepository;
 import com.starling.auth.repository.ResearchAccessGrantRepository;
+import com.starling.auth.service.access.AccessChangedEvent;
+import com.starling.auth.service.access.CohortAccessService;
+import com.starling.auth.service.access.CohortAccessService.CohortSize;
+import com.starling.auth.service.access.ScopeFilter;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 
 import java.time.OffsetDateTime;
@@ -16,10 +21,14 @@ import java.util.UUID;
 @Service
 public class ResearchGrantService {
 
+    private static final String COHORT = "COHORT";
+
     private final ResearchAccessGrantRepository researchAccessGrantRepository;
     private final IdentityRepository identityRepository;
     private final AuthzPermissionService authzPermissionService;
     private final AuthAuditService authAuditService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CohortAccessService cohortAccessService;
     private final long defaultTtlDays;
 
     public ResearchGrantService(
@@ -27,11 +36,15 @@ public class ResearchGrantService {
             IdentityRepository identityRepository,
             AuthzPermissionService authzPermissionService,
             AuthAuditService authAuditService,
+            ApplicationEventPublisher eventPublisher,
+            CohortAccessService cohortAccessService,
             @Value("${starling.research.grant.ttl-days:90}") long defaultTtlDays) {
         this.researchAccessGrantRepository = researchAccessGrantRepository;
         this.identityRepository = identityRepository;
         this.authzPermissionService = authzPermissionService;
         this.authAuditService = authAuditService;
+        this.eventPublisher = eventPublisher;
+        this.cohortAccessService = cohortAccessService;
         this.defaultTtlDays = defaultTtlDays;
     }
 
@@ -52,6 +65,9 @@ public class ResearchGrantService {
                 "RESEARCH_ACCESS_GRANT",
                 scopeEntityId,
                 "Research grant approval denied");
+        if (COHORT.equalsIgnoreCase(scopeType)) {
+            ScopeFilter.compile(scopeFilter);
+        }
 
         UUID approverId = resolveIdentityId(approver);
         OffsetDateTime now = OffsetDateTime.now();
@@ -72,6 +88,7 @@ public class ResearchGrantService {
 
         ResearchAccessGrantEntity saved = researchAccessGrantRepository.save(grant);
         authAuditService.recordResearchGrantCreated(approver, saved.getGrantId(), phiAccessLevel, protocolId);
+        eventPublisher.publishEvent(new AccessChangedEvent(granteeIdentityId));
         return saved;
     }
 
@@ -92,6 +109,7 @@ public class ResearchGrantService {
         grant.setRevocationReason(reason);
         ResearchAccessGrantEntity saved = researchAccessGrantRepository.save(grant);
         authAuditService.recordResearchGrantRevoked(approver, grantId, reason);
+        eventPublisher.publishEvent(new AccessChangedEvent(grant.getIdentityId()));
         return saved;
     }
 
@@ -108,6 +126,22 @@ public class ResearchGrantService {
         return researchAccessGrantRepository.findByIdentityId(granteeIdentityId);
     }
 
+    /** Cases and slides a COHORT grant's filter admits today. */
+    public CohortSize cohortSize(Identity requester, UUID grantId) {
+        authzPermissionService.requirePermission(
+                requester,
+                "RESEARCH_APPROVE",
+                "RESEARCH_ACCESS_GRANT",
+                grantId,
+                "Research cohort preview denied");
+        ResearchAccessGrantEntity grant = researchAccessGrantRepository.findById(grantId)
+                .orElseThrow(() -> new IllegalStateException("Research grant not found: " + grantId));
+        if (!COHORT.equalsIgnoreCase(grant.getScopeType())) {
+            throw new IllegalArgumentException("Research grant is not a cohort grant");
+        }
+        return cohortAccessService.size(cohortAccessService.filterFor(grant.getGrantId(), grant.getScopeFilter()));
+    }
+
     private UUID resolveIdentityId(Identity identity) {
         IdentityEntity entity = identityRepository
                 .findByProviderIdAndExternalSubject(identity.getProviderId(), identity.getExternalSubject())
@@ -0,0 +1,111 @@
+package com.starling.auth.service;
+
+import com.starling.auth.repository.PermissionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * In-memory snapshot of which permissions each role grants, loaded by a single join over
+ * iam.role, iam.role_permission and iam.permission.
+ *
+ * Both the admin role/permission matrix and runtime permission checks read this snapshot,
+ * so they always agree. Role permissions change only through migrations or direct database
+ * edits, so the snapshot is reloaded every {@code starling.authz.role-permissions.refresh-ms};
+ * when a reload finds a difference it publishes {@link RolePermissionsChangedEvent} so that
+ * cached tokens and decisions are dropped.
+ */
+@Component
+public class RolePermissionMatrix {
+
+    private static final Logger log = LoggerFactory.getLogger(RolePermissionMatrix.class);
+
+    /** One role and its permission names, sorted. */
+    public record RoleRow(UUID roleId, String name, String description, boolean system, List<String> permissions) {
+    }
+
+    private record Snapshot(List<RoleRow> roles, Map<String, List<String>> permissionsByRole) {
+    }
+
+    /** Published after a reload that changed any role's permissions. */
+    public record RolePermissionsChangedEvent() {
+    }
+
+    private final PermissionRepository permissionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile Snapshot snapshot;
+
+    public RolePermissionMatrix(PermissionRepository permissionRepository, ApplicationEventPublisher eventPublisher) {
+        this.permissionRepository = permissionRepository;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /** Every role, by name. */
+    public List<RoleRow> roles() {
+        return current().roles();
+    }
+
+    /** The distinct permission names granted by any of {@code roleNames}, sorted. */
+    public List<String> permissionsFor(Collection<String> roleNames) {
+        Map<String, List<String>> byRole = current().permissionsByRole();
+        if (roleNames.size() == 1) {
+            return byRole.getOrDefault(roleNames.iterator().next(), List.of());
+        }
+        SortedSet<String> permissions = new TreeSet<>();
+        for (String roleName : roleNames) {
+            permissions.addAll(byRole.getOrDefault(roleName, List.of()));
+        }
+        return List.copyOf(permissions);
+    }
+
+    @Scheduled(
+            fixedDelayString = "${starling.authz.role-permissions.refresh-ms:60000}",
+            initialDelayString = "${starling.authz.role-permissions.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            Snapshot previous = snapshot;
+            Snapshot loaded = load();
+            if (previous != null && !previous.equals(loaded)) {
+                log.info("Role permissions changed; dropping cached authorizations");
+                eventPublisher.publishEvent(new RolePermissionsChangedEvent());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Role permission reload failed: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        return current != null ? current : load();
+    }
+
+    private Snapshot load() {
+        Map<UUID, RoleRow> roles = new LinkedHashMap<>();
+        Map<UUID, List<String>> permissions = new HashMap<>();
+        for (Object[] row : permissionRepository.findRolePermissionRows()) {
+            UUID roleId = (UUID) row[0];
+            roles.computeIfAbsent(roleId, id -> new RoleRow(
+                    id, (String) row[1], (String) row[2], Boolean.TRUE.equals(row[3]), List.of()));
+            List<String> names = permissions.computeIfAbsent(roleId, id -> new ArrayList<>());
+            String permission = (String) row[4];
+            if (permission != null && !permission.isBlank() && !names.contains(permission)) {
+                names.add(permission);
+            }
+        }
+        List<RoleRow> rows = new ArrayList<>(roles.size());
+        Map<String, List<String>> byRole = new HashMap<>();
+        for (RoleRow role : roles.values()) {
+            List<String> names = permissions.get(role.roleId()).stream().sorted().toList();
+            rows.add(new RoleRow(role.roleId(), role.name(), role.description(), role.system(), names));
+            byRole.put(role.name(), names);
+        }
+        Snapshot loaded = new Snapshot(List.copyOf(rows), Map.copyOf(byRole));
+        snapshot = loaded;
+        return loaded;
+    }
+}
@@ -1,20 +1,47 @@
 package com.starling.auth.service;
 
 import com.starling.auth.model.Role;
+import com.starling.auth.model.db.RoleEntity;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+/**
+ * Maps IdP groups to internal roles.
+ *
+ * Mappings are served from an immutable in-memory snapshot of (provider, group) → role names
+ * and role name → role, so logins do not query the mapping tables. The snapshot is loaded on
+ * first use and rebuilt after a transaction publishing {@link IdpMappingsChangedEvent}
+ * commits (see AdminService#createIdpMapping and #deleteIdpMapping). Changes made on other
+ * instances or directly in the database are picked up by a reload every
+ * {@code starling.idp.group-mappings.refresh-ms}.
+ */
 @Service
 @lombok.RequiredArgsConstructor
+@lombok.extern.slf4j.Slf4j
 public class UserRoleMapper {
 
+    /** Published when IdP group mappings are created or deleted. */
+    public record IdpMappingsChangedEvent() {
+    }
+
+    private record GroupKey(String providerId, String groupName) {
+    }
+
+    private record Snapshot(long version, Map<GroupKey, Set<String>> roleNamesByGroup, Map<String, RoleEntity> rolesByName) {
+    }
+
     private final com.starling.auth.repository.IdpGroupMappingRepository mappingRepository;
     private final com.starling.auth.repository.RoleRepository roleRepository;
 
+    private volatile Snapshot snapshot;
+
     /**
      * Maps IdP attributes to internal Roles using Database mappings.
      * Expects a 'groups' (Keycloak) or similar attribute.
@@ -34,18 +61,111 @@ public class UserRoleMapper {
             }
         }
 
-        // DB Lookup
+        // Snapshot lookup
         if (providerId != null && !providerId.isBlank() && !groupNames.isEmpty()) {
-            List<String> roleNames = mappingRepository.findRoleNamesByProviderIdAndGroupNames(providerId, groupNames);
-            for (String roleName : roleNames) {
-                try {
-                    roles.add(Role.valueOf(roleName));
-                } catch (IllegalArgumentException e) {
-                    // Role in DB doesn't match Enum
+            Map<GroupKey, Set<String>> roleNamesByGroup = current().roleNamesByGroup();
+            for (String groupName : groupNames) {
+                for (String roleName : roleNamesByGroup.getOrDefault(new GroupKey(providerId, groupName), Set.of())) {
+                    try {
+                        roles.add(Role.valueOf(roleName));
+                    } catch (IllegalArgumentException e) {
+                        // Role in DB doesn't match Enum
+                    }
                 }
             }
         }
 
         return roles;
     }
+
+    /**
+     * Role rows for {@code roles}, skipping any without one. The entities are detached
+     * copies carrying the role id, suitable for setting an identity's role associations.
+     */
+    public Set<RoleEntity> roleEntities(Set<Role> roles) {
+        Map<String, RoleEntity> rolesByName = current().rolesByName();
+        Set<RoleEntity> entities = new HashSet<>();
+        for (Role role : roles) {
+            RoleEntity entity = rolesByName.get(role.name());
+            if (entity != null) {
+                entities.add(RoleEntity.builder()
+                        .roleId(entity.getRoleId())
+                        .name(entity.getName())
+                        .description(entity.getDescription())
+                        .isSystem(entity.isSystem())
+                        .build());
+            }
+        }
+        return entities;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdpMappingsChanged(IdpMappingsChangedEvent event) {
+        log.info("IdP group mappings reloaded (version {})", load().version());
+    }
+
+    @Scheduled(
+            fixedDelayString = "${starling.idp.group-mappings.refresh-ms:60000}",
+            initialDelayString = "${starling.idp.group-mappings.refresh-ms:60000}")
+    public void refresh() {
+        try {
+            Snapshot previous = snapshot;
+            Snapshot loaded = load();
+            if (previous != null && loaded != previous) {
+                log.info("IdP group mappings changed; reloaded (version {})", loaded.version());
+            }
+        } catch (RuntimeException e) {
+            log.warn("IdP group mapping reload failed: {}", e.getMessage());
+        }
+    }
+
+    private Snapshot current() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            // Logins racing the first load wait for it rather than each loading
+            return snapshot != null ? snapshot : load();
+        }
+    }
+
+    private synchronized Snapshot load() {
+        Map<GroupKey, Set<String>> roleNamesByGroup = new HashMap<>();
+        for (Object[] row : mappingRepository.findGroupRoleRows()) {
+            roleNamesByGroup.computeIfAbsent(new GroupKey((String) row[0], (String) row[1]), key -> new HashSet<>())
+                    .add((String) row[2]);
+        }
+        Map<String, RoleEntity> rolesByName = new HashMap<>();
+        for (RoleEntity role : roleRepository.findAll()) {
+            rolesByName.put(role.getName(), role);
+        }
+
+        Map<GroupKey, Set<String>> frozen = new HashMap<>();
+        roleNamesByGroup.forEach((key, names) -> frozen.put(key, Set.copyOf(names)));
+        Snapshot previous = snapshot;
+        if (previous != null && previous.roleNamesByGroup().equals(frozen)
+                && sameRoles(previous.rolesByName(), rolesByName)) {
+            return previous;
+        }
+        Snapshot loaded = new Snapshot(previous == null ? 1 : previous.version() + 1,
+                Map.copyOf(frozen), Map.copyOf(rolesByName));
+        snapshot = loaded;
+        return loaded;
+    }
+
+    private static boolean sameRoles(Map<String, RoleEntity> a, Map<String, RoleEntity> b) {
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<String, RoleEntity> entry : a.entrySet()) {
+            RoleEntity other = b.get(entry.getKey());
+            if (!java.util.Objects.equals(entry.getValue().getRoleId(), other.getRoleId())
+                    || !java.util.Objects.equals(entry.getValue().getDescription(), other.getDescription())
+                    || entry.getValue().isSystem() != other.isSystem()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
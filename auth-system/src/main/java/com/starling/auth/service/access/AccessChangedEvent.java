@@ -0,0 +1,10 @@
+package com.starling.auth.service.access;
+
+import java.util.UUID;
+
+/**
+ * Published when an identity's case access changes outside its roles: a case assignment,
+ * or a break-glass or research grant being created or revoked. Consumers act after commit.
+ */
+public record AccessChangedEvent(UUID identityId) {
+}
@@ -0,0 +1,177 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.dto.AuthzDecisionDtos.DecisionQuery;
+import com.starling.auth.dto.AuthzDecisionDtos.DecisionResult;
+import com.starling.auth.model.db.IdentityEntity;
+import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.service.AuthzPermissionService;
+import com.starling.auth.service.RolePermissionMatrix.RolePermissionsChangedEvent;
+import com.starling.auth.service.access.AccessScopeService.AccessScope;
+import com.starling.auth.service.access.SubjectAccessCache.Entry;
+import com.starling.auth.service.directory.IdentityChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static com.starling.auth.dto.AuthzDecisionDtos.RESOURCE_CASE;
+import static com.starling.auth.dto.AuthzDecisionDtos.RESOURCE_SLIDE;
+
+/**
+ * Answers "may subject X read slide or case Y?" for the tile server, in batches.
+ *
+ * Subjects are external subjects of the configured {@code starling.oidc.provider-id}. Each
+ * subject's roles, permissions and {@link AccessScope} are resolved once and cached
+ * (see {@link SubjectAccessCache}), so a decision is a hash lookup. A cached scope lives for
+ * {@code starling.authz.decision.ttl-seconds}, or until the earliest grant it includes
+ * expires; subjects with no active identity are cached as denials for
+ * {@code negative-ttl-seconds}. Role, activation, assignment and grant changes drop the
+ * affected entries when they commit. Unknown slides and cases are simply absent from the
+ * scope, so they are denied without a query, unless the subject holds a research cohort
+ * grant (see {@link CohortAccessService}).
+ */
+@Service
+public class AccessDecisionService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessDecisionService.class);
+
+    private final IdentityRepository identityRepository;
+    private final AuthzPermissionService authzPermissionService;
+    private final AccessScopeService accessScopeService;
+    private final CohortAccessService cohortAccessService;
+    private final String providerId;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final int maxBatch;
+    private final SubjectAccessCache cache;
+
+    public AccessDecisionService(
+            IdentityRepository identityRepository,
+            AuthzPermissionService authzPermissionService,
+            AccessScopeService accessScopeService,
+            CohortAccessService cohortAccessService,
+            @Value("${starling.oidc.provider-id:local-oidc}") String providerId,
+            @Value("${starling.authz.decision.ttl-seconds:60}") long ttlSeconds,
+            @Value("${starling.authz.decision.negative-ttl-seconds:30}") long negativeTtlSeconds,
+            @Value("${starling.authz.decision.max-batch:5000}") int maxBatch,
+            @Value("${starling.authz.decision.max-entries:50000}") int maxEntries) {
+        this.identityRepository = identityRepository;
+        this.authzPermissionService = authzPermissionService;
+        this.accessScopeService = accessScopeService;
+        this.cohortAccessService = cohortAccessService;
+        this.providerId = providerId;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+        this.negativeTtl = Duration.ofSeconds(negativeTtlSeconds);
+        this.maxBatch = maxBatch;
+        this.cache = new SubjectAccessCache(maxEntries);
+    }
+
+    /** One result per query, in order. Each subject is resolved at most once per batch. */
+    public List<DecisionResult> decide(List<DecisionQuery> queries) {
+        if (queries == null || queries.isEmpty()) {
+            return List.of();
+        }
+        if (queries.size() > maxBatch) {
+            throw new IllegalArgumentException("At most " + maxBatch + " queries per batch");
+        }
+        Instant now = Instant.now();
+        Map<String, Entry> bySubject = new HashMap<>();
+        List<DecisionResult> results = new ArrayList<>(queries.size());
+        for (DecisionQuery query : queries) {
+            if (query == null || query.subject() == null || query.subject().isBlank()
+                    || query.resourceId() == null || query.resourceType() == null) {
+                throw new IllegalArgumentException("subject, resourceType and resourceId are required");
+            }
+            Entry entry = bySubject.computeIfAbsent(query.subject(), subject -> lookup(subject, now));
+            long ttlSeconds = Math.max(0, Duration.between(now, entry.expiresAt()).toSeconds());
+            results.add(new DecisionResult(allows(entry.scope(), query), ttlSeconds));
+        }
+        return results;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdentityChanged(IdentityChangedEvent event) {
+        if (event.identityId() != null) {
+            invalidate(event.identityId());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessChanged(AccessChangedEvent event) {
+        if (event.identityId() != null) {
+            invalidate(event.identityId());
+        }
+    }
+
+    /** Drops every cached scope, e.g. after role permissions change. */
+    @EventListener(RolePermissionsChangedEvent.class)
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Scheduled(
+            fixedDelayString = "${starling.authz.decision.evict-interval-ms:60000}",
+            initialDelayString = "${starling.authz.decision.evict-interval-ms:60000}")
+    public void evictExpired() {
+        int evicted = cache.evictExpired(Instant.now());
+        if (evicted > 0) {
+            log.debug("Access decision cache: {} evicted, {} cached", evicted, cache.size());
+        }
+    }
+
+    private boolean allows(AccessScope scope, DecisionQuery query) {
+        return switch (query.resourceType()) {
+            case RESOURCE_SLIDE -> scope.canReadSlide(query.resourceId())
+                    || cohortAccessService.canReadSlide(scope.cohorts(), query.resourceId());
+            case RESOURCE_CASE -> scope.canReadCase(query.resourceId())
+                    || cohortAccessService.canReadCase(scope.cohorts(), query.resourceId());
+            default -> throw new IllegalArgumentException("Unknown resourceType: " + query.resourceType());
+        };
+    }
+
+    /** Drops the identity's entry by subject, so negative entries of other subjects survive. */
+    private void invalidate(UUID identityId) {
+        cache.invalidateIdentity(identityId, identityRepository.findById(identityId)
+                .map(IdentityEntity::getExternalSubject)
+                .orElse(null));
+    }
+
+    private Entry lookup(String subject, Instant now) {
+        Entry cached = cache.get(subject, now);
+        return cached != null ? cached : load(subject, now);
+    }
+
+    private Entry load(String subject, Instant now) {
+        long generation = cache.generation();
+        Optional<IdentityEntity> identity = identityRepository.findByProviderIdAndExternalSubject(providerId, subject);
+        Entry entry;
+        if (identity.isEmpty() || !identity.get().isActive()) {
+            entry = new Entry(subject, identity.map(IdentityEntity::getIdentityId).orElse(null),
+                    AccessScope.NONE, now.plus(negativeTtl));
+        } else {
+            IdentityEntity entity = identity.get();
+            List<String> roleNames = authzPermissionService.resolveRoleNames(entity.getIdentityId());
+            List<String> permissions = authzPermissionService.resolvePermissionsForRoles(roleNames);
+            AccessScope scope = accessScopeService.resolve(entity.getIdentityId(), permissions);
+            Instant expiresAt = now.plus(ttl);
+            if (scope.validUntil() != null && scope.validUntil().isBefore(expiresAt)) {
+                expiresAt = scope.validUntil();
+            }
+            entry = new Entry(subject, entity.getIdentityId(), scope, expiresAt);
+        }
+        cache.put(entry, generation);
+        return entry;
+    }
+}
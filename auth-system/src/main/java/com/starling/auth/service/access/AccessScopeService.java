@@ -0,0 +1,188 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.repository.jdbc.JsonbColumnReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Resolves which clinical cases and slides an identity may read.
+ *
+ * Holders of any of {@code starling.authz.scope.unrestricted-permissions} (CASE_VIEW by
+ * default, matching the case endpoints) read every clinical case. Everyone else is limited
+ * to the union of their case assignments (wsi.case_pathologists), active break-glass grants
+ * and active research grants. Grants name a CASE, SPECIMEN (part), BLOCK or SLIDE; a case
+ * appears in {@link AccessScope#caseAccessions} only when granted as a whole. COHORT research
+ * grants are not expanded; their compiled filters are returned in {@link AccessScope#cohorts}
+ * and checked per slide or case by {@link CohortAccessService}.
+ */
+@Service
+public class AccessScopeService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccessScopeService.class);
+
+    private static final String SCOPE_SQL = """
+            WITH grants AS (
+                SELECT 'CASE' AS scope_type, cp.case_id AS entity_id, NULL::timestamptz AS expires_at
+                FROM wsi.case_pathologists cp
+                WHERE cp.identity_id = ?
+                UNION ALL
+                SELECT upper(g.scope_entity_type), g.scope_entity_id, g.expires_at
+                FROM iam.break_glass_grant g
+                WHERE g.identity_id = ? AND g.revoked_at IS NULL AND g.expires_at > now()
+                UNION ALL
+                SELECT upper(r.scope_type), r.scope_entity_id, r.expires_at
+                FROM iam.research_access_grant r
+                WHERE r.identity_id = ? AND r.revoked_at IS NULL AND r.expires_at > now()
+                  AND r.scope_entity_id IS NOT NULL
+            ), granted_slides AS (
+                SELECT g.scope_type, g.expires_at, p.case_id, s.slide_id
+                FROM grants g
+                JOIN wsi.parts p ON p.case_id = g.entity_id
+                JOIN wsi.blocks b ON b.part_id = p.id
+                JOIN wsi.slides s ON s.block_id = b.id
+                WHERE g.scope_type = 'CASE'
+                UNION ALL
+                SELECT g.scope_type, g.expires_at, p.case_id, s.slide_id
+                FROM grants g
+                JOIN wsi.parts p ON p.id = g.entity_id
+                JOIN wsi.blocks b ON b.part_id = p.id
+                JOIN wsi.slides s ON s.block_id = b.id
+                WHERE g.scope_type = 'SPECIMEN'
+                UNION ALL
+                SELECT g.scope_type, g.expires_at, p.case_id, s.slide_id
+                FROM grants g
+                JOIN wsi.blocks b ON b.id = g.entity_id
+                JOIN wsi.parts p ON p.id = b.part_id
+                JOIN wsi.slides s ON s.block_id = b.id
+                WHERE g.scope_type = 'BLOCK'
+                UNION ALL
+                SELECT g.scope_type, g.expires_at, p.case_id, s.slide_id
+                FROM grants g
+                JOIN wsi.slides s ON s.id = g.entity_id
+                JOIN wsi.blocks b ON b.id = s.block_id
+                JOIN wsi.parts p ON p.id = b.part_id
+                WHERE g.scope_type = 'SLIDE'
+            )
+            SELECT 'case' AS kind, c.case_id AS identifier, g.expires_at
+            FROM grants g
+            JOIN wsi.cases c ON c.id = g.entity_id AND c.collection = 'clinical'
+            WHERE g.scope_type = 'CASE'
+            UNION ALL
+            SELECT 'slide', gs.slide_id, gs.expires_at
+            FROM granted_slides gs
+            JOIN wsi.cases c ON c.id = gs.case_id AND c.collection = 'clinical'
+            """;
+
+    private static final String COHORT_SQL = """
+            SELECT r.grant_id, r.scope_filter, r.expires_at
+            FROM iam.research_access_grant r
+            WHERE r.identity_id = ? AND r.revoked_at IS NULL AND r.expires_at > now()
+              AND upper(r.scope_type) = 'COHORT'
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JsonbColumnReader jsonbColumnReader;
+    private final CohortAccessService cohortAccessService;
+    private final Set<String> unrestrictedPermissions;
+
+    public AccessScopeService(
+            JdbcTemplate jdbcTemplate,
+            JsonbColumnReader jsonbColumnReader,
+            CohortAccessService cohortAccessService,
+            @Value("${starling.authz.scope.unrestricted-permissions:CASE_VIEW}") List<String> unrestrictedPermissions) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.jsonbColumnReader = jsonbColumnReader;
+        this.cohortAccessService = cohortAccessService;
+        this.unrestrictedPermissions = Set.copyOf(unrestrictedPermissions.stream()
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList());
+    }
+
+    /**
+     * What an identity may read.
+     *
+     * @param caseAccessions clinical cases granted as a whole (wsi.cases.case_id)
+     * @param slideIds       every readable slide (wsi.slides.slide_id)
+     * @param cohorts        filters of COHORT grants, admitting slides beyond {@code slideIds}
+     * @param validUntil     earliest expiry among the grants that contributed, or null when
+     *                       nothing in the scope expires on its own
+     */
+    public record AccessScope(
+            boolean unrestricted,
+            Set<String> caseAccessions,
+            Set<String> slideIds,
+            List<ScopeFilter> cohorts,
+            Instant validUntil) {
+
+        public static final AccessScope UNRESTRICTED = new AccessScope(true, Set.of(), Set.of(), List.of(), null);
+
+        public static final AccessScope NONE = new AccessScope(false, Set.of(), Set.of(), List.of(), null);
+
+        /** Whether the slide is readable without consulting {@link #cohorts}. */
+        public boolean canReadSlide(String slideId) {
+            return unrestricted || slideIds.contains(slideId);
+        }
+
+        /** Whether the case is readable as a whole without consulting {@link #cohorts}. */
+        public boolean canReadCase(String accession) {
+            return unrestricted || caseAccessions.contains(accession);
+        }
+    }
+
+    /**
+     * @param permissions the identity's resolved permission names
+     */
+    public AccessScope resolve(UUID identityId, Collection<String> permissions) {
+        if (permissions.stream().anyMatch(unrestrictedPermissions::contains)) {
+            return AccessScope.UNRESTRICTED;
+        }
+        Set<String> cases = new HashSet<>();
+        Set<String> slides = new HashSet<>();
+        Instant[] validUntil = new Instant[1];
+        jdbcTemplate.query(SCOPE_SQL, (RowCallbackHandler) rs -> {
+            String identifier = rs.getString("identifier");
+            if ("case".equals(rs.getString("kind"))) {
+                cases.add(identifier);
+            } else {
+                slides.add(identifier);
+            }
+            OffsetDateTime expiresAt = rs.getObject("expires_at", OffsetDateTime.class);
+            if (expiresAt != null && (validUntil[0] == null || expiresAt.toInstant().isBefore(validUntil[0]))) {
+                validUntil[0] = expiresAt.toInstant();
+            }
+        }, identityId, identityId, identityId);
+        List<ScopeFilter> cohorts = new ArrayList<>();
+        jdbcTemplate.query(COHORT_SQL, (RowCallbackHandler) rs -> {
+            UUID grantId = rs.getObject("grant_id", UUID.class);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> scopeFilter = jsonbColumnReader.read(rs, "scope_filter", Map.class);
+            try {
+                cohorts.add(cohortAccessService.filterFor(grantId, scopeFilter));
+            } catch (IllegalArgumentException e) {
+                // Grants created before filters were validated; admit nothing rather than everything
+                log.warn("Ignoring research grant {} with invalid scope filter: {}", grantId, e.getMessage());
+                return;
+            }
+            Instant expiresAt = rs.getObject("expires_at", OffsetDateTime.class).toInstant();
+            if (validUntil[0] == null || expiresAt.isBefore(validUntil[0])) {
+                validUntil[0] = expiresAt;
+            }
+        }, identityId);
+        return new AccessScope(false, Set.copyOf(cases), Set.copyOf(slides), List.copyOf(cohorts), validUntil[0]);
+    }
+}
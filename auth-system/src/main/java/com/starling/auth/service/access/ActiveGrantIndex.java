@@ -0,0 +1,99 @@
+package com.starling.auth.service.access;
+
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Immutable index of unrevoked grants of one kind (break-glass or research), for
+ * {@link ActiveGrantRegistry}.
+ *
+ * Grants are keyed by id and ordered by expiry so the registry can drop them as they lapse.
+ * Reads take the current time and skip grants that have expired but not yet been dropped,
+ * so answers are exact regardless of timer jitter. Updates return a new index.
+ */
+final class ActiveGrantIndex<T> {
+
+    /**
+     * @param scopeType upper-cased scope type, e.g. CASE or BLOCK
+     * @param scopeEntityId null for grants without a single scope entity (research cohorts)
+     */
+    record Grant<T>(UUID grantId, UUID identityId, String scopeType, UUID scopeEntityId, Instant expiresAt, T entity) {
+
+        boolean activeAt(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+    }
+
+    private static final Comparator<Grant<?>> BY_EXPIRY =
+            Comparator.<Grant<?>, Instant>comparing(Grant::expiresAt).thenComparing(Grant::grantId);
+
+    private final Map<UUID, Grant<T>> byId;
+    private final NavigableSet<Grant<T>> byExpiry;
+
+    private ActiveGrantIndex(Map<UUID, Grant<T>> byId) {
+        this.byId = byId;
+        NavigableSet<Grant<T>> expiry = new TreeSet<>(BY_EXPIRY);
+        expiry.addAll(byId.values());
+        this.byExpiry = Collections.unmodifiableNavigableSet(expiry);
+    }
+
+    static <T> ActiveGrantIndex<T> of(Collection<Grant<T>> grants) {
+        Map<UUID, Grant<T>> byId = new HashMap<>();
+        for (Grant<T> grant : grants) {
+            byId.put(grant.grantId(), grant);
+        }
+        return new ActiveGrantIndex<>(byId);
+    }
+
+    /**
+     * Replaces every grant of {@code identityIds} with {@code grants}, the identities' current
+     * unrevoked grants.
+     */
+    ActiveGrantIndex<T> replaceIdentities(Set<UUID> identityIds, Collection<Grant<T>> grants) {
+        Map<UUID, Grant<T>> next = new HashMap<>(byId);
+        next.values().removeIf(grant -> identityIds.contains(grant.identityId()));
+        for (Grant<T> grant : grants) {
+            next.put(grant.grantId(), grant);
+        }
+        return new ActiveGrantIndex<>(next);
+    }
+
+    /** This index without grants expired at {@code now}, or this index when there are none. */
+    ActiveGrantIndex<T> withoutExpired(Instant now) {
+        if (byExpiry.isEmpty() || byExpiry.first().activeAt(now)) {
+            return this;
+        }
+        Map<UUID, Grant<T>> next = new HashMap<>(byId);
+        for (Grant<T> grant : byExpiry) {
+            if (grant.activeAt(now)) {
+                break;
+            }
+            next.remove(grant.grantId());
+        }
+        return new ActiveGrantIndex<>(next);
+    }
+
+    /** The earliest expiry in the index, or null when empty. */
+    Instant nextExpiry() {
+        return byExpiry.isEmpty() ? null : byExpiry.first().expiresAt();
+    }
+
+    /** Active grants, soonest expiry first. */
+    List<T> active(Instant now) {
+        return byExpiry.stream()
+                .filter(grant -> grant.activeAt(now))
+                .map(Grant::entity)
+                .toList();
+    }
+
+    int countActive(Instant now) {
+        int count = 0;
+        for (Grant<T> grant : byExpiry.descendingSet()) {
+            if (!grant.activeAt(now)) {
+                break;
+            }
+            count++;
+        }
+        return count;
+    }
+}
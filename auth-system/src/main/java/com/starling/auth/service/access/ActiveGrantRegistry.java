@@ -0,0 +1,234 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.model.db.BreakGlassGrantEntity;
+import com.starling.auth.model.db.ResearchAccessGrantEntity;
+import com.starling.auth.repository.BreakGlassGrantRepository;
+import com.starling.auth.repository.ResearchAccessGrantRepository;
+import com.starling.auth.service.access.ActiveGrantIndex.Grant;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional in-process registry of active break-glass and research grants.
+ *
+ * Holds one immutable {@link ActiveGrantIndex} per grant kind, loaded in full at startup and
+ * on a slow schedule, and patched per grantee when an {@link AccessChangedEvent} commits
+ * (grant created or revoked). Grants are dropped at their expiry by a timer armed for the
+ * earliest one. As in the identity directory, changes are applied on a single worker thread
+ * and the registry reports itself stale while any are pending; callers fall back to SQL.
+ * It serves the admin grant listings and dashboard counts only; access checks resolve
+ * grants in SQL through {@link AccessScopeService}.
+ *
+ * Disabled unless {@code starling.access.grant-registry.enabled=true}.
+ */
+@Component
+public class ActiveGrantRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ActiveGrantRegistry.class);
+
+    private final BreakGlassGrantRepository breakGlassGrantRepository;
+    private final ResearchAccessGrantRepository researchAccessGrantRepository;
+    private final boolean enabled;
+
+    private volatile ActiveGrantIndex<BreakGlassGrantEntity> breakGlass;
+    private volatile ActiveGrantIndex<ResearchAccessGrantEntity> research;
+    private final Set<UUID> pendingIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService worker;
+    private ScheduledFuture<?> expiryTimer;
+
+    public ActiveGrantRegistry(
+            BreakGlassGrantRepository breakGlassGrantRepository,
+            ResearchAccessGrantRepository researchAccessGrantRepository,
+            @Value("${starling.access.grant-registry.enabled:false}") boolean enabled) {
+        this.breakGlassGrantRepository = breakGlassGrantRepository;
+        this.researchAccessGrantRepository = researchAccessGrantRepository;
+        this.enabled = enabled;
+        this.worker = enabled
+                ? Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("grant-registry").daemon().factory())
+                : null;
+    }
+
+    /** True when the registry is enabled, loaded, and has no unapplied changes. */
+    public boolean isFresh() {
+        return enabled && breakGlass != null && research != null && pendingChanges.get() == 0;
+    }
+
+    public List<BreakGlassGrantEntity> activeBreakGlassGrants() {
+        ActiveGrantIndex<BreakGlassGrantEntity> current = breakGlass;
+        return current == null ? List.of() : current.active(Instant.now());
+    }
+
+    public List<ResearchAccessGrantEntity> activeResearchGrants() {
+        ActiveGrantIndex<ResearchAccessGrantEntity> current = research;
+        return current == null ? List.of() : current.active(Instant.now());
+    }
+
+    public int countActiveBreakGlassGrants() {
+        ActiveGrantIndex<BreakGlassGrantEntity> current = breakGlass;
+        return current == null ? 0 : current.countActive(Instant.now());
+    }
+
+    public int countActiveResearchGrants() {
+        ActiveGrantIndex<ResearchAccessGrantEntity> current = research;
+        return current == null ? 0 : current.countActive(Instant.now());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            worker.execute(this::fullReload);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${starling.access.grant-registry.full-reload-ms:300000}",
+            initialDelayString = "${starling.access.grant-registry.full-reload-ms:300000}")
+    public void scheduledReload() {
+        if (enabled) {
+            worker.execute(this::fullReload);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onAccessChanged(AccessChangedEvent event) {
+        if (!enabled || event.identityId() == null) {
+            return;
+        }
+        if (pendingIds.add(event.identityId())) {
+            pendingChanges.incrementAndGet();
+        }
+        if (refreshScheduled.compareAndSet(false, true)) {
+            worker.execute(this::applyPending);
+        }
+    }
+
+    private void applyPending() {
+        refreshScheduled.set(false);
+        Set<UUID> ids = new HashSet<>();
+        for (UUID id : pendingIds) {
+            if (pendingIds.remove(id)) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            List<Grant<BreakGlassGrantEntity>> breakGlassGrants = new ArrayList<>();
+            List<Grant<ResearchAccessGrantEntity>> researchGrants = new ArrayList<>();
+            for (UUID id : ids) {
+                breakGlassGrantRepository.findByIdentityId(id).stream()
+                        .filter(grant -> grant.getRevokedAt() == null && grant.getExpiresAt().isAfter(now))
+                        .map(ActiveGrantRegistry::toGrant)
+                        .forEach(breakGlassGrants::add);
+                researchAccessGrantRepository.findByIdentityId(id).stream()
+                        .filter(grant -> grant.getRevokedAt() == null && grant.getExpiresAt().isAfter(now))
+                        .map(ActiveGrantRegistry::toGrant)
+                        .forEach(researchGrants::add);
+            }
+            if (breakGlass != null && research != null) {
+                breakGlass = breakGlass.replaceIdentities(ids, breakGlassGrants);
+                research = research.replaceIdentities(ids, researchGrants);
+                armExpiryTimer();
+            }
+            pendingChanges.addAndGet(-ids.size());
+        } catch (RuntimeException e) {
+            // Re-queue so the registry stays stale until a later refresh succeeds
+            for (UUID id : ids) {
+                if (!pendingIds.add(id)) {
+                    pendingChanges.decrementAndGet();
+                }
+            }
+            log.warn("Grant registry incremental refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void fullReload() {
+        try {
+            OffsetDateTime now = OffsetDateTime.now();
+            breakGlass = ActiveGrantIndex.of(breakGlassGrantRepository.findByRevokedAtIsNullAndExpiresAtAfter(now)
+                    .stream().map(ActiveGrantRegistry::toGrant).toList());
+            research = ActiveGrantIndex.of(researchAccessGrantRepository.findByRevokedAtIsNullAndExpiresAtAfter(now)
+                    .stream().map(ActiveGrantRegistry::toGrant).toList());
+            armExpiryTimer();
+            // Retry changes left pending by a failed incremental refresh
+            if (!pendingIds.isEmpty() && refreshScheduled.compareAndSet(false, true)) {
+                worker.execute(this::applyPending);
+            }
+            log.info("Grant registry loaded {} break-glass and {} research grants",
+                    countActiveBreakGlassGrants(), countActiveResearchGrants());
+        } catch (RuntimeException e) {
+            log.warn("Grant registry reload failed: {}", e.getMessage());
+        }
+    }
+
+    /** Drops expired grants and re-arms the timer for the next expiry. Worker thread only. */
+    private void expire() {
+        Instant now = Instant.now();
+        breakGlass = breakGlass.withoutExpired(now);
+        research = research.withoutExpired(now);
+        armExpiryTimer();
+    }
+
+    private void armExpiryTimer() {
+        if (expiryTimer != null) {
+            expiryTimer.cancel(false);
+            expiryTimer = null;
+        }
+        Instant next = earliest(breakGlass.nextExpiry(), research.nextExpiry());
+        if (next != null) {
+            long delayMillis = Math.max(0, Duration.between(Instant.now(), next).toMillis());
+            expiryTimer = worker.schedule(this::expire, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static Instant earliest(Instant a, Instant b) {
+        if (a == null) {
+            return b;
+        }
+        return b == null || a.isBefore(b) ? a : b;
+    }
+
+    private static String normalize(String scopeType) {
+        return scopeType == null ? null : scopeType.toUpperCase(Locale.ROOT);
+    }
+
+    private static Grant<BreakGlassGrantEntity> toGrant(BreakGlassGrantEntity grant) {
+        return new Grant<>(grant.getGrantId(), grant.getIdentityId(), normalize(grant.getScopeEntityType()),
+                grant.getScopeEntityId(), grant.getExpiresAt().toInstant(), grant);
+    }
+
+    private static Grant<ResearchAccessGrantEntity> toGrant(ResearchAccessGrantEntity grant) {
+        return new Grant<>(grant.getGrantId(), grant.getIdentityId(), normalize(grant.getScopeType()),
+                grant.getScopeEntityId(), grant.getExpiresAt().toInstant(), grant);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.service.access.ScopeFilter.SlideFacts;
+import com.starling.auth.service.access.ScopeFilter.SqlPredicate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Evaluates COHORT research grants, whose scope is a {@link ScopeFilter} rather than one
+ * entity.
+ *
+ * Cohorts can span hundreds of thousands of cases, so they are never expanded: a read is
+ * authorized by fetching the facts for the one slide or case asked about (an indexed point
+ * lookup, cached for {@code starling.authz.cohort.facts-ttl-seconds}) and testing them against
+ * the compiled filters in memory. Compiled filters are cached per grant; a grant's filter
+ * never changes after creation. Whole-cohort questions, such as its size, run in the
+ * database with the filter pushed down as SQL. Cohorts only ever admit clinical material;
+ * {@link ScopeFilter#compile} rejects filters naming any other collection.
+ */
+@Service
+public class CohortAccessService {
+
+    private static final String SLIDE_FACTS_SQL = """
+            SELECT c.collection, c.accession_date, p.anatomic_site, s.stain,
+                   (SELECT string_agg(i.icd_code, ',') FROM wsi.case_icd_codes i WHERE i.case_id = c.id) AS icd_codes
+            FROM wsi.slides s
+            JOIN wsi.blocks b ON b.id = s.block_id
+            JOIN wsi.parts p ON p.id = b.part_id
+            JOIN wsi.cases c ON c.id = p.case_id
+            WHERE s.slide_id = ? AND c.collection = 'clinical'
+            """;
+
+    private static final String CASE_FACTS_SQL = """
+            SELECT c.collection, c.accession_date, NULL AS anatomic_site, NULL AS stain,
+                   (SELECT string_agg(i.icd_code, ',') FROM wsi.case_icd_codes i WHERE i.case_id = c.id) AS icd_codes
+            FROM wsi.cases c
+            WHERE c.case_id = ? AND c.collection = 'clinical'
+            """;
+
+    private static final String COHORT_SIZE_SQL = """
+            SELECT count(DISTINCT c.id) AS cases, count(s.id) AS slides
+            FROM wsi.cases c
+            JOIN wsi.parts p ON p.case_id = c.id
+            JOIN wsi.blocks b ON b.part_id = p.id
+            JOIN wsi.slides s ON s.block_id = b.id
+            WHERE c.collection = 'clinical' AND\s""";
+
+    public record CohortSize(long cases, long slides) {
+    }
+
+    private record CachedFacts(Optional<SlideFacts> facts, Instant expiresAt) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration factsTtl;
+    private final int maxEntries;
+    private final ConcurrentMap<UUID, ScopeFilter> filters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CachedFacts> slideFacts = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, CachedFacts> caseFacts = new ConcurrentHashMap<>();
+
+    public CohortAccessService(
+            JdbcTemplate jdbcTemplate,
+            @Value("${starling.authz.cohort.facts-ttl-seconds:300}") long factsTtlSeconds,
+            @Value("${starling.authz.cohort.max-entries:100000}") int maxEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.factsTtl = Duration.ofSeconds(factsTtlSeconds);
+        this.maxEntries = maxEntries;
+    }
+
+    /** The compiled filter of a COHORT grant, compiled once per grant. */
+    public ScopeFilter filterFor(UUID grantId, Map<String, Object> scopeFilter) {
+        ScopeFilter cached = filters.get(grantId);
+        if (cached != null) {
+            return cached;
+        }
+        ScopeFilter compiled = ScopeFilter.compile(scopeFilter);
+        if (filters.size() >= maxEntries) {
+            filters.clear();
+        }
+        filters.put(grantId, compiled);
+        return compiled;
+    }
+
+    public boolean canReadSlide(List<ScopeFilter> cohorts, String slideId) {
+        if (cohorts.isEmpty()) {
+            return false;
+        }
+        Optional<SlideFacts> facts = facts(slideFacts, SLIDE_FACTS_SQL, slideId);
+        return facts.isPresent() && cohorts.stream().anyMatch(filter -> filter.matchesSlide(facts.get()));
+    }
+
+    /** Whether a cohort admits every slide of the clinical case {@code accession}. */
+    public boolean canReadCase(List<ScopeFilter> cohorts, String accession) {
+        if (cohorts.isEmpty()) {
+            return false;
+        }
+        Optional<SlideFacts> facts = facts(caseFacts, CASE_FACTS_SQL, accession);
+        return facts.isPresent() && cohorts.stream().anyMatch(filter -> filter.coversWholeCase()
+                && filter.matchesCase(facts.get().collection(), facts.get().accessionDate(), facts.get().icdCodes()));
+    }
+
+    /** Cases and slides admitted by {@code filter}, counted in the database. */
+    public CohortSize size(ScopeFilter filter) {
+        SqlPredicate predicate = filter.toSql();
+        return jdbcTemplate.queryForObject(COHORT_SIZE_SQL + predicate.sql(),
+                (rs, rowNum) -> new CohortSize(rs.getLong("cases"), rs.getLong("slides")),
+                predicate.args().toArray());
+    }
+
+    private Optional<SlideFacts> facts(ConcurrentMap<String, CachedFacts> cache, String sql, String key) {
+        Instant now = Instant.now();
+        CachedFacts cached = cache.get(key);
+        if (cached != null && now.isBefore(cached.expiresAt())) {
+            return cached.facts();
+        }
+        List<SlideFacts> rows = jdbcTemplate.query(sql, (rs, rowNum) -> {
+            String icdCodes = rs.getString("icd_codes");
+            return new SlideFacts(
+                    rs.getString("collection"),
+                    rs.getObject("accession_date", LocalDate.class),
+                    icdCodes == null ? Set.of() : Set.copyOf(Arrays.asList(icdCodes.split(","))),
+                    rs.getString("anatomic_site"),
+                    rs.getString("stain"));
+        }, key);
+        Optional<SlideFacts> facts = rows.stream().findFirst();
+        if (cache.size() >= maxEntries) {
+            cache.values().removeIf(entry -> !now.isBefore(entry.expiresAt()));
+            if (cache.size() >= maxEntries) {
+                cache.clear();
+            }
+        }
+        cache.put(key, new CachedFacts(facts, now.plus(factsTtl)));
+        return facts;
+    }
+}
@@ -0,0 +1,215 @@
+package com.starling.auth.service.access;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * A compiled research-grant scope filter (the scope_filter of a COHORT grant).
+ *
+ * <pre>
+ * {"collections": ["clinical"],
+ *  "accessionDateFrom": "2020-01-01", "accessionDateTo": "2024-12-31",
+ *  "anatomicSites": ["Breast, left"], "icdCodes": ["C50", "D05.1"], "stains": ["H&amp;E"]}
+ * </pre>
+ * Every criterion present must hold; a list matches any of its values. Dates are inclusive
+ * and a case without an accession date fails a date criterion. ICD codes match by prefix
+ * ("C50" matches "C50.912"); sites and stains match whole values, ignoring case. Sites are
+ * part-level and stains slide-level, so a filter with either admits only some of a case's
+ * slides. At least one criterion is required: an empty filter would admit everything.
+ *
+ * A filter is evaluated in memory against {@link SlideFacts} for point checks, or rendered
+ * as a SQL predicate with {@link #toSql} over cases {@code c}, parts {@code p} and slides
+ * {@code s} to work on whole cohorts in the database.
+ */
+public final class ScopeFilter {
+
+    static final Set<String> KEYS = Set.of(
+            "collections", "accessionDateFrom", "accessionDateTo", "anatomicSites", "icdCodes", "stains");
+
+    /** Cohort grants are evaluated over clinical cases only (see CohortAccessService). */
+    private static final Set<String> COLLECTIONS = Set.of("clinical");
+    private static final Pattern ICD_CODE = Pattern.compile("[A-Z0-9.]{1,16}");
+
+    /** What a filter needs to know about one slide and its case. */
+    public record SlideFacts(
+            String collection, LocalDate accessionDate, Set<String> icdCodes, String anatomicSite, String stain) {
+    }
+
+    /** A parameterized SQL boolean expression. */
+    public record SqlPredicate(String sql, List<Object> args) {
+    }
+
+    private final Set<String> collections;
+    private final LocalDate accessionDateFrom;
+    private final LocalDate accessionDateTo;
+    private final Set<String> anatomicSites;
+    private final List<String> icdPrefixes;
+    private final Set<String> stains;
+
+    private ScopeFilter(
+            Set<String> collections,
+            LocalDate accessionDateFrom,
+            LocalDate accessionDateTo,
+            Set<String> anatomicSites,
+            List<String> icdPrefixes,
+            Set<String> stains) {
+        this.collections = collections;
+        this.accessionDateFrom = accessionDateFrom;
+        this.accessionDateTo = accessionDateTo;
+        this.anatomicSites = anatomicSites;
+        this.icdPrefixes = icdPrefixes;
+        this.stains = stains;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the filter is empty, has unknown keys, or a value
+     *                                  of the wrong shape
+     */
+    public static ScopeFilter compile(Map<String, Object> raw) {
+        if (raw == null || raw.isEmpty()) {
+            throw new IllegalArgumentException("scopeFilter must set at least one criterion");
+        }
+        for (String key : raw.keySet()) {
+            if (!KEYS.contains(key)) {
+                throw new IllegalArgumentException("Unknown scopeFilter key: " + key);
+            }
+        }
+        Set<String> collections = Set.copyOf(strings(raw, "collections", false));
+        for (String collection : collections) {
+            if (!COLLECTIONS.contains(collection)) {
+                throw new IllegalArgumentException("Research cohorts only cover the clinical collection, not: "
+                        + collection);
+            }
+        }
+        LocalDate from = date(raw, "accessionDateFrom");
+        LocalDate to = date(raw, "accessionDateTo");
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("scopeFilter.accessionDateFrom is after accessionDateTo");
+        }
+        List<String> icdPrefixes = strings(raw, "icdCodes", false).stream()
+                .map(code -> code.toUpperCase(Locale.ROOT))
+                .distinct()
+                .toList();
+        for (String code : icdPrefixes) {
+            if (!ICD_CODE.matcher(code).matches()) {
+                throw new IllegalArgumentException("Invalid ICD code in scopeFilter: " + code);
+            }
+        }
+        ScopeFilter filter = new ScopeFilter(
+                collections,
+                from,
+                to,
+                Set.copyOf(strings(raw, "anatomicSites", true)),
+                icdPrefixes,
+                Set.copyOf(strings(raw, "stains", true)));
+        if (filter.isEmpty()) {
+            throw new IllegalArgumentException("scopeFilter must set at least one criterion");
+        }
+        return filter;
+    }
+
+    /** True when the filter admits whole cases, i.e. has no site or stain criterion. */
+    public boolean coversWholeCase() {
+        return anatomicSites.isEmpty() && stains.isEmpty();
+    }
+
+    public boolean matchesCase(String collection, LocalDate accessionDate, Collection<String> icdCodes) {
+        if (!collections.isEmpty() && !collections.contains(collection)) {
+            return false;
+        }
+        if (accessionDateFrom != null && (accessionDate == null || accessionDate.isBefore(accessionDateFrom))) {
+            return false;
+        }
+        if (accessionDateTo != null && (accessionDate == null || accessionDate.isAfter(accessionDateTo))) {
+            return false;
+        }
+        return icdPrefixes.isEmpty() || icdCodes.stream().anyMatch(
+                code -> icdPrefixes.stream().anyMatch(prefix -> code.toUpperCase(Locale.ROOT).startsWith(prefix)));
+    }
+
+    public boolean matchesSlide(SlideFacts facts) {
+        return matchesCase(facts.collection(), facts.accessionDate(), facts.icdCodes())
+                && (anatomicSites.isEmpty() || anatomicSites.contains(lower(facts.anatomicSite())))
+                && (stains.isEmpty() || stains.contains(lower(facts.stain())));
+    }
+
+    /** The filter as a predicate over {@code wsi.cases c}, {@code wsi.parts p} and {@code wsi.slides s}. */
+    public SqlPredicate toSql() {
+        List<String> clauses = new ArrayList<>();
+        List<Object> args = new ArrayList<>();
+        if (!collections.isEmpty()) {
+            clauses.add("c.collection IN (" + placeholders(collections.size()) + ")");
+            args.addAll(sorted(collections));
+        }
+        if (accessionDateFrom != null) {
+            clauses.add("c.accession_date >= ?");
+            args.add(accessionDateFrom);
+        }
+        if (accessionDateTo != null) {
+            clauses.add("c.accession_date <= ?");
+            args.add(accessionDateTo);
+        }
+        if (!icdPrefixes.isEmpty()) {
+            clauses.add("EXISTS (SELECT 1 FROM wsi.case_icd_codes i WHERE i.case_id = c.id AND ("
+                    + String.join(" OR ", Collections.nCopies(icdPrefixes.size(), "upper(i.icd_code) LIKE ?"))
+                    + "))");
+            icdPrefixes.forEach(prefix -> args.add(prefix + "%"));
+        }
+        if (!anatomicSites.isEmpty()) {
+            clauses.add("lower(p.anatomic_site) IN (" + placeholders(anatomicSites.size()) + ")");
+            args.addAll(sorted(anatomicSites));
+        }
+        if (!stains.isEmpty()) {
+            clauses.add("lower(s.stain) IN (" + placeholders(stains.size()) + ")");
+            args.addAll(sorted(stains));
+        }
+        return new SqlPredicate(String.join(" AND ", clauses), List.copyOf(args));
+    }
+
+    private boolean isEmpty() {
+        return collections.isEmpty() && accessionDateFrom == null && accessionDateTo == null
+                && anatomicSites.isEmpty() && icdPrefixes.isEmpty() && stains.isEmpty();
+    }
+
+    private static List<String> strings(Map<String, Object> raw, String key, boolean lowerCase) {
+        Object value = raw.get(key);
+        if (value == null) {
+            return List.of();
+        }
+        List<?> values = value instanceof List<?> list ? list : List.of(value);
+        List<String> result = new ArrayList<>();
+        for (Object item : values) {
+            if (!(item instanceof String text) || text.isBlank()) {
+                throw new IllegalArgumentException("scopeFilter." + key + " must be a list of non-blank strings");
+            }
+            result.add(lowerCase ? lower(text.trim()) : text.trim());
+        }
+        return result;
+    }
+
+    private static LocalDate date(Map<String, Object> raw, String key) {
+        Object value = raw.get(key);
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value.toString());
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("scopeFilter." + key + " must be an ISO date (yyyy-MM-dd)");
+        }
+    }
+
+    private static String lower(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+
+    private static List<String> sorted(Set<String> values) {
+        return values.stream().sorted().toList();
+    }
+}
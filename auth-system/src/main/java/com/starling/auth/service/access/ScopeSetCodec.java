@@ -0,0 +1,188 @@
+package com.starling.auth.service.access;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+
+/**
+ * Compact encoding of a set of identifiers for token claims: a Golomb-Rice coded set.
+ *
+ * Each identifier's SHA-256 digest (first 64 bits) is mapped uniformly onto
+ * {@code [0, n * 2^p)}; the values are sorted and the gaps between them written with Rice
+ * parameter {@code p}, about {@code p + 1.5} bits per member. Membership tests never miss a
+ * member, and a non-member matches with probability 2^-p. The default {@code p} of 40 costs
+ * about 5 bytes per member, against 8 for a plain sorted list of 64-bit keys.
+ *
+ * Layout, base64url without padding: varint n, varint p, then the Rice-coded gaps, each as a
+ * unary quotient (ones closed by a zero) followed by the low {@code p} bits, most significant
+ * bit first.
+ */
+public final class ScopeSetCodec {
+
+    /** Identifies the encoding in the claim, for verifiers. */
+    public static final String ALGORITHM = "gcs-sha256";
+
+    public static final int DEFAULT_FALSE_POSITIVE_BITS = 40;
+
+    private ScopeSetCodec() {
+    }
+
+    public static String encode(Collection<String> identifiers) {
+        return encode(identifiers, DEFAULT_FALSE_POSITIVE_BITS);
+    }
+
+    static String encode(Collection<String> identifiers, int p) {
+        long[] hashes = identifiers.stream().distinct().mapToLong(ScopeSetCodec::hash).toArray();
+        int n = hashes.length;
+        if (n > 0 && (64 - Long.numberOfLeadingZeros(n)) + p > 62) {
+            throw new IllegalArgumentException("Scope set too large for p=" + p);
+        }
+        long range = (long) n << p;
+        long[] values = new long[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = Math.unsignedMultiplyHigh(hashes[i], range);
+        }
+        Arrays.sort(values);
+
+        BitWriter out = new BitWriter();
+        out.writeVarint(n);
+        out.writeVarint(p);
+        long previous = 0;
+        for (long value : values) {
+            long gap = value - previous;
+            previous = value;
+            for (long q = gap >>> p; q > 0; q--) {
+                out.writeBit(1);
+            }
+            out.writeBit(0);
+            out.writeBits(gap, p);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(out.toByteArray());
+    }
+
+    public static boolean contains(String encoded, String identifier) {
+        BitReader in = new BitReader(Base64.getUrlDecoder().decode(encoded));
+        long n = in.readVarint();
+        int p = (int) in.readVarint();
+        if (n == 0) {
+            return false;
+        }
+        long target = Math.unsignedMultiplyHigh(hash(identifier), n << p);
+        long current = 0;
+        for (long i = 0; i < n; i++) {
+            long q = 0;
+            while (in.readBit() == 1) {
+                q++;
+            }
+            current += (q << p) | in.readBits(p);
+            if (current == target) {
+                return true;
+            }
+            if (current > target) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    static long hash(String identifier) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(identifier.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest, 0, Long.BYTES).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static final class BitWriter {
+
+        private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        private int current;
+        private int used;
+
+        void writeBit(int bit) {
+            current = (current << 1) | bit;
+            if (++used == 8) {
+                out.write(current);
+                current = 0;
+                used = 0;
+            }
+        }
+
+        void writeBits(long value, int count) {
+            for (int i = count - 1; i >= 0; i--) {
+                writeBit((int) (value >>> i) & 1);
+            }
+        }
+
+        /** Byte-aligned LEB128, only used for the header. */
+        void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+
+        byte[] toByteArray() {
+            if (used > 0) {
+                out.write(current << (8 - used));
+                current = 0;
+                used = 0;
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static final class BitReader {
+
+        private final byte[] bytes;
+        private int position;
+        private int bit;
+
+        BitReader(byte[] bytes) {
+            this.bytes = bytes;
+        }
+
+        int readBit() {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Truncated scope set");
+            }
+            int value = (bytes[position] >>> (7 - bit)) & 1;
+            if (++bit == 8) {
+                bit = 0;
+                position++;
+            }
+            return value;
+        }
+
+        long readBits(int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value = (value << 1) | readBit();
+            }
+            return value;
+        }
+
+        long readVarint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                if (position >= bytes.length) {
+                    throw new IllegalArgumentException("Truncated scope set");
+                }
+                byte b = bytes[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+    }
+}
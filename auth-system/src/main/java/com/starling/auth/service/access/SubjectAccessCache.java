@@ -0,0 +1,125 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.service.access.AccessScopeService.AccessScope;
+
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Resolved access scopes by token subject, for {@link AccessDecisionService}.
+ *
+ * Entries expire on their own (configured TTL, or earlier when a contributing grant expires)
+ * and are dropped when the identity's roles or grants change. Subjects with no identity are
+ * cached too, as negative entries without an identity id; a change to the identity with that
+ * subject drops them, since it may be the first login that creates it.
+ *
+ * As in the token cache, a load that started before an invalidation of its subject or
+ * identity is not cached. Loads are stamped from a counter and each invalidation records the
+ * stamp it happened at, per subject and per identity, so invalidating one identity neither
+ * scans the cache nor discards other subjects' loads. Recorded stamps are pruned on each
+ * eviction pass; loads that started before the last prune are simply not cached.
+ */
+final class SubjectAccessCache {
+
+    /**
+     * @param identityId null for subjects that match no identity
+     */
+    record Entry(String subject, UUID identityId, AccessScope scope, Instant expiresAt) {
+
+        boolean liveAt(Instant now) {
+            return now.isBefore(expiresAt);
+        }
+    }
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final ConcurrentMap<String, Long> subjectInvalidatedAt = new ConcurrentHashMap<>();
+    private final ConcurrentMap<UUID, Long> identityInvalidatedAt = new ConcurrentHashMap<>();
+    private volatile long clearedAt;
+    private volatile long prunedAt;
+    private final int maxEntries;
+
+    SubjectAccessCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    Entry get(String subject, Instant now) {
+        Entry entry = entries.get(subject);
+        return entry != null && entry.liveAt(now) ? entry : null;
+    }
+
+    long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Caches {@code entry} unless its subject or identity was invalidated since
+     * {@code generationAtStart}.
+     */
+    boolean put(Entry entry, long generationAtStart) {
+        if (invalidatedSince(entry, generationAtStart)) {
+            return false;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(entry.subject())) {
+            return false;
+        }
+        entries.put(entry.subject(), entry);
+        // An invalidation that raced the put must still win.
+        if (invalidatedSince(entry, generationAtStart)) {
+            entries.remove(entry.subject(), entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Drops the entry of {@code subject}, positive or negative, and any other entry of
+     * {@code identityId}. Pass a null subject when it is unknown (the identity is gone); the
+     * identity's entries are then found by a scan.
+     */
+    void invalidateIdentity(UUID identityId, String subject) {
+        long stamp = generation.incrementAndGet();
+        identityInvalidatedAt.merge(identityId, stamp, Math::max);
+        if (subject != null) {
+            subjectInvalidatedAt.merge(subject, stamp, Math::max);
+            entries.remove(subject);
+        } else {
+            entries.values().removeIf(entry -> identityId.equals(entry.identityId()));
+        }
+    }
+
+    void invalidateAll() {
+        clearedAt = generation.incrementAndGet();
+        entries.clear();
+    }
+
+    int evictExpired(Instant now) {
+        int before = entries.size();
+        entries.values().removeIf(entry -> !entry.liveAt(now));
+        pruneInvalidations();
+        return before - entries.size();
+    }
+
+    private boolean invalidatedSince(Entry entry, long generationAtStart) {
+        return clearedAt > generationAtStart
+                || prunedAt > generationAtStart
+                || subjectInvalidatedAt.getOrDefault(entry.subject(), 0L) > generationAtStart
+                || (entry.identityId() != null
+                    && identityInvalidatedAt.getOrDefault(entry.identityId(), 0L) > generationAtStart);
+    }
+
+    private void pruneInvalidations() {
+        long mark = generation.get();
+        // Raise the floor first, so a load the pruned stamps would have rejected stays rejected
+        prunedAt = mark;
+        subjectInvalidatedAt.values().removeIf(stamp -> stamp <= mark);
+        identityInvalidatedAt.values().removeIf(stamp -> stamp <= mark);
+    }
+
+    int size() {
+        return entries.size();
+    }
+}
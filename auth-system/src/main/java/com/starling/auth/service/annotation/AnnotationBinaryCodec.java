@@ -0,0 +1,378 @@
+package com.starling.auth.service.annotation;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Compact binary representation of annotation sets ({@value #MEDIA_TYPE}).
+ *
+ * <pre>
+ * stream   = "SANN" version:u8 precisionBits:u8 record* END
+ * record   = SLIDE string                         -- slide of the features that follow
+ *          | FEATURE flags:u8 [id:16] type:string [label:string] [description:string]
+ *                    [properties:string] geometry
+ * geometry = kind:u8 parts                        -- kind is 1 + index in SUPPORTED_TYPES
+ * string   = length:varint utf8
+ * </pre>
+ *
+ * Coordinates are quantized to 1/2^precisionBits px and written as zigzag varint deltas from
+ * the previous position of the same feature, so dense AI polygons cost one or two bytes per
+ * ordinate. Polygon rings omit their closing position. Counts are unsigned varints; Point is
+ * a bare position, MultiPoint and LineString a counted position list, MultiLineString and
+ * Polygon a counted list of those, MultiPolygon one level deeper. Properties travel as a
+ * JSON object string.
+ *
+ * Both sides stream: the writer emits features as they are produced and the reader decodes
+ * one feature at a time, so neither side holds the whole set in memory.
+ */
+public final class AnnotationBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/vnd.starling.annotations+binary";
+
+    static final int DEFAULT_PRECISION_BITS = 2;
+
+    private static final byte[] MAGIC = {'S', 'A', 'N', 'N'};
+    private static final int VERSION = 1;
+
+    private static final int TAG_END = 0;
+    private static final int TAG_SLIDE = 1;
+    private static final int TAG_FEATURE = 2;
+
+    private static final int FLAG_ID = 1;
+    private static final int FLAG_LABEL = 1 << 1;
+    private static final int FLAG_DESCRIPTION = 1 << 2;
+    private static final int FLAG_PROPERTIES = 1 << 3;
+
+    /** Guards the reader against hostile length prefixes. */
+    private static final int MAX_STRING_BYTES = 1 << 20;
+    private static final int MAX_COUNT = 1 << 22;
+
+    private AnnotationBinaryCodec() {
+    }
+
+    // ── Writer ──────────────────────────────────────────────────────
+
+    public static final class Writer {
+
+        private final OutputStream out;
+        private final double scale;
+        private String currentSlide;
+        private long lastX;
+        private long lastY;
+
+        public Writer(OutputStream out) throws IOException {
+            this(out, DEFAULT_PRECISION_BITS);
+        }
+
+        public Writer(OutputStream out, int precisionBits) throws IOException {
+            if (precisionBits < 0 || precisionBits > 16) {
+                throw new IllegalArgumentException("precisionBits must be between 0 and 16");
+            }
+            this.out = out;
+            this.scale = 1 << precisionBits;
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(precisionBits);
+        }
+
+        public void write(AnnotationFeature feature) throws IOException {
+            if (!feature.slideId().equals(currentSlide)) {
+                out.write(TAG_SLIDE);
+                writeString(feature.slideId());
+                currentSlide = feature.slideId();
+            }
+
+            int flags = (feature.id() != null ? FLAG_ID : 0)
+                    | (feature.label() != null ? FLAG_LABEL : 0)
+                    | (feature.description() != null ? FLAG_DESCRIPTION : 0)
+                    | (feature.propertiesJson() != null ? FLAG_PROPERTIES : 0);
+            out.write(TAG_FEATURE);
+            out.write(flags);
+            if (feature.id() != null) {
+                writeFixedLong(feature.id().getMostSignificantBits());
+                writeFixedLong(feature.id().getLeastSignificantBits());
+            }
+            writeString(feature.annotationType());
+            if (feature.label() != null) {
+                writeString(feature.label());
+            }
+            if (feature.description() != null) {
+                writeString(feature.description());
+            }
+            if (feature.propertiesJson() != null) {
+                writeString(feature.propertiesJson());
+            }
+            writeGeometry(feature.geometry());
+        }
+
+        /** Writes the end marker; the underlying stream is left open. */
+        public void finish() throws IOException {
+            out.write(TAG_END);
+            out.flush();
+        }
+
+        private void writeGeometry(Map<String, Object> geometry) throws IOException {
+            String type = (String) geometry.get("type");
+            int kind = AnnotationGeometry.SUPPORTED_TYPES.indexOf(type);
+            if (kind < 0) {
+                throw new IllegalArgumentException("Unsupported geometry type: " + type);
+            }
+            out.write(kind + 1);
+            lastX = 0;
+            lastY = 0;
+            Object coordinates = geometry.get("coordinates");
+            switch (type) {
+                case "Point" -> writePosition(coordinates);
+                case "MultiPoint", "LineString" -> writePositions(coordinates, false);
+                case "MultiLineString" -> writeParts(coordinates, false);
+                case "Polygon" -> writeParts(coordinates, true);
+                default -> {
+                    List<?> polygons = (List<?>) coordinates;
+                    writeVarint(polygons.size());
+                    for (Object polygon : polygons) {
+                        writeParts(polygon, true);
+                    }
+                }
+            }
+        }
+
+        private void writeParts(Object value, boolean rings) throws IOException {
+            List<?> parts = (List<?>) value;
+            writeVarint(parts.size());
+            for (Object part : parts) {
+                writePositions(part, rings);
+            }
+        }
+
+        private void writePositions(Object value, boolean ring) throws IOException {
+            List<?> positions = (List<?>) value;
+            int count = positions.size();
+            if (ring) {
+                if (count < 4 || !samePosition(positions.getFirst(), positions.getLast())) {
+                    throw new IllegalArgumentException("Polygon rings must be closed");
+                }
+                count--;
+            }
+            writeVarint(count);
+            for (int i = 0; i < count; i++) {
+                writePosition(positions.get(i));
+            }
+        }
+
+        private static boolean samePosition(Object a, Object b) {
+            List<?> first = (List<?>) a;
+            List<?> second = (List<?>) b;
+            return ((Number) first.get(0)).doubleValue() == ((Number) second.get(0)).doubleValue()
+                    && ((Number) first.get(1)).doubleValue() == ((Number) second.get(1)).doubleValue();
+        }
+
+        private void writePosition(Object value) throws IOException {
+            List<?> position = (List<?>) value;
+            long x = Math.round(((Number) position.get(0)).doubleValue() * scale);
+            long y = Math.round(((Number) position.get(1)).doubleValue() * scale);
+            writeVarint(zigzag(x - lastX));
+            writeVarint(zigzag(y - lastY));
+            lastX = x;
+            lastY = y;
+        }
+
+        private void writeString(String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeFixedLong(long value) throws IOException {
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                out.write((int) (value >>> shift) & 0xFF);
+            }
+        }
+
+        private void writeVarint(long value) throws IOException {
+            while ((value & ~0x7FL) != 0) {
+                out.write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            out.write((int) value);
+        }
+    }
+
+    // ── Reader ──────────────────────────────────────────────────────
+
+    /**
+     * Decodes features one at a time. Malformed input surfaces as
+     * {@link IllegalArgumentException} so callers report it as a bad request.
+     */
+    public static final class Reader implements AnnotationFeatureSource {
+
+        private final InputStream in;
+        private final double scale;
+        private String currentSlide;
+        private boolean finished;
+        private long lastX;
+        private long lastY;
+
+        public Reader(InputStream in) throws IOException {
+            this.in = in;
+            for (byte expected : MAGIC) {
+                if (readByte() != expected) {
+                    throw new IllegalArgumentException("Not a Starling annotation stream");
+                }
+            }
+            int version = readByte();
+            if (version != VERSION) {
+                throw new IllegalArgumentException("Unsupported annotation stream version: " + version);
+            }
+            int precisionBits = readByte();
+            if (precisionBits > 16) {
+                throw new IllegalArgumentException("Invalid precision: " + precisionBits);
+            }
+            this.scale = 1 << precisionBits;
+        }
+
+        /** Returns the next feature, or null once the end marker has been read. */
+        @Override
+        public AnnotationFeature next() throws IOException {
+            while (!finished) {
+                int tag = readByte();
+                switch (tag) {
+                    case TAG_END -> finished = true;
+                    case TAG_SLIDE -> currentSlide = readString();
+                    case TAG_FEATURE -> {
+                        return readFeature();
+                    }
+                    default -> throw new IllegalArgumentException("Unknown record tag: " + tag);
+                }
+            }
+            return null;
+        }
+
+        private AnnotationFeature readFeature() throws IOException {
+            if (currentSlide == null) {
+                throw new IllegalArgumentException("Feature before any slide record");
+            }
+            int flags = readByte();
+            UUID id = (flags & FLAG_ID) != 0 ? new UUID(readFixedLong(), readFixedLong()) : null;
+            String type = readString();
+            String label = (flags & FLAG_LABEL) != 0 ? readString() : null;
+            String description = (flags & FLAG_DESCRIPTION) != 0 ? readString() : null;
+            String properties = (flags & FLAG_PROPERTIES) != 0 ? readString() : null;
+            return new AnnotationFeature(currentSlide, id, type, label, description, properties, readGeometry());
+        }
+
+        private Map<String, Object> readGeometry() throws IOException {
+            int kind = readByte() - 1;
+            if (kind < 0 || kind >= AnnotationGeometry.SUPPORTED_TYPES.size()) {
+                throw new IllegalArgumentException("Unknown geometry kind: " + (kind + 1));
+            }
+            String type = AnnotationGeometry.SUPPORTED_TYPES.get(kind);
+            lastX = 0;
+            lastY = 0;
+            Object coordinates = switch (type) {
+                case "Point" -> readPosition();
+                case "MultiPoint", "LineString" -> readPositions(false);
+                case "MultiLineString" -> readParts(false);
+                case "Polygon" -> readParts(true);
+                default -> {
+                    int count = readCount();
+                    List<Object> polygons = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        polygons.add(readParts(true));
+                    }
+                    yield polygons;
+                }
+            };
+            return Map.of("type", type, "coordinates", coordinates);
+        }
+
+        private List<Object> readParts(boolean rings) throws IOException {
+            int count = readCount();
+            List<Object> parts = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                parts.add(readPositions(rings));
+            }
+            return parts;
+        }
+
+        private List<Object> readPositions(boolean ring) throws IOException {
+            int count = readCount();
+            List<Object> positions = new ArrayList<>(ring ? count + 1 : count);
+            for (int i = 0; i < count; i++) {
+                positions.add(readPosition());
+            }
+            if (ring && !positions.isEmpty()) {
+                positions.add(positions.getFirst());
+            }
+            return positions;
+        }
+
+        private List<Double> readPosition() throws IOException {
+            lastX += unzigzag(readVarint());
+            lastY += unzigzag(readVarint());
+            return List.of(lastX / scale, lastY / scale);
+        }
+
+        private String readString() throws IOException {
+            long length = readVarint();
+            if (length > MAX_STRING_BYTES) {
+                throw new IllegalArgumentException("String too long: " + length + " bytes");
+            }
+            byte[] bytes = in.readNBytes((int) length);
+            if (bytes.length != length) {
+                throw new IllegalArgumentException("Truncated annotation stream");
+            }
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private int readCount() throws IOException {
+            long count = readVarint();
+            if (count > MAX_COUNT) {
+                throw new IllegalArgumentException("Count too large: " + count);
+            }
+            return (int) count;
+        }
+
+        private long readFixedLong() throws IOException {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value = (value << 8) | readByte();
+            }
+            return value;
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint");
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+            if (b < 0) {
+                throw new IllegalArgumentException("Truncated annotation stream", new EOFException());
+            }
+            return b;
+        }
+    }
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,21 @@
+package com.starling.auth.service.annotation;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One annotation as carried by bulk transfer formats (binary stream, GeoJSON import).
+ *
+ * @param id             existing annotation id on export; ignored on import
+ * @param propertiesJson JSON object text, or null
+ * @param geometry       GeoJSON geometry in level-0 slide pixels
+ */
+public record AnnotationFeature(
+        String slideId,
+        UUID id,
+        String annotationType,
+        String label,
+        String description,
+        String propertiesJson,
+        Map<String, Object> geometry) {
+}
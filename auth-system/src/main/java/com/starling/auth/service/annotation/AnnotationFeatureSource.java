@@ -0,0 +1,11 @@
+package com.starling.auth.service.annotation;
+
+import java.io.IOException;
+
+/** Pull-based stream of decoded features, read one at a time by the import pipeline. */
+@FunctionalInterface
+public interface AnnotationFeatureSource {
+
+    /** Returns the next feature, or null at the end of the stream. */
+    AnnotationFeature next() throws IOException;
+}
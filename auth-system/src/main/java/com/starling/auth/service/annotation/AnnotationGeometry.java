@@ -0,0 +1,157 @@
+package com.starling.auth.service.annotation;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Validation and bounding boxes for GeoJSON annotation geometries.
+ *
+ * Coordinates are level-0 slide pixels ([x, y], y down). Only the geometry types the viewer
+ * draws are accepted; anything else is rejected with an {@link IllegalArgumentException}
+ * naming the offending part, so the client sees a 400 it can act on.
+ */
+public final class AnnotationGeometry {
+
+    static final List<String> SUPPORTED_TYPES = List.of(
+            "Point", "MultiPoint", "LineString", "MultiLineString", "Polygon", "MultiPolygon");
+
+    private AnnotationGeometry() {
+    }
+
+    /** Axis-aligned bounding box in level-0 pixels. */
+    public record Bounds(double minX, double minY, double maxX, double maxY) {
+
+        public Bounds {
+            if (!(minX <= maxX && minY <= maxY)) {
+                throw new IllegalArgumentException("Invalid bounding box");
+            }
+        }
+
+        public boolean intersects(Bounds other) {
+            return maxX >= other.minX && minX <= other.maxX
+                    && maxY >= other.minY && minY <= other.maxY;
+        }
+
+        public List<Double> toList() {
+            return List.of(minX, minY, maxX, maxY);
+        }
+
+        /** Parses {@code minX,minY,maxX,maxY} as used by the {@code bbox} query parameter. */
+        public static Bounds parse(String bbox) {
+            String[] parts = bbox.split(",");
+            if (parts.length != 4) {
+                throw new IllegalArgumentException("bbox must be minX,minY,maxX,maxY");
+            }
+            double[] values = new double[4];
+            for (int i = 0; i < 4; i++) {
+                try {
+                    values[i] = Double.parseDouble(parts[i].trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("bbox must be minX,minY,maxX,maxY");
+                }
+                if (!Double.isFinite(values[i])) {
+                    throw new IllegalArgumentException("bbox values must be finite");
+                }
+            }
+            return new Bounds(values[0], values[1], values[2], values[3]);
+        }
+    }
+
+    /**
+     * Validates a GeoJSON geometry object and returns its bounding box.
+     *
+     * @throws IllegalArgumentException if the geometry is missing, of an unsupported type,
+     *                                  or structurally invalid
+     */
+    public static Bounds validateAndBound(Map<String, Object> geometry) {
+        if (geometry == null) {
+            throw new IllegalArgumentException("geometry is required");
+        }
+        Object type = geometry.get("type");
+        if (!(type instanceof String typeName) || !SUPPORTED_TYPES.contains(typeName)) {
+            throw new IllegalArgumentException("Unsupported geometry type: " + type);
+        }
+        Object coordinates = geometry.get("coordinates");
+        if (coordinates == null) {
+            throw new IllegalArgumentException("geometry.coordinates is required");
+        }
+
+        Accumulator acc = new Accumulator();
+        switch (typeName) {
+            case "Point" -> acc.position(coordinates);
+            case "MultiPoint" -> positions(coordinates, 1, acc);
+            case "LineString" -> positions(coordinates, 2, acc);
+            case "MultiLineString" -> {
+                for (Object line : list(coordinates, 1)) {
+                    positions(line, 2, acc);
+                }
+            }
+            case "Polygon" -> polygon(coordinates, acc);
+            case "MultiPolygon" -> {
+                for (Object polygon : list(coordinates, 1)) {
+                    polygon(polygon, acc);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported geometry type: " + typeName);
+        }
+        return acc.bounds();
+    }
+
+    private static void polygon(Object rings, Accumulator acc) {
+        for (Object ring : list(rings, 1)) {
+            List<?> positions = list(ring, 4);
+            if (!samePosition(positions.getFirst(), positions.getLast())) {
+                throw new IllegalArgumentException("Polygon rings must be closed");
+            }
+            positions(ring, 4, acc);
+        }
+    }
+
+    private static void positions(Object value, int minSize, Accumulator acc) {
+        for (Object position : list(value, minSize)) {
+            acc.position(position);
+        }
+    }
+
+    private static List<?> list(Object value, int minSize) {
+        if (!(value instanceof List<?> list) || list.size() < minSize) {
+            throw new IllegalArgumentException("Malformed geometry coordinates");
+        }
+        return list;
+    }
+
+    private static boolean samePosition(Object a, Object b) {
+        List<?> first = list(a, 2);
+        List<?> second = list(b, 2);
+        return coordinate(first.get(0)) == coordinate(second.get(0))
+                && coordinate(first.get(1)) == coordinate(second.get(1));
+    }
+
+    private static double coordinate(Object value) {
+        if (!(value instanceof Number number) || !Double.isFinite(number.doubleValue())) {
+            throw new IllegalArgumentException("Geometry coordinates must be finite numbers");
+        }
+        return number.doubleValue();
+    }
+
+    private static final class Accumulator {
+        private double minX = Double.POSITIVE_INFINITY;
+        private double minY = Double.POSITIVE_INFINITY;
+        private double maxX = Double.NEGATIVE_INFINITY;
+        private double maxY = Double.NEGATIVE_INFINITY;
+
+        void position(Object value) {
+            List<?> position = list(value, 2);
+            double x = coordinate(position.get(0));
+            double y = coordinate(position.get(1));
+            minX = Math.min(minX, x);
+            minY = Math.min(minY, y);
+            maxX = Math.max(maxX, x);
+            maxY = Math.max(maxY, y);
+        }
+
+        Bounds bounds() {
+            return new Bounds(minX, minY, maxX, maxY);
+        }
+    }
+}
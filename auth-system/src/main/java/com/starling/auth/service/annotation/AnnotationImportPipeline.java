@@ -0,0 +1,361 @@
+package com.starling.auth.service.annotation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starling.auth.dto.AnnotationDtos.AnnotationImportRejection;
+import com.starling.auth.dto.AnnotationDtos.AnnotationImportResult;
+import com.starling.auth.dto.AnnotationDtos.AnnotationSlideImport;
+import com.starling.auth.service.annotation.AnnotationGeometry.Bounds;
+import com.starling.auth.service.annotation.QuadTreeKey.Cell;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bulk annotation import for AI model outputs.
+ *
+ * The request thread decodes features and cuts them into single-slide chunks. Chunks are
+ * validated, bounded and spatially keyed on a worker pool and rendered straight to COPY
+ * text; a bounded window of chunks is in flight, so memory stays flat however large the
+ * upload. Chunks are then consumed in stream order and COPYed into wsi.annotations with one
+ * transaction per run of features for the same slide. A bad feature is rejected on its own
+ * and reported by index; a broken stream stops the import, keeping the slides already
+ * committed. Each slide transaction takes one slide version (see
+ * {@link AnnotationService#changes}) for all of its rows.
+ *
+ * Producers should send features grouped by slide (the binary writer does so): a slide that
+ * reappears later in the stream is committed in a further transaction.
+ */
+@Component
+public class AnnotationImportPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnotationImportPipeline.class);
+
+    static final int MAX_REPORTED_REJECTIONS = 100;
+
+    private static final String COPY_SQL = """
+            COPY wsi.annotations (version, case_id, slide_id, author_id, annotation_type, geometry, label,
+                description, properties, min_x, min_y, max_x, max_y, quad_depth, quad_key)
+            FROM STDIN WITH (FORMAT csv)
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final int chunkSize;
+    private final int maxFeatures;
+
+    public AnnotationImportPipeline(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            @Value("${starling.annotations.import.parallelism:0}") int parallelism,
+            @Value("${starling.annotations.import.chunk-size:1000}") int chunkSize,
+            @Value("${starling.annotations.bulk.max-features:500000}") int maxFeatures) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.chunkSize = Math.max(1, chunkSize);
+        this.maxFeatures = maxFeatures;
+        this.executor = Executors.newFixedThreadPool(this.parallelism,
+                Thread.ofPlatform().name("annotation-import-", 0).daemon().factory());
+    }
+
+    /**
+     * Where imported rows go.
+     *
+     * @param slides slide identifiers of the case mapped to wsi.slides ids
+     */
+    public record ImportTarget(UUID caseId, UUID authorId, Map<String, UUID> slides) {
+    }
+
+    /**
+     * Features of one slide, ready to COPY. The version column is left out of {@code csv}
+     * because it is only known once the slide transaction has started.
+     *
+     * @param rowEnds byte offset just past each row of {@code csv}
+     */
+    record PreparedChunk(
+            String slideId, UUID slideUuid, byte[] csv, int[] rowEnds, List<AnnotationImportRejection> rejections) {
+
+        int rows() {
+            return rowEnds.length;
+        }
+
+        /** The COPY rows with {@code version} prepended to each. */
+        byte[] withVersion(long version) {
+            byte[] prefix = (version + ",").getBytes(StandardCharsets.US_ASCII);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(csv.length + prefix.length * rowEnds.length);
+            int start = 0;
+            for (int end : rowEnds) {
+                out.write(prefix, 0, prefix.length);
+                out.write(csv, start, end - start);
+                start = end;
+            }
+            return out.toByteArray();
+        }
+    }
+
+    public AnnotationImportResult importFeatures(ImportTarget target, AnnotationFeatureSource source) {
+        long started = System.nanoTime();
+        List<AnnotationSlideImport> slides = new ArrayList<>();
+        String error = null;
+
+        try (ChunkStream chunks = new ChunkStream(target, source)) {
+            try {
+                while (chunks.peek() != null) {
+                    String slideId = chunks.peek().slideId();
+                    int created = Objects.requireNonNull(transactionTemplate.execute(status -> copySlide(chunks, slideId)));
+                    if (created > 0) {
+                        slides.add(new AnnotationSlideImport(slideId, created));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                error = e.getMessage();
+            } catch (RuntimeException e) {
+                log.error("Annotation import into case {} failed after {} slide(s)", target.caseId(), slides.size(), e);
+                error = "Import failed";
+            }
+
+            int created = slides.stream().mapToInt(AnnotationSlideImport::created).sum();
+            return new AnnotationImportResult(chunks.received, created, chunks.rejected, slides,
+                    List.copyOf(chunks.rejections), error, (System.nanoTime() - started) / 1_000_000);
+        }
+    }
+
+    /** COPYs every chunk of the current slide run in the caller's transaction. */
+    private int copySlide(ChunkStream chunks, String slideId) {
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) con -> {
+            CopyIn copyIn = null;
+            long version = 0;
+            int created = 0;
+            try {
+                PreparedChunk chunk;
+                while ((chunk = chunks.peek()) != null && Objects.equals(chunk.slideId(), slideId)) {
+                    chunks.next();
+                    if (chunk.rows() == 0) {
+                        continue;
+                    }
+                    if (copyIn == null) {
+                        version = jdbcTemplate.queryForObject(
+                                AnnotationService.NEXT_SLIDE_VERSION, Long.class, chunk.slideUuid());
+                        copyIn = con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+                    }
+                    byte[] rows = chunk.withVersion(version);
+                    copyIn.writeToCopy(rows, 0, rows.length);
+                    created += chunk.rows();
+                }
+                if (copyIn != null) {
+                    copyIn.endCopy();
+                }
+            } finally {
+                if (copyIn != null && copyIn.isActive()) {
+                    copyIn.cancelCopy();
+                }
+            }
+            return created;
+        });
+    }
+
+    /** Validates and keys one chunk and renders its rows as COPY csv. Runs on the worker pool. */
+    PreparedChunk prepare(ImportTarget target, List<AnnotationFeature> features, int firstIndex) {
+        String slideId = features.getFirst().slideId();
+        UUID slideUuid = slideId != null ? target.slides().get(slideId) : null;
+        List<AnnotationImportRejection> rejections = new ArrayList<>();
+        ByteArrayOutputStream csv = new ByteArrayOutputStream(features.size() * 256);
+        StringBuilder row = new StringBuilder(256);
+        int[] rowEnds = new int[features.size()];
+        int rows = 0;
+
+        for (int i = 0; i < features.size(); i++) {
+            AnnotationFeature feature = features.get(i);
+            int index = firstIndex + i;
+            if (slideUuid == null) {
+                rejections.add(new AnnotationImportRejection(index, slideId,
+                        slideId == null ? "slideId is required" : "Slide not found in case"));
+                continue;
+            }
+            try {
+                Bounds bounds = AnnotationGeometry.validateAndBound(feature.geometry());
+                Cell cell = QuadTreeKey.cellFor(bounds);
+                Object[] columns = {
+                        target.caseId(), slideUuid, target.authorId(),
+                        AnnotationService.annotationType(feature.annotationType()),
+                        objectMapper.writeValueAsString(feature.geometry()),
+                        feature.label(), feature.description(), propertiesJson(feature.propertiesJson()),
+                        bounds.minX(), bounds.minY(), bounds.maxX(), bounds.maxY(), cell.depth(), cell.key()};
+                row.setLength(0);
+                for (int c = 0; c < columns.length; c++) {
+                    if (c > 0) {
+                        row.append(',');
+                    }
+                    appendCsv(row, columns[c]);
+                }
+                row.append('\n');
+                csv.writeBytes(row.toString().getBytes(StandardCharsets.UTF_8));
+                rowEnds[rows++] = csv.size();
+            } catch (IllegalArgumentException | JsonProcessingException e) {
+                rejections.add(new AnnotationImportRejection(index, slideId, e.getMessage()));
+            }
+        }
+        return new PreparedChunk(slideId, slideUuid, csv.toByteArray(), Arrays.copyOf(rowEnds, rows), rejections);
+    }
+
+    /** Accepts a JSON object (or nothing) as feature properties. */
+    private String propertiesJson(String json) throws JsonProcessingException {
+        if (json == null) {
+            return "{}";
+        }
+        if (!objectMapper.readTree(json).isObject()) {
+            throw new IllegalArgumentException("properties must be a JSON object");
+        }
+        return json;
+    }
+
+    /**
+     * Appends one CSV field. Non-null values are always quoted, so an unquoted empty field
+     * unambiguously means NULL.
+     */
+    static void appendCsv(StringBuilder out, Object value) {
+        if (value != null) {
+            out.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Reads features ahead of the writer and keeps up to two chunks per worker in flight.
+     * Not thread-safe; used by the request thread only.
+     */
+    private final class ChunkStream implements AutoCloseable {
+
+        private final ImportTarget target;
+        private final AnnotationFeatureSource source;
+        private final Deque<Future<PreparedChunk>> inFlight = new ArrayDeque<>();
+        private final List<AnnotationImportRejection> rejections = new ArrayList<>();
+        private AnnotationFeature carried;
+        private PreparedChunk head;
+        private boolean exhausted;
+        private int received;
+        private int chunked;
+        private int rejected;
+
+        ChunkStream(ImportTarget target, AnnotationFeatureSource source) {
+            this.target = target;
+            this.source = source;
+        }
+
+        PreparedChunk peek() {
+            if (head == null) {
+                fill();
+                if (inFlight.isEmpty()) {
+                    return null;
+                }
+                head = await(inFlight.poll());
+                rejected += head.rejections().size();
+                for (AnnotationImportRejection rejection : head.rejections()) {
+                    if (rejections.size() < MAX_REPORTED_REJECTIONS) {
+                        rejections.add(rejection);
+                    }
+                }
+                fill();
+            }
+            return head;
+        }
+
+        void next() {
+            peek();
+            head = null;
+        }
+
+        private void fill() {
+            while (!exhausted && inFlight.size() < parallelism * 2) {
+                List<AnnotationFeature> features = readChunk();
+                if (features.isEmpty()) {
+                    return;
+                }
+                int firstIndex = chunked;
+                chunked += features.size();
+                inFlight.add(executor.submit(() -> prepare(target, features, firstIndex)));
+            }
+        }
+
+        /** Reads up to chunkSize features of one slide; a feature of the next slide is carried over. */
+        private List<AnnotationFeature> readChunk() {
+            List<AnnotationFeature> features = new ArrayList<>();
+            if (carried != null) {
+                features.add(carried);
+                carried = null;
+            }
+            try {
+                while (features.size() < chunkSize) {
+                    AnnotationFeature feature = source.next();
+                    if (feature == null) {
+                        exhausted = true;
+                        break;
+                    }
+                    if (++received > maxFeatures) {
+                        throw new IllegalArgumentException("Import exceeds " + maxFeatures + " features");
+                    }
+                    if (!features.isEmpty() && !Objects.equals(feature.slideId(), features.getFirst().slideId())) {
+                        carried = feature;
+                        break;
+                    }
+                    features.add(feature);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return features;
+        }
+
+        private PreparedChunk await(Future<PreparedChunk> future) {
+            try {
+                return future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted during annotation import", e);
+            } catch (ExecutionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re
+                        : new IllegalStateException(e.getCause().getMessage(), e.getCause());
+            }
+        }
+
+        @Override
+        public void close() {
+            inFlight.forEach(future -> future.cancel(true));
+        }
+    }
+}
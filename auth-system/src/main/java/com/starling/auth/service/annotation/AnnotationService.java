@@ -0,0 +1,555 @@
+package com.starling.auth.service.annotation;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starling.auth.dto.AnnotationDtos.AnnotationChanges;
+import com.starling.auth.dto.AnnotationDtos.AnnotationImportResult;
+import com.starling.auth.dto.AnnotationDtos.AnnotationRequest;
+import com.starling.auth.dto.AnnotationDtos.AnnotationResponse;
+import com.starling.auth.model.Identity;
+import com.starling.auth.model.db.IdentityEntity;
+import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.repository.jdbc.JsonbColumnReader;
+import com.starling.auth.service.AuthAuditService;
+import com.starling.auth.service.AuthzPermissionService;
+import com.starling.auth.service.annotation.AnnotationImportPipeline.ImportTarget;
+import com.starling.auth.service.annotation.AnnotationGeometry.Bounds;
+import com.starling.auth.service.annotation.QuadTreeKey.Cell;
+import com.starling.auth.service.annotation.QuadTreeKey.Cover;
+import com.starling.auth.service.annotation.QuadTreeKey.Range;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementSetter;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Viewer annotation persistence for clinical cases (wsi.annotations).
+ *
+ * Every write validates the GeoJSON geometry and stores its bounding box and quadtree cell
+ * (see {@link QuadTreeKey}) alongside it. Reads can be limited to a viewport: the cover's key
+ * ranges and ancestor keys select candidates from the (slide_id, quad_key) index, and the
+ * exact bounding-box test and the level filter are applied to those candidates only.
+ *
+ * Every write transaction takes the next version of its slide from
+ * wsi.annotation_slide_versions and stamps it on the rows it writes; deletes leave a
+ * tombstone. The counter row stays locked until commit, so a slide's versions become visible
+ * in order and {@link #changes} never skips a write. Updates and deletes name the version
+ * they were based on and fail with 412 if the annotation has moved on since.
+ *
+ * Bulk imports go through {@link AnnotationImportPipeline}.
+ *
+ * Reads require CASE_VIEW on the case; writes require CASE_EDIT.
+ */
+@Service
+public class AnnotationService {
+
+    /** Annotation types are free-form for AI models, but bounded by the column width. */
+    static final int MAX_TYPE_LENGTH = 32;
+
+    /** Deepest viewer level accepted; 2^30 px is far beyond any slide. */
+    static final int MAX_LEVEL = 30;
+
+    private static final String SELECT_ANNOTATION = """
+            SELECT a.id, s.slide_id AS slide_label, a.annotation_type, a.geometry,
+                   a.min_x, a.min_y, a.max_x, a.max_y, a.label, a.description, a.properties,
+                   a.author_id, i.display_name AS author_display, a.created_at, a.updated_at, a.version
+            FROM wsi.annotations a
+            JOIN wsi.slides s ON s.id = a.slide_id
+            LEFT JOIN iam.identity i ON i.identity_id = a.author_id
+            """;
+
+    /** Takes the next version of a slide and holds its counter row until commit. */
+    static final String NEXT_SLIDE_VERSION = """
+            INSERT INTO wsi.annotation_slide_versions (slide_id, version) VALUES (?, 1)
+            ON CONFLICT (slide_id) DO UPDATE SET version = wsi.annotation_slide_versions.version + 1
+            RETURNING version
+            """;
+
+    private static final int BULK_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final JsonbColumnReader jsonbColumnReader;
+    private final IdentityRepository identityRepository;
+    private final AuthzPermissionService authzPermissionService;
+    private final AuthAuditService authAuditService;
+    private final AnnotationImportPipeline importPipeline;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate snapshotTransaction;
+    private final int maxResults;
+    private final int maxBulkResults;
+
+    public AnnotationService(
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            ObjectMapper objectMapper,
+            JsonbColumnReader jsonbColumnReader,
+            IdentityRepository identityRepository,
+            AuthzPermissionService authzPermissionService,
+            AuthAuditService authAuditService,
+            AnnotationImportPipeline importPipeline,
+            @Value("${starling.annotations.max-results:20000}") int maxResults,
+            @Value("${starling.annotations.bulk.max-features:500000}") int maxBulkResults) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.importPipeline = importPipeline;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setReadOnly(true);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.objectMapper = objectMapper;
+        this.jsonbColumnReader = jsonbColumnReader;
+        this.identityRepository = identityRepository;
+        this.authzPermissionService = authzPermissionService;
+        this.authAuditService = authAuditService;
+        this.maxResults = maxResults;
+        this.maxBulkResults = maxBulkResults;
+    }
+
+    /** SQL and parameters of one authorized listing, without ORDER BY and LIMIT. */
+    public record AnnotationQuery(String sql, List<Object> params) {
+    }
+
+    /**
+     * Lists annotations of a case, optionally restricted to one slide and a viewport.
+     *
+     * @param viewport level-0 pixel rectangle; requires {@code slideId}
+     * @param level    viewer pyramid level (downsample 2^level); annotations smaller than one
+     *                 screen pixel at that level are omitted, points are always kept
+     */
+    public List<AnnotationResponse> list(
+            Identity actor, String accession, String slideId, Bounds viewport, Integer level) {
+        AnnotationQuery query = prepareList(actor, accession, slideId, viewport, level);
+        return jdbcTemplate.query(ordered(query, maxResults), this::mapRow, query.params().toArray());
+    }
+
+    /**
+     * Checks access and builds the listing query; the rows are read by {@link #list} or
+     * streamed by {@link #writeBinary}.
+     */
+    public AnnotationQuery prepareList(
+            Identity actor, String accession, String slideId, Bounds viewport, Integer level) {
+        UUID caseId = resolveCase(accession);
+        authzPermissionService.requirePermission(actor, "CASE_VIEW", "CASE", caseId, "listAnnotations");
+
+        if (viewport != null && slideId == null) {
+            throw new IllegalArgumentException("slideId is required when bbox is given");
+        }
+        if (level != null && (level < 0 || level > MAX_LEVEL)) {
+            throw new IllegalArgumentException("level must be between 0 and " + MAX_LEVEL);
+        }
+
+        StringBuilder sql = new StringBuilder(SELECT_ANNOTATION).append(" WHERE a.case_id = ?");
+        List<Object> params = new ArrayList<>();
+        params.add(caseId);
+
+        if (slideId != null) {
+            sql.append(" AND a.slide_id = ?");
+            params.add(resolveSlide(caseId, slideId));
+        }
+        if (viewport != null) {
+            appendViewportFilter(sql, params, viewport);
+        }
+        if (level != null && level > 0) {
+            sql.append(" AND (greatest(a.max_x - a.min_x, a.max_y - a.min_y) >= ?")
+                    .append(" OR (a.min_x = a.max_x AND a.min_y = a.max_y))");
+            params.add(Math.scalb(1.0, level));
+        }
+        return new AnnotationQuery(sql.toString(), params);
+    }
+
+    /**
+     * Streams the listing in the binary encoding. Rows are read through a server-side cursor
+     * and written as they arrive, so large sets never sit in memory on either side.
+     */
+    public void writeBinary(AnnotationQuery query, OutputStream out) throws IOException {
+        AnnotationBinaryCodec.Writer writer = new AnnotationBinaryCodec.Writer(out);
+        PreparedStatementSetter setter = new ArgumentPreparedStatementSetter(query.params().toArray());
+        String sql = ordered(query, maxBulkResults);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(sql);
+                ps.setFetchSize(BULK_FETCH_SIZE);
+                setter.setValues(ps);
+                return ps;
+            }, (RowCallbackHandler) rs -> {
+                try {
+                    writer.write(toFeature(rs));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    /**
+     * Bulk-imports a stream of features through {@link AnnotationImportPipeline} and records
+     * one summarizing audit event for the whole upload.
+     *
+     * @param format source format, recorded in the audit event
+     */
+    public AnnotationImportResult importFeatures(
+            Identity actor, String accession, String format, AnnotationFeatureSource source) {
+        UUID caseId = resolveCase(accession);
+        authzPermissionService.requirePermission(actor, "CASE_EDIT", "CASE", caseId, "importAnnotations");
+
+        ImportTarget target = new ImportTarget(caseId, resolveActorId(actor), caseSlides(caseId));
+        AnnotationImportResult result = importPipeline.importFeatures(target, source);
+
+        authAuditService.recordAnnotationsImported(actor, caseId, accession, format, result);
+        return result;
+    }
+
+    /**
+     * Annotations of one slide created, updated or deleted after version {@code since}.
+     * Everything is read from one snapshot, so the returned version covers exactly the
+     * returned changes. Asks the client to resync when its version predates purged
+     * tombstones or the delta is larger than a listing would be.
+     */
+    public AnnotationChanges changes(Identity actor, String accession, String slideId, long since) {
+        UUID caseId = resolveCase(accession);
+        authzPermissionService.requirePermission(actor, "CASE_VIEW", "CASE", caseId, "annotationChanges");
+
+        if (slideId == null || slideId.isBlank()) {
+            throw new IllegalArgumentException("slideId is required");
+        }
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        UUID slideUuid = resolveSlide(caseId, slideId);
+
+        return snapshotTransaction.execute(status -> {
+            long[] state = jdbcTemplate.query(
+                            "SELECT version, pruned_version FROM wsi.annotation_slide_versions WHERE slide_id = ?",
+                            (rs, rowNum) -> new long[]{rs.getLong("version"), rs.getLong("pruned_version")},
+                            slideUuid)
+                    .stream()
+                    .findFirst()
+                    .orElse(new long[]{0, 0});
+            long version = state[0];
+            if (since > version || since < state[1]) {
+                return resync(slideId, version);
+            }
+
+            List<AnnotationResponse> upserted = jdbcTemplate.query(
+                    SELECT_ANNOTATION + " WHERE a.slide_id = ? AND a.version > ? ORDER BY a.version, a.id LIMIT "
+                            + (maxResults + 1),
+                    this::mapRow, slideUuid, since);
+            if (upserted.size() > maxResults) {
+                return resync(slideId, version);
+            }
+            List<UUID> deleted = jdbcTemplate.queryForList("""
+                    SELECT annotation_id FROM wsi.annotation_tombstones
+                    WHERE slide_id = ? AND version > ?
+                    ORDER BY version
+                    """, UUID.class, slideUuid, since);
+            return new AnnotationChanges(slideId, version, false, upserted, deleted);
+        });
+    }
+
+    private static AnnotationChanges resync(String slideId, long version) {
+        return new AnnotationChanges(slideId, version, true, List.of(), List.of());
+    }
+
+    private static String ordered(AnnotationQuery query, int limit) {
+        return query.sql() + " ORDER BY s.slide_id, a.created_at, a.id LIMIT " + limit;
+    }
+
+    @Transactional
+    public AnnotationResponse create(Identity actor, String accession, AnnotationRequest request) {
+        UUID caseId = resolveCase(accession);
+        authzPermissionService.requirePermission(actor, "CASE_EDIT", "CASE", caseId, "createAnnotation");
+
+        String slideId = requireSlideId(request);
+        UUID slideUuid = resolveSlide(caseId, slideId);
+        Bounds bounds = AnnotationGeometry.validateAndBound(request.geometry());
+        Cell cell = QuadTreeKey.cellFor(bounds);
+        long version = nextVersion(slideUuid);
+
+        UUID annotationId = jdbcTemplate.queryForObject("""
+                INSERT INTO wsi.annotations (version, case_id, slide_id, author_id, annotation_type, geometry,
+                    label, description, properties, min_x, min_y, max_x, max_y, quad_depth, quad_key)
+                VALUES (?, ?, ?, ?, ?, ?::jsonb, ?, ?, ?::jsonb, ?, ?, ?, ?, ?, ?)
+                RETURNING id
+                """, UUID.class,
+                version, caseId, slideUuid, resolveActorId(actor), annotationType(request.annotationType()),
+                toJson(request.geometry()), request.label(), request.description(),
+                toJson(properties(request)),
+                bounds.minX(), bounds.minY(), bounds.maxX(), bounds.maxY(), cell.depth(), cell.key());
+
+        authAuditService.recordAnnotationCreated(actor, annotationId, accession, slideId);
+        return get(caseId, annotationId);
+    }
+
+    /**
+     * Replaces an annotation. Annotations stay on their slide; {@code expectedVersion} is the
+     * version the caller last saw.
+     */
+    @Transactional
+    public AnnotationResponse update(
+            Identity actor, String accession, UUID annotationId, AnnotationRequest request, Long expectedVersion) {
+        UUID caseId = resolveCase(accession);
+        authzPermissionService.requirePermission(actor, "CASE_EDIT", "CASE", caseId, "updateAnnotation");
+
+        String slideId = requireSlideId(request);
+        CurrentAnnotation current = current(caseId, annotationId);
+        if (!current.slideId().equals(slideId)) {
+            throw new IllegalArgumentException("Annotations cannot move between slides");
+        }
+        requireVersion(current, expectedVersion);
+        Bounds bounds = AnnotationGeometry.validateAndBound(request.geometry());
+        Cell cell = QuadTreeKey.cellFor(bounds);
+        long version = nextVersion(current.slideUuid());
+
+        int updated = jdbcTemplate.update("""
+                UPDATE wsi.annotations
+                SET version = ?, annotation_type = ?, geometry = ?::jsonb, label = ?, description = ?,
+                    properties = ?::jsonb, min_x = ?, min_y = ?, max_x = ?, max_y = ?,
+                    quad_depth = ?, quad_key = ?, updated_at = now()
+                WHERE id = ? AND case_id = ? AND version = ?
+                """,
+                version, annotationType(request.annotationType()), toJson(request.geometry()), request.label(),
+                request.description(), toJson(properties(request)),
+                bounds.minX(), bounds.minY(), bounds.maxX(), bounds.maxY(), cell.depth(), cell.key(),
+                annotationId, caseId, expectedVersion);
+        if (updated == 0) {
+            throw modifiedConcurrently(annotationId);
+        }
+
+        authAuditService.recordAnnotationUpdated(actor, annotationId, accession, slideId);
+        return get(caseId, annotationId);
+    }
+
+    /** Deletes an annotation last seen at {@code expectedVersion} and leaves its tombstone. */
+    @Transactional
+    public void delete(Identity actor, String accession, UUID annotationId, Long expectedVersion) {
+        UUID caseId = resolveCase(accession);
+        authzPermissionService.requirePermission(actor, "CASE_EDIT", "CASE", caseId, "deleteAnnotation");
+
+        CurrentAnnotation current = current(caseId, annotationId);
+        requireVersion(current, expectedVersion);
+        long version = nextVersion(current.slideUuid());
+
+        int deleted = jdbcTemplate.update(
+                "DELETE FROM wsi.annotations WHERE id = ? AND case_id = ? AND version = ?",
+                annotationId, caseId, expectedVersion);
+        if (deleted == 0) {
+            throw modifiedConcurrently(annotationId);
+        }
+        jdbcTemplate.update("""
+                INSERT INTO wsi.annotation_tombstones (annotation_id, slide_id, version)
+                VALUES (?, ?, ?)
+                """, annotationId, current.slideUuid(), version);
+
+        authAuditService.recordAnnotationDeleted(actor, annotationId, accession, current.slideId());
+    }
+
+    private record CurrentAnnotation(UUID slideUuid, String slideId, long version) {
+    }
+
+    private CurrentAnnotation current(UUID caseId, UUID annotationId) {
+        return jdbcTemplate.query("""
+                        SELECT a.slide_id, s.slide_id AS slide_label, a.version
+                        FROM wsi.annotations a
+                        JOIN wsi.slides s ON s.id = a.slide_id
+                        WHERE a.id = ? AND a.case_id = ?
+                        """,
+                        (rs, rowNum) -> new CurrentAnnotation(rs.getObject("slide_id", UUID.class),
+                                rs.getString("slide_label"), rs.getLong("version")),
+                        annotationId, caseId)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Annotation not found: " + annotationId));
+    }
+
+    /** Fails fast on a stale version; the conditional write re-checks under the slide lock. */
+    private static void requireVersion(CurrentAnnotation current, Long expectedVersion) {
+        if (expectedVersion == null) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_REQUIRED,
+                    "If-Match with the annotation version is required");
+        }
+        if (current.version() != expectedVersion) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                    "Annotation was modified; current version is " + current.version());
+        }
+    }
+
+    private static ResponseStatusException modifiedConcurrently(UUID annotationId) {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Annotation was modified concurrently: " + annotationId);
+    }
+
+    private long nextVersion(UUID slideUuid) {
+        return Objects.requireNonNull(jdbcTemplate.queryForObject(NEXT_SLIDE_VERSION, Long.class, slideUuid));
+    }
+
+    /**
+     * Narrows the query to one viewport: index candidates from the quadtree cover, then the
+     * exact bounding-box intersection.
+     */
+    static void appendViewportFilter(StringBuilder sql, List<Object> params, Bounds viewport) {
+        Cover cover = QuadTreeKey.cover(viewport);
+
+        sql.append(" AND ((a.quad_depth >= ? AND (");
+        params.add(cover.depth());
+        for (int i = 0; i < cover.ranges().size(); i++) {
+            Range range = cover.ranges().get(i);
+            sql.append(i == 0 ? "" : " OR ").append("a.quad_key BETWEEN ? AND ?");
+            params.add(range.lo());
+            params.add(range.hi());
+        }
+        sql.append("))");
+        if (!cover.ancestorKeys().isEmpty()) {
+            sql.append(" OR (a.quad_depth < ? AND a.quad_key IN (")
+                    .append(String.join(", ", Collections.nCopies(cover.ancestorKeys().size(), "?")))
+                    .append("))");
+            params.add(cover.depth());
+            params.addAll(cover.ancestorKeys());
+        }
+        sql.append(")");
+
+        sql.append(" AND a.max_x >= ? AND a.min_x <= ? AND a.max_y >= ? AND a.min_y <= ?");
+        params.add(viewport.minX());
+        params.add(viewport.maxX());
+        params.add(viewport.minY());
+        params.add(viewport.maxY());
+    }
+
+    private AnnotationResponse get(UUID caseId, UUID annotationId) {
+        return jdbcTemplate.query(SELECT_ANNOTATION + " WHERE a.case_id = ? AND a.id = ?",
+                        this::mapRow, caseId, annotationId)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Annotation not found: " + annotationId));
+    }
+
+    private UUID resolveCase(String accession) {
+        return jdbcTemplate.queryForList(
+                        "SELECT id FROM wsi.cases WHERE case_id = ? AND collection = 'clinical'",
+                        UUID.class, accession)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Case not found: " + accession));
+    }
+
+    private UUID resolveSlide(UUID caseId, String slideId) {
+        return jdbcTemplate.queryForList("""
+                        SELECT s.id FROM wsi.slides s
+                        JOIN wsi.blocks b ON b.id = s.block_id
+                        JOIN wsi.parts p ON p.id = b.part_id
+                        WHERE p.case_id = ? AND s.slide_id = ?
+                        """, UUID.class, caseId, slideId)
+                .stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Slide not found in case: " + slideId));
+    }
+
+    private Map<String, UUID> caseSlides(UUID caseId) {
+        Map<String, UUID> slides = new HashMap<>();
+        jdbcTemplate.query("""
+                SELECT s.slide_id, s.id FROM wsi.slides s
+                JOIN wsi.blocks b ON b.id = s.block_id
+                JOIN wsi.parts p ON p.id = b.part_id
+                WHERE p.case_id = ?
+                """, (RowCallbackHandler) rs -> slides.put(rs.getString("slide_id"), rs.getObject("id", UUID.class)),
+                caseId);
+        return slides;
+    }
+
+    private UUID resolveActorId(Identity actor) {
+        return identityRepository
+                .findByProviderIdAndExternalSubject(actor.getProviderId(), actor.getExternalSubject())
+                .map(IdentityEntity::getIdentityId)
+                .orElseThrow(() -> new IllegalStateException("Identity not found"));
+    }
+
+    private static String requireSlideId(AnnotationRequest request) {
+        if (request == null || request.slideId() == null || request.slideId().isBlank()) {
+            throw new IllegalArgumentException("slideId is required");
+        }
+        return request.slideId();
+    }
+
+    static String annotationType(String type) {
+        if (type == null || type.isBlank()) {
+            return "region";
+        }
+        if (type.length() > MAX_TYPE_LENGTH) {
+            throw new IllegalArgumentException("annotationType must be at most " + MAX_TYPE_LENGTH + " characters");
+        }
+        return type;
+    }
+
+    private static Map<String, Object> properties(AnnotationRequest request) {
+        return request.properties() != null ? request.properties() : Map.of();
+    }
+
+    private String toJson(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Annotation is not serializable as JSON");
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnnotationFeature toFeature(ResultSet rs) throws SQLException {
+        return new AnnotationFeature(
+                rs.getString("slide_label"),
+                rs.getObject("id", UUID.class),
+                rs.getString("annotation_type"),
+                rs.getString("label"),
+                rs.getString("description"),
+                emptyToNull(rs.getString("properties")),
+                jsonbColumnReader.read(rs, "geometry", Map.class));
+    }
+
+    /** Empty property objects are the common case and are left out of the binary stream. */
+    private static String emptyToNull(String json) {
+        return json == null || json.equals("{}") ? null : json;
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnnotationResponse mapRow(ResultSet rs, int rowNum) throws SQLException {
+        return new AnnotationResponse(
+                rs.getObject("id", UUID.class),
+                rs.getString("slide_label"),
+                rs.getString("annotation_type"),
+                jsonbColumnReader.read(rs, "geometry", Map.class),
+                List.of(rs.getDouble("min_x"), rs.getDouble("min_y"), rs.getDouble("max_x"), rs.getDouble("max_y")),
+                rs.getString("label"),
+                rs.getString("description"),
+                jsonbColumnReader.read(rs, "properties", Map.class),
+                rs.getObject("author_id", UUID.class),
+                rs.getString("author_display"),
+                rs.getObject("created_at", OffsetDateTime.class).toInstant(),
+                rs.getObject("updated_at", OffsetDateTime.class).toInstant(),
+                rs.getLong("version"));
+    }
+}
@@ -0,0 +1,49 @@
+package com.starling.auth.service.annotation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Purges old annotation tombstones. Each slide's pruned_version is raised to the newest
+ * purged tombstone, so clients polling from before it are told to resync instead of missing
+ * the deletes.
+ */
+@Component
+public class AnnotationTombstonePurgeTask {
+
+    private static final Logger log = LoggerFactory.getLogger(AnnotationTombstonePurgeTask.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int retentionDays;
+
+    public AnnotationTombstonePurgeTask(
+            JdbcTemplate jdbcTemplate,
+            @Value("${starling.annotations.tombstone-retention-days:30}") int retentionDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.retentionDays = retentionDays;
+    }
+
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeTombstones() {
+        int slides = jdbcTemplate.update("""
+                WITH purged AS (
+                    DELETE FROM wsi.annotation_tombstones
+                    WHERE deleted_at < now() - make_interval(days => ?)
+                    RETURNING slide_id, version
+                ), newest AS (
+                    SELECT slide_id, max(version) AS version FROM purged GROUP BY slide_id
+                )
+                UPDATE wsi.annotation_slide_versions v
+                SET pruned_version = greatest(v.pruned_version, n.version)
+                FROM newest n
+                WHERE v.slide_id = n.slide_id
+                """, retentionDays);
+        if (slides > 0) {
+            log.info("Purged annotation tombstones older than {} days on {} slide(s)", retentionDays, slides);
+        }
+    }
+}
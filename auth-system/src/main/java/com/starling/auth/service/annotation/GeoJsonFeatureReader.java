@@ -0,0 +1,119 @@
+package com.starling.auth.service.annotation;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams the features of a GeoJSON FeatureCollection (or a bare array of features) one at
+ * a time, so model outputs of any size are never parsed as a whole.
+ *
+ * Annotation fields travel in the feature properties: {@code slideId} (falling back to the
+ * default given by the caller), {@code annotationType}, {@code label} and {@code description}.
+ * All other properties are kept as the annotation's properties.
+ */
+public final class GeoJsonFeatureReader implements AnnotationFeatureSource {
+
+    private static final Set<String> RESERVED_PROPERTIES = Set.of("slideId", "annotationType", "label", "description");
+    private static final TypeReference<Map<String, Object>> FEATURE = new TypeReference<>() {
+    };
+
+    private final ObjectMapper objectMapper;
+    private final JsonParser parser;
+    private final String defaultSlideId;
+    private boolean finished;
+
+    public GeoJsonFeatureReader(ObjectMapper objectMapper, InputStream in, String defaultSlideId) throws IOException {
+        this.objectMapper = objectMapper;
+        this.defaultSlideId = defaultSlideId;
+        this.parser = objectMapper.getFactory().createParser(in);
+        try {
+            positionAtFeatures();
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed GeoJSON: " + e.getOriginalMessage());
+        }
+    }
+
+    @Override
+    public AnnotationFeature next() throws IOException {
+        if (finished) {
+            return null;
+        }
+        try {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.END_ARRAY) {
+                finished = true;
+                return null;
+            }
+            if (token != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Expected a GeoJSON Feature object");
+            }
+            return toFeature(objectMapper.readValue(parser, FEATURE));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed GeoJSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private void positionAtFeatures() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == JsonToken.START_ARRAY) {
+            return;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new IllegalArgumentException("Expected a GeoJSON FeatureCollection");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("features".equals(field)) {
+                if (value != JsonToken.START_ARRAY) {
+                    throw new IllegalArgumentException("FeatureCollection.features must be an array");
+                }
+                return;
+            }
+            parser.skipChildren();
+        }
+        throw new IllegalArgumentException("FeatureCollection has no features");
+    }
+
+    @SuppressWarnings("unchecked")
+    private AnnotationFeature toFeature(Map<String, Object> feature) throws JsonProcessingException {
+        if (!"Feature".equals(feature.get("type"))) {
+            throw new IllegalArgumentException("Expected a GeoJSON Feature object");
+        }
+        Map<String, Object> properties = feature.get("properties") instanceof Map<?, ?> map
+                ? new LinkedHashMap<>((Map<String, Object>) map)
+                : new LinkedHashMap<>();
+        Map<String, Object> geometry = feature.get("geometry") instanceof Map<?, ?> map
+                ? (Map<String, Object>) map
+                : null;
+
+        Object slideId = properties.get("slideId");
+        String annotationType = stringProperty(properties, "annotationType");
+        String label = stringProperty(properties, "label");
+        String description = stringProperty(properties, "description");
+        properties.keySet().removeAll(RESERVED_PROPERTIES);
+
+        return new AnnotationFeature(
+                slideId != null ? slideId.toString() : defaultSlideId,
+                null,
+                annotationType,
+                label,
+                description,
+                properties.isEmpty() ? null : objectMapper.writeValueAsString(properties),
+                geometry);
+    }
+
+    private static String stringProperty(Map<String, Object> properties, String name) {
+        Object value = properties.get(name);
+        return value != null ? value.toString() : null;
+    }
+}
@@ -0,0 +1,134 @@
+package com.starling.auth.service.annotation;
+
+import com.starling.auth.service.annotation.AnnotationGeometry.Bounds;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Loose quadtree keys over level-0 slide pixel space.
+ *
+ * The slide plane is a 2^24 px square split into a quadtree of {@value #MAX_DEPTH} levels,
+ * so leaf cells are 256 px (one viewer tile). Each annotation is stored under the deepest
+ * cell that fully contains its bounding box. A cell is identified by its depth and the
+ * Morton (Z-order) code of its origin at leaf resolution; the key of every ancestor is a bit
+ * prefix of it, which makes the per-level tile keys implicit, and all descendants of a cell
+ * share one contiguous key range.
+ *
+ * A viewport query therefore needs only a few key ranges (cells at the cover depth and
+ * everything below them) plus the ancestor keys of those cells (large annotations stored
+ * higher up the tree). Both are served by one btree index on {@code (slide_id, quad_key)};
+ * the exact bounding-box test runs on the small candidate set.
+ */
+public final class QuadTreeKey {
+
+    static final int WORLD_BITS = 24;
+    static final int MAX_DEPTH = 16;
+    static final int CELL_SHIFT = WORLD_BITS - MAX_DEPTH;
+
+    private static final double WORLD_MAX = (1 << WORLD_BITS) - 1;
+
+    /** Widest cover, in cells per axis, before moving one level up the tree. */
+    private static final int MAX_COVER_SPAN = 3;
+
+    private QuadTreeKey() {
+    }
+
+    public record Cell(int depth, long key) {
+    }
+
+    /** Inclusive range of quad keys. */
+    public record Range(long lo, long hi) {
+    }
+
+    /**
+     * Index lookups for one viewport.
+     *
+     * @param depth        cover depth; rows at this depth or deeper are matched by {@code ranges}
+     * @param ranges       merged key ranges of the cover cells and all their descendants
+     * @param ancestorKeys keys of the cover cells' ancestors, matched against rows shallower
+     *                     than {@code depth}
+     */
+    public record Cover(int depth, List<Range> ranges, List<Long> ancestorKeys) {
+    }
+
+    /** Deepest cell that fully contains the bounding box; out-of-plane coordinates are clamped. */
+    public static Cell cellFor(Bounds bounds) {
+        int x0 = grid(bounds.minX());
+        int y0 = grid(bounds.minY());
+        int x1 = grid(bounds.maxX());
+        int y1 = grid(bounds.maxY());
+        int shift = 32 - Integer.numberOfLeadingZeros((x0 ^ x1) | (y0 ^ y1));
+        return new Cell(MAX_DEPTH - shift, morton(x0, y0) & prefixMask(shift));
+    }
+
+    /** Cells and key ranges to scan for annotations intersecting {@code viewport}. */
+    public static Cover cover(Bounds viewport) {
+        int x0 = grid(viewport.minX());
+        int y0 = grid(viewport.minY());
+        int x1 = grid(viewport.maxX());
+        int y1 = grid(viewport.maxY());
+
+        int shift = 0;
+        while (shift < MAX_DEPTH
+                && ((x1 >> shift) - (x0 >> shift) >= MAX_COVER_SPAN
+                || (y1 >> shift) - (y0 >> shift) >= MAX_COVER_SPAN)) {
+            shift++;
+        }
+
+        List<Range> ranges = new ArrayList<>();
+        TreeSet<Long> ancestors = new TreeSet<>();
+        long span = 1L << (2 * shift);
+        for (int cx = x0 >> shift; cx <= x1 >> shift; cx++) {
+            for (int cy = y0 >> shift; cy <= y1 >> shift; cy++) {
+                long key = morton(cx << shift, cy << shift);
+                ranges.add(new Range(key, key + span - 1));
+                for (int up = shift + 1; up <= MAX_DEPTH; up++) {
+                    ancestors.add(key & prefixMask(up));
+                }
+            }
+        }
+        return new Cover(MAX_DEPTH - shift, mergeRanges(ranges), List.copyOf(ancestors));
+    }
+
+    static List<Range> mergeRanges(List<Range> ranges) {
+        List<Range> sorted = new ArrayList<>(ranges);
+        sorted.sort(Comparator.comparingLong(Range::lo));
+        List<Range> merged = new ArrayList<>();
+        for (Range range : sorted) {
+            if (!merged.isEmpty() && range.lo() <= merged.getLast().hi() + 1) {
+                Range last = merged.removeLast();
+                merged.add(new Range(last.lo(), Math.max(last.hi(), range.hi())));
+            } else {
+                merged.add(range);
+            }
+        }
+        return merged;
+    }
+
+    /** Interleaves the 16-bit leaf coordinates, x in the even bits. */
+    static long morton(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    private static long spread(int value) {
+        long v = value & 0xFFFFL;
+        v = (v | (v << 8)) & 0x00FF00FFL;
+        v = (v | (v << 4)) & 0x0F0F0F0FL;
+        v = (v | (v << 2)) & 0x33333333L;
+        v = (v | (v << 1)) & 0x55555555L;
+        return v;
+    }
+
+    /** Clears the key bits below a cell that is {@code shift} levels above the leaves. */
+    private static long prefixMask(int shift) {
+        return ~((1L << (2 * shift)) - 1);
+    }
+
+    private static int grid(double coordinate) {
+        double clamped = Math.min(Math.max(Math.floor(coordinate), 0), WORLD_MAX);
+        return ((int) clamped) >> CELL_SHIFT;
+    }
+}
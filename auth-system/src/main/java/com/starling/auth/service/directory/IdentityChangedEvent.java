@@ -0,0 +1,10 @@
+package com.starling.auth.service.directory;
+
+import java.util.UUID;
+
+/**
+ * Published when an identity's searchable fields, active flag or roles change.
+ * Consumed after commit by {@link IdentityDirectory}.
+ */
+public record IdentityChangedEvent(UUID identityId) {
+}
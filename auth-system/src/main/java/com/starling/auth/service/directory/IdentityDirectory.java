@@ -0,0 +1,170 @@
+package com.starling.auth.service.directory;
+
+import com.starling.auth.repository.IdentityRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Optional in-process directory of active identities for typeahead suggest boxes.
+ *
+ * Holds an immutable {@link IdentityPrefixIndex} that is loaded in full at startup and on a
+ * slow schedule, and patched incrementally when an {@link IdentityChangedEvent} commits.
+ * Changes are coalesced onto a single worker thread; while any are pending the directory
+ * reports itself stale and callers fall back to SQL.
+ *
+ * Disabled unless {@code starling.identity.directory.enabled=true}.
+ */
+@Component
+public class IdentityDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(IdentityDirectory.class);
+
+    private final IdentityRepository identityRepository;
+    private final boolean enabled;
+
+    private volatile IdentityPrefixIndex index;
+    private final Set<UUID> pendingIds = ConcurrentHashMap.newKeySet();
+    private final AtomicLong pendingChanges = new AtomicLong();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+    private final ExecutorService worker;
+
+    public IdentityDirectory(
+            IdentityRepository identityRepository,
+            @Value("${starling.identity.directory.enabled:false}") boolean enabled) {
+        this.identityRepository = identityRepository;
+        this.enabled = enabled;
+        this.worker = enabled
+                ? Executors.newSingleThreadExecutor(Thread.ofPlatform().name("identity-directory").daemon().factory())
+                : null;
+    }
+
+    /** True when the directory is enabled, loaded, and has no unapplied changes. */
+    public boolean isFresh() {
+        return enabled && index != null && pendingChanges.get() == 0;
+    }
+
+    public List<IdentityDirectoryEntry> search(String query, int limit) {
+        IdentityPrefixIndex current = index;
+        return current == null ? List.of() : current.search(query, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            worker.execute(this::fullReload);
+        }
+    }
+
+    @Scheduled(
+            fixedDelayString = "${starling.identity.directory.full-reload-ms:900000}",
+            initialDelayString = "${starling.identity.directory.full-reload-ms:900000}")
+    public void scheduledReload() {
+        if (enabled) {
+            worker.execute(this::fullReload);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onIdentityChanged(IdentityChangedEvent event) {
+        if (!enabled || event.identityId() == null) {
+            return;
+        }
+        if (pendingIds.add(event.identityId())) {
+            pendingChanges.incrementAndGet();
+        }
+        if (refreshScheduled.compareAndSet(false, true)) {
+            worker.execute(this::applyPending);
+        }
+    }
+
+    private void applyPending() {
+        refreshScheduled.set(false);
+        List<UUID> ids = new ArrayList<>();
+        for (UUID id : pendingIds) {
+            if (pendingIds.remove(id)) {
+                ids.add(id);
+            }
+        }
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            List<IdentityDirectoryEntry> upserts = new ArrayList<>();
+            Set<UUID> removals = new HashSet<>(ids);
+            for (Object[] row : identityRepository.findDirectoryRowsByIds(ids)) {
+                if (Boolean.TRUE.equals(row[7])) {
+                    IdentityDirectoryEntry entry = toEntry(row);
+                    upserts.add(entry);
+                    removals.remove(entry.identityId());
+                }
+            }
+            IdentityPrefixIndex current = index;
+            if (current != null) {
+                index = current.apply(upserts, removals);
+            }
+            pendingChanges.addAndGet(-ids.size());
+        } catch (RuntimeException e) {
+            // Re-queue so the directory stays stale until a later refresh succeeds
+            for (UUID id : ids) {
+                if (!pendingIds.add(id)) {
+                    pendingChanges.decrementAndGet();
+                }
+            }
+            log.warn("Identity directory incremental refresh failed: {}", e.getMessage());
+        }
+    }
+
+    private void fullReload() {
+        try {
+            long startedAt = System.currentTimeMillis();
+            List<IdentityDirectoryEntry> entries = identityRepository.findActiveDirectoryRows().stream()
+                    .map(IdentityDirectory::toEntry)
+                    .toList();
+            index = IdentityPrefixIndex.of(entries);
+            // Retry changes left pending by a failed incremental refresh
+            if (!pendingIds.isEmpty() && refreshScheduled.compareAndSet(false, true)) {
+                worker.execute(this::applyPending);
+            }
+            log.info("Identity directory loaded {} active identities in {} ms",
+                    entries.size(), System.currentTimeMillis() - startedAt);
+        } catch (RuntimeException e) {
+            log.warn("Identity directory reload failed: {}", e.getMessage());
+        }
+    }
+
+    private static IdentityDirectoryEntry toEntry(Object[] row) {
+        String roleNames = (String) row[8];
+        return new IdentityDirectoryEntry(
+                (UUID) row[0],
+                (String) row[1],
+                (String) row[2],
+                (String) row[3],
+                (String) row[4],
+                (String) row[5],
+                (String) row[6],
+                roleNames != null && !roleNames.isBlank()
+                        ? List.of(roleNames.split(","))
+                        : List.of());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (worker != null) {
+            worker.shutdownNow();
+        }
+    }
+}
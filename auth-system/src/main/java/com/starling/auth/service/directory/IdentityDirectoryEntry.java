@@ -0,0 +1,18 @@
+package com.starling.auth.service.directory;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One active identity as held by the in-process directory.
+ */
+public record IdentityDirectoryEntry(
+        UUID identityId,
+        String displayName,
+        String displayShort,
+        String username,
+        String email,
+        String givenName,
+        String familyName,
+        List<String> roles) {
+}
@@ -0,0 +1,269 @@
+package com.starling.auth.service.directory;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over identity directory entries.
+ *
+ * Every entry contributes normalized (lower-case, accent-stripped) keys to one sorted array:
+ * whole-field keys for display name, display short, username and email, and word keys for
+ * each token of those fields plus given/family name. A lookup is a binary search for the
+ * first key ≥ the term followed by a scan while keys share the prefix.
+ *
+ * Terms of three or more characters also match anywhere in display name, display short,
+ * username or email, as the SQL trigram search does. Each entry contributes the distinct
+ * trigrams of those fields (normalized and space-joined) to a second sorted array; a lookup
+ * takes the term trigram with the fewest postings and checks only those entries for the
+ * whole term. Ranking mirrors the SQL search: whole-field prefix (0) ahead of word prefix
+ * (1) ahead of substring (2), then display name. Updates produce a new index by merging the
+ * changed postings into the existing sorted arrays rather than re-sorting everything.
+ */
+final class IdentityPrefixIndex {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern WORD_SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private static final byte RANK_FIELD = 0;
+    private static final byte RANK_WORD = 1;
+    private static final byte RANK_SUBSTRING = 2;
+    private static final int GRAM = 3;
+
+    static final IdentityPrefixIndex EMPTY = new IdentityPrefixIndex(
+            Map.of(), Map.of(), SortedPostings.EMPTY, SortedPostings.EMPTY);
+
+    private final Map<UUID, IdentityDirectoryEntry> entries;
+    private final Map<UUID, String> haystacks;
+    private final SortedPostings prefixes;
+    private final SortedPostings trigrams;
+
+    private IdentityPrefixIndex(
+            Map<UUID, IdentityDirectoryEntry> entries,
+            Map<UUID, String> haystacks,
+            SortedPostings prefixes,
+            SortedPostings trigrams) {
+        this.entries = entries;
+        this.haystacks = haystacks;
+        this.prefixes = prefixes;
+        this.trigrams = trigrams;
+    }
+
+    static IdentityPrefixIndex of(Collection<IdentityDirectoryEntry> entries) {
+        return EMPTY.apply(entries, List.of());
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    /**
+     * Returns a new index with {@code upserts} added or replaced and {@code removals} dropped.
+     */
+    IdentityPrefixIndex apply(Collection<IdentityDirectoryEntry> upserts, Collection<UUID> removals) {
+        Set<UUID> changed = new HashSet<>(removals);
+        Map<UUID, IdentityDirectoryEntry> nextEntries = new HashMap<>(entries);
+        Map<UUID, String> nextHaystacks = new HashMap<>(haystacks);
+        removals.forEach(nextEntries::remove);
+        removals.forEach(nextHaystacks::remove);
+        for (IdentityDirectoryEntry entry : upserts) {
+            changed.add(entry.identityId());
+            nextEntries.put(entry.identityId(), entry);
+        }
+
+        List<Posting> addedPrefixes = new ArrayList<>();
+        List<Posting> addedTrigrams = new ArrayList<>();
+        for (IdentityDirectoryEntry entry : upserts) {
+            if (!removals.contains(entry.identityId())) {
+                String haystack = haystack(entry);
+                nextHaystacks.put(entry.identityId(), haystack);
+                addPrefixPostings(entry, addedPrefixes);
+                addTrigramPostings(entry, haystack, addedTrigrams);
+            }
+        }
+
+        return new IdentityPrefixIndex(
+                Map.copyOf(nextEntries),
+                Map.copyOf(nextHaystacks),
+                prefixes.merge(changed, addedPrefixes),
+                trigrams.merge(changed, addedTrigrams));
+    }
+
+    List<IdentityDirectoryEntry> search(String query, int limit) {
+        String term = normalize(query);
+        if (term.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+
+        Map<UUID, Byte> bestRank = new HashMap<>();
+        Map<UUID, IdentityDirectoryEntry> matched = new HashMap<>();
+        String[] keys = prefixes.keys();
+        for (int i = prefixes.lowerBound(term); i < keys.length && keys[i].startsWith(term); i++) {
+            UUID id = prefixes.owners()[i].identityId();
+            matched.putIfAbsent(id, prefixes.owners()[i]);
+            bestRank.merge(id, prefixes.ranks()[i], (a, b) -> a <= b ? a : b);
+        }
+        if (term.length() >= GRAM) {
+            addSubstringMatches(term, matched, bestRank);
+        }
+
+        return matched.values().stream()
+                .sorted(Comparator
+                        .comparing((IdentityDirectoryEntry e) -> bestRank.get(e.identityId()))
+                        .thenComparing(IdentityDirectoryEntry::displayName,
+                                Comparator.nullsLast(Comparator.naturalOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    /** Entries containing {@code term}, found through its least common trigram. */
+    private void addSubstringMatches(String term, Map<UUID, IdentityDirectoryEntry> matched, Map<UUID, Byte> bestRank) {
+        int from = 0;
+        int to = 0;
+        int smallest = Integer.MAX_VALUE;
+        for (int i = 0; i + GRAM <= term.length(); i++) {
+            String gram = term.substring(i, i + GRAM);
+            int lo = trigrams.lowerBound(gram);
+            int hi = trigrams.upperBound(gram, lo);
+            if (hi - lo < smallest) {
+                smallest = hi - lo;
+                from = lo;
+                to = hi;
+                if (smallest == 0) {
+                    return;
+                }
+            }
+        }
+        for (int i = from; i < to; i++) {
+            IdentityDirectoryEntry owner = trigrams.owners()[i];
+            UUID id = owner.identityId();
+            if (!matched.containsKey(id) && haystacks.get(id).contains(term)) {
+                matched.put(id, owner);
+                bestRank.put(id, RANK_SUBSTRING);
+            }
+        }
+    }
+
+    private static void addPrefixPostings(IdentityDirectoryEntry entry, List<Posting> out) {
+        Map<String, Byte> keyRanks = new HashMap<>();
+        for (String field : new String[] {
+                entry.displayName(), entry.displayShort(), entry.username(), entry.email() }) {
+            String key = normalize(field);
+            if (!key.isEmpty()) {
+                keyRanks.put(key, RANK_FIELD);
+            }
+        }
+        for (String field : new String[] {
+                entry.displayName(), entry.displayShort(), entry.username(), entry.email(),
+                entry.givenName(), entry.familyName() }) {
+            for (String word : WORD_SEPARATORS.split(normalize(field))) {
+                if (!word.isEmpty()) {
+                    keyRanks.putIfAbsent(word, RANK_WORD);
+                }
+            }
+        }
+        keyRanks.forEach((key, rank) -> out.add(new Posting(key, entry, rank)));
+    }
+
+    private static void addTrigramPostings(IdentityDirectoryEntry entry, String haystack, List<Posting> out) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= haystack.length(); i++) {
+            grams.add(haystack.substring(i, i + GRAM));
+        }
+        grams.forEach(gram -> out.add(new Posting(gram, entry, RANK_SUBSTRING)));
+    }
+
+    /** The fields the SQL substring search covers, normalized and space-joined. */
+    private static String haystack(IdentityDirectoryEntry entry) {
+        return String.join(" ", normalize(entry.displayName()), normalize(entry.displayShort()),
+                normalize(entry.username()), normalize(entry.email()));
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private record Posting(String key, IdentityDirectoryEntry owner, byte rank) {
+    }
+
+    /** Parallel arrays of postings sorted by key. */
+    private record SortedPostings(String[] keys, IdentityDirectoryEntry[] owners, byte[] ranks) {
+
+        static final SortedPostings EMPTY = new SortedPostings(new String[0], new IdentityDirectoryEntry[0], new byte[0]);
+
+        /**
+         * These postings without those of {@code changed} owners, merged with {@code added}
+         * (sorted here) rather than re-sorting everything.
+         */
+        SortedPostings merge(Set<UUID> changed, List<Posting> added) {
+            added.sort(Comparator.comparing(Posting::key));
+
+            int capacity = keys.length + added.size();
+            String[] nextKeys = new String[capacity];
+            IdentityDirectoryEntry[] nextOwners = new IdentityDirectoryEntry[capacity];
+            byte[] nextRanks = new byte[capacity];
+
+            int i = 0;
+            int j = 0;
+            int n = 0;
+            while (i < keys.length || j < added.size()) {
+                if (i < keys.length && changed.contains(owners[i].identityId())) {
+                    i++;
+                    continue;
+                }
+                boolean takeExisting = j >= added.size()
+                        || (i < keys.length && keys[i].compareTo(added.get(j).key()) <= 0);
+                if (takeExisting) {
+                    nextKeys[n] = keys[i];
+                    nextOwners[n] = owners[i];
+                    nextRanks[n] = ranks[i];
+                    i++;
+                } else {
+                    Posting p = added.get(j++);
+                    nextKeys[n] = p.key();
+                    nextOwners[n] = p.owner();
+                    nextRanks[n] = p.rank();
+                }
+                n++;
+            }
+            return new SortedPostings(
+                    Arrays.copyOf(nextKeys, n),
+                    Arrays.copyOf(nextOwners, n),
+                    Arrays.copyOf(nextRanks, n));
+        }
+
+        /** The first index whose key is ≥ {@code term}. */
+        int lowerBound(String term) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(term) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+
+        /** The first index from {@code from} whose key is > {@code key}. */
+        int upperBound(String key, int from) {
+            int lo = from;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) <= 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
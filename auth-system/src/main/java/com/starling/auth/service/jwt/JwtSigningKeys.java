@@ -0,0 +1,299 @@
+package com.starling.auth.service.jwt;
+
+import com.nimbusds.jose.JOSEException;
+import com.nimbusds.jose.JWSAlgorithm;
+import com.nimbusds.jose.jwk.Curve;
+import com.nimbusds.jose.jwk.ECKey;
+import com.nimbusds.jose.jwk.JWK;
+import com.nimbusds.jose.jwk.JWKSet;
+import com.nimbusds.jose.jwk.KeyUse;
+import com.nimbusds.jose.jwk.gen.ECKeyGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Signing keys for authz tokens in ES256 mode ({@code starling.jwt.signing.algorithm=ES256}).
+ *
+ * Keys are EC P-256 JWKs, one {@code <kid>.jwk.json} file each in
+ * {@code starling.jwt.signing.key-dir}, with the file time as the key's creation time. Every
+ * key in the directory is published at {@code /.well-known/jwks.json}; tokens are signed with
+ * the newest key that has been published for at least
+ * {@code starling.jwt.signing.activation-delay-seconds}, so verifiers holding a cached JWKS
+ * learn a new key before the first token signed with it arrives. {@code active-kid} pins the
+ * signing key instead.
+ *
+ * The directory is rescanned on a schedule, so keys can be rotated without a restart. With
+ * {@code generate-keys=true} the service manages the directory itself: it creates the first
+ * key, adds a new one every {@code rotate-after-days} and deletes all but the newest
+ * {@code retain-keys}. Without a directory an ephemeral key is generated, which is only
+ * suitable for development since tokens stop verifying after a restart.
+ *
+ * In the default HS256 mode this component holds no keys and the JWKS is empty.
+ */
+@Component
+public class JwtSigningKeys {
+
+    private static final Logger log = LoggerFactory.getLogger(JwtSigningKeys.class);
+
+    static final String KEY_FILE_SUFFIX = ".jwk.json";
+
+    private static final DateTimeFormatter KID_DATE = DateTimeFormatter.ofPattern("yyyyMMdd").withZone(ZoneOffset.UTC);
+
+    /** A signing key and when it was created. */
+    record SigningKey(ECKey key, Instant createdAt) {
+
+        String kid() {
+            return key.getKeyID();
+        }
+    }
+
+    /** Immutable view of the keys as of the last scan. */
+    private record KeyState(List<SigningKey> keys, SigningKey active, JWKSet privateSet, Map<String, Object> jwks) {
+    }
+
+    private final boolean asymmetric;
+    private final Path keyDir;
+    private final String pinnedKid;
+    private final Duration activationDelay;
+    private final Duration rotateAfter;
+    private final boolean generateKeys;
+    private final int retainKeys;
+
+    private volatile KeyState state;
+
+    public JwtSigningKeys(
+            @Value("${starling.jwt.signing.algorithm:HS256}") String algorithm,
+            @Value("${starling.jwt.signing.key-dir:}") String keyDir,
+            @Value("${starling.jwt.signing.active-kid:}") String activeKid,
+            @Value("${starling.jwt.signing.activation-delay-seconds:600}") long activationDelaySeconds,
+            @Value("${starling.jwt.signing.rotate-after-days:30}") long rotateAfterDays,
+            @Value("${starling.jwt.signing.generate-keys:false}") boolean generateKeys,
+            @Value("${starling.jwt.signing.retain-keys:3}") int retainKeys) {
+        this.asymmetric = switch (algorithm.toUpperCase()) {
+            case "HS256" -> false;
+            case "ES256" -> true;
+            default -> throw new IllegalStateException(
+                    "starling.jwt.signing.algorithm must be HS256 or ES256, was " + algorithm);
+        };
+        this.keyDir = keyDir.isBlank() ? null : Path.of(keyDir);
+        this.pinnedKid = activeKid.isBlank() ? null : activeKid;
+        this.activationDelay = Duration.ofSeconds(activationDelaySeconds);
+        this.rotateAfter = Duration.ofDays(rotateAfterDays);
+        this.generateKeys = generateKeys;
+        this.retainKeys = Math.max(2, retainKeys);
+
+        if (!asymmetric) {
+            this.state = new KeyState(List.of(), null, new JWKSet(), new JWKSet().toJSONObject());
+        } else if (this.keyDir == null) {
+            log.warn("No starling.jwt.signing.key-dir set; signing with an ephemeral ES256 key. "
+                    + "Tokens will not verify after a restart.");
+            this.state = toState(List.of(new SigningKey(generateKey(Instant.now()), Instant.now())), Instant.now());
+        } else {
+            loadKeys();
+            if (state == null) {
+                throw new IllegalStateException("No JWT signing keys in " + this.keyDir
+                        + "; add a " + KEY_FILE_SUFFIX + " key or set starling.jwt.signing.generate-keys=true");
+            }
+        }
+    }
+
+    public boolean isAsymmetric() {
+        return asymmetric;
+    }
+
+    /** The key new tokens are signed with. */
+    public ECKey activeKey() {
+        return state.active().key();
+    }
+
+    /** All private keys, for selecting the signing key by kid. */
+    public JWKSet privateKeys() {
+        return state.privateSet();
+    }
+
+    /** Public keys of every current key, as a JWK Set document. */
+    public Map<String, Object> jwks() {
+        return state.jwks();
+    }
+
+    /** Rescans the key directory and, when managing it, rotates and prunes keys. */
+    @Scheduled(
+            fixedDelayString = "${starling.jwt.signing.reload-ms:60000}",
+            initialDelayString = "${starling.jwt.signing.reload-ms:60000}")
+    public void reload() {
+        if (asymmetric && keyDir != null) {
+            loadKeys();
+        }
+    }
+
+    private void loadKeys() {
+        Instant now = Instant.now();
+        try {
+            List<SigningKey> keys = readKeys();
+            if (generateKeys && (keys.isEmpty() || rotationDue(keys, now))) {
+                keys.add(writeKey(generateKey(now)));
+                log.info("Generated JWT signing key {}", keys.getLast().kid());
+            }
+            if (keys.isEmpty()) {
+                return;
+            }
+            if (generateKeys) {
+                keys = prune(keys, now);
+            }
+            KeyState next = toState(keys, now);
+            KeyState previous = state;
+            if (previous == null || !previous.active().kid().equals(next.active().kid())) {
+                log.info("Signing authz tokens with key {}", next.active().kid());
+            }
+            state = next;
+        } catch (IOException | ParseException | IllegalStateException e) {
+            if (state == null) {
+                throw new IllegalStateException("Cannot load JWT signing keys from " + keyDir + ": " + e.getMessage(), e);
+            }
+            log.warn("Keeping previous JWT signing keys; reload from {} failed: {}", keyDir, e.getMessage());
+        }
+    }
+
+    private KeyState toState(List<SigningKey> keys, Instant now) {
+        SigningKey active = selectActive(keys, pinnedKid, now, activationDelay);
+        List<JWK> jwks = keys.stream().map(k -> (JWK) k.key()).toList();
+        JWKSet privateSet = new JWKSet(jwks);
+        return new KeyState(List.copyOf(keys), active, privateSet, privateSet.toPublicJWKSet().toJSONObject());
+    }
+
+    /**
+     * The pinned key if set, else the newest key published for at least
+     * {@code activationDelay}, else (first start, nothing published yet) the newest key.
+     */
+    static SigningKey selectActive(List<SigningKey> keys, String pinnedKid, Instant now, Duration activationDelay) {
+        if (pinnedKid != null) {
+            return keys.stream()
+                    .filter(key -> key.kid().equals(pinnedKid))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Pinned signing key not found: " + pinnedKid));
+        }
+        Comparator<SigningKey> byAge = Comparator.comparing(SigningKey::createdAt).thenComparing(SigningKey::kid);
+        Optional<SigningKey> published = keys.stream()
+                .filter(key -> !key.createdAt().plus(activationDelay).isAfter(now))
+                .max(byAge);
+        return published.orElseGet(() -> keys.stream().max(byAge).orElseThrow());
+    }
+
+    private boolean rotationDue(List<SigningKey> keys, Instant now) {
+        if (rotateAfter.isZero()) {
+            return false;
+        }
+        Instant newest = keys.stream().map(SigningKey::createdAt).max(Comparator.naturalOrder()).orElseThrow();
+        return !newest.plus(rotateAfter).isAfter(now);
+    }
+
+    /** Deletes the oldest key files beyond {@code retainKeys}, never the signing key. */
+    private List<SigningKey> prune(List<SigningKey> keys, Instant now) throws IOException {
+        if (keys.size() <= retainKeys) {
+            return keys;
+        }
+        SigningKey active = selectActive(keys, pinnedKid, now, activationDelay);
+        List<SigningKey> newestFirst = new ArrayList<>(keys);
+        newestFirst.sort(Comparator.comparing(SigningKey::createdAt).reversed());
+        List<SigningKey> kept = new ArrayList<>();
+        for (SigningKey key : newestFirst) {
+            if (kept.size() < retainKeys || key == active) {
+                kept.add(key);
+            } else {
+                Files.deleteIfExists(keyDir.resolve(key.kid() + KEY_FILE_SUFFIX));
+                log.info("Removed retired JWT signing key {}", key.kid());
+            }
+        }
+        return kept;
+    }
+
+    private List<SigningKey> readKeys() throws IOException, ParseException {
+        List<SigningKey> keys = new ArrayList<>();
+        if (!Files.isDirectory(keyDir)) {
+            if (!generateKeys) {
+                throw new IllegalStateException("Key directory does not exist");
+            }
+            Files.createDirectories(keyDir);
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(keyDir, "*" + KEY_FILE_SUFFIX)) {
+            for (Path file : files) {
+                keys.add(readKey(file));
+            }
+        }
+        return keys;
+    }
+
+    static SigningKey readKey(Path file) throws IOException, ParseException {
+        JWK jwk = JWK.parse(Files.readString(file, StandardCharsets.UTF_8));
+        if (!(jwk instanceof ECKey ecKey) || !Curve.P_256.equals(ecKey.getCurve()) || !ecKey.isPrivate()) {
+            throw new IllegalStateException(file.getFileName() + " is not a private EC P-256 JWK");
+        }
+        if (ecKey.getKeyID() == null) {
+            String name = file.getFileName().toString();
+            ecKey = new ECKey.Builder(ecKey)
+                    .keyID(name.substring(0, name.length() - KEY_FILE_SUFFIX.length()))
+                    .build();
+        }
+        ECKey signingKey = new ECKey.Builder(ecKey).keyUse(KeyUse.SIGNATURE).algorithm(JWSAlgorithm.ES256).build();
+        return new SigningKey(signingKey, Files.getLastModifiedTime(file).toInstant());
+    }
+
+    private SigningKey writeKey(ECKey key) throws IOException {
+        Path target = keyDir.resolve(key.getKeyID() + KEY_FILE_SUFFIX);
+        Path temp = Files.createTempFile(keyDir, ".jwk-", ".tmp");
+        try {
+            try {
+                Files.setPosixFilePermissions(temp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // Non-POSIX file system; rely on the directory's permissions.
+            }
+            Files.writeString(temp, key.toJSONString(), StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return new SigningKey(key, Files.getLastModifiedTime(target).toInstant());
+    }
+
+    /** A new P-256 key with a kid of its creation date and thumbprint prefix. */
+    static ECKey generateKey(Instant now) {
+        try {
+            ECKey key = new ECKeyGenerator(Curve.P_256).generate();
+            String thumbprint = HexFormat.of().formatHex(key.computeThumbprint().decode(), 0, 6);
+            return new ECKey.Builder(key)
+                    .keyID(KID_DATE.format(now) + "-" + thumbprint)
+                    .keyUse(KeyUse.SIGNATURE)
+                    .algorithm(JWSAlgorithm.ES256)
+                    .build();
+        } catch (JOSEException e) {
+            throw new IllegalStateException("Cannot generate EC signing key", e);
+        }
+    }
+}
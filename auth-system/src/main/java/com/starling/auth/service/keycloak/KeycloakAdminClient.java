@@ -1,15 +1,29 @@
 package com.starling.auth.service.keycloak;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestClient;
+import org.springframework.web.client.RestClientException;
 
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
 
 /**
  * Minimal Keycloak Admin API client used for dev/demo seeding and validation.
@@ -17,98 +31,253 @@ import java.util.concurrent.atomic.AtomicReference;
  * This is intentionally scoped:
  * - fetch user by id (OIDC subject)
  * - fetch user groups
+ * - page through users and group members (directory sync)
+ *
+ * Requests share one JDK HttpClient, so connections (and TLS sessions) are kept alive and
+ * reused across bursts; connect and read timeouts are configured under
+ * {@code starling.keycloak.admin.*}. 5xx, 429 and I/O failures are retried up to
+ * {@code max-attempts} times with jittered exponential backoff (429 honours Retry-After),
+ * and a 401 refreshes the admin token once. Single-user and user-group lookups are cached for
+ * {@code lookup-cache-ttl-seconds}, and concurrent identical lookups share one request.
+ * The admin token uses the client-credentials grant when a client secret is configured,
+ * otherwise the password grant.
  */
 @Service
 public class KeycloakAdminClient {
 
+    private static final Logger log = LoggerFactory.getLogger(KeycloakAdminClient.class);
+
+    private final HttpClient httpClient;
     private final RestClient restClient;
     private final String baseUrl;
     private final String adminRealm;
     private final String adminClientId;
+    private final String adminClientSecret;
     private final String adminUsername;
     private final String adminPassword;
+    private final int maxAttempts;
+    private final long retryBaseDelayMs;
+    private final long retryMaxDelayMs;
 
     private final AtomicReference<CachedToken> tokenCache = new AtomicReference<>();
+    private final ReentrantLock tokenLock = new ReentrantLock();
+    private final KeycloakLookupCache<String, Object> lookupCache;
 
     public KeycloakAdminClient(
             RestClient.Builder restClientBuilder,
             @Value("${starling.keycloak.admin.base-url:http://localhost:8180}") String baseUrl,
             @Value("${starling.keycloak.admin.realm:master}") String adminRealm,
             @Value("${starling.keycloak.admin.client-id:admin-cli}") String adminClientId,
+            @Value("${starling.keycloak.admin.client-secret:}") String adminClientSecret,
             @Value("${starling.keycloak.admin.username:admin}") String adminUsername,
-            @Value("${starling.keycloak.admin.password:}") String adminPassword
+            @Value("${starling.keycloak.admin.password:}") String adminPassword,
+            @Value("${starling.keycloak.admin.connect-timeout-ms:2000}") long connectTimeoutMs,
+            @Value("${starling.keycloak.admin.read-timeout-ms:10000}") long readTimeoutMs,
+            @Value("${starling.keycloak.admin.max-attempts:3}") int maxAttempts,
+            @Value("${starling.keycloak.admin.retry-base-delay-ms:200}") long retryBaseDelayMs,
+            @Value("${starling.keycloak.admin.retry-max-delay-ms:5000}") long retryMaxDelayMs,
+            @Value("${starling.keycloak.admin.lookup-cache-ttl-seconds:60}") long lookupCacheTtlSeconds,
+            @Value("${starling.keycloak.admin.lookup-cache-max-entries:10000}") int lookupCacheMaxEntries
     ) {
-        this.restClient = restClientBuilder.build();
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMs));
+        this.restClient = restClientBuilder.clone().requestFactory(requestFactory).build();
         this.baseUrl = baseUrl;
         this.adminRealm = adminRealm;
         this.adminClientId = adminClientId;
+        this.adminClientSecret = adminClientSecret;
         this.adminUsername = adminUsername;
         this.adminPassword = adminPassword;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryBaseDelayMs = Math.max(1, retryBaseDelayMs);
+        this.retryMaxDelayMs = Math.max(this.retryBaseDelayMs, retryMaxDelayMs);
+        this.lookupCache = new KeycloakLookupCache<>(Duration.ofSeconds(lookupCacheTtlSeconds), lookupCacheMaxEntries);
+    }
+
+    @PreDestroy
+    void close() {
+        httpClient.close();
     }
 
     public KeycloakUser getUserById(String realm, String userId) {
-        String token = getAccessToken();
-        return restClient.get()
-                .uri(baseUrl + "/admin/realms/{realm}/users/{id}", realm, userId)
-                .headers(h -> h.setBearerAuth(token))
-                .retrieve()
-                .body(KeycloakUser.class);
+        return cached("user:" + realm + "/" + userId,
+                () -> get(KeycloakUser.class, "/admin/realms/{realm}/users/{id}", realm, userId));
     }
 
     public KeycloakUser getUserByUsername(String realm, String username) {
-        String token = getAccessToken();
-        KeycloakUser[] users = restClient.get()
-                .uri(baseUrl + "/admin/realms/{realm}/users?username={username}&exact=true", realm, username)
-                .headers(h -> h.setBearerAuth(token))
-                .retrieve()
-                .body(KeycloakUser[].class);
-        if (users == null || users.length == 0) {
-            return null;
-        }
-        return users[0];
+        return cached("username:" + realm + "/" + username, () -> {
+            KeycloakUser[] users = get(KeycloakUser[].class,
+                    "/admin/realms/{realm}/users?username={username}&exact=true", realm, username);
+            return users == null || users.length == 0 ? null : users[0];
+        });
     }
 
     public List<KeycloakGroup> getUserGroups(String realm, String userId) {
-        String token = getAccessToken();
-        KeycloakGroup[] groups = restClient.get()
-                .uri(baseUrl + "/admin/realms/{realm}/users/{id}/groups", realm, userId)
-                .headers(h -> h.setBearerAuth(token))
-                .retrieve()
-                .body(KeycloakGroup[].class);
+        return cached("groups:" + realm + "/" + userId, () -> {
+            KeycloakGroup[] groups = get(KeycloakGroup[].class, "/admin/realms/{realm}/users/{id}/groups", realm, userId);
+            return groups == null ? List.of() : List.of(groups);
+        });
+    }
+
+    public int countUsers(String realm) {
+        Integer count = get(Integer.class, "/admin/realms/{realm}/users/count", realm);
+        return count == null ? 0 : count;
+    }
+
+    /** One page of users ordered by Keycloak, starting at offset {@code first}. */
+    public List<KeycloakUser> listUsers(String realm, int first, int max) {
+        KeycloakUser[] users = get(KeycloakUser[].class,
+                "/admin/realms/{realm}/users?first={first}&max={max}&briefRepresentation=false", realm, first, max);
+        return users == null ? List.of() : List.of(users);
+    }
+
+    /** Groups whose name is exactly {@code name}, with their subgroup trees. */
+    public List<KeycloakGroup> searchGroups(String realm, String name) {
+        KeycloakGroup[] groups = get(KeycloakGroup[].class,
+                "/admin/realms/{realm}/groups?search={name}&exact=true&briefRepresentation=true", realm, name);
         return groups == null ? List.of() : List.of(groups);
     }
 
+    /** One page of a group's direct members, starting at offset {@code first}. */
+    public List<KeycloakUser> listGroupMembers(String realm, String groupId, int first, int max) {
+        KeycloakUser[] users = get(KeycloakUser[].class,
+                "/admin/realms/{realm}/groups/{id}/members?first={first}&max={max}&briefRepresentation=true",
+                realm, groupId, first, max);
+        return users == null ? List.of() : List.of(users);
+    }
+
+    /** Drops cached user and group lookups, e.g. after changing users in Keycloak. */
+    public void invalidateLookups() {
+        lookupCache.invalidateAll();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T cached(String key, Supplier<T> lookup) {
+        return (T) lookupCache.get(key, (Supplier<Object>) lookup);
+    }
+
+    private <T> T get(Class<T> type, String path, Object... uriVariables) {
+        boolean refreshedToken = false;
+        for (int attempt = 1; ; attempt++) {
+            String token = getAccessToken();
+            try {
+                return restClient.get()
+                        .uri(baseUrl + path, uriVariables)
+                        .headers(h -> h.setBearerAuth(token))
+                        .retrieve()
+                        .body(type);
+            } catch (HttpClientErrorException.Unauthorized e) {
+                if (refreshedToken) {
+                    throw e;
+                }
+                // Token revoked or expired early; not counted as an attempt
+                CachedToken current = tokenCache.get();
+                if (current != null && current.accessToken().equals(token)) {
+                    tokenCache.compareAndSet(current, null);
+                }
+                refreshedToken = true;
+                attempt--;
+            } catch (RestClientException e) {
+                backOffOrThrow(e, attempt, path);
+            }
+        }
+    }
+
+    private void backOffOrThrow(RestClientException e, int attempt, String path) {
+        long retryAfterMs = -1;
+        if (e instanceof HttpClientErrorException.TooManyRequests tooMany) {
+            retryAfterMs = retryAfterMs(tooMany);
+        } else if (!(e instanceof HttpServerErrorException) && !(e instanceof ResourceAccessException)) {
+            throw e;
+        }
+        if (attempt >= maxAttempts) {
+            throw e;
+        }
+        long ceiling = Math.min(retryMaxDelayMs, retryBaseDelayMs << Math.min(attempt - 1, 20));
+        long delayMs = retryAfterMs >= 0
+                ? Math.min(retryAfterMs, retryMaxDelayMs)
+                : ThreadLocalRandom.current().nextLong(ceiling + 1);
+        log.debug("Keycloak {} failed (attempt {} of {}), retrying in {} ms: {}",
+                path, attempt, maxAttempts, delayMs, e.getMessage());
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    private static long retryAfterMs(HttpClientErrorException e) {
+        String retryAfter = e.getResponseHeaders() == null ? null : e.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+        if (retryAfter == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(retryAfter.trim()) * 1000);
+        } catch (NumberFormatException ignored) {
+            return -1;
+        }
+    }
+
     private String getAccessToken() {
-        if (adminPassword == null || adminPassword.isBlank()) {
+        boolean clientCredentials = adminClientSecret != null && !adminClientSecret.isBlank();
+        if (!clientCredentials && (adminPassword == null || adminPassword.isBlank())) {
             throw new IllegalStateException(
-                    "Missing Keycloak admin password. Set `starling.keycloak.admin.password` (env var recommended)."
+                    "Missing Keycloak admin credentials. Set `starling.keycloak.admin.client-secret` or "
+                            + "`starling.keycloak.admin.password` (env var recommended)."
             );
         }
 
         CachedToken cached = tokenCache.get();
-        Instant now = Instant.now();
-        if (cached != null && cached.expiresAt().isAfter(now.plusSeconds(15))) {
+        if (cached != null && cached.expiresAt().isAfter(Instant.now().plusSeconds(15))) {
             return cached.accessToken();
         }
+        // One refresh at a time; callers queued behind it reuse the new token
+        tokenLock.lock();
+        try {
+            cached = tokenCache.get();
+            Instant now = Instant.now();
+            if (cached != null && cached.expiresAt().isAfter(now.plusSeconds(15))) {
+                return cached.accessToken();
+            }
+            String form = clientCredentials
+                    ? "grant_type=client_credentials"
+                    + "&client_id=" + urlEncode(adminClientId)
+                    + "&client_secret=" + urlEncode(adminClientSecret)
+                    : "grant_type=password"
+                    + "&client_id=" + urlEncode(adminClientId)
+                    + "&username=" + urlEncode(adminUsername)
+                    + "&password=" + urlEncode(adminPassword);
 
-        TokenResponse tokenResponse = restClient.post()
-                .uri(baseUrl + "/realms/{realm}/protocol/openid-connect/token", adminRealm)
-                .contentType(MediaType.APPLICATION_FORM_URLENCODED)
-                .accept(MediaType.APPLICATION_JSON)
-                .body("grant_type=password"
-                        + "&client_id=" + urlEncode(adminClientId)
-                        + "&username=" + urlEncode(adminUsername)
-                        + "&password=" + urlEncode(adminPassword))
-                .retrieve()
-                .body(TokenResponse.class);
-
-        if (tokenResponse == null || tokenResponse.access_token == null || tokenResponse.access_token.isBlank()) {
-            throw new IllegalStateException("Unable to obtain Keycloak admin access token.");
-        }
+            TokenResponse tokenResponse;
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    tokenResponse = restClient.post()
+                            .uri(baseUrl + "/realms/{realm}/protocol/openid-connect/token", adminRealm)
+                            .contentType(MediaType.APPLICATION_FORM_URLENCODED)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .body(form)
+                            .retrieve()
+                            .body(TokenResponse.class);
+                    break;
+                } catch (RestClientException e) {
+                    backOffOrThrow(e, attempt, "token");
+                }
+            }
 
-        Instant expiresAt = now.plusSeconds(Math.max(30, tokenResponse.expires_in == null ? 60 : tokenResponse.expires_in));
-        tokenCache.set(new CachedToken(tokenResponse.access_token, expiresAt));
-        return tokenResponse.access_token;
+            if (tokenResponse == null || tokenResponse.access_token == null || tokenResponse.access_token.isBlank()) {
+                throw new IllegalStateException("Unable to obtain Keycloak admin access token.");
+            }
+
+            Instant expiresAt = now.plusSeconds(Math.max(30, tokenResponse.expires_in == null ? 60 : tokenResponse.expires_in));
+            tokenCache.set(new CachedToken(tokenResponse.access_token, expiresAt));
+            return tokenResponse.access_token;
+        } finally {
+            tokenLock.unlock();
+        }
     }
 
     private static String urlEncode(String s) {
@@ -131,7 +300,7 @@ public class KeycloakAdminClient {
             String email,
             String firstName,
             String lastName,
-            boolean enabled,
+            Boolean enabled,
             Map<String, Object> attributes
     ) {
     }
@@ -140,7 +309,8 @@ public class KeycloakAdminClient {
     public record KeycloakGroup(
             String id,
             String name,
-            String path
+            String path,
+            List<KeycloakGroup> subGroups
     ) {
     }
 }
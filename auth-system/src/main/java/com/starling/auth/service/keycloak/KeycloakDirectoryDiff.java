@@ -0,0 +1,183 @@
+package com.starling.auth.service.keycloak;
+
+import com.starling.auth.service.keycloak.KeycloakDirectoryReader.DirectoryUser;
+
+import java.util.*;
+
+/**
+ * The changes that bring local identities and IdP-derived role assignments in line with a
+ * Keycloak directory read.
+ *
+ * Identities are matched on external subject (the Keycloak user id). Username, email and the
+ * active flag follow Keycloak; names are only filled in when blank locally, since seeding
+ * curates them. Role assignments with source IDP_GROUP follow the user's mapped groups; other
+ * sources are never ended, and a role already held from another source is not granted again.
+ * Identities missing from Keycloak are deactivated when {@code deactivateMissing} is set.
+ */
+public record KeycloakDirectoryDiff(
+        List<NewIdentity> inserts,
+        List<IdentityUpdate> updates,
+        List<RoleChange> roleGrants,
+        List<RoleChange> roleEnds) {
+
+    public static final String SOURCE_IDP_GROUP = "IDP_GROUP";
+
+    /** A local identity of the synced provider, as stored. */
+    public record LocalIdentity(
+            UUID identityId,
+            String externalSubject,
+            String username,
+            String email,
+            String givenName,
+            String familyName,
+            String displayName,
+            boolean active) {
+    }
+
+    /** An active iam.identity_role row. */
+    public record HeldRole(UUID identityId, UUID roleId, String source) {
+    }
+
+    public record NewIdentity(UUID identityId, DirectoryUser user, String displayName) {
+    }
+
+    public record IdentityUpdate(
+            UUID identityId,
+            String username,
+            String email,
+            String givenName,
+            String familyName,
+            String displayName,
+            boolean active) {
+    }
+
+    /** @param sourceRef the mapped group names granting the role, for grants; null for ends */
+    public record RoleChange(UUID identityId, UUID roleId, String sourceRef) {
+    }
+
+    public static KeycloakDirectoryDiff compute(
+            Map<String, DirectoryUser> directory,
+            Collection<LocalIdentity> local,
+            Collection<HeldRole> heldRoles,
+            Map<String, Set<UUID>> rolesByGroup,
+            boolean deactivateMissing) {
+        Map<UUID, Map<UUID, String>> held = new HashMap<>();
+        for (HeldRole role : heldRoles) {
+            held.computeIfAbsent(role.identityId(), id -> new HashMap<>()).put(role.roleId(), role.source());
+        }
+
+        List<NewIdentity> inserts = new ArrayList<>();
+        List<IdentityUpdate> updates = new ArrayList<>();
+        List<RoleChange> grants = new ArrayList<>();
+        List<RoleChange> ends = new ArrayList<>();
+
+        Map<String, LocalIdentity> bySubject = new HashMap<>();
+        local.forEach(identity -> bySubject.put(identity.externalSubject(), identity));
+
+        for (DirectoryUser user : directory.values()) {
+            LocalIdentity existing = bySubject.get(user.id());
+            UUID identityId;
+            if (existing == null) {
+                identityId = UUID.randomUUID();
+                inserts.add(new NewIdentity(identityId, user, displayName(user)));
+            } else {
+                identityId = existing.identityId();
+                IdentityUpdate update = update(existing, user);
+                if (update != null) {
+                    updates.add(update);
+                }
+            }
+            diffRoles(identityId, desiredRoles(user, rolesByGroup),
+                    held.getOrDefault(identityId, Map.of()), grants, ends);
+        }
+
+        for (LocalIdentity identity : local) {
+            if (directory.containsKey(identity.externalSubject())) {
+                continue;
+            }
+            if (deactivateMissing && identity.active()) {
+                updates.add(new IdentityUpdate(identity.identityId(), identity.username(), identity.email(),
+                        identity.givenName(), identity.familyName(), identity.displayName(), false));
+            }
+            diffRoles(identity.identityId(), Map.of(), held.getOrDefault(identity.identityId(), Map.of()),
+                    grants, ends);
+        }
+        return new KeycloakDirectoryDiff(inserts, updates, grants, ends);
+    }
+
+    public boolean isEmpty() {
+        return inserts.isEmpty() && updates.isEmpty() && roleGrants.isEmpty() && roleEnds.isEmpty();
+    }
+
+    /** Identities whose row or roles change. */
+    public Set<UUID> changedIdentityIds() {
+        Set<UUID> ids = new HashSet<>();
+        inserts.forEach(i -> ids.add(i.identityId()));
+        updates.forEach(u -> ids.add(u.identityId()));
+        roleGrants.forEach(g -> ids.add(g.identityId()));
+        roleEnds.forEach(e -> ids.add(e.identityId()));
+        return ids;
+    }
+
+    private static IdentityUpdate update(LocalIdentity existing, DirectoryUser user) {
+        String username = isBlank(user.username()) ? existing.username() : user.username();
+        String email = isBlank(user.email()) ? existing.email() : user.email();
+        String givenName = isBlank(existing.givenName()) ? blankToNull(user.firstName()) : existing.givenName();
+        String familyName = isBlank(existing.familyName()) ? blankToNull(user.lastName()) : existing.familyName();
+        String displayName = isBlank(existing.displayName()) ? displayName(user) : existing.displayName();
+        if (Objects.equals(username, existing.username()) && Objects.equals(email, existing.email())
+                && Objects.equals(givenName, existing.givenName())
+                && Objects.equals(familyName, existing.familyName())
+                && Objects.equals(displayName, existing.displayName())
+                && user.enabled() == existing.active()) {
+            return null;
+        }
+        return new IdentityUpdate(existing.identityId(), username, email, givenName, familyName, displayName,
+                user.enabled());
+    }
+
+    /** Role id to the sorted, comma-separated names of the groups granting it. */
+    private static Map<UUID, String> desiredRoles(DirectoryUser user, Map<String, Set<UUID>> rolesByGroup) {
+        Map<UUID, SortedSet<String>> groupsByRole = new HashMap<>();
+        for (String group : user.groups()) {
+            for (UUID roleId : rolesByGroup.getOrDefault(group, Set.of())) {
+                groupsByRole.computeIfAbsent(roleId, id -> new TreeSet<>()).add(group);
+            }
+        }
+        Map<UUID, String> desired = new HashMap<>();
+        groupsByRole.forEach((roleId, groups) -> desired.put(roleId, String.join(",", groups)));
+        return desired;
+    }
+
+    private static void diffRoles(
+            UUID identityId,
+            Map<UUID, String> desired,
+            Map<UUID, String> held,
+            List<RoleChange> grants,
+            List<RoleChange> ends) {
+        desired.forEach((roleId, groups) -> {
+            if (!held.containsKey(roleId)) {
+                grants.add(new RoleChange(identityId, roleId, groups));
+            }
+        });
+        held.forEach((roleId, source) -> {
+            if (SOURCE_IDP_GROUP.equals(source) && !desired.containsKey(roleId)) {
+                ends.add(new RoleChange(identityId, roleId, null));
+            }
+        });
+    }
+
+    private static String displayName(DirectoryUser user) {
+        String full = (Objects.toString(blankToNull(user.firstName()), "") + " "
+                + Objects.toString(blankToNull(user.lastName()), "")).trim();
+        return full.isEmpty() ? user.username() : full;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String blankToNull(String value) {
+        return isBlank(value) ? null : value;
+    }
+}
@@ -0,0 +1,210 @@
+package com.starling.auth.service.keycloak;
+
+import com.starling.auth.service.keycloak.KeycloakAdminClient.KeycloakGroup;
+import com.starling.auth.service.keycloak.KeycloakAdminClient.KeycloakUser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads a realm's users and their memberships in a given set of groups.
+ *
+ * Users are paged by offset, and the pages implied by the user count are fetched
+ * concurrently on virtual threads, with at most {@code starling.keycloak.sync.concurrency}
+ * requests in flight. Memberships are read per group (one paged member listing for each
+ * mapped group) rather than per user, so the request count grows with the realm size divided
+ * by the page size, not with the number of users. Any failed request fails the whole read.
+ *
+ * Offset pages are not a consistent snapshot: a user deleted mid-read can shift another
+ * across a page boundary so that neither page returns it. Callers about to act on a user's
+ * absence confirm it with {@link #stillPresent} first.
+ */
+@Component
+public class KeycloakDirectoryReader {
+
+    /** A Keycloak user and the names of the requested groups they belong to directly. */
+    public record DirectoryUser(
+            String id,
+            String username,
+            String email,
+            String firstName,
+            String lastName,
+            boolean enabled,
+            Set<String> groups) {
+    }
+
+    private final KeycloakAdminClient keycloakAdminClient;
+    private final int pageSize;
+    private final int concurrency;
+
+    public KeycloakDirectoryReader(
+            KeycloakAdminClient keycloakAdminClient,
+            @Value("${starling.keycloak.sync.page-size:500}") int pageSize,
+            @Value("${starling.keycloak.sync.concurrency:8}") int concurrency) {
+        this.keycloakAdminClient = keycloakAdminClient;
+        this.pageSize = Math.max(1, pageSize);
+        this.concurrency = Math.max(1, concurrency);
+    }
+
+    /**
+     * Every user in {@code realm}, keyed by Keycloak user id, with memberships restricted to
+     * {@code groupNames}. Groups are matched by name at any depth of the group tree.
+     */
+    public Map<String, DirectoryUser> read(String realm, Collection<String> groupNames) {
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Map<String, Set<String>>> memberships = executor.submit(
+                    () -> readMemberships(realm, Set.copyOf(groupNames), executor, permits));
+            Map<String, KeycloakUser> users = readUsers(realm, executor, permits);
+
+            Map<String, Set<String>> groupsByUser = await(memberships);
+            Map<String, DirectoryUser> result = new LinkedHashMap<>();
+            for (KeycloakUser user : users.values()) {
+                result.put(user.id(), new DirectoryUser(
+                        user.id(), user.username(), user.email(), user.firstName(), user.lastName(),
+                        !Boolean.FALSE.equals(user.enabled()), Set.copyOf(groupsByUser.getOrDefault(user.id(), Set.of()))));
+            }
+            return result;
+        }
+    }
+
+    /** The ids among {@code userIds} that Keycloak still has, looked up one by one. */
+    public Set<String> stillPresent(String realm, Collection<String> userIds) {
+        Semaphore permits = new Semaphore(concurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Map<String, Future<Boolean>> lookups = new LinkedHashMap<>();
+            for (String userId : Set.copyOf(userIds)) {
+                lookups.put(userId, executor.submit(() -> limited(permits, () -> exists(realm, userId))));
+            }
+            Set<String> present = new HashSet<>();
+            lookups.forEach((userId, lookup) -> {
+                if (await(lookup)) {
+                    present.add(userId);
+                }
+            });
+            return present;
+        }
+    }
+
+    private boolean exists(String realm, String userId) {
+        try {
+            return keycloakAdminClient.getUserById(realm, userId) != null;
+        } catch (HttpClientErrorException.NotFound e) {
+            return false;
+        }
+    }
+
+    private Map<String, KeycloakUser> readUsers(String realm, ExecutorService executor, Semaphore permits) {
+        int count = limited(permits, () -> keycloakAdminClient.countUsers(realm));
+        int pages = Math.max(1, (count + pageSize - 1) / pageSize);
+        List<Future<List<KeycloakUser>>> futures = new ArrayList<>(pages);
+        for (int page = 0; page < pages; page++) {
+            int first = page * pageSize;
+            futures.add(executor.submit(() -> limited(permits,
+                    () -> keycloakAdminClient.listUsers(realm, first, pageSize))));
+        }
+
+        // Combine in page order; a user moved across a page boundary mid-read appears once
+        Map<String, KeycloakUser> users = new LinkedHashMap<>();
+        List<KeycloakUser> last = List.of();
+        for (Future<List<KeycloakUser>> future : futures) {
+            last = await(future);
+            last.forEach(user -> users.putIfAbsent(user.id(), user));
+        }
+        // Users created since the count: keep reading until a short page
+        int first = pages * pageSize;
+        while (last.size() == pageSize) {
+            int offset = first;
+            last = limited(permits, () -> keycloakAdminClient.listUsers(realm, offset, pageSize));
+            last.forEach(user -> users.putIfAbsent(user.id(), user));
+            first += pageSize;
+        }
+        return users;
+    }
+
+    private Map<String, Set<String>> readMemberships(
+            String realm, Set<String> groupNames, ExecutorService executor, Semaphore permits) {
+        List<Future<List<KeycloakGroup>>> searches = new ArrayList<>();
+        for (String name : groupNames) {
+            searches.add(executor.submit(() -> limited(permits, () -> keycloakAdminClient.searchGroups(realm, name))));
+        }
+        Map<String, String> groupIdToName = new HashMap<>();
+        for (Future<List<KeycloakGroup>> search : searches) {
+            collectMatching(await(search), groupNames, groupIdToName);
+        }
+
+        Map<String, Future<List<String>>> members = new HashMap<>();
+        groupIdToName.keySet().forEach(groupId ->
+                members.put(groupId, executor.submit(() -> readMemberIds(realm, groupId, permits))));
+        Map<String, Set<String>> groupsByUser = new HashMap<>();
+        members.forEach((groupId, future) -> {
+            for (String userId : await(future)) {
+                groupsByUser.computeIfAbsent(userId, id -> new HashSet<>()).add(groupIdToName.get(groupId));
+            }
+        });
+        return groupsByUser;
+    }
+
+    private List<String> readMemberIds(String realm, String groupId, Semaphore permits) {
+        List<String> ids = new ArrayList<>();
+        for (int first = 0; ; first += pageSize) {
+            int offset = first;
+            List<KeycloakUser> page = limited(permits,
+                    () -> keycloakAdminClient.listGroupMembers(realm, groupId, offset, pageSize));
+            page.forEach(user -> ids.add(user.id()));
+            if (page.size() < pageSize) {
+                return ids;
+            }
+        }
+    }
+
+    private static void collectMatching(List<KeycloakGroup> groups, Set<String> names, Map<String, String> into) {
+        if (groups == null) {
+            return;
+        }
+        for (KeycloakGroup group : groups) {
+            if (group.id() != null && names.contains(group.name())) {
+                into.put(group.id(), group.name());
+            }
+            collectMatching(group.subGroups(), names, into);
+        }
+    }
+
+    private static <T> T limited(Semaphore permits, Callable<T> call) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the Keycloak directory", e);
+        }
+        try {
+            return call.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while reading the Keycloak directory", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+    }
+}
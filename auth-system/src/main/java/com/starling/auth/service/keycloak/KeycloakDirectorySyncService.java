@@ -0,0 +1,334 @@
+package com.starling.auth.service.keycloak;
+
+import com.starling.auth.model.db.AuditEventEntity;
+import com.starling.auth.repository.AuditEventRepository;
+import com.starling.auth.service.directory.IdentityChangedEvent;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.HeldRole;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.IdentityUpdate;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.LocalIdentity;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.NewIdentity;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.RoleChange;
+import com.starling.auth.service.keycloak.KeycloakDirectoryReader.DirectoryUser;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * Synchronizes iam.identity and IdP-derived iam.identity_role rows with the Keycloak realm.
+ *
+ * The realm is read in bulk by {@link KeycloakDirectoryReader}, local state is loaded with
+ * two queries, and {@link KeycloakDirectoryDiff} works out what changed in memory. Only the
+ * changes are written, as JDBC batches of {@code starling.keycloak.sync.batch-size} rows, each
+ * batch in its own transaction. A run that fails part way leaves earlier batches applied; the
+ * next run picks up from there, since the diff is recomputed from scratch.
+ *
+ * Runs nightly on {@code starling.keycloak.sync.cron} (disabled by default) or on demand from
+ * the admin seed endpoints, which start a run in the background with {@link #start} and poll
+ * it with {@link #getRun}, since a large realm takes minutes. Only one run is active at a
+ * time per instance; the latest run is kept for polling.
+ */
+@Service
+public class KeycloakDirectorySyncService {
+
+    private static final Logger log = LoggerFactory.getLogger(KeycloakDirectorySyncService.class);
+
+    private static final String LOCAL_IDENTITIES_SQL = """
+            SELECT identity_id, external_subject, username, email, given_name, family_name,
+                   display_name, is_active
+            FROM iam.identity
+            WHERE provider_id = ?
+            """;
+
+    private static final String HELD_ROLES_SQL = """
+            SELECT ir.identity_id, ir.role_id, ir.assignment_source
+            FROM iam.identity_role ir
+            JOIN iam.identity i ON i.identity_id = ir.identity_id
+            WHERE i.provider_id = ? AND ir.effective_to IS NULL
+            """;
+
+    private static final String GROUP_ROLES_SQL = """
+            SELECT g.group_name, gr.role_id
+            FROM iam.idp_group g
+            JOIN iam.idp_group_role gr ON gr.idp_group_id = g.idp_group_id
+            WHERE g.provider_id = ?
+            """;
+
+    private static final String INSERT_IDENTITY_SQL = """
+            INSERT INTO iam.identity (identity_id, provider_id, external_subject, username, email,
+                                      given_name, family_name, display_name, is_active)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final String UPDATE_IDENTITY_SQL = """
+            UPDATE iam.identity
+            SET username = ?, email = ?, given_name = ?, family_name = ?, display_name = ?,
+                is_active = ?, updated_at = now()
+            WHERE identity_id = ?
+            """;
+
+    private static final String GRANT_ROLE_SQL = """
+            INSERT INTO iam.identity_role (identity_id, role_id, assignment_source, source_ref)
+            VALUES (?, ?, 'IDP_GROUP', ?)
+            ON CONFLICT (identity_id, role_id) WHERE effective_to IS NULL DO NOTHING
+            """;
+
+    private static final String END_ROLE_SQL = """
+            UPDATE iam.identity_role
+            SET effective_to = now(), updated_at = now()
+            WHERE identity_id = ? AND role_id = ? AND assignment_source = 'IDP_GROUP'
+              AND effective_to IS NULL
+            """;
+
+    public record SyncResult(
+            int directoryUsers,
+            int created,
+            int updated,
+            int rolesGranted,
+            int rolesEnded,
+            long durationMs) {
+    }
+
+    /** A background run started by {@link #start}; status is RUNNING, COMPLETED or FAILED. */
+    public record SyncRun(
+            UUID id,
+            String status,
+            Instant startedAt,
+            Instant finishedAt,
+            SyncResult result,
+            String error) {
+    }
+
+    private final KeycloakDirectoryReader directoryReader;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AuditEventRepository auditEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String realm;
+    private final String providerId;
+    private final int batchSize;
+    private final boolean deactivateMissing;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("keycloak-sync").daemon().factory());
+    private volatile SyncRun latestRun;
+
+    public KeycloakDirectorySyncService(
+            KeycloakDirectoryReader directoryReader,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            AuditEventRepository auditEventRepository,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${starling.keycloak.realm:starling}") String realm,
+            @Value("${starling.oidc.provider-id:http://localhost:8180/realms/starling}") String providerId,
+            @Value("${starling.keycloak.sync.batch-size:500}") int batchSize,
+            @Value("${starling.keycloak.sync.deactivate-missing:true}") boolean deactivateMissing) {
+        this.directoryReader = directoryReader;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.auditEventRepository = auditEventRepository;
+        this.eventPublisher = eventPublisher;
+        this.realm = realm;
+        this.providerId = providerId;
+        this.batchSize = Math.max(1, batchSize);
+        this.deactivateMissing = deactivateMissing;
+    }
+
+    @Scheduled(cron = "${starling.keycloak.sync.cron:-}")
+    public void scheduledSync() {
+        try {
+            sync().ifPresentOrElse(
+                    result -> log.info("Keycloak directory sync: {}", result),
+                    () -> log.info("Keycloak directory sync skipped, a run is already active"));
+        } catch (RuntimeException e) {
+            log.warn("Keycloak directory sync failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Starts a sync in the background.
+     *
+     * @return the RUNNING run, or empty if a sync is already running
+     */
+    public Optional<SyncRun> start() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        SyncRun started = new SyncRun(UUID.randomUUID(), "RUNNING", Instant.now(), null, null, null);
+        latestRun = started;
+        try {
+            executor.execute(() -> {
+                try {
+                    SyncResult result = run();
+                    latestRun = new SyncRun(started.id(), "COMPLETED", started.startedAt(), Instant.now(), result, null);
+                    log.info("Keycloak directory sync: {}", result);
+                } catch (RuntimeException e) {
+                    latestRun = new SyncRun(started.id(), "FAILED", started.startedAt(), Instant.now(), null,
+                            e.getMessage());
+                    log.warn("Keycloak directory sync failed: {}", e.getMessage());
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+            throw new IllegalStateException("Keycloak directory sync could not be started", e);
+        }
+        return Optional.of(started);
+    }
+
+    /** The run with {@code runId}, if it is the latest one. */
+    public SyncRun getRun(UUID runId) {
+        SyncRun run = latestRun;
+        if (run == null || !run.id().equals(runId)) {
+            throw new IllegalStateException("Keycloak sync run not found: " + runId);
+        }
+        return run;
+    }
+
+    /** Runs a sync on the calling thread, or returns empty if one is already running. */
+    public Optional<SyncResult> sync() {
+        if (!running.compareAndSet(false, true)) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(run());
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private SyncResult run() {
+        long startedAt = System.currentTimeMillis();
+        Map<String, Set<UUID>> rolesByGroup = loadGroupRoles();
+        Map<String, DirectoryUser> directory = directoryReader.read(realm, rolesByGroup.keySet());
+        if (directory.isEmpty() && deactivateMissing) {
+            // An empty realm is far more likely a misconfigured realm than a real state to mirror
+            throw new IllegalStateException("Keycloak realm " + realm + " returned no users; not syncing");
+        }
+
+        List<LocalIdentity> local = loadLocalIdentities();
+        List<HeldRole> heldRoles = loadHeldRoles();
+        local = withoutUnconfirmedMissing(directory, local, heldRoles);
+
+        KeycloakDirectoryDiff diff = KeycloakDirectoryDiff.compute(
+                directory, local, heldRoles, rolesByGroup, deactivateMissing);
+        apply(diff);
+        diff.changedIdentityIds().forEach(id -> eventPublisher.publishEvent(new IdentityChangedEvent(id)));
+
+        SyncResult result = new SyncResult(directory.size(), diff.inserts().size(), diff.updates().size(),
+                diff.roleGrants().size(), diff.roleEnds().size(), System.currentTimeMillis() - startedAt);
+        auditEventRepository.save(AuditEventEntity.builder()
+                .eventType("ADMIN_SYNC_KEYCLOAK_DIRECTORY")
+                .outcome("SUCCESS")
+                .details("Keycloak directory sync run")
+                .metadata(Map.of(
+                        "realm", realm,
+                        "directory_users", result.directoryUsers(),
+                        "created", result.created(),
+                        "updated", result.updated(),
+                        "roles_granted", result.rolesGranted(),
+                        "roles_ended", result.rolesEnded(),
+                        "duration_ms", result.durationMs()))
+                .build());
+        return result;
+    }
+
+    /**
+     * {@code local} less identities the bulk read missed but Keycloak still has, so a user
+     * skipped by shifting offset pages is left alone this run rather than deactivated or
+     * stripped of IdP roles. Only identities the diff would change are looked up.
+     */
+    private List<LocalIdentity> withoutUnconfirmedMissing(
+            Map<String, DirectoryUser> directory, List<LocalIdentity> local, List<HeldRole> heldRoles) {
+        Set<UUID> holdingIdpRoles = new HashSet<>();
+        heldRoles.stream()
+                .filter(role -> KeycloakDirectoryDiff.SOURCE_IDP_GROUP.equals(role.source()))
+                .forEach(role -> holdingIdpRoles.add(role.identityId()));
+        List<String> missing = local.stream()
+                .filter(identity -> !directory.containsKey(identity.externalSubject()))
+                .filter(identity -> (deactivateMissing && identity.active())
+                        || holdingIdpRoles.contains(identity.identityId()))
+                .map(LocalIdentity::externalSubject)
+                .toList();
+        if (missing.isEmpty()) {
+            return local;
+        }
+        Set<String> stillPresent = directoryReader.stillPresent(realm, missing);
+        if (stillPresent.isEmpty()) {
+            return local;
+        }
+        log.info("Keycloak directory sync: {} users missing from the bulk read still exist; leaving them unchanged",
+                stillPresent.size());
+        return local.stream().filter(identity -> !stillPresent.contains(identity.externalSubject())).toList();
+    }
+
+    private void apply(KeycloakDirectoryDiff diff) {
+        // Identities first, so role grants can reference new rows
+        batched(INSERT_IDENTITY_SQL, diff.inserts(), (NewIdentity n) -> new Object[]{
+                n.identityId(), providerId, n.user().id(), n.user().username(), n.user().email(),
+                n.user().firstName(), n.user().lastName(), n.displayName(), n.user().enabled()});
+        batched(UPDATE_IDENTITY_SQL, diff.updates(), (IdentityUpdate u) -> new Object[]{
+                u.username(), u.email(), u.givenName(), u.familyName(), u.displayName(), u.active(),
+                u.identityId()});
+        batched(END_ROLE_SQL, diff.roleEnds(), (RoleChange e) -> new Object[]{e.identityId(), e.roleId()});
+        batched(GRANT_ROLE_SQL, diff.roleGrants(), (RoleChange g) -> new Object[]{
+                g.identityId(), g.roleId(), g.sourceRef()});
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> void batched(String sql, List<T> rows, Function<T, Object[]> toArgs) {
+        for (int from = 0; from < rows.size(); from += batchSize) {
+            List<Object[]> args = rows.subList(from, Math.min(rows.size(), from + batchSize)).stream()
+                    .map(toArgs)
+                    .toList();
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, args));
+        }
+    }
+
+    private Map<String, Set<UUID>> loadGroupRoles() {
+        Map<String, Set<UUID>> rolesByGroup = new HashMap<>();
+        jdbcTemplate.query(GROUP_ROLES_SQL, (RowCallbackHandler) rs -> rolesByGroup
+                .computeIfAbsent(rs.getString("group_name"), name -> new HashSet<>())
+                .add(rs.getObject("role_id", UUID.class)), providerId);
+        return rolesByGroup;
+    }
+
+    private List<LocalIdentity> loadLocalIdentities() {
+        return jdbcTemplate.query(LOCAL_IDENTITIES_SQL, (rs, rowNum) -> new LocalIdentity(
+                rs.getObject("identity_id", UUID.class),
+                rs.getString("external_subject"),
+                rs.getString("username"),
+                rs.getString("email"),
+                rs.getString("given_name"),
+                rs.getString("family_name"),
+                rs.getString("display_name"),
+                rs.getBoolean("is_active")), providerId);
+    }
+
+    private List<HeldRole> loadHeldRoles() {
+        return jdbcTemplate.query(HELD_ROLES_SQL, (rs, rowNum) -> new HeldRole(
+                rs.getObject("identity_id", UUID.class),
+                rs.getObject("role_id", UUID.class),
+                rs.getString("assignment_source")), providerId);
+    }
+}
@@ -0,0 +1,97 @@
+package com.starling.auth.service.keycloak;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache for Keycloak lookups that also coalesces concurrent misses.
+ *
+ * The first caller for a key runs the lookup; callers arriving while it is in flight wait for
+ * the same result instead of sending their own request. Results are kept for {@code ttl}
+ * (nothing is kept when it is zero); failures are never kept. When the cache grows past
+ * {@code maxEntries}, expired entries are dropped, and everything is dropped if that is not
+ * enough.
+ */
+final class KeycloakLookupCache<K, V> {
+
+    /** {@code expiresAtNanos} is {@link #IN_FLIGHT} until the lookup completes. */
+    private record Entry<V>(CompletableFuture<V> result, long expiresAtNanos) {
+
+        boolean isLive(long now) {
+            return expiresAtNanos == IN_FLIGHT || expiresAtNanos - now > 0;
+        }
+    }
+
+    private static final long IN_FLIGHT = Long.MAX_VALUE;
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    KeycloakLookupCache(Duration ttl, int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = Math.max(1, maxEntries);
+    }
+
+    V get(K key, Supplier<V> lookup) {
+        long now = System.nanoTime();
+        Entry<V> existing = entries.get(key);
+        if (existing != null && existing.isLive(now)) {
+            return join(existing.result());
+        }
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        Entry<V> winner = entries.compute(key, (k, current) ->
+                current != null && current.isLive(now) ? current : new Entry<>(mine, IN_FLIGHT));
+        if (winner.result() != mine) {
+            return join(winner.result());
+        }
+
+        try {
+            V value = lookup.get();
+            mine.complete(value);
+            if (ttlNanos > 0) {
+                entries.replace(key, winner, new Entry<>(mine, System.nanoTime() + ttlNanos));
+                trim();
+            } else {
+                entries.remove(key, winner);
+            }
+            return value;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            entries.remove(key, winner);
+            throw e;
+        }
+    }
+
+    void invalidateAll() {
+        entries.clear();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    private void trim() {
+        if (entries.size() <= maxEntries) {
+            return;
+        }
+        long now = System.nanoTime();
+        entries.values().removeIf(e -> !e.isLive(now));
+        if (entries.size() > maxEntries) {
+            entries.clear();
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> result) {
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+}
@@ -4,11 +4,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starling.auth.model.db.AuditEventEntity;
 import com.starling.auth.model.db.CaseEntity;
 import com.starling.auth.model.db.CasePathologistEntity;
-import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.AuditEventRepository;
 import com.starling.auth.repository.CasePathologistRepository;
 import com.starling.auth.repository.CaseRepository;
-import com.starling.auth.repository.IdentityRepository;
 import com.starling.auth.repository.WorklistRepository;
 import com.starling.auth.service.seed.SeedCaseAssignmentModels.*;
 import org.springframework.beans.factory.annotation.Value;
@@ -25,7 +23,7 @@ public class CaseAssignmentSeedService {
     private final ObjectMapper objectMapper;
     private final CaseRepository caseRepository;
     private final CasePathologistRepository casePathologistRepository;
-    private final IdentityRepository identityRepository;
+    private final SeedIdentityResolver seedIdentityResolver;
     private final WorklistRepository worklistRepository;
     private final AuditEventRepository auditEventRepository;
     private final Path seedFilePath;
@@ -34,14 +32,14 @@ public class CaseAssignmentSeedService {
             ObjectMapper objectMapper,
             CaseRepository caseRepository,
             CasePathologistRepository casePathologistRepository,
-            IdentityRepository identityRepository,
+            SeedIdentityResolver seedIdentityResolver,
             WorklistRepository worklistRepository,
             AuditEventRepository auditEventRepository,
             @Value("${starling.seed.case-assignments.path:../seed/wsi/case-assignments.v1.json}") String seedFilePath) {
         this.objectMapper = objectMapper;
         this.caseRepository = caseRepository;
         this.casePathologistRepository = casePathologistRepository;
-        this.identityRepository = identityRepository;
+        this.seedIdentityResolver = seedIdentityResolver;
         this.worklistRepository = worklistRepository;
         this.auditEventRepository = auditEventRepository;
         this.seedFilePath = Path.of(seedFilePath);
@@ -86,6 +84,14 @@ public class CaseAssignmentSeedService {
         List<SeedAssignmentResult> results = new ArrayList<>();
         int total = 0;
 
+        // Resolve every referenced username once, up front
+        Map<String, SeedIdentityResolver.SeedIdentity> identities = seedIdentityResolver.resolve(
+                assignments.stream()
+                        .filter(a -> a.pathologists() != null)
+                        .flatMap(a -> a.pathologists().stream())
+                        .map(SeedPathologistAssignment::username)
+                        .toList());
+
         for (SeedCaseAssignment caseAssignment : assignments) {
             String accession = caseAssignment.accessionNumber();
 
@@ -117,16 +123,15 @@ public class CaseAssignmentSeedService {
                 String designation = pa.designation();
 
                 try {
-                    Optional<IdentityEntity> identityOpt = findIdentityByUsername(username);
-                    if (identityOpt.isEmpty()) {
+                    SeedIdentityResolver.SeedIdentity identity = identities.get(username);
+                    if (identity == null) {
                         failed++;
                         results.add(SeedAssignmentResult.failed(accession, username, designation,
                                 "Identity not found: " + username));
                         continue;
                     }
 
-                    IdentityEntity identity = identityOpt.get();
-                    UUID identityId = identity.getIdentityId();
+                    UUID identityId = identity.identityId();
 
                     // Upsert: check if assignment already exists
                     Optional<CasePathologistEntity> existingOpt =
@@ -156,7 +161,7 @@ public class CaseAssignmentSeedService {
                         worklistRepository.findByAccessionNumber(accession)
                                 .ifPresent(worklist -> {
                                     worklist.setAssignedToIdentityId(identityId);
-                                    worklist.setAssignedToDisplay(identity.getDisplayName());
+                                    worklist.setAssignedToDisplay(identity.displayName());
                                     worklistRepository.save(worklist);
                                 });
                     }
@@ -197,18 +202,4 @@ public class CaseAssignmentSeedService {
             throw new IllegalStateException("Failed to read seed file: " + seedFilePath + ": " + e.getMessage(), e);
         }
     }
-
-    private Optional<IdentityEntity> findIdentityByUsername(String username) {
-        Optional<IdentityEntity> byUsername = identityRepository.findByUsername(username);
-        if (byUsername.isPresent()) {
-            return byUsername;
-        }
-        return identityRepository.findAll().stream()
-                .filter(identity -> {
-                    if (identity.getAttributes() == null) return false;
-                    Object seedUsername = identity.getAttributes().get("seed_username");
-                    return username.equals(seedUsername);
-                })
-                .findFirst();
-    }
 }
@@ -3,21 +3,24 @@ package com.starling.auth.service.seed;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starling.auth.model.db.AuditEventEntity;
 import com.starling.auth.repository.AuditEventRepository;
+import com.starling.auth.service.seed.ingest.WsiIngestBatch;
+import com.starling.auth.service.seed.ingest.WsiIngestPipeline;
+import com.starling.auth.service.seed.ingest.WsiIngestTarget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.LocalDate;
 import java.util.*;
 
 /**
  * Seeds wsi.cases (with parts, blocks, slides) from the JSON seed file.
- * Uses JdbcTemplate for native SQL since there are no JPA entities for
- * parts/blocks/slides.
+ * The case tree is flattened into rows and merged set-based by {@link WsiIngestPipeline},
+ * since there are no JPA entities for parts/blocks/slides.
  */
 @Service
 public class CaseSeedService {
@@ -25,19 +28,19 @@ public class CaseSeedService {
     private static final Logger log = LoggerFactory.getLogger(CaseSeedService.class);
 
     private final ObjectMapper objectMapper;
-    private final JdbcTemplate jdbcTemplate;
+    private final WsiIngestPipeline wsiIngestPipeline;
     private final AuditEventRepository auditEventRepository;
-    private final Path seedFilePath;
+    private final List<Path> seedFilePaths;
 
     public CaseSeedService(
             ObjectMapper objectMapper,
-            JdbcTemplate jdbcTemplate,
+            WsiIngestPipeline wsiIngestPipeline,
             AuditEventRepository auditEventRepository,
-            @Value("${starling.seed.wsi-cases.path:../seed/wsi/wsi-test-cases.v1.json}") String seedFilePath) {
+            @Value("${starling.seed.wsi-cases.path:../seed/wsi/wsi-test-cases.v1.json}") String seedFilePaths) {
         this.objectMapper = objectMapper;
-        this.jdbcTemplate = jdbcTemplate;
+        this.wsiIngestPipeline = wsiIngestPipeline;
         this.auditEventRepository = auditEventRepository;
-        this.seedFilePath = Path.of(seedFilePath);
+        this.seedFilePaths = WsiIngestPipeline.parsePathList(seedFilePaths);
     }
 
     public record SeedRunResult(
@@ -62,50 +65,48 @@ public class CaseSeedService {
         }
     }
 
-    @Transactional
-    @SuppressWarnings("unchecked")
+    /**
+     * Parses the seed file(s) and merges every case tree in one set-based pass through
+     * {@link WsiIngestPipeline}. Several comma-separated files are parsed in parallel.
+     */
     public SeedRunResult seedFromFile() {
         long startedAt = System.currentTimeMillis();
+        for (Path path : seedFilePaths) {
+            if (!Files.exists(path)) {
+                throw new IllegalStateException("Seed file not found: " + path.toAbsolutePath());
+            }
+        }
+
+        WsiIngestPipeline.IngestResult ingest = wsiIngestPipeline.ingest(
+                WsiIngestTarget.CLINICAL, seedFilePaths, this::parseManifest);
+
         int created = 0;
         int updated = 0;
-        int failed = 0;
         List<SeedCaseResult> results = new ArrayList<>();
-
-        Map<String, Object> file = readSeedFile();
-        List<Map<String, Object>> cases = (List<Map<String, Object>>) file.getOrDefault("cases", List.of());
-
-        for (Map<String, Object> seedCase : cases) {
-            String caseId = (String) seedCase.get("caseId");
-            if (caseId == null || caseId.isBlank()) {
-                failed++;
-                results.add(SeedCaseResult.failed(null, "Missing caseId"));
-                continue;
-            }
-
-            try {
-                boolean existed = upsertCase(seedCase);
-                if (existed) {
-                    updated++;
-                    results.add(SeedCaseResult.ok(caseId, "UPDATED"));
-                } else {
-                    created++;
-                    results.add(SeedCaseResult.ok(caseId, "CREATED"));
-                }
-            } catch (Exception e) {
-                failed++;
-                log.error("Failed to seed case {}: {}", caseId, e.getMessage(), e);
-                results.add(SeedCaseResult.failed(caseId, e.getMessage()));
+        for (WsiIngestPipeline.CaseOutcome outcome : ingest.cases()) {
+            if (outcome.created()) {
+                created++;
+                results.add(SeedCaseResult.ok(outcome.caseId(), "CREATED"));
+            } else {
+                updated++;
+                results.add(SeedCaseResult.ok(outcome.caseId(), "UPDATED"));
             }
         }
+        for (WsiIngestBatch.Rejection rejection : ingest.rejections()) {
+            results.add(SeedCaseResult.failed(rejection.caseId(), rejection.message()));
+        }
+        int failed = ingest.rejections().size();
+        int total = created + updated + failed;
 
         long durationMs = System.currentTimeMillis() - startedAt;
         Map<String, Object> metadata = Map.of(
-                "total", cases.size(),
+                "total", total,
                 "created", created,
                 "updated", updated,
                 "failed", failed,
+                "slides_created", ingest.slidesCreated(),
                 "duration_ms", durationMs,
-                "seed_file", seedFilePath.toString());
+                "seed_file", seedFilePaths.toString());
 
         auditEventRepository.save(AuditEventEntity.builder()
                 .eventType("ADMIN_SEED_CASES")
@@ -114,64 +115,57 @@ public class CaseSeedService {
                 .metadata(metadata)
                 .build());
 
-        return new SeedRunResult(cases.size(), created, updated, failed, results);
+        return new SeedRunResult(total, created, updated, failed, results);
     }
 
     @SuppressWarnings("unchecked")
-    private boolean upsertCase(Map<String, Object> seedCase) {
+    private WsiIngestBatch parseManifest(Path path) throws IOException {
+        Map<String, Object> file = objectMapper.readValue(path.toFile(), Map.class);
+        List<Map<String, Object>> cases = (List<Map<String, Object>>) file.getOrDefault("cases", List.of());
+
+        WsiIngestBatch batch = new WsiIngestBatch();
+        for (Map<String, Object> seedCase : cases) {
+            String caseId = (String) seedCase.get("caseId");
+            if (caseId == null || caseId.isBlank()) {
+                batch.reject(null, "Missing caseId");
+                continue;
+            }
+            try {
+                // Build the whole case first so a bad slide rejects the case, not half of it
+                WsiIngestBatch caseRows = new WsiIngestBatch();
+                addCase(caseRows, seedCase);
+                batch.addAll(caseRows);
+            } catch (Exception e) {
+                log.error("Failed to parse seed case {}: {}", caseId, e.getMessage(), e);
+                batch.reject(caseId, e.getMessage());
+            }
+        }
+        return batch;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void addCase(WsiIngestBatch batch, Map<String, Object> seedCase) {
         String caseId = (String) seedCase.get("caseId");
-        String specimenType = (String) seedCase.get("specimenType");
-        String clinicalHistory = (String) seedCase.get("clinicalHistory");
         String accessionDate = (String) seedCase.get("accessionDate");
-        String status = (String) seedCase.getOrDefault("status", "pending_review");
-        String priority = (String) seedCase.getOrDefault("priority", "routine");
-
-        // Check if case already exists
-        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                "SELECT id FROM wsi.cases WHERE collection = 'clinical' AND case_id = ?", caseId);
-        boolean existed = !existing.isEmpty();
 
         // Read patient MRN from seed data (data-driven, no hardcoded mapping)
-        String patientMrn = (String) seedCase.get("patientMrn");
-
-        UUID caseUuid;
-        if (existed) {
-            // Update existing
-            jdbcTemplate.update("""
-                UPDATE wsi.cases SET
-                    specimen_type = ?,
-                    clinical_history = ?,
-                    accession_date = ?::date,
-                    status = ?,
-                    priority = ?,
-                    patient_id = (SELECT id FROM core.patients WHERE mrn = ?),
-                    metadata = '{}'::jsonb
-                WHERE collection = 'clinical' AND case_id = ?
-                """,
-                    specimenType, clinicalHistory, accessionDate,
-                    status, priority, patientMrn, caseId);
-            caseUuid = (UUID) existing.getFirst().get("id");
-        } else {
-            // Insert new
-            caseUuid = UUID.randomUUID();
-            jdbcTemplate.update("""
-                INSERT INTO wsi.cases (id, case_id, collection, specimen_type, clinical_history,
-                    accession_date, status, priority, patient_id, metadata)
-                VALUES (?::uuid, ?, 'clinical', ?, ?, ?::date, ?, ?,
-                    (SELECT id FROM core.patients WHERE mrn = ?), '{}'::jsonb)
-                """,
-                    caseUuid.toString(), caseId, specimenType, clinicalHistory,
-                    accessionDate, status, priority, patientMrn);
-        }
-
-        // Seed slides (parts -> blocks -> slides)
+        batch.addCase(new WsiIngestBatch.CaseRow(
+                caseId,
+                (String) seedCase.get("specimenType"),
+                (String) seedCase.get("clinicalHistory"),
+                accessionDate != null ? LocalDate.parse(accessionDate) : null,
+                (String) seedCase.getOrDefault("status", "pending_review"),
+                (String) seedCase.getOrDefault("priority", "routine"),
+                (String) seedCase.get("patientMrn"),
+                null,
+                null));
+
+        // Slides (parts -> blocks -> slides)
         List<Map<String, Object>> slides = (List<Map<String, Object>>) seedCase.getOrDefault("slides", List.of());
-        seedSlides(caseUuid, caseId, slides);
-
-        return existed;
+        addSlides(batch, caseId, slides);
     }
 
-    private void seedSlides(UUID caseUuid, String caseId, List<Map<String, Object>> slides) {
+    private void addSlides(WsiIngestBatch batch, String caseId, List<Map<String, Object>> slides) {
         // Group slides by part description to create part/block/slide hierarchy
         // Slide IDs follow pattern: {caseId}_{Part}{Block}_S{N}
         // e.g. S26-0001_A1_S1 -> Part A, Block 1, Slide S1
@@ -209,75 +203,15 @@ public class CaseSeedService {
                 continue;
             }
 
-            // Ensure part exists
-            UUID partId = ensurePart(caseUuid, partLabel, partDesc);
-
-            // Ensure block exists
-            UUID blockId = ensureBlock(partId, blockLabel, blockDesc);
-
-            // Ensure slide exists
             String format = filename.endsWith(".ome.tiff") ? "ome.tiff"
                     : filename.substring(filename.lastIndexOf('.') + 1);
-            String relativePath = caseId.substring(caseId.length() - 4, caseId.length() - 3).equals("6")
-                    ? "2026/" + caseId + "/" + filename
-                    : caseId.substring(0, 3) + "/" + caseId + "/" + filename;
-            // Simpler: always use year prefix from accession
-            relativePath = "2026/" + caseId + "/" + filename;
+            // Always use year prefix from accession
+            String relativePath = "2026/" + caseId + "/" + filename;
 
-            List<Map<String, Object>> existingSlide = jdbcTemplate.queryForList(
-                    "SELECT id FROM wsi.slides WHERE slide_id = ?", slideId);
-            if (existingSlide.isEmpty()) {
-                jdbcTemplate.update("""
-                    INSERT INTO wsi.slides (id, block_id, slide_id, relative_path, format, stain, level_label)
-                    VALUES (?::uuid, ?::uuid, ?, ?, ?, ?, ?)
-                    """,
-                        UUID.randomUUID().toString(), blockId.toString(),
-                        slideId, relativePath, format, stain, levelLabel);
-            }
-        }
-    }
-
-    private UUID ensurePart(UUID caseUuid, String partLabel, String partDesc) {
-        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                "SELECT id FROM wsi.parts WHERE case_id = ?::uuid AND part_label = ?",
-                caseUuid.toString(), partLabel);
-        if (!existing.isEmpty()) {
-            return (UUID) existing.getFirst().get("id");
-        }
-        UUID partId = UUID.randomUUID();
-        jdbcTemplate.update("""
-            INSERT INTO wsi.parts (id, case_id, part_label, part_designator, metadata)
-            VALUES (?::uuid, ?::uuid, ?, ?, '{}'::jsonb)
-            """,
-                partId.toString(), caseUuid.toString(), partLabel, partDesc);
-        return partId;
-    }
-
-    private UUID ensureBlock(UUID partId, String blockLabel, String blockDesc) {
-        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                "SELECT id FROM wsi.blocks WHERE part_id = ?::uuid AND block_label = ?",
-                partId.toString(), blockLabel);
-        if (!existing.isEmpty()) {
-            return (UUID) existing.getFirst().get("id");
-        }
-        UUID blockId = UUID.randomUUID();
-        jdbcTemplate.update("""
-            INSERT INTO wsi.blocks (id, part_id, block_label, block_description)
-            VALUES (?::uuid, ?::uuid, ?, ?)
-            """,
-                blockId.toString(), partId.toString(), blockLabel, blockDesc);
-        return blockId;
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> readSeedFile() {
-        try {
-            if (!Files.exists(seedFilePath)) {
-                throw new IllegalStateException("Seed file not found: " + seedFilePath.toAbsolutePath());
-            }
-            return objectMapper.readValue(seedFilePath.toFile(), Map.class);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to read seed file: " + seedFilePath + ": " + e.getMessage(), e);
+            batch.addSlide(new WsiIngestBatch.SlideRow(
+                    caseId, partLabel, partDesc, null, null, null,
+                    blockLabel, blockDesc, null,
+                    slideId, relativePath, format, stain, levelLabel));
         }
     }
 }
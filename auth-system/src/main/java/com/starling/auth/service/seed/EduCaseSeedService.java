@@ -3,13 +3,15 @@ package com.starling.auth.service.seed;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starling.auth.model.db.AuditEventEntity;
 import com.starling.auth.repository.AuditEventRepository;
+import com.starling.auth.service.seed.ingest.WsiIngestBatch;
+import com.starling.auth.service.seed.ingest.WsiIngestPipeline;
+import com.starling.auth.service.seed.ingest.WsiIngestTarget;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
@@ -20,19 +22,19 @@ public class EduCaseSeedService {
     private static final Logger log = LoggerFactory.getLogger(EduCaseSeedService.class);
 
     private final ObjectMapper objectMapper;
-    private final JdbcTemplate jdbcTemplate;
+    private final WsiIngestPipeline wsiIngestPipeline;
     private final AuditEventRepository auditEventRepository;
-    private final Path seedFilePath;
+    private final List<Path> seedFilePaths;
 
     public EduCaseSeedService(
             ObjectMapper objectMapper,
-            JdbcTemplate jdbcTemplate,
+            WsiIngestPipeline wsiIngestPipeline,
             AuditEventRepository auditEventRepository,
-            @Value("${starling.seed.edu-cases.path:../seed/wsi-edu/wsi-edu-cases.v1.json}") String seedFilePath) {
+            @Value("${starling.seed.edu-cases.path:../seed/wsi-edu/wsi-edu-cases.v1.json}") String seedFilePaths) {
         this.objectMapper = objectMapper;
-        this.jdbcTemplate = jdbcTemplate;
+        this.wsiIngestPipeline = wsiIngestPipeline;
         this.auditEventRepository = auditEventRepository;
-        this.seedFilePath = Path.of(seedFilePath);
+        this.seedFilePaths = WsiIngestPipeline.parsePathList(seedFilePaths);
     }
 
     public record SeedRunResult(
@@ -57,50 +59,49 @@ public class EduCaseSeedService {
         }
     }
 
-    @Transactional
-    @SuppressWarnings("unchecked")
+    /**
+     * Parses the seed file(s) and merges every case tree, including ICD codes, in one
+     * set-based pass through {@link WsiIngestPipeline}. Several comma-separated files are
+     * parsed in parallel.
+     */
     public SeedRunResult seedFromFile() {
         long startedAt = System.currentTimeMillis();
+        for (Path path : seedFilePaths) {
+            if (!Files.exists(path)) {
+                throw new IllegalStateException("Seed file not found: " + path.toAbsolutePath());
+            }
+        }
+
+        WsiIngestPipeline.IngestResult ingest = wsiIngestPipeline.ingest(
+                WsiIngestTarget.EDUCATIONAL, seedFilePaths, this::parseManifest);
+
         int created = 0;
         int updated = 0;
-        int failed = 0;
         List<SeedCaseResult> results = new ArrayList<>();
-
-        Map<String, Object> file = readSeedFile();
-        List<Map<String, Object>> cases = (List<Map<String, Object>>) file.getOrDefault("cases", List.of());
-
-        for (Map<String, Object> seedCase : cases) {
-            String caseId = (String) seedCase.get("caseId");
-            if (caseId == null || caseId.isBlank()) {
-                failed++;
-                results.add(SeedCaseResult.failed(null, "Missing caseId"));
-                continue;
-            }
-
-            try {
-                boolean existed = upsertCase(seedCase);
-                if (existed) {
-                    updated++;
-                    results.add(SeedCaseResult.ok(caseId, "UPDATED"));
-                } else {
-                    created++;
-                    results.add(SeedCaseResult.ok(caseId, "CREATED"));
-                }
-            } catch (Exception e) {
-                failed++;
-                log.error("Failed to seed edu case {}: {}", caseId, e.getMessage(), e);
-                results.add(SeedCaseResult.failed(caseId, e.getMessage()));
+        for (WsiIngestPipeline.CaseOutcome outcome : ingest.cases()) {
+            if (outcome.created()) {
+                created++;
+                results.add(SeedCaseResult.ok(outcome.caseId(), "CREATED"));
+            } else {
+                updated++;
+                results.add(SeedCaseResult.ok(outcome.caseId(), "UPDATED"));
             }
         }
+        for (WsiIngestBatch.Rejection rejection : ingest.rejections()) {
+            results.add(SeedCaseResult.failed(rejection.caseId(), rejection.message()));
+        }
+        int failed = ingest.rejections().size();
+        int total = created + updated + failed;
 
         long durationMs = System.currentTimeMillis() - startedAt;
         Map<String, Object> metadata = Map.of(
-                "total", cases.size(),
+                "total", total,
                 "created", created,
                 "updated", updated,
                 "failed", failed,
+                "slides_created", ingest.slidesCreated(),
                 "duration_ms", durationMs,
-                "seed_file", seedFilePath.toString());
+                "seed_file", seedFilePaths.toString());
 
         auditEventRepository.save(AuditEventEntity.builder()
                 .eventType("ADMIN_SEED_EDU_CASES")
@@ -109,163 +110,87 @@ public class EduCaseSeedService {
                 .metadata(metadata)
                 .build());
 
-        return new SeedRunResult(cases.size(), created, updated, failed, results);
+        return new SeedRunResult(total, created, updated, failed, results);
+    }
+
+    @SuppressWarnings("unchecked")
+    private WsiIngestBatch parseManifest(Path path) throws IOException {
+        Map<String, Object> file = objectMapper.readValue(path.toFile(), Map.class);
+        List<Map<String, Object>> cases = (List<Map<String, Object>>) file.getOrDefault("cases", List.of());
+
+        WsiIngestBatch batch = new WsiIngestBatch();
+        for (Map<String, Object> seedCase : cases) {
+            String caseId = (String) seedCase.get("caseId");
+            if (caseId == null || caseId.isBlank()) {
+                batch.reject(null, "Missing caseId");
+                continue;
+            }
+            try {
+                // Build the whole case first so a bad slide rejects the case, not half of it
+                WsiIngestBatch caseRows = new WsiIngestBatch();
+                addCase(caseRows, seedCase);
+                batch.addAll(caseRows);
+            } catch (Exception e) {
+                log.error("Failed to parse edu seed case {}: {}", caseId, e.getMessage(), e);
+                batch.reject(caseId, e.getMessage());
+            }
+        }
+        return batch;
     }
 
     @SuppressWarnings("unchecked")
-    private boolean upsertCase(Map<String, Object> seedCase) throws Exception {
+    private void addCase(WsiIngestBatch batch, Map<String, Object> seedCase) throws IOException {
         String caseId = (String) seedCase.get("caseId");
-        String specimenType = (String) seedCase.get("specimenType");
-        String clinicalHistory = (String) seedCase.get("clinicalHistory");
-        String status = (String) seedCase.getOrDefault("status", "active");
 
         // Source lineage and metadata as JSONB strings
         Map<String, Object> sourceLineage = (Map<String, Object>) seedCase.get("sourceLineage");
         Map<String, Object> metadata = (Map<String, Object>) seedCase.get("metadata");
-        String sourceLineageJson = sourceLineage != null ? objectMapper.writeValueAsString(sourceLineage) : "{}";
-        String metadataJson = metadata != null ? objectMapper.writeValueAsString(metadata) : "{}";
-
-        // Check if case already exists
-        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                "SELECT id FROM wsi_edu.cases WHERE case_id = ?", caseId);
-        boolean existed = !existing.isEmpty();
-
-        UUID caseUuid;
-        if (existed) {
-            jdbcTemplate.update("""
-                UPDATE wsi_edu.cases SET
-                    specimen_type = ?,
-                    clinical_history = ?,
-                    status = ?,
-                    source_lineage = ?::jsonb,
-                    metadata = ?::jsonb
-                WHERE case_id = ?
-                """,
-                    specimenType, clinicalHistory, status,
-                    sourceLineageJson, metadataJson, caseId);
-            caseUuid = (UUID) existing.getFirst().get("id");
-        } else {
-            caseUuid = UUID.randomUUID();
-            jdbcTemplate.update("""
-                INSERT INTO wsi_edu.cases (id, case_id, collection, specimen_type, clinical_history,
-                    status, source_lineage, metadata)
-                VALUES (?::uuid, ?, 'educational', ?, ?, ?, ?::jsonb, ?::jsonb)
-                """,
-                    caseUuid.toString(), caseId, specimenType, clinicalHistory,
-                    status, sourceLineageJson, metadataJson);
-        }
 
-        // Seed slides (parts -> blocks -> slides)
+        batch.addCase(new WsiIngestBatch.CaseRow(
+                caseId,
+                (String) seedCase.get("specimenType"),
+                (String) seedCase.get("clinicalHistory"),
+                null,
+                (String) seedCase.getOrDefault("status", "active"),
+                null,
+                null,
+                sourceLineage != null ? objectMapper.writeValueAsString(sourceLineage) : "{}",
+                metadata != null ? objectMapper.writeValueAsString(metadata) : "{}"));
+
+        // Slides (parts -> blocks -> slides)
         List<Map<String, Object>> slides = (List<Map<String, Object>>) seedCase.getOrDefault("slides", List.of());
-        seedSlides(caseUuid, slides);
-
-        // Seed ICD codes
-        List<Map<String, Object>> icdCodes = (List<Map<String, Object>>) seedCase.getOrDefault("icdCodes", List.of());
-        seedIcdCodes(caseUuid, icdCodes);
-
-        return existed;
-    }
-
-    private void seedSlides(UUID caseUuid, List<Map<String, Object>> slides) {
         for (Map<String, Object> slide : slides) {
             String slideId = (String) slide.get("slideId");
-            String partLabel = (String) slide.get("partLabel");
-            String partDesignator = (String) slide.get("partDesignator");
-            String provenance = (String) slide.getOrDefault("provenance", "IMPLIED");
-            String anatomicSite = (String) slide.get("anatomicSite");
-            String finalDiagnosis = (String) slide.get("finalDiagnosis");
-            String blockLabel = (String) slide.get("blockLabel");
-            String blockDescription = (String) slide.get("blockDescription");
-            String stain = (String) slide.getOrDefault("stain", "H&E");
-            String format = (String) slide.getOrDefault("format", "svs");
             String relativePath = (String) slide.get("relativePath");
-
             if (slideId == null || relativePath == null) continue;
 
-            // Ensure part exists
-            UUID partId = ensurePart(caseUuid, partLabel, partDesignator, provenance, anatomicSite, finalDiagnosis);
-
-            // Ensure block exists
-            UUID blockId = ensureBlock(partId, blockLabel, blockDescription, provenance);
-
-            // Ensure slide exists
-            List<Map<String, Object>> existingSlide = jdbcTemplate.queryForList(
-                    "SELECT id FROM wsi_edu.slides WHERE slide_id = ?", slideId);
-            if (existingSlide.isEmpty()) {
-                jdbcTemplate.update("""
-                    INSERT INTO wsi_edu.slides (id, block_id, slide_id, relative_path, format, stain)
-                    VALUES (?::uuid, ?::uuid, ?, ?, ?, ?)
-                    """,
-                        UUID.randomUUID().toString(), blockId.toString(),
-                        slideId, relativePath, format, stain);
-            }
-        }
-    }
-
-    private UUID ensurePart(UUID caseUuid, String partLabel, String partDesignator,
-                            String provenance, String anatomicSite, String finalDiagnosis) {
-        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                "SELECT id FROM wsi_edu.parts WHERE case_id = ?::uuid AND part_label = ?",
-                caseUuid.toString(), partLabel);
-        if (!existing.isEmpty()) {
-            return (UUID) existing.getFirst().get("id");
-        }
-        UUID partId = UUID.randomUUID();
-        jdbcTemplate.update("""
-            INSERT INTO wsi_edu.parts (id, case_id, part_label, part_designator, provenance, anatomic_site, final_diagnosis, metadata)
-            VALUES (?::uuid, ?::uuid, ?, ?, ?, ?, ?, '{}'::jsonb)
-            """,
-                partId.toString(), caseUuid.toString(), partLabel, partDesignator,
-                provenance, anatomicSite, finalDiagnosis);
-        return partId;
-    }
-
-    private UUID ensureBlock(UUID partId, String blockLabel, String blockDescription, String provenance) {
-        List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                "SELECT id FROM wsi_edu.blocks WHERE part_id = ?::uuid AND block_label = ?",
-                partId.toString(), blockLabel);
-        if (!existing.isEmpty()) {
-            return (UUID) existing.getFirst().get("id");
+            String provenance = (String) slide.getOrDefault("provenance", "IMPLIED");
+            batch.addSlide(new WsiIngestBatch.SlideRow(
+                    caseId,
+                    (String) slide.get("partLabel"),
+                    (String) slide.get("partDesignator"),
+                    (String) slide.get("anatomicSite"),
+                    (String) slide.get("finalDiagnosis"),
+                    provenance,
+                    (String) slide.get("blockLabel"),
+                    (String) slide.get("blockDescription"),
+                    provenance,
+                    slideId,
+                    relativePath,
+                    (String) slide.getOrDefault("format", "svs"),
+                    (String) slide.getOrDefault("stain", "H&E"),
+                    null));
         }
-        UUID blockId = UUID.randomUUID();
-        jdbcTemplate.update("""
-            INSERT INTO wsi_edu.blocks (id, part_id, block_label, block_description, provenance)
-            VALUES (?::uuid, ?::uuid, ?, ?, ?)
-            """,
-                blockId.toString(), partId.toString(), blockLabel, blockDescription, provenance);
-        return blockId;
-    }
 
-    private void seedIcdCodes(UUID caseUuid, List<Map<String, Object>> icdCodes) {
+        // ICD codes
+        List<Map<String, Object>> icdCodes = (List<Map<String, Object>>) seedCase.getOrDefault("icdCodes", List.of());
         for (Map<String, Object> icd : icdCodes) {
             String icdCode = (String) icd.get("icd_code");
             String codeSystem = (String) icd.get("code_system");
-            String codeDescription = (String) icd.get("code_description");
-
             if (icdCode == null || codeSystem == null) continue;
 
-            List<Map<String, Object>> existing = jdbcTemplate.queryForList(
-                    "SELECT 1 FROM wsi_edu.case_icd_codes WHERE case_id = ?::uuid AND icd_code = ? AND code_system = ?",
-                    caseUuid.toString(), icdCode, codeSystem);
-            if (existing.isEmpty()) {
-                jdbcTemplate.update("""
-                    INSERT INTO wsi_edu.case_icd_codes (case_id, icd_code, code_system, code_description)
-                    VALUES (?::uuid, ?, ?, ?)
-                    """,
-                        caseUuid.toString(), icdCode, codeSystem, codeDescription);
-            }
-        }
-    }
-
-    @SuppressWarnings("unchecked")
-    private Map<String, Object> readSeedFile() {
-        try {
-            if (!Files.exists(seedFilePath)) {
-                throw new IllegalStateException("Seed file not found: " + seedFilePath.toAbsolutePath());
-            }
-            return objectMapper.readValue(seedFilePath.toFile(), Map.class);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to read seed file: " + seedFilePath + ": " + e.getMessage(), e);
+            batch.addIcdCode(new WsiIngestBatch.IcdCodeRow(
+                    caseId, icdCode, codeSystem, (String) icd.get("code_description")));
         }
     }
 }
@@ -6,11 +6,9 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starling.auth.model.db.AuditEventEntity;
 import com.starling.auth.model.db.EduCaseCuratorEntity;
 import com.starling.auth.model.db.EduCaseEntity;
-import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.AuditEventRepository;
 import com.starling.auth.repository.EduCaseCuratorRepository;
 import com.starling.auth.repository.EduCaseRepository;
-import com.starling.auth.repository.IdentityRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -32,7 +30,7 @@ public class EduCuratorSeedService {
     private final ObjectMapper objectMapper;
     private final EduCaseRepository eduCaseRepository;
     private final EduCaseCuratorRepository curatorRepository;
-    private final IdentityRepository identityRepository;
+    private final SeedIdentityResolver seedIdentityResolver;
     private final AuditEventRepository auditEventRepository;
     private final Path seedFilePath;
 
@@ -40,13 +38,13 @@ public class EduCuratorSeedService {
             ObjectMapper objectMapper,
             EduCaseRepository eduCaseRepository,
             EduCaseCuratorRepository curatorRepository,
-            IdentityRepository identityRepository,
+            SeedIdentityResolver seedIdentityResolver,
             AuditEventRepository auditEventRepository,
             @Value("${starling.seed.edu-curators.path:../seed/wsi-edu/edu-curator-assignments.v1.json}") String seedFilePath) {
         this.objectMapper = objectMapper;
         this.eduCaseRepository = eduCaseRepository;
         this.curatorRepository = curatorRepository;
-        this.identityRepository = identityRepository;
+        this.seedIdentityResolver = seedIdentityResolver;
         this.auditEventRepository = auditEventRepository;
         this.seedFilePath = Path.of(seedFilePath);
     }
@@ -108,6 +106,14 @@ public class EduCuratorSeedService {
         SeedFile file = readSeedFile();
         List<SeedCaseAssignment> assignments = file.assignments() != null ? file.assignments() : List.of();
 
+        // Resolve every referenced username once, up front
+        Map<String, SeedIdentityResolver.SeedIdentity> identities = seedIdentityResolver.resolve(
+                assignments.stream()
+                        .filter(a -> a.curators() != null)
+                        .flatMap(a -> a.curators().stream())
+                        .map(SeedCuratorEntry::username)
+                        .toList());
+
         for (SeedCaseAssignment caseAssignment : assignments) {
             String accession = caseAssignment.accessionNumber();
 
@@ -129,15 +135,15 @@ public class EduCuratorSeedService {
                 String role = curator.role();
 
                 // Resolve identity by username
-                Optional<IdentityEntity> identityOpt = findIdentityByUsername(username);
-                if (identityOpt.isEmpty()) {
+                SeedIdentityResolver.SeedIdentity identity = identities.get(username);
+                if (identity == null) {
                     failed++;
                     results.add(SeedAssignmentResult.failed(accession, username, role,
                             "Identity not found for username: " + username));
                     continue;
                 }
 
-                java.util.UUID identityId = identityOpt.get().getIdentityId();
+                java.util.UUID identityId = identity.identityId();
 
                 try {
                     // Upsert curator assignment
@@ -188,22 +194,6 @@ public class EduCuratorSeedService {
         return new SeedRunResult(total, created, updated, skipped, failed, results);
     }
 
-    private Optional<IdentityEntity> findIdentityByUsername(String username) {
-        // First try direct username lookup
-        Optional<IdentityEntity> byUsername = identityRepository.findByUsername(username);
-        if (byUsername.isPresent()) {
-            return byUsername;
-        }
-        // Fall back to seed_username in attributes map
-        return identityRepository.findAll().stream()
-                .filter(identity -> {
-                    if (identity.getAttributes() == null) return false;
-                    Object seedUsername = identity.getAttributes().get("seed_username");
-                    return username.equals(seedUsername);
-                })
-                .findFirst();
-    }
-
     private SeedFile readSeedFile() {
         try {
             if (!Files.exists(seedFilePath)) {
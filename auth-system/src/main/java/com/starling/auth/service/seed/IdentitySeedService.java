@@ -5,10 +5,12 @@ import com.starling.auth.model.db.AuditEventEntity;
 import com.starling.auth.model.db.IdentityEntity;
 import com.starling.auth.repository.AuditEventRepository;
 import com.starling.auth.repository.IdentityRepository;
+import com.starling.auth.service.directory.IdentityChangedEvent;
 import com.starling.auth.service.keycloak.KeycloakAdminClient;
 import com.starling.auth.service.seed.SeedIdentityModels.SeedIdentitiesFile;
 import com.starling.auth.service.seed.SeedIdentityModels.SeedIdentity;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -29,6 +31,7 @@ public class IdentitySeedService {
     private final KeycloakAdminClient keycloakAdminClient;
     private final IdentityRepository identityRepository;
     private final AuditEventRepository auditEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
     private final String keycloakRealm;
     private final Path seedFilePath;
 
@@ -37,6 +40,7 @@ public class IdentitySeedService {
             KeycloakAdminClient keycloakAdminClient,
             IdentityRepository identityRepository,
             AuditEventRepository auditEventRepository,
+            ApplicationEventPublisher eventPublisher,
             @Value("${starling.keycloak.realm:starling}") String keycloakRealm,
             @Value("${starling.seed.identities.path:../seed/identities/xenonym-identities.v1.json}") String seedFilePath
     ) {
@@ -44,6 +48,7 @@ public class IdentitySeedService {
         this.keycloakAdminClient = keycloakAdminClient;
         this.identityRepository = identityRepository;
         this.auditEventRepository = auditEventRepository;
+        this.eventPublisher = eventPublisher;
         this.keycloakRealm = keycloakRealm;
         this.seedFilePath = Path.of(seedFilePath);
     }
@@ -174,7 +179,8 @@ public class IdentitySeedService {
                 }
                 entity.setAttributes(mergedAttributes);
 
-                identityRepository.save(entity);
+                entity = identityRepository.save(entity);
+                eventPublisher.publishEvent(new IdentityChangedEvent(entity.getIdentityId()));
 
                 if (isNew) {
                     created++;
@@ -1,41 +1,91 @@
 package com.starling.auth.service.seed;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.starling.auth.model.db.AuditEventEntity;
-import com.starling.auth.model.db.PatientEntity;
 import com.starling.auth.repository.AuditEventRepository;
-import com.starling.auth.repository.PatientRepository;
-import com.starling.auth.service.seed.SeedPatientModels.SeedPatientsFile;
 import com.starling.auth.service.seed.SeedPatientModels.SeedPatient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.sql.Date;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 @Service
 public class PatientSeedService {
 
+    private static final Logger log = LoggerFactory.getLogger(PatientSeedService.class);
+
+    /** Keeps 11 bind parameters per row well under the PostgreSQL limit of 65535 per statement. */
+    static final int MAX_CHUNK_SIZE = 5000;
+
+    static final int MAX_REPORTED_FAILURES = 100;
+
+    private static final String UPSERT_PREFIX = """
+            INSERT INTO core.patients AS p
+                (mrn, given_name, family_name, display_name, dob, sex, phone, email,
+                 address, is_test_patient, metadata)
+            VALUES
+            """;
+
+    private static final String UPSERT_VALUES = "(?, ?, ?, ?, ?::date, ?, ?, ?, ?::jsonb, ?, ?::jsonb)";
+
+    // Optional demographics only overwrite when the seed provides them; metadata is merged.
+    // xmax = 0 only for freshly inserted tuples, which tells created from updated rows.
+    private static final String UPSERT_SUFFIX = """
+
+            ON CONFLICT (mrn) DO UPDATE SET
+                given_name = EXCLUDED.given_name,
+                family_name = EXCLUDED.family_name,
+                display_name = EXCLUDED.display_name,
+                dob = COALESCE(EXCLUDED.dob, p.dob),
+                sex = COALESCE(EXCLUDED.sex, p.sex),
+                phone = COALESCE(EXCLUDED.phone, p.phone),
+                email = COALESCE(EXCLUDED.email, p.email),
+                address = COALESCE(EXCLUDED.address, p.address),
+                is_test_patient = EXCLUDED.is_test_patient,
+                metadata = COALESCE(p.metadata, '{}'::jsonb) || EXCLUDED.metadata,
+                updated_at = now()
+            RETURNING (xmax = 0) AS inserted
+            """;
+
     private final ObjectMapper objectMapper;
-    private final PatientRepository patientRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
     private final AuditEventRepository auditEventRepository;
     private final Path seedFilePath;
+    private final int chunkSize;
 
     public PatientSeedService(
             ObjectMapper objectMapper,
-            PatientRepository patientRepository,
+            JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
             AuditEventRepository auditEventRepository,
-            @Value("${starling.seed.patients.path:../seed/patients/xenonym-azure-vale-9728.json}") String seedFilePath
+            @Value("${starling.seed.patients.path:../seed/patients/xenonym-azure-vale-9728.json}") String seedFilePath,
+            @Value("${starling.seed.patients.chunk-size:1000}") int chunkSize
     ) {
         this.objectMapper = objectMapper;
-        this.patientRepository = patientRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.auditEventRepository = auditEventRepository;
         this.seedFilePath = Path.of(seedFilePath);
+        this.chunkSize = Math.min(Math.max(chunkSize, 1), MAX_CHUNK_SIZE);
     }
 
     public record SeedRunResult(
@@ -44,7 +94,9 @@ public class PatientSeedService {
             int updated,
             int skipped,
             int failed,
-            List<SeedPatientResult> results
+            int chunks,
+            long durationMs,
+            List<SeedPatientResult> failures
     ) {
     }
 
@@ -54,144 +106,247 @@ public class PatientSeedService {
             String status,
             String message
     ) {
-        public static SeedPatientResult ok(String mrn, String displayName, String status) {
-            return new SeedPatientResult(mrn, displayName, status, null);
-        }
-
         public static SeedPatientResult failed(String mrn, String displayName, String message) {
             return new SeedPatientResult(mrn, displayName, "FAILED", message);
         }
     }
 
-    @Transactional
-    public SeedRunResult seedFromFile() {
-        long startedAt = System.currentTimeMillis();
-        int created = 0;
-        int updated = 0;
-        int skipped = 0;
-        int failed = 0;
-
-        SeedPatientsFile file = readSeedFile();
-        List<SeedPatient> patients = file.patients() == null ? List.of() : file.patients();
-
-        java.util.ArrayList<SeedPatientResult> results = new java.util.ArrayList<>();
+    /** One validated seed patient, already in column form. */
+    private record PatientRow(
+            String mrn,
+            String givenName,
+            String familyName,
+            String displayName,
+            LocalDate dob,
+            String sex,
+            String phone,
+            String email,
+            String addressJson,
+            boolean testPatient,
+            String metadataJson
+    ) {
+    }
 
-        for (SeedPatient seed : patients) {
-            String mrn = seed.mrn();
-            String displayName = seed.name() != null ? seed.name().display() : null;
+    /** Running totals for one seed run; failures beyond MAX_REPORTED_FAILURES are only counted. */
+    private static final class RunStats {
+        int total;
+        int created;
+        int updated;
+        int failed;
+        int chunks;
+        final List<SeedPatientResult> failures = new ArrayList<>();
 
-            if (mrn == null || mrn.isBlank()) {
-                failed++;
-                results.add(SeedPatientResult.failed(mrn, displayName, "Missing required field: mrn"));
-                continue;
-            }
-            if (seed.name() == null || seed.name().given() == null || seed.name().family() == null) {
-                failed++;
-                results.add(SeedPatientResult.failed(mrn, displayName, "Missing required fields: name.given/name.family"));
-                continue;
+        void fail(String mrn, String displayName, String message) {
+            failed++;
+            if (failures.size() < MAX_REPORTED_FAILURES) {
+                failures.add(SeedPatientResult.failed(mrn, displayName, message));
             }
+        }
+    }
 
-            try {
-                PatientEntity entity = patientRepository
-                        .findByMrn(mrn)
-                        .orElseGet(() -> PatientEntity.builder().build());
-
-                boolean isNew = entity.getId() == null;
-
-                entity.setMrn(mrn);
-                entity.setGivenName(seed.name().given());
-                entity.setFamilyName(seed.name().family());
-                entity.setDisplayName(seed.name().display() != null ? seed.name().display()
-                        : seed.name().given() + " " + seed.name().family());
-
-                if (seed.dob() != null && !seed.dob().isBlank()) {
-                    entity.setDob(LocalDate.parse(seed.dob()));
-                }
-                if (seed.sex() != null && !seed.sex().isBlank()) {
-                    entity.setSex(seed.sex());
-                }
-                if (seed.phone() != null && !seed.phone().isBlank()) {
-                    entity.setPhone(seed.phone());
-                }
-                if (seed.email() != null && !seed.email().isBlank()) {
-                    entity.setEmail(seed.email());
-                }
-
-                // Address as JSONB map
-                if (seed.address() != null) {
-                    Map<String, Object> addr = new HashMap<>();
-                    if (seed.address().line() != null) addr.put("line", seed.address().line());
-                    if (seed.address().city() != null) addr.put("city", seed.address().city());
-                    if (seed.address().state() != null) addr.put("state", seed.address().state());
-                    if (seed.address().zip() != null) addr.put("zip", seed.address().zip());
-                    if (seed.address().country() != null) addr.put("country", seed.address().country());
-                    entity.setAddress(addr);
-                }
-
-                // Flags
-                List<String> flags = seed.flags() != null ? seed.flags() : List.of();
-                entity.setTestPatient(flags.contains("test_patient"));
-
-                // Metadata: store non-standard flags and seed provenance
-                Map<String, Object> metadata = new HashMap<>();
-                if (entity.getMetadata() != null) {
-                    metadata.putAll(entity.getMetadata());
-                }
-                List<String> edgeCases = flags.stream()
-                        .filter(f -> !f.equals("test_patient"))
-                        .toList();
-                if (!edgeCases.isEmpty()) {
-                    metadata.put("edge_cases", edgeCases);
-                }
-                if (file.seed() != null) {
-                    metadata.put("xenonym_seed", file.seed());
-                }
-                entity.setMetadata(metadata);
+    /**
+     * Streams the seed file and upserts patients in chunks of {@code chunkSize}, each chunk in
+     * its own transaction. Memory use is bounded by one chunk regardless of file size, so MPI
+     * extracts of millions of patients can be loaded. Only failures are itemized in the result.
+     *
+     * The top-level "seed" field must precede "patients" to be recorded in patient metadata.
+     */
+    public SeedRunResult seedFromFile() {
+        long startedAt = System.currentTimeMillis();
+        RunStats stats = new RunStats();
 
-                patientRepository.save(entity);
+        if (!Files.exists(seedFilePath)) {
+            throw new IllegalStateException("Seed file not found: " + seedFilePath.toAbsolutePath());
+        }
 
-                if (isNew) {
-                    created++;
-                    results.add(SeedPatientResult.ok(mrn, displayName, "CREATED"));
+        try (JsonParser parser = objectMapper.getFactory().createParser(seedFilePath.toFile())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalStateException("Seed file must contain a JSON object");
+            }
+            String fileSeed = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("seed".equals(field) && value == JsonToken.VALUE_STRING) {
+                    fileSeed = parser.getText();
+                } else if ("patients".equals(field) && value == JsonToken.START_ARRAY) {
+                    streamPatients(parser, fileSeed, stats);
                 } else {
-                    updated++;
-                    results.add(SeedPatientResult.ok(mrn, displayName, "UPDATED"));
+                    parser.skipChildren();
                 }
-            } catch (Exception e) {
-                failed++;
-                results.add(SeedPatientResult.failed(mrn, displayName, e.getMessage()));
             }
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read seed file: " + seedFilePath + ": " + e.getMessage(), e);
         }
 
         long durationMs = System.currentTimeMillis() - startedAt;
         Map<String, Object> auditMeta = Map.of(
-                "total", patients.size(),
-                "created", created,
-                "updated", updated,
-                "skipped", skipped,
-                "failed", failed,
+                "total", stats.total,
+                "created", stats.created,
+                "updated", stats.updated,
+                "skipped", 0,
+                "failed", stats.failed,
+                "chunks", stats.chunks,
                 "duration_ms", durationMs,
                 "seed_file", seedFilePath.toString()
         );
 
         auditEventRepository.save(AuditEventEntity.builder()
                 .eventType("ADMIN_SEED_PATIENTS")
-                .outcome(failed == 0 ? "SUCCESS" : "PARTIAL_FAILURE")
+                .outcome(stats.failed == 0 ? "SUCCESS" : "PARTIAL_FAILURE")
                 .details("Seed patients run")
                 .metadata(auditMeta)
                 .build());
 
-        return new SeedRunResult(patients.size(), created, updated, skipped, failed, results);
+        return new SeedRunResult(stats.total, stats.created, stats.updated, 0, stats.failed,
+                stats.chunks, durationMs, List.copyOf(stats.failures));
     }
 
-    private SeedPatientsFile readSeedFile() {
+    private void streamPatients(JsonParser parser, String fileSeed, RunStats stats) throws IOException {
+        // Keyed by MRN: a single INSERT ... ON CONFLICT statement cannot update the same row twice,
+        // so a repeated MRN flushes the chunk first and then updates the committed row, merging its
+        // metadata as if the file were seeded one patient at a time.
+        Map<String, PatientRow> chunk = new LinkedHashMap<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            SeedPatient seed = objectMapper.readValue(parser, SeedPatient.class);
+            stats.total++;
+            PatientRow row = toRow(seed, fileSeed, stats);
+            if (row == null) {
+                continue;
+            }
+            if (chunk.containsKey(row.mrn())) {
+                flush(chunk.values(), stats);
+                chunk.clear();
+            }
+            chunk.put(row.mrn(), row);
+            if (chunk.size() >= chunkSize) {
+                flush(chunk.values(), stats);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            flush(chunk.values(), stats);
+        }
+    }
+
+    private PatientRow toRow(SeedPatient seed, String fileSeed, RunStats stats) {
+        String mrn = seed.mrn();
+        String displayName = seed.name() != null ? seed.name().display() : null;
+
+        if (mrn == null || mrn.isBlank()) {
+            stats.fail(mrn, displayName, "Missing required field: mrn");
+            return null;
+        }
+        if (seed.name() == null || seed.name().given() == null || seed.name().family() == null) {
+            stats.fail(mrn, displayName, "Missing required fields: name.given/name.family");
+            return null;
+        }
+
         try {
-            if (!Files.exists(seedFilePath)) {
-                throw new IllegalStateException("Seed file not found: " + seedFilePath.toAbsolutePath());
+            LocalDate dob = seed.dob() != null && !seed.dob().isBlank() ? LocalDate.parse(seed.dob()) : null;
+
+            // Address as JSONB map
+            String addressJson = null;
+            if (seed.address() != null) {
+                Map<String, Object> addr = new HashMap<>();
+                if (seed.address().line() != null) addr.put("line", seed.address().line());
+                if (seed.address().city() != null) addr.put("city", seed.address().city());
+                if (seed.address().state() != null) addr.put("state", seed.address().state());
+                if (seed.address().zip() != null) addr.put("zip", seed.address().zip());
+                if (seed.address().country() != null) addr.put("country", seed.address().country());
+                addressJson = objectMapper.writeValueAsString(addr);
+            }
+
+            // Flags
+            List<String> flags = seed.flags() != null ? seed.flags() : List.of();
+
+            // Metadata: non-standard flags and seed provenance, merged into existing metadata on update
+            Map<String, Object> metadata = new HashMap<>();
+            List<String> edgeCases = flags.stream()
+                    .filter(f -> !f.equals("test_patient"))
+                    .toList();
+            if (!edgeCases.isEmpty()) {
+                metadata.put("edge_cases", edgeCases);
             }
-            return objectMapper.readValue(seedFilePath.toFile(), SeedPatientsFile.class);
+            if (fileSeed != null) {
+                metadata.put("xenonym_seed", fileSeed);
+            }
+
+            return new PatientRow(
+                    mrn,
+                    seed.name().given(),
+                    seed.name().family(),
+                    seed.name().display() != null ? seed.name().display()
+                            : seed.name().given() + " " + seed.name().family(),
+                    dob,
+                    blankToNull(seed.sex()),
+                    blankToNull(seed.phone()),
+                    blankToNull(seed.email()),
+                    addressJson,
+                    flags.contains("test_patient"),
+                    objectMapper.writeValueAsString(metadata));
         } catch (Exception e) {
-            throw new IllegalStateException("Failed to read seed file: " + seedFilePath + ": " + e.getMessage(), e);
+            stats.fail(mrn, displayName, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Upserts one chunk in a single statement and transaction. If the chunk is rejected (e.g. a
+     * check constraint), its rows are retried one per transaction so only the bad rows fail.
+     */
+    private void flush(Collection<PatientRow> rows, RunStats stats) {
+        stats.chunks++;
+        try {
+            List<Boolean> inserted = transactionTemplate.execute(status -> upsert(rows));
+            count(inserted, stats);
+        } catch (DataAccessException chunkFailure) {
+            log.warn("Patient seed chunk of {} rows rejected, retrying row by row: {}",
+                    rows.size(), chunkFailure.getMessage());
+            for (PatientRow row : rows) {
+                try {
+                    count(transactionTemplate.execute(status -> upsert(List.of(row))), stats);
+                } catch (DataAccessException e) {
+                    stats.fail(row.mrn(), row.displayName(), e.getMostSpecificCause().getMessage());
+                }
+            }
         }
     }
+
+    private static void count(List<Boolean> inserted, RunStats stats) {
+        for (Boolean isNew : inserted) {
+            if (Boolean.TRUE.equals(isNew)) {
+                stats.created++;
+            } else {
+                stats.updated++;
+            }
+        }
+    }
+
+    private List<Boolean> upsert(Collection<PatientRow> rows) {
+        StringBuilder sql = new StringBuilder(UPSERT_PREFIX);
+        List<Object> params = new ArrayList<>(rows.size() * 11);
+        String separator = "";
+        for (PatientRow row : rows) {
+            sql.append(separator).append(UPSERT_VALUES);
+            separator = ", ";
+            params.add(row.mrn());
+            params.add(row.givenName());
+            params.add(row.familyName());
+            params.add(row.displayName());
+            params.add(row.dob() != null ? Date.valueOf(row.dob()) : null);
+            params.add(row.sex());
+            params.add(row.phone());
+            params.add(row.email());
+            params.add(row.addressJson());
+            params.add(row.testPatient());
+            params.add(row.metadataJson());
+        }
+        sql.append(UPSERT_SUFFIX);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> rs.getBoolean("inserted"), params.toArray());
+    }
+
+    private static String blankToNull(String value) {
+        return value != null && !value.isBlank() ? value : null;
+    }
 }
@@ -0,0 +1,63 @@
+package com.starling.auth.service.seed;
+
+import com.starling.auth.repository.IdentityRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * Resolves seed-file usernames to identities in bulk for the assignment seeders.
+ *
+ * The referenced usernames are resolved up front with one {@code IN} query per
+ * {@link #BATCH_SIZE} names, projecting only the id and display name, instead of loading
+ * every identity entity (with its roles) per lookup. A match on {@code username} wins over a
+ * match on {@code attributes.seed_username}.
+ */
+@Component
+public class SeedIdentityResolver {
+
+    static final int BATCH_SIZE = 1000;
+
+    private final IdentityRepository identityRepository;
+
+    public SeedIdentityResolver(IdentityRepository identityRepository) {
+        this.identityRepository = identityRepository;
+    }
+
+    public record SeedIdentity(
+            UUID identityId,
+            String displayName) {
+    }
+
+    /** Returns the identities found for {@code usernames}, keyed by the username as given. */
+    public Map<String, SeedIdentity> resolve(Collection<String> usernames) {
+        List<String> distinct = usernames.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        Map<String, SeedIdentity> bySeedUsername = new HashMap<>();
+        Map<String, SeedIdentity> byUsername = new HashMap<>();
+        for (int from = 0; from < distinct.size(); from += BATCH_SIZE) {
+            List<String> batch = distinct.subList(from, Math.min(from + BATCH_SIZE, distinct.size()));
+            for (Object[] row : identityRepository.findSeedIdentityRows(batch)) {
+                SeedIdentity identity = new SeedIdentity((UUID) row[0], (String) row[1]);
+                if (row[2] != null) {
+                    byUsername.putIfAbsent((String) row[2], identity);
+                }
+                if (row[3] != null) {
+                    bySeedUsername.putIfAbsent((String) row[3], identity);
+                }
+            }
+        }
+
+        Map<String, SeedIdentity> resolved = new HashMap<>();
+        for (String username : distinct) {
+            SeedIdentity identity = byUsername.getOrDefault(username, bySeedUsername.get(username));
+            if (identity != null) {
+                resolved.put(username, identity);
+            }
+        }
+        return resolved;
+    }
+}
@@ -0,0 +1,103 @@
+package com.starling.auth.service.seed.ingest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Flattened case/part/block/slide rows parsed from one or more WSI manifests, ready to be
+ * staged with COPY. Parts and blocks are carried on each slide row and de-duplicated during
+ * the merge, so parsers never need to look anything up.
+ *
+ * Not thread-safe: each manifest file is parsed into its own batch and batches are combined
+ * with {@link #addAll} afterwards, in file order.
+ */
+public final class WsiIngestBatch {
+
+    public record CaseRow(
+            String caseId,
+            String specimenType,
+            String clinicalHistory,
+            LocalDate accessionDate,
+            String status,
+            String priority,
+            String patientMrn,
+            String sourceLineageJson,
+            String metadataJson) {
+    }
+
+    public record SlideRow(
+            String caseId,
+            String partLabel,
+            String partDesignator,
+            String anatomicSite,
+            String finalDiagnosis,
+            String partProvenance,
+            String blockLabel,
+            String blockDescription,
+            String blockProvenance,
+            String slideId,
+            String relativePath,
+            String format,
+            String stain,
+            String levelLabel) {
+    }
+
+    public record IcdCodeRow(
+            String caseId,
+            String icdCode,
+            String codeSystem,
+            String codeDescription) {
+    }
+
+    /** A case that could not be turned into rows; none of its rows are staged. */
+    public record Rejection(
+            String caseId,
+            String message) {
+    }
+
+    private final List<CaseRow> cases = new ArrayList<>();
+    private final List<SlideRow> slides = new ArrayList<>();
+    private final List<IcdCodeRow> icdCodes = new ArrayList<>();
+    private final List<Rejection> rejections = new ArrayList<>();
+
+    public void addCase(CaseRow row) {
+        cases.add(row);
+    }
+
+    public void addSlide(SlideRow row) {
+        slides.add(row);
+    }
+
+    public void addIcdCode(IcdCodeRow row) {
+        icdCodes.add(row);
+    }
+
+    public void reject(String caseId, String message) {
+        rejections.add(new Rejection(caseId, message));
+    }
+
+    public void addAll(WsiIngestBatch other) {
+        cases.addAll(other.cases);
+        slides.addAll(other.slides);
+        icdCodes.addAll(other.icdCodes);
+        rejections.addAll(other.rejections);
+    }
+
+    public List<CaseRow> cases() {
+        return Collections.unmodifiableList(cases);
+    }
+
+    public List<SlideRow> slides() {
+        return Collections.unmodifiableList(slides);
+    }
+
+    public List<IcdCodeRow> icdCodes() {
+        return Collections.unmodifiableList(icdCodes);
+    }
+
+    public List<Rejection> rejections() {
+        return Collections.unmodifiableList(rejections);
+    }
+}
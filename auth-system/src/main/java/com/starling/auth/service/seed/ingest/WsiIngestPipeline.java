@@ -0,0 +1,285 @@
+package com.starling.auth.service.seed.ingest;
+
+import com.starling.auth.service.seed.ingest.WsiIngestBatch.CaseRow;
+import com.starling.auth.service.seed.ingest.WsiIngestBatch.IcdCodeRow;
+import com.starling.auth.service.seed.ingest.WsiIngestBatch.SlideRow;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Set-based ingest of WSI case/part/block/slide trees into wsi or wsi_edu.
+ *
+ * Manifest files are parsed in parallel into flat {@link WsiIngestBatch} rows. The rows are
+ * then streamed into ON COMMIT DROP temp tables with COPY and merged in one transaction with
+ * one statement per level (cases, parts, blocks, slides, ICD codes), instead of a
+ * SELECT-then-INSERT round trip per node.
+ *
+ * Merge semantics match the per-node seeders this replaces: cases are upserted (last manifest
+ * row wins), while existing parts, blocks, slides and ICD codes are left untouched.
+ */
+@Service
+public class WsiIngestPipeline {
+
+    private static final Logger log = LoggerFactory.getLogger(WsiIngestPipeline.class);
+
+    /** Bytes buffered before each write to the COPY stream. */
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private static final String STAGE_TABLES_SQL = """
+            CREATE TEMP TABLE ingest_cases (
+                ord bigint, case_id varchar(64), specimen_type text, clinical_history text,
+                accession_date date, status varchar(32), priority varchar(16), patient_mrn varchar(64),
+                source_lineage jsonb, metadata jsonb
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE ingest_slides (
+                ord bigint, case_id varchar(64), part_label varchar(16), part_designator text,
+                anatomic_site text, final_diagnosis text, part_provenance varchar(16),
+                block_label varchar(16), block_description text, block_provenance varchar(16),
+                slide_id varchar(64), relative_path varchar(512), format varchar(16), stain varchar(64),
+                level_label varchar(16)
+            ) ON COMMIT DROP;
+            CREATE TEMP TABLE ingest_icd_codes (
+                ord bigint, case_id varchar(64), icd_code varchar(16), code_system varchar(16),
+                code_description varchar(255)
+            ) ON COMMIT DROP;
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    public WsiIngestPipeline(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /** Parses one manifest file into rows. Called concurrently for different files. */
+    @FunctionalInterface
+    public interface ManifestParser {
+        WsiIngestBatch parse(Path manifest) throws IOException;
+    }
+
+    public record CaseOutcome(
+            String caseId,
+            boolean created) {
+    }
+
+    public record IngestResult(
+            List<CaseOutcome> cases,
+            List<WsiIngestBatch.Rejection> rejections,
+            int slidesStaged,
+            int partsCreated,
+            int blocksCreated,
+            int slidesCreated,
+            int icdCodesCreated) {
+    }
+
+    /** Splits a comma-separated list of manifest paths, as accepted by the seed path properties. */
+    public static List<Path> parsePathList(String paths) {
+        return Arrays.stream(paths.split(","))
+                .map(String::trim)
+                .filter(p -> !p.isEmpty())
+                .map(Path::of)
+                .toList();
+    }
+
+    public IngestResult ingest(WsiIngestTarget target, List<Path> manifests, ManifestParser parser) {
+        WsiIngestBatch batch = parseAll(manifests, parser);
+        IngestResult result = transactionTemplate.execute(status -> merge(target, batch));
+        log.info("WSI ingest into {}: {} cases, {} parts, {} blocks, {} of {} slides created, {} rejected",
+                target.schema(), result.cases().size(), result.partsCreated(), result.blocksCreated(),
+                result.slidesCreated(), result.slidesStaged(), result.rejections().size());
+        return result;
+    }
+
+    private WsiIngestBatch parseAll(List<Path> manifests, ManifestParser parser) {
+        WsiIngestBatch combined = new WsiIngestBatch();
+        if (manifests.size() <= 1) {
+            manifests.forEach(manifest -> combined.addAll(parseOne(manifest, parser)));
+            return combined;
+        }
+
+        int threads = Math.min(manifests.size(), Runtime.getRuntime().availableProcessors());
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<WsiIngestBatch>> futures = new ArrayList<>();
+            for (Path manifest : manifests) {
+                futures.add(executor.submit(() -> parseOne(manifest, parser)));
+            }
+            // Combine in file order so "last row wins" does not depend on thread scheduling
+            for (Future<WsiIngestBatch> future : futures) {
+                combined.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while parsing WSI manifests", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException(e.getCause().getMessage(), e.getCause());
+        }
+        return combined;
+    }
+
+    private static WsiIngestBatch parseOne(Path manifest, ManifestParser parser) {
+        try {
+            return parser.parse(manifest);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to read manifest: " + manifest + ": " + e.getMessage(), e);
+        }
+    }
+
+    private IngestResult merge(WsiIngestTarget target, WsiIngestBatch batch) {
+        jdbcTemplate.execute(STAGE_TABLES_SQL);
+        stage(batch);
+
+        List<CaseOutcome> cases = jdbcTemplate.query(target.caseMergeSql(),
+                (rs, rowNum) -> new CaseOutcome(rs.getString("case_id"), rs.getBoolean("inserted")));
+
+        String schema = target.schema();
+        String provenanceColumn = target.tracksProvenance() ? ", provenance" : "";
+
+        int partsCreated = jdbcTemplate.update("""
+                INSERT INTO %1$s.parts (case_id, part_label, part_designator, anatomic_site, final_diagnosis%2$s, metadata)
+                SELECT DISTINCT ON (c.id, s.part_label)
+                    c.id, s.part_label, s.part_designator, s.anatomic_site, s.final_diagnosis%3$s, '{}'::jsonb
+                FROM ingest_slides s
+                JOIN %1$s.cases c ON c.case_id = s.case_id AND c.collection = ?
+                ORDER BY c.id, s.part_label, s.ord
+                ON CONFLICT (case_id, part_label) DO NOTHING
+                """.formatted(schema, provenanceColumn,
+                        target.tracksProvenance() ? ", coalesce(s.part_provenance, 'IMPLIED')" : ""),
+                target.collection());
+
+        int blocksCreated = jdbcTemplate.update("""
+                INSERT INTO %1$s.blocks (part_id, block_label, block_description%2$s)
+                SELECT DISTINCT ON (p.id, s.block_label)
+                    p.id, s.block_label, s.block_description%3$s
+                FROM ingest_slides s
+                JOIN %1$s.cases c ON c.case_id = s.case_id AND c.collection = ?
+                JOIN %1$s.parts p ON p.case_id = c.id AND p.part_label = s.part_label
+                ORDER BY p.id, s.block_label, s.ord
+                ON CONFLICT (part_id, block_label) DO NOTHING
+                """.formatted(schema, provenanceColumn,
+                        target.tracksProvenance() ? ", coalesce(s.block_provenance, 'IMPLIED')" : ""),
+                target.collection());
+
+        int slidesCreated = jdbcTemplate.update("""
+                INSERT INTO %1$s.slides (block_id, slide_id, relative_path, format, stain, level_label)
+                SELECT DISTINCT ON (s.slide_id)
+                    b.id, s.slide_id, s.relative_path, s.format, s.stain, s.level_label
+                FROM ingest_slides s
+                JOIN %1$s.cases c ON c.case_id = s.case_id AND c.collection = ?
+                JOIN %1$s.parts p ON p.case_id = c.id AND p.part_label = s.part_label
+                JOIN %1$s.blocks b ON b.part_id = p.id AND b.block_label = s.block_label
+                ORDER BY s.slide_id, s.ord
+                ON CONFLICT (slide_id) DO NOTHING
+                """.formatted(schema),
+                target.collection());
+
+        int icdCodesCreated = jdbcTemplate.update("""
+                INSERT INTO %1$s.case_icd_codes (case_id, icd_code, code_system, code_description)
+                SELECT DISTINCT ON (c.id, s.icd_code, s.code_system)
+                    c.id, s.icd_code, s.code_system, s.code_description
+                FROM ingest_icd_codes s
+                JOIN %1$s.cases c ON c.case_id = s.case_id AND c.collection = ?
+                ORDER BY c.id, s.icd_code, s.code_system, s.ord
+                ON CONFLICT (case_id, icd_code, code_system) DO NOTHING
+                """.formatted(schema),
+                target.collection());
+
+        return new IngestResult(cases, batch.rejections(), batch.slides().size(),
+                partsCreated, blocksCreated, slidesCreated, icdCodesCreated);
+    }
+
+    private void stage(WsiIngestBatch batch) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) con -> {
+            PGConnection pg = con.unwrap(PGConnection.class);
+            copy(pg, """
+                    COPY ingest_cases (ord, case_id, specimen_type, clinical_history, accession_date,
+                        status, priority, patient_mrn, source_lineage, metadata)
+                    FROM STDIN WITH (FORMAT csv)
+                    """, batch.cases(), row -> new Object[]{
+                    row.caseId(), row.specimenType(), row.clinicalHistory(), row.accessionDate(),
+                    row.status(), row.priority(), row.patientMrn(), row.sourceLineageJson(), row.metadataJson()});
+            copy(pg, """
+                    COPY ingest_slides (ord, case_id, part_label, part_designator, anatomic_site, final_diagnosis,
+                        part_provenance, block_label, block_description, block_provenance, slide_id,
+                        relative_path, format, stain, level_label)
+                    FROM STDIN WITH (FORMAT csv)
+                    """, batch.slides(), row -> new Object[]{
+                    row.caseId(), row.partLabel(), row.partDesignator(), row.anatomicSite(),
+                    row.finalDiagnosis(), row.partProvenance(), row.blockLabel(), row.blockDescription(),
+                    row.blockProvenance(), row.slideId(), row.relativePath(), row.format(), row.stain(),
+                    row.levelLabel()});
+            copy(pg, """
+                    COPY ingest_icd_codes (ord, case_id, icd_code, code_system, code_description)
+                    FROM STDIN WITH (FORMAT csv)
+                    """, batch.icdCodes(), row -> new Object[]{
+                    row.caseId(), row.icdCode(), row.codeSystem(), row.codeDescription()});
+            return null;
+        });
+    }
+
+    /** Streams rows into one COPY, prefixed with their 0-based ordinal. */
+    private static <T> void copy(PGConnection pg, String copySql, List<T> rows, Function<T, Object[]> columns)
+            throws SQLException {
+        CopyIn copyIn = pg.getCopyAPI().copyIn(copySql);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_SIZE);
+            long ord = 0;
+            for (T row : rows) {
+                buffer.append(ord++);
+                for (Object value : columns.apply(row)) {
+                    buffer.append(',');
+                    appendCsv(buffer, value);
+                }
+                buffer.append('\n');
+                if (buffer.length() >= COPY_BUFFER_SIZE) {
+                    write(copyIn, buffer);
+                }
+            }
+            write(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+
+    private static void write(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (!buffer.isEmpty()) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    /**
+     * Appends one CSV field. Non-null values are always quoted, so an unquoted empty field
+     * unambiguously means NULL.
+     */
+    static void appendCsv(StringBuilder out, Object value) {
+        if (value != null) {
+            out.append('"').append(value.toString().replace("\"", "\"\"")).append('"');
+        }
+    }
+}
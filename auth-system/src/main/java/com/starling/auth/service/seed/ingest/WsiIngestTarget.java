@@ -0,0 +1,76 @@
+package com.starling.auth.service.seed.ingest;
+
+/**
+ * Destination schema for {@link WsiIngestPipeline}. wsi and wsi_edu share the
+ * case/part/block/slide shape; they differ in the case columns, the case unique key and
+ * whether parts/blocks carry provenance.
+ */
+public enum WsiIngestTarget {
+
+    CLINICAL("wsi", "clinical", false, """
+            INSERT INTO wsi.cases AS c (case_id, collection, specimen_type, clinical_history,
+                accession_date, status, priority, patient_id, metadata)
+            SELECT DISTINCT ON (s.case_id)
+                s.case_id, 'clinical', s.specimen_type, s.clinical_history,
+                s.accession_date, s.status, s.priority, p.id, '{}'::jsonb
+            FROM ingest_cases s
+            LEFT JOIN core.patients p ON p.mrn = s.patient_mrn
+            ORDER BY s.case_id, s.ord DESC
+            ON CONFLICT (collection, case_id) DO UPDATE SET
+                specimen_type = EXCLUDED.specimen_type,
+                clinical_history = EXCLUDED.clinical_history,
+                accession_date = EXCLUDED.accession_date,
+                status = EXCLUDED.status,
+                priority = EXCLUDED.priority,
+                patient_id = EXCLUDED.patient_id,
+                metadata = '{}'::jsonb
+            RETURNING c.case_id, (xmax = 0) AS inserted
+            """),
+
+    EDUCATIONAL("wsi_edu", "educational", true, """
+            INSERT INTO wsi_edu.cases AS c (case_id, collection, specimen_type, clinical_history,
+                accession_date, status, priority, source_lineage, metadata)
+            SELECT DISTINCT ON (s.case_id)
+                s.case_id, 'educational', s.specimen_type, s.clinical_history,
+                s.accession_date, s.status, s.priority,
+                coalesce(s.source_lineage, '{}'::jsonb), coalesce(s.metadata, '{}'::jsonb)
+            FROM ingest_cases s
+            ORDER BY s.case_id, s.ord DESC
+            ON CONFLICT (case_id) DO UPDATE SET
+                specimen_type = EXCLUDED.specimen_type,
+                clinical_history = EXCLUDED.clinical_history,
+                status = EXCLUDED.status,
+                source_lineage = EXCLUDED.source_lineage,
+                metadata = EXCLUDED.metadata
+            RETURNING c.case_id, (xmax = 0) AS inserted
+            """);
+
+    private final String schema;
+    private final String collection;
+    private final boolean tracksProvenance;
+    private final String caseMergeSql;
+
+    WsiIngestTarget(String schema, String collection, boolean tracksProvenance, String caseMergeSql) {
+        this.schema = schema;
+        this.collection = collection;
+        this.tracksProvenance = tracksProvenance;
+        this.caseMergeSql = caseMergeSql;
+    }
+
+    String schema() {
+        return schema;
+    }
+
+    String collection() {
+        return collection;
+    }
+
+    boolean tracksProvenance() {
+        return tracksProvenance;
+    }
+
+    /** Upserts staged cases (last staged row wins) and returns (case_id, inserted) per case. */
+    String caseMergeSql() {
+        return caseMergeSql;
+    }
+}
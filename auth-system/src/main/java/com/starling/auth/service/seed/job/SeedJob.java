@@ -0,0 +1,155 @@
+package com.starling.auth.service.seed.job;
+
+import com.starling.auth.service.seed.job.SeedJobService.SeedJobSnapshot;
+import com.starling.auth.service.seed.job.SeedJobService.StageSnapshot;
+import com.starling.auth.service.seed.job.SeedJobService.StageStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Live state of one seed job run, shared by the stage threads and SSE subscribers.
+ * All mutation and event delivery is serialized on the instance monitor, so subscribers see
+ * stage events in the order they happened.
+ */
+final class SeedJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedJob.class);
+
+    private record StageState(
+            StageStatus status,
+            Instant startedAt,
+            Instant finishedAt,
+            String error,
+            Object result) {
+    }
+
+    private final UUID id;
+    private final String requestedBy;
+    private final Instant startedAt;
+    private final Map<SeedStage, StageState> stages = new EnumMap<>(SeedStage.class);
+    private final List<SseEmitter> emitters = new ArrayList<>();
+    private String status = "RUNNING";
+    private Instant finishedAt;
+
+    /**
+     * @param requested  every stage the job was asked to run
+     * @param completed  stages already completed by an earlier run of the same job
+     */
+    SeedJob(UUID id, String requestedBy, Instant startedAt, List<SeedStage> requested, Set<SeedStage> completed) {
+        this.id = id;
+        this.requestedBy = requestedBy;
+        this.startedAt = startedAt;
+        for (SeedStage stage : requested) {
+            stages.put(stage, new StageState(
+                    completed.contains(stage) ? StageStatus.COMPLETED : StageStatus.PENDING, null, null, null, null));
+        }
+    }
+
+    UUID id() {
+        return id;
+    }
+
+    /** Stages this run still has to execute, in topological order. */
+    synchronized List<SeedStage> pendingStages() {
+        return stages.entrySet().stream()
+                .filter(e -> e.getValue().status() == StageStatus.PENDING)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    synchronized void stageStarted(SeedStage stage) {
+        update(stage, new StageState(StageStatus.RUNNING, Instant.now(), null, null, null));
+    }
+
+    synchronized void stageCompleted(SeedStage stage, Object result) {
+        update(stage, new StageState(StageStatus.COMPLETED, stages.get(stage).startedAt(), Instant.now(), null, result));
+    }
+
+    synchronized void stageFailed(SeedStage stage, String error) {
+        update(stage, new StageState(StageStatus.FAILED, stages.get(stage).startedAt(), Instant.now(), error, null));
+    }
+
+    synchronized void stageSkipped(SeedStage stage) {
+        update(stage, new StageState(StageStatus.SKIPPED, null, null, "A dependency did not complete", null));
+    }
+
+    /** Marks the run finished, sends the final snapshot and closes all subscriptions. */
+    synchronized void finish(String finalStatus) {
+        status = finalStatus;
+        finishedAt = Instant.now();
+        SeedJobSnapshot snapshot = snapshot();
+        for (SseEmitter emitter : List.copyOf(emitters)) {
+            send(emitter, "job", snapshot);
+            emitter.complete();
+        }
+        emitters.clear();
+    }
+
+    synchronized boolean isFinished() {
+        return finishedAt != null;
+    }
+
+    /** Sends the current snapshot, then stage events until the job finishes. */
+    synchronized void subscribe(SseEmitter emitter) {
+        if (!send(emitter, "snapshot", snapshot())) {
+            return;
+        }
+        if (isFinished()) {
+            emitter.complete();
+            return;
+        }
+        emitters.add(emitter);
+        Runnable remove = () -> unsubscribe(emitter);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+    }
+
+    private synchronized void unsubscribe(SseEmitter emitter) {
+        emitters.remove(emitter);
+    }
+
+    synchronized SeedJobSnapshot snapshot() {
+        List<StageSnapshot> stageSnapshots = stages.entrySet().stream()
+                .map(e -> toSnapshot(e.getKey(), e.getValue()))
+                .toList();
+        return new SeedJobSnapshot(id, status, requestedBy, startedAt, finishedAt, stageSnapshots);
+    }
+
+    private void update(SeedStage stage, StageState state) {
+        stages.put(stage, state);
+        StageSnapshot event = toSnapshot(stage, state);
+        // Iterate a copy: a failed send may run the emitter's callbacks, which unsubscribe
+        for (SseEmitter emitter : List.copyOf(emitters)) {
+            if (!send(emitter, "stage", event)) {
+                emitters.remove(emitter);
+            }
+        }
+    }
+
+    private static StageSnapshot toSnapshot(SeedStage stage, StageState state) {
+        return new StageSnapshot(stage, state.status(), state.startedAt(), state.finishedAt(),
+                state.error(), state.result());
+    }
+
+    private boolean send(SseEmitter emitter, String name, Object data) {
+        try {
+            emitter.send(SseEmitter.event().name(name).data(data));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Dropping seed job subscriber for {}: {}", id, e.getMessage());
+            emitter.completeWithError(e);
+            return false;
+        }
+    }
+}
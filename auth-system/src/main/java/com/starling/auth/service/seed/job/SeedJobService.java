@@ -0,0 +1,323 @@
+package com.starling.auth.service.seed.job;
+
+import com.starling.auth.service.seed.CaseAssignmentSeedService;
+import com.starling.auth.service.seed.CaseSeedService;
+import com.starling.auth.service.seed.EduCaseSeedService;
+import com.starling.auth.service.seed.EduCuratorSeedService;
+import com.starling.auth.service.seed.IdentitySeedService;
+import com.starling.auth.service.seed.PatientSeedService;
+import com.starling.auth.service.seed.WorklistSyncService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.sql.Array;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Runs the seed stages as one dependency-ordered job instead of seven manual calls.
+ *
+ * Each stage starts as soon as the stages it depends on have completed, on a bounded pool
+ * of {@code starling.seed.jobs.parallelism} threads, so independent stages (identities,
+ * patients, edu cases) load concurrently. Progress is pushed to SSE subscribers. Completed
+ * stages are recorded in iam.seed_job as they finish, so a failed or interrupted job can be
+ * resumed and only re-runs what did not complete.
+ *
+ * Dependencies outside the requested stage set are assumed to be satisfied already. Only one
+ * job runs at a time per instance.
+ */
+@Service
+public class SeedJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(SeedJobService.class);
+
+    private static final long SSE_TIMEOUT_MS = 60L * 60 * 1000;
+
+    public enum StageStatus {
+        PENDING,
+        RUNNING,
+        COMPLETED,
+        FAILED,
+        SKIPPED
+    }
+
+    public record StageSnapshot(
+            SeedStage stage,
+            StageStatus status,
+            Instant startedAt,
+            Instant finishedAt,
+            String error,
+            Object result) {
+    }
+
+    public record SeedJobSnapshot(
+            UUID id,
+            String status,
+            String requestedBy,
+            Instant startedAt,
+            Instant finishedAt,
+            List<StageSnapshot> stages) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<SeedStage, Supplier<Object>> runners = new EnumMap<>(SeedStage.class);
+    private final ExecutorService executor;
+    private final Object startLock = new Object();
+    private volatile SeedJob current;
+
+    public SeedJobService(
+            JdbcTemplate jdbcTemplate,
+            IdentitySeedService identitySeedService,
+            PatientSeedService patientSeedService,
+            CaseSeedService caseSeedService,
+            CaseAssignmentSeedService caseAssignmentSeedService,
+            WorklistSyncService worklistSyncService,
+            EduCaseSeedService eduCaseSeedService,
+            EduCuratorSeedService eduCuratorSeedService,
+            @Value("${starling.seed.jobs.parallelism:3}") int parallelism) {
+        this.jdbcTemplate = jdbcTemplate;
+        runners.put(SeedStage.IDENTITIES, identitySeedService::seedFromFile);
+        runners.put(SeedStage.PATIENTS, patientSeedService::seedFromFile);
+        runners.put(SeedStage.CASES, caseSeedService::seedFromFile);
+        runners.put(SeedStage.CASE_ASSIGNMENTS, caseAssignmentSeedService::seedFromFile);
+        runners.put(SeedStage.WORKLIST_SYNC, worklistSyncService::syncFromCases);
+        runners.put(SeedStage.EDU_CASES, eduCaseSeedService::seedFromFile);
+        runners.put(SeedStage.EDU_CURATORS, eduCuratorSeedService::seedFromFile);
+        this.executor = Executors.newFixedThreadPool(Math.max(parallelism, 1),
+                Thread.ofPlatform().name("seed-job-", 0).daemon().factory());
+    }
+
+    /**
+     * Starts a job for the given stages (all stages when empty).
+     *
+     * @return the initial snapshot, or empty if another job is still running
+     */
+    public Optional<SeedJobSnapshot> start(Collection<SeedStage> stages, String requestedBy) {
+        List<SeedStage> requested = stages == null || stages.isEmpty()
+                ? List.of(SeedStage.values())
+                : EnumSet.copyOf(stages).stream().toList();
+
+        synchronized (startLock) {
+            if (isRunning()) {
+                return Optional.empty();
+            }
+            UUID id = UUID.randomUUID();
+            Instant startedAt = Instant.now();
+            jdbcTemplate.update("""
+                    INSERT INTO iam.seed_job (id, status, requested_stages, requested_by, started_at)
+                    VALUES (?, 'RUNNING', ?::text[], ?, ?)
+                    """, id, toArrayLiteral(requested), requestedBy, Timestamp.from(startedAt));
+            return Optional.of(launch(new SeedJob(id, requestedBy, startedAt, requested, Set.of())));
+        }
+    }
+
+    /**
+     * Re-runs the stages of a failed or interrupted job that have not completed yet.
+     *
+     * @return the snapshot of the resumed run, or empty if another job is still running
+     */
+    public Optional<SeedJobSnapshot> resume(UUID jobId) {
+        synchronized (startLock) {
+            if (isRunning()) {
+                return Optional.empty();
+            }
+            PersistedJob persisted = load(jobId);
+            if (!"FAILED".equals(persisted.status()) && !"INTERRUPTED".equals(persisted.status())) {
+                throw new IllegalArgumentException("Only FAILED or INTERRUPTED jobs can be resumed, job is "
+                        + persisted.status());
+            }
+            jdbcTemplate.update("""
+                    UPDATE iam.seed_job
+                    SET status = 'RUNNING', failed_stages = '{}', error = NULL, finished_at = NULL
+                    WHERE id = ?
+                    """, jobId);
+            return Optional.of(launch(new SeedJob(jobId, persisted.requestedBy(), Instant.now(),
+                    persisted.requested(), persisted.completed())));
+        }
+    }
+
+    public SeedJobSnapshot getJob(UUID jobId) {
+        SeedJob live = current;
+        if (live != null && live.id().equals(jobId)) {
+            return live.snapshot();
+        }
+        return load(jobId).toSnapshot();
+    }
+
+    /** Streams "snapshot", then "stage" events, then a final "job" event for the given job. */
+    public SseEmitter subscribe(UUID jobId) {
+        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT_MS);
+        SeedJob live = current;
+        if (live != null && live.id().equals(jobId)) {
+            live.subscribe(emitter);
+        } else {
+            SeedJobSnapshot snapshot = load(jobId).toSnapshot();
+            try {
+                emitter.send(SseEmitter.event().name("snapshot").data(snapshot));
+                emitter.complete();
+            } catch (Exception e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    /** A job left RUNNING by a previous process can never finish; mark it resumable. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void markInterruptedJobs() {
+        int interrupted = jdbcTemplate.update("""
+                UPDATE iam.seed_job SET status = 'INTERRUPTED', finished_at = now()
+                WHERE status = 'RUNNING'
+                """);
+        if (interrupted > 0) {
+            log.warn("Marked {} seed job(s) left running by a previous process as INTERRUPTED", interrupted);
+        }
+    }
+
+    private boolean isRunning() {
+        SeedJob live = current;
+        return live != null && !live.isFinished();
+    }
+
+    private SeedJobSnapshot launch(SeedJob job) {
+        current = job;
+
+        Map<SeedStage, CompletableFuture<Void>> futures = new EnumMap<>(SeedStage.class);
+        for (SeedStage stage : job.pendingStages()) {
+            CompletableFuture<?>[] dependencies = stage.dependencies().stream()
+                    .map(futures::get)
+                    .filter(Objects::nonNull)
+                    .toArray(CompletableFuture[]::new);
+            futures.put(stage, CompletableFuture.allOf(dependencies)
+                    .handleAsync((ignored, dependencyFailure) -> {
+                        if (dependencyFailure != null) {
+                            job.stageSkipped(stage);
+                            throw new CompletionException(dependencyFailure);
+                        }
+                        runStage(job, stage);
+                        return null;
+                    }, executor));
+        }
+
+        CompletableFuture.allOf(futures.values().toArray(CompletableFuture[]::new))
+                .whenComplete((ignored, failure) -> finish(job, failure == null));
+
+        return job.snapshot();
+    }
+
+    private void runStage(SeedJob job, SeedStage stage) {
+        job.stageStarted(stage);
+        log.info("Seed job {}: stage {} started", job.id(), stage);
+        try {
+            Object result = runners.get(stage).get();
+            jdbcTemplate.update(
+                    "UPDATE iam.seed_job SET completed_stages = array_append(completed_stages, ?) WHERE id = ?",
+                    stage.name(), job.id());
+            job.stageCompleted(stage, result);
+            log.info("Seed job {}: stage {} completed", job.id(), stage);
+        } catch (RuntimeException e) {
+            log.error("Seed job {}: stage {} failed: {}", job.id(), stage, e.getMessage(), e);
+            jdbcTemplate.update("""
+                    UPDATE iam.seed_job
+                    SET failed_stages = array_append(failed_stages, ?),
+                        error = coalesce(error || E'\\n', '') || ?
+                    WHERE id = ?
+                    """, stage.name(), stage + ": " + e.getMessage(), job.id());
+            job.stageFailed(stage, e.getMessage());
+            throw new CompletionException(e);
+        }
+    }
+
+    private void finish(SeedJob job, boolean succeeded) {
+        String status = succeeded ? "COMPLETED" : "FAILED";
+        try {
+            jdbcTemplate.update("UPDATE iam.seed_job SET status = ?, finished_at = now() WHERE id = ?",
+                    status, job.id());
+        } catch (RuntimeException e) {
+            log.error("Seed job {}: failed to record final status {}", job.id(), status, e);
+        }
+        job.finish(status);
+        log.info("Seed job {} {}", job.id(), status);
+    }
+
+    private record PersistedJob(
+            UUID id,
+            String status,
+            List<SeedStage> requested,
+            Set<SeedStage> completed,
+            Set<SeedStage> failed,
+            String error,
+            String requestedBy,
+            Instant startedAt,
+            Instant finishedAt) {
+
+        SeedJobSnapshot toSnapshot() {
+            List<StageSnapshot> stages = requested.stream()
+                    .map(stage -> new StageSnapshot(stage,
+                            completed.contains(stage) ? StageStatus.COMPLETED
+                                    : failed.contains(stage) ? StageStatus.FAILED
+                                    : StageStatus.PENDING,
+                            null, null, failed.contains(stage) ? error : null, null))
+                    .toList();
+            return new SeedJobSnapshot(id, status, requestedBy, startedAt, finishedAt, stages);
+        }
+    }
+
+    private PersistedJob load(UUID jobId) {
+        List<PersistedJob> rows = jdbcTemplate.query("""
+                SELECT id, status, requested_stages, completed_stages, failed_stages, error,
+                       requested_by, started_at, finished_at
+                FROM iam.seed_job WHERE id = ?
+                """, (rs, rowNum) -> new PersistedJob(
+                rs.getObject("id", UUID.class),
+                rs.getString("status"),
+                List.copyOf(readStages(rs, "requested_stages")),
+                readStages(rs, "completed_stages"),
+                readStages(rs, "failed_stages"),
+                rs.getString("error"),
+                rs.getString("requested_by"),
+                rs.getTimestamp("started_at").toInstant(),
+                rs.getTimestamp("finished_at") != null ? rs.getTimestamp("finished_at").toInstant() : null),
+                jobId);
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Seed job not found: " + jobId);
+        }
+        return rows.getFirst();
+    }
+
+    private static Set<SeedStage> readStages(ResultSet rs, String column) throws SQLException {
+        Set<SeedStage> stages = EnumSet.noneOf(SeedStage.class);
+        Array array = rs.getArray(column);
+        if (array != null) {
+            for (Object name : (Object[]) array.getArray()) {
+                stages.add(SeedStage.valueOf((String) name));
+            }
+        }
+        return stages;
+    }
+
+    private static String toArrayLiteral(Collection<SeedStage> stages) {
+        return stages.stream().map(SeedStage::name).collect(Collectors.joining(",", "{", "}"));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
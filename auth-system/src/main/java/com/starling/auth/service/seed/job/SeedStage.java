@@ -0,0 +1,29 @@
+package com.starling.auth.service.seed.job;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Stages of a seed job, one per /admin/seed endpoint. Declaration order is a valid
+ * topological order of the dependency graph.
+ */
+public enum SeedStage {
+    IDENTITIES,
+    PATIENTS,
+    EDU_CASES,
+    CASES,
+    CASE_ASSIGNMENTS,
+    WORKLIST_SYNC,
+    EDU_CURATORS;
+
+    /** Stages whose data this stage reads: patients by MRN, identities by username, and so on. */
+    public Set<SeedStage> dependencies() {
+        return switch (this) {
+            case IDENTITIES, PATIENTS, EDU_CASES -> EnumSet.noneOf(SeedStage.class);
+            case CASES -> EnumSet.of(PATIENTS);
+            case CASE_ASSIGNMENTS -> EnumSet.of(IDENTITIES, CASES);
+            case WORKLIST_SYNC -> EnumSet.of(PATIENTS, CASES, CASE_ASSIGNMENTS);
+            case EDU_CURATORS -> EnumSet.of(IDENTITIES, EDU_CASES);
+        };
+    }
+}
@@ -0,0 +1,4 @@
+-- Keyset pagination for named collection listing (newest first).
+-- Supports ORDER BY created_at DESC, id DESC with a (created_at, id) < (?, ?) seek predicate.
+CREATE INDEX IF NOT EXISTS ix_wsi_edu_collections_created_id
+    ON wsi_edu.named_collections (created_at DESC, id DESC);
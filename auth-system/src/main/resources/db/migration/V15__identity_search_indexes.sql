@@ -0,0 +1,33 @@
+-- Identity suggest-box search (pathologist assignment, OmniSearch).
+-- Short terms (< 3 chars) use prefix lookups on the individual name columns;
+-- longer terms use a trigram index over a single normalized search expression.
+-- All indexes are partial on is_active so inactive accounts never enter the scan.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Prefix lookups: lower(col) LIKE 'term%'
+CREATE INDEX IF NOT EXISTS ix_iam_identity_display_name_prefix
+    ON iam.identity (lower(display_name) text_pattern_ops) WHERE is_active;
+
+CREATE INDEX IF NOT EXISTS ix_iam_identity_display_short_prefix
+    ON iam.identity (lower(display_short) text_pattern_ops) WHERE is_active;
+
+CREATE INDEX IF NOT EXISTS ix_iam_identity_username_prefix
+    ON iam.identity (lower(username) text_pattern_ops) WHERE is_active;
+
+CREATE INDEX IF NOT EXISTS ix_iam_identity_email_prefix
+    ON iam.identity (lower(email) text_pattern_ops) WHERE is_active;
+
+CREATE INDEX IF NOT EXISTS ix_iam_identity_given_name_prefix
+    ON iam.identity (lower(given_name) text_pattern_ops) WHERE is_active;
+
+CREATE INDEX IF NOT EXISTS ix_iam_identity_family_name_prefix
+    ON iam.identity (lower(family_name) text_pattern_ops) WHERE is_active;
+
+-- Substring lookups: <search expression> LIKE '%term%'
+-- The expression must match IdentityRepository.suggestBySubstring exactly.
+CREATE INDEX IF NOT EXISTS ix_iam_identity_search_trgm
+    ON iam.identity USING gin (
+        lower(coalesce(display_name, '') || ' ' || coalesce(display_short, '') || ' ' ||
+              coalesce(username, '') || ' ' || coalesce(email, '')) gin_trgm_ops)
+    WHERE is_active;
@@ -0,0 +1,21 @@
+-- Master patient index search (PatientSearchService).
+-- Exact MRN lookups use uq_core_patients_mrn; DOB-qualified lookups use ix_core_patients_dob;
+-- multi-word name queries use ix_core_patients_display_name_fts (V7).
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- Short-term prefix lookups: lower(col) LIKE 'term%'
+CREATE INDEX IF NOT EXISTS ix_core_patients_mrn_prefix
+    ON core.patients (lower(mrn) text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS ix_core_patients_family_name_prefix
+    ON core.patients (lower(family_name) text_pattern_ops);
+
+CREATE INDEX IF NOT EXISTS ix_core_patients_given_name_prefix
+    ON core.patients (lower(given_name) text_pattern_ops);
+
+-- Substring lookups over MRN and names: <search expression> LIKE '%term%'
+-- The expression must match PatientSearchService exactly.
+CREATE INDEX IF NOT EXISTS ix_core_patients_search_trgm
+    ON core.patients USING gin (
+        lower(mrn || ' ' || display_name || ' ' || family_name || ' ' || given_name) gin_trgm_ops);
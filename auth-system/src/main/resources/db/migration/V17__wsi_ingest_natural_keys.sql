@@ -0,0 +1,49 @@
+-- Natural keys for the set-based WSI ingest (WsiIngestPipeline).
+-- Parts are unique by label within a case and blocks by label within a part. The seeders
+-- enforced this with a lookup per node; these indexes let the merge use ON CONFLICT.
+--
+-- Re-running the seed SQL scripts before these indexes existed could leave empty duplicate
+-- parts/blocks behind (their ON CONFLICT DO NOTHING had no key to conflict on). Remove
+-- duplicates that hold no slides, keeping a sibling that does, or else the oldest id.
+
+DELETE FROM wsi.parts p
+WHERE NOT EXISTS (SELECT 1 FROM wsi.blocks b JOIN wsi.slides s ON s.block_id = b.id WHERE b.part_id = p.id)
+  AND EXISTS (
+      SELECT 1 FROM wsi.parts o
+      WHERE o.case_id = p.case_id AND o.part_label = p.part_label AND o.id <> p.id
+        AND (o.id < p.id OR EXISTS (
+            SELECT 1 FROM wsi.blocks b JOIN wsi.slides s ON s.block_id = b.id WHERE b.part_id = o.id)));
+
+DELETE FROM wsi.blocks b
+WHERE NOT EXISTS (SELECT 1 FROM wsi.slides s WHERE s.block_id = b.id)
+  AND EXISTS (
+      SELECT 1 FROM wsi.blocks o
+      WHERE o.part_id = b.part_id AND o.block_label = b.block_label AND o.id <> b.id
+        AND (o.id < b.id OR EXISTS (SELECT 1 FROM wsi.slides s WHERE s.block_id = o.id)));
+
+DELETE FROM wsi_edu.parts p
+WHERE NOT EXISTS (SELECT 1 FROM wsi_edu.blocks b JOIN wsi_edu.slides s ON s.block_id = b.id WHERE b.part_id = p.id)
+  AND EXISTS (
+      SELECT 1 FROM wsi_edu.parts o
+      WHERE o.case_id = p.case_id AND o.part_label = p.part_label AND o.id <> p.id
+        AND (o.id < p.id OR EXISTS (
+            SELECT 1 FROM wsi_edu.blocks b JOIN wsi_edu.slides s ON s.block_id = b.id WHERE b.part_id = o.id)));
+
+DELETE FROM wsi_edu.blocks b
+WHERE NOT EXISTS (SELECT 1 FROM wsi_edu.slides s WHERE s.block_id = b.id)
+  AND EXISTS (
+      SELECT 1 FROM wsi_edu.blocks o
+      WHERE o.part_id = b.part_id AND o.block_label = b.block_label AND o.id <> b.id
+        AND (o.id < b.id OR EXISTS (SELECT 1 FROM wsi_edu.slides s WHERE s.block_id = o.id)));
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_wsi_parts_case_label
+    ON wsi.parts (case_id, part_label);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_wsi_blocks_part_label
+    ON wsi.blocks (part_id, block_label);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_wsi_edu_parts_case_label
+    ON wsi_edu.parts (case_id, part_label);
+
+CREATE UNIQUE INDEX IF NOT EXISTS uq_wsi_edu_blocks_part_label
+    ON wsi_edu.blocks (part_id, block_label);
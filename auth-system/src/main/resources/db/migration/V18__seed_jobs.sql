@@ -0,0 +1,20 @@
+-- Orchestrated seed/ingest jobs (SeedJobService).
+-- Completed stages are recorded as they finish so a failed or interrupted job can be
+-- resumed from where it stopped.
+CREATE TABLE IF NOT EXISTS iam.seed_job (
+    id                uuid         PRIMARY KEY DEFAULT gen_random_uuid(),
+    status            varchar(16)  NOT NULL,
+    requested_stages  text[]       NOT NULL,
+    completed_stages  text[]       NOT NULL DEFAULT '{}',
+    failed_stages     text[]       NOT NULL DEFAULT '{}',
+    error             text         NULL,
+    requested_by      varchar(255) NULL,
+    started_at        timestamptz  NOT NULL DEFAULT now(),
+    finished_at       timestamptz  NULL,
+
+    CONSTRAINT ck_iam_seed_job_status
+        CHECK (status IN ('RUNNING', 'COMPLETED', 'FAILED', 'INTERRUPTED'))
+);
+
+CREATE INDEX IF NOT EXISTS ix_iam_seed_job_started_at
+    ON iam.seed_job (started_at DESC);
@@ -0,0 +1,4 @@
+-- Bulk username resolution for seeding (SeedIdentityResolver) also matches identities by
+-- the seed_username recorded in attributes when the IdP username differs.
+CREATE INDEX IF NOT EXISTS ix_iam_identity_seed_username
+    ON iam.identity ((attributes ->> 'seed_username'));
@@ -0,0 +1,46 @@
+-- Viewer annotations on clinical slides (AnnotationService).
+-- Geometry is GeoJSON in level-0 slide pixels. The bounding box and the loose-quadtree cell
+-- (see QuadTreeKey) are computed on write so viewport queries can use an index instead of
+-- reading every annotation on the slide.
+CREATE TABLE IF NOT EXISTS wsi.annotations (
+    id              uuid             PRIMARY KEY DEFAULT gen_random_uuid(),
+    case_id         uuid             NOT NULL,
+    slide_id        uuid             NOT NULL,
+    author_id       uuid             NOT NULL,
+    annotation_type varchar(32)      NOT NULL DEFAULT 'region',
+    geometry        jsonb            NOT NULL,
+    label           text             NULL,
+    description     text             NULL,
+    properties      jsonb            NOT NULL DEFAULT '{}'::jsonb,
+    min_x           double precision NOT NULL,
+    min_y           double precision NOT NULL,
+    max_x           double precision NOT NULL,
+    max_y           double precision NOT NULL,
+    quad_depth      smallint         NOT NULL,
+    quad_key        bigint           NOT NULL,
+    created_at      timestamptz      NOT NULL DEFAULT now(),
+    updated_at      timestamptz      NOT NULL DEFAULT now(),
+
+    CONSTRAINT fk_wsi_annotations_case
+        FOREIGN KEY (case_id)   REFERENCES wsi.cases(id)               ON DELETE CASCADE,
+    CONSTRAINT fk_wsi_annotations_slide
+        FOREIGN KEY (slide_id)  REFERENCES wsi.slides(id)              ON DELETE CASCADE,
+    CONSTRAINT fk_wsi_annotations_author
+        FOREIGN KEY (author_id) REFERENCES iam.identity(identity_id)   ON DELETE RESTRICT,
+    CONSTRAINT ck_wsi_annotations_bbox
+        CHECK (min_x <= max_x AND min_y <= max_y),
+    CONSTRAINT ck_wsi_annotations_quad_depth
+        CHECK (quad_depth BETWEEN 0 AND 16)
+);
+
+-- Viewport lookups: key ranges and ancestor keys per slide, with the bbox columns carried
+-- in the index so candidates are filtered without visiting the heap.
+CREATE INDEX IF NOT EXISTS ix_wsi_annotations_slide_quad
+    ON wsi.annotations (slide_id, quad_key)
+    INCLUDE (quad_depth, min_x, min_y, max_x, max_y);
+
+CREATE INDEX IF NOT EXISTS ix_wsi_annotations_case_id
+    ON wsi.annotations (case_id);
+
+CREATE INDEX IF NOT EXISTS ix_wsi_annotations_author_id
+    ON wsi.annotations (author_id);
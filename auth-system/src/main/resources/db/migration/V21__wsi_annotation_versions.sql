@@ -0,0 +1,35 @@
+-- Annotation change feed (AnnotationService.changes).
+-- Every slide carries a monotonic version, bumped once per writing transaction. Each
+-- annotation row records the version that last wrote it and each delete leaves a
+-- tombstone, so a client holding version v can fetch just what changed after v.
+CREATE TABLE IF NOT EXISTS wsi.annotation_slide_versions (
+    slide_id        uuid        PRIMARY KEY,
+    version         bigint      NOT NULL DEFAULT 0,
+    -- Highest version whose tombstones have been purged; older clients must refetch.
+    pruned_version  bigint      NOT NULL DEFAULT 0,
+
+    CONSTRAINT fk_wsi_annotation_slide_versions_slide
+        FOREIGN KEY (slide_id) REFERENCES wsi.slides(id) ON DELETE CASCADE
+);
+
+ALTER TABLE wsi.annotations
+    ADD COLUMN IF NOT EXISTS version bigint NOT NULL DEFAULT 0;
+
+CREATE INDEX IF NOT EXISTS ix_wsi_annotations_slide_version
+    ON wsi.annotations (slide_id, version);
+
+CREATE TABLE IF NOT EXISTS wsi.annotation_tombstones (
+    annotation_id   uuid        PRIMARY KEY,
+    slide_id        uuid        NOT NULL,
+    version         bigint      NOT NULL,
+    deleted_at      timestamptz NOT NULL DEFAULT now(),
+
+    CONSTRAINT fk_wsi_annotation_tombstones_slide
+        FOREIGN KEY (slide_id) REFERENCES wsi.slides(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS ix_wsi_annotation_tombstones_slide_version
+    ON wsi.annotation_tombstones (slide_id, version);
+
+CREATE INDEX IF NOT EXISTS ix_wsi_annotation_tombstones_deleted_at
+    ON wsi.annotation_tombstones (deleted_at);
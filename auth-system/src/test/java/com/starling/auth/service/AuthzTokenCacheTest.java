@@ -0,0 +1,82 @@
+package com.starling.auth.service;
+
+import com.starling.auth.service.AuthzTokenCache.Entry;
+import com.starling.auth.service.AuthzTokenCache.Key;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthzTokenCacheTest {
+
+    private static final Instant T0 = Instant.parse("2026-01-01T00:00:00Z");
+    private static final Key KEY = new Key("keycloak", "alice");
+
+    private final AuthzTokenCache cache = new AuthzTokenCache(100);
+
+    private static Entry entry(UUID identityId, String version) {
+        Instant expiresAt = T0.plusSeconds(600);
+        return new Entry(KEY, identityId, version, "token-" + version, expiresAt,
+                AuthzTokenCache.refreshAt(T0, expiresAt, 0.8), new AtomicLong(T0.toEpochMilli()));
+    }
+
+    @Test
+    void get_ShouldReuseTokenUntilRefreshPoint() {
+        cache.put(entry(UUID.randomUUID(), "v1"), cache.generation());
+
+        assertNotNull(cache.get(KEY, T0.plusSeconds(479), "v1"));
+        assertNull(cache.get(KEY, T0.plusSeconds(480), "v1"));
+        assertNull(cache.get(KEY, T0.plusSeconds(10), "v2"));
+    }
+
+    @Test
+    void invalidateIdentity_ShouldDropEntryAndRejectMintsStartedBefore() {
+        UUID identityId = UUID.randomUUID();
+        cache.put(entry(identityId, "v1"), cache.generation());
+        long generationAtStart = cache.generation();
+
+        cache.invalidateIdentity(identityId, KEY);
+
+        assertNull(cache.get(KEY, T0, "v1"));
+        assertFalse(cache.put(entry(identityId, "v1"), generationAtStart));
+        assertTrue(cache.put(entry(identityId, "v1"), cache.generation()));
+    }
+
+    @Test
+    void invalidateIdentity_ShouldKeepMintsOfOtherIdentities() {
+        long generationAtStart = cache.generation();
+
+        cache.invalidateIdentity(UUID.randomUUID(), new Key("keycloak", "bob"));
+
+        assertTrue(cache.put(entry(UUID.randomUUID(), "v1"), generationAtStart));
+        assertNotNull(cache.get(KEY, T0, "v1"));
+    }
+
+    @Test
+    void invalidateIdentity_WithoutKey_ShouldDropEveryTokenOfTheIdentity() {
+        UUID identityId = UUID.randomUUID();
+        cache.put(entry(identityId, "v1"), cache.generation());
+        long generationAtStart = cache.generation();
+
+        cache.invalidateIdentity(identityId, null);
+
+        assertNull(cache.get(KEY, T0, "v1"));
+        assertFalse(cache.put(entry(identityId, "v1"), generationAtStart));
+    }
+
+    @Test
+    void dueForPremint_ShouldSelectOnlyRecentlyUsedEntriesNearRefresh() {
+        cache.put(entry(UUID.randomUUID(), "v1"), cache.generation());
+        Duration lead = Duration.ofSeconds(15);
+        Duration idle = Duration.ofSeconds(600);
+
+        assertTrue(cache.dueForPremint(T0.plusSeconds(400), lead, idle).isEmpty());
+        assertEquals(1, cache.dueForPremint(T0.plusSeconds(470), lead, idle).size());
+        assertTrue(cache.dueForPremint(T0.plusSeconds(470), lead, Duration.ofSeconds(60)).isEmpty());
+        assertEquals(1, cache.evict(T0.plusSeconds(600), idle));
+    }
+}
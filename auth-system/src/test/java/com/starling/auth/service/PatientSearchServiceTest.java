@@ -0,0 +1,68 @@
+package com.starling.auth.service;
+
+import com.starling.auth.model.Identity;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSearchServiceTest {
+
+    @Test
+    void parse_ShouldExtractDateTokenAsDob() {
+        PatientSearchService.ParsedQuery parsed = PatientSearchService.ParsedQuery.parse("Smith, John 03/14/1962", null);
+
+        assertEquals(List.of("Smith", "John"), parsed.terms());
+        assertEquals(LocalDate.of(1962, 3, 14), parsed.dob());
+    }
+
+    @Test
+    void parse_ShouldPreferExplicitDobAndKeepMrnLikeTokens() {
+        LocalDate explicit = LocalDate.of(1970, 1, 1);
+
+        PatientSearchService.ParsedQuery parsed = PatientSearchService.ParsedQuery.parse("1234-5678 1962-03-14", explicit);
+
+        assertEquals(List.of("1234-5678"), parsed.terms());
+        assertEquals(explicit, parsed.dob());
+    }
+
+    @Test
+    void toPrefixTsQuery_ShouldStripOperatorsFromUserInput() {
+        assertEquals("o:* & brien:* & ann:*",
+                PatientSearchService.toPrefixTsQuery(List.of("O'", "Brien&|!", "Ann:*")));
+        assertEquals("", PatientSearchService.toPrefixTsQuery(List.of("&", "!")));
+    }
+
+    @Test
+    void escapeLike_ShouldEscapeWildcards() {
+        assertEquals("50\\%\\_a\\\\b", PatientSearchService.escapeLike("50%_a\\b"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void search_ShouldRankAnExactMrnWithTheUnescapedTerm() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        List<Object[]> calls = new ArrayList<>();
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            calls.add(invocation.getArguments());
+            return List.of();
+        });
+        PatientSearchService service = new PatientSearchService(jdbcTemplate, mock(AuthzPermissionService.class));
+
+        service.search(Identity.builder().build(), "MRN_100%", null, 10);
+
+        // Exact lookup first, then the ranked search: [sql, mapper, rank params..]
+        Object[] ranked = calls.getLast();
+        assertEquals("mrn_100%", ranked[2]);
+        assertEquals("mrn\\_100\\%%", ranked[3]);
+    }
+}
@@ -0,0 +1,77 @@
+package com.starling.auth.service;
+
+import com.starling.auth.repository.PermissionRepository;
+import com.starling.auth.service.RolePermissionMatrix.RolePermissionsChangedEvent;
+import com.starling.auth.service.RolePermissionMatrix.RoleRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RolePermissionMatrixTest {
+
+    private static final UUID ADMIN = UUID.randomUUID();
+    private static final UUID PATHOLOGIST = UUID.randomUUID();
+    private static final UUID GUEST = UUID.randomUUID();
+
+    @Mock
+    private PermissionRepository permissionRepository;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private RolePermissionMatrix matrix;
+
+    @Test
+    void roles_ShouldAssembleOneRowPerRoleFromJoinRows() {
+        when(permissionRepository.findRolePermissionRows()).thenReturn(rows(
+                row(ADMIN, "ADMIN", "ADMIN_USERS"),
+                row(ADMIN, "ADMIN", "CASE_VIEW"),
+                row(GUEST, "GUEST", null),
+                row(PATHOLOGIST, "PATHOLOGIST", "CASE_VIEW")));
+
+        List<RoleRow> roles = matrix.roles();
+
+        assertEquals(List.of("ADMIN", "GUEST", "PATHOLOGIST"), roles.stream().map(RoleRow::name).toList());
+        assertEquals(List.of("ADMIN_USERS", "CASE_VIEW"), roles.get(0).permissions());
+        assertEquals(List.of(), roles.get(1).permissions());
+        assertEquals(List.of("ADMIN_USERS", "CASE_VIEW"), matrix.permissionsFor(List.of("PATHOLOGIST", "ADMIN", "UNKNOWN")));
+        verify(permissionRepository, times(1)).findRolePermissionRows();
+    }
+
+    @Test
+    void refresh_ShouldPublishOnlyWhenPermissionsChange() {
+        when(permissionRepository.findRolePermissionRows())
+                .thenReturn(rows(row(PATHOLOGIST, "PATHOLOGIST", "CASE_VIEW")))
+                .thenReturn(rows(row(PATHOLOGIST, "PATHOLOGIST", "CASE_VIEW")))
+                .thenReturn(rows(row(PATHOLOGIST, "PATHOLOGIST", "CASE_VIEW"), row(PATHOLOGIST, "PATHOLOGIST", "CASE_EDIT")));
+
+        matrix.refresh();
+        matrix.refresh();
+        verify(eventPublisher, never()).publishEvent(any(Object.class));
+
+        matrix.refresh();
+        verify(eventPublisher).publishEvent(any(RolePermissionsChangedEvent.class));
+        assertEquals(List.of("CASE_EDIT", "CASE_VIEW"), matrix.permissionsFor(List.of("PATHOLOGIST")));
+    }
+
+    private static Object[] row(UUID roleId, String name, String permission) {
+        return new Object[]{roleId, name, name.toLowerCase(), true, permission};
+    }
+
+    private static List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+}
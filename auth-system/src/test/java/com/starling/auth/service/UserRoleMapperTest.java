@@ -16,6 +16,8 @@ import lombok.extern.slf4j.Slf4j;
 @org.junit.jupiter.api.extension.ExtendWith(org.mockito.junit.jupiter.MockitoExtension.class)
 class UserRoleMapperTest {
 
+    private static final String PROVIDER = "http://localhost:8180/realms/starling";
+
     @org.mockito.Mock
     private com.starling.auth.repository.IdpGroupMappingRepository mappingRepository;
 
@@ -30,10 +32,8 @@ class UserRoleMapperTest {
         log.info("Testing mapRoles with Admin group...");
         Map<String, Object> attributes = Map.of("groups", List.of("Starling_Admins"));
 
-        org.mockito.Mockito.when(mappingRepository.findRoleNamesByProviderIdAndGroupNames(
-                        org.mockito.ArgumentMatchers.anyString(),
-                        org.mockito.ArgumentMatchers.anyList()))
-                .thenReturn(List.of("ADMIN"));
+        org.mockito.Mockito.when(mappingRepository.findGroupRoleRows())
+                .thenReturn(mappingRows(new Object[]{PROVIDER, "Starling_Admins", "ADMIN"}));
 
         Set<Role> roles = userRoleMapper.mapRoles("http://localhost:8180/realms/starling", attributes);
 
@@ -46,10 +46,8 @@ class UserRoleMapperTest {
         log.info("Testing mapRoles with Pathologist group...");
         Map<String, Object> attributes = Map.of("groups", List.of("Starling_Pathologists"));
 
-        org.mockito.Mockito.when(mappingRepository.findRoleNamesByProviderIdAndGroupNames(
-                        org.mockito.ArgumentMatchers.anyString(),
-                        org.mockito.ArgumentMatchers.anyList()))
-                .thenReturn(List.of("PATHOLOGIST"));
+        org.mockito.Mockito.when(mappingRepository.findGroupRoleRows())
+                .thenReturn(mappingRows(new Object[]{PROVIDER, "Starling_Pathologists", "PATHOLOGIST"}));
 
         Set<Role> roles = userRoleMapper.mapRoles("http://localhost:8180/realms/starling", attributes);
 
@@ -62,10 +60,8 @@ class UserRoleMapperTest {
         log.info("Testing mapRoles with unknown groups...");
         Map<String, Object> attributes = Map.of("groups", List.of("UnknownUserGroup"));
 
-        org.mockito.Mockito.when(mappingRepository.findRoleNamesByProviderIdAndGroupNames(
-                        org.mockito.ArgumentMatchers.anyString(),
-                        org.mockito.ArgumentMatchers.anyList()))
-                .thenReturn(Collections.emptyList());
+        org.mockito.Mockito.when(mappingRepository.findGroupRoleRows())
+                .thenReturn(mappingRows(new Object[]{PROVIDER, "Starling_Admins", "ADMIN"}));
 
         Set<Role> roles = userRoleMapper.mapRoles("http://localhost:8180/realms/starling", attributes);
 
@@ -83,4 +79,38 @@ class UserRoleMapperTest {
         log.debug("Mapped roles: {}", roles);
         assertTrue(roles.isEmpty());
     }
+
+    @Test
+    void mapRoles_ShouldServeTheSnapshotUntilMappingsChange() {
+        Map<String, Object> attributes = Map.of("groups", List.of("Starling_Admins"));
+        org.mockito.Mockito.when(mappingRepository.findGroupRoleRows())
+                .thenReturn(mappingRows(new Object[]{PROVIDER, "Starling_Admins", "ADMIN"}))
+                .thenReturn(mappingRows());
+
+        assertEquals(Set.of(Role.ADMIN), userRoleMapper.mapRoles(PROVIDER, attributes));
+        assertEquals(Set.of(Role.ADMIN), userRoleMapper.mapRoles(PROVIDER, attributes));
+        org.mockito.Mockito.verify(mappingRepository, org.mockito.Mockito.times(1)).findGroupRoleRows();
+
+        userRoleMapper.onIdpMappingsChanged(new UserRoleMapper.IdpMappingsChangedEvent());
+
+        assertTrue(userRoleMapper.mapRoles(PROVIDER, attributes).isEmpty());
+    }
+
+    @Test
+    void refresh_ShouldPickUpMappingsChangedElsewhere() {
+        Map<String, Object> attributes = Map.of("groups", List.of("Starling_Admins"));
+        org.mockito.Mockito.when(mappingRepository.findGroupRoleRows())
+                .thenReturn(mappingRows())
+                .thenReturn(mappingRows(new Object[]{PROVIDER, "Starling_Admins", "ADMIN"}));
+
+        assertTrue(userRoleMapper.mapRoles(PROVIDER, attributes).isEmpty());
+
+        userRoleMapper.refresh();
+
+        assertEquals(Set.of(Role.ADMIN), userRoleMapper.mapRoles(PROVIDER, attributes));
+    }
+
+    private static List<Object[]> mappingRows(Object[]... rows) {
+        return new java.util.ArrayList<>(List.of(rows));
+    }
 }
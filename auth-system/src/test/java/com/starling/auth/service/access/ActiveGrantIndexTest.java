@@ -0,0 +1,52 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.service.access.ActiveGrantIndex.Grant;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActiveGrantIndexTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+    @Test
+    void withoutExpired_ShouldDropLapsedGrantsInExpiryOrder() {
+        UUID alice = UUID.randomUUID();
+        ActiveGrantIndex<String> index = ActiveGrantIndex.of(List.of(
+                grant(alice, "CASE", UUID.randomUUID(), NOW.plusSeconds(30), "late"),
+                grant(alice, "CASE", UUID.randomUUID(), NOW.plusSeconds(10), "early")));
+
+        assertEquals(NOW.plusSeconds(10), index.nextExpiry());
+        assertEquals(List.of("early", "late"), index.active(NOW));
+
+        ActiveGrantIndex<String> later = index.withoutExpired(NOW.plusSeconds(10));
+        assertEquals(List.of("late"), later.active(NOW.plusSeconds(10)));
+        assertEquals(NOW.plusSeconds(30), later.nextExpiry());
+        assertSame(later, later.withoutExpired(NOW.plusSeconds(10)));
+    }
+
+    @Test
+    void replaceIdentities_ShouldSwapOnlyTheChangedGrantees() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        ActiveGrantIndex<String> index = ActiveGrantIndex.of(List.of(
+                grant(alice, "CASE", UUID.randomUUID(), NOW.plusSeconds(60), "alice-revoked"),
+                grant(bob, "CASE", UUID.randomUUID(), NOW.plusSeconds(60), "bob")));
+
+        ActiveGrantIndex<String> next = index.replaceIdentities(Set.of(alice), List.of(
+                grant(alice, "SLIDE", UUID.randomUUID(), NOW.plusSeconds(90), "alice-new")));
+
+        assertEquals(List.of("bob", "alice-new"), next.active(NOW));
+        assertEquals(2, next.countActive(NOW));
+        assertEquals(1, next.countActive(NOW.plusSeconds(60)));
+    }
+
+    private static Grant<String> grant(UUID identityId, String scopeType, UUID entityId, Instant expiresAt, String name) {
+        return new Grant<>(UUID.randomUUID(), identityId, scopeType, entityId, expiresAt, name);
+    }
+}
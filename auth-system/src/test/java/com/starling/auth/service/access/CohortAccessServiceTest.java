@@ -0,0 +1,54 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.service.access.CohortAccessService.CohortSize;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CohortAccessServiceTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void size_ShouldAppendThePredicateToTheClinicalCohortQuery() {
+        CohortAccessService service = new CohortAccessService(jdbcTemplate, 300, 100);
+        ScopeFilter filter = ScopeFilter.compile(Map.of("collections", List.of("clinical"), "stains", List.of("HE")));
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        when(jdbcTemplate.queryForObject(sql.capture(), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(new CohortSize(2, 5));
+
+        assertEquals(new CohortSize(2, 5), service.size(filter));
+        assertTrue(sql.getValue().contains("WHERE c.collection = 'clinical' AND c.collection IN (?) AND lower(s.stain) IN (?)"),
+                sql.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void canReadSlide_ShouldOnlyLookUpClinicalSlides() {
+        CohortAccessService service = new CohortAccessService(jdbcTemplate, 300, 100);
+        ScopeFilter filter = ScopeFilter.compile(Map.of("stains", List.of("HE")));
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), eq("S1"))).thenReturn(List.of());
+
+        assertFalse(service.canReadSlide(List.of(filter), "S1"));
+        ArgumentCaptor<String> sql = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate).query(sql.capture(), any(RowMapper.class), eq("S1"));
+        assertTrue(sql.getValue().contains("c.collection = 'clinical'"), sql.getValue());
+    }
+}
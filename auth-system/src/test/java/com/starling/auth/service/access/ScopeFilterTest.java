@@ -0,0 +1,58 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.service.access.ScopeFilter.SlideFacts;
+import com.starling.auth.service.access.ScopeFilter.SqlPredicate;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScopeFilterTest {
+
+    private static final Map<String, Object> BREAST_CANCER = Map.of(
+            "collections", List.of("clinical"),
+            "accessionDateFrom", "2024-01-01",
+            "accessionDateTo", "2024-12-31",
+            "icdCodes", List.of("c50"),
+            "stains", "H&E");
+
+    @Test
+    void compile_ShouldRejectEmptyUnknownAndMalformedFilters() {
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(Map.of("diagnosis", "carcinoma")));
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(Map.of("collections", List.of("archive"))));
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(Map.of("collections", List.of("educational"))));
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(Map.of("accessionDateFrom", "01/02/2024")));
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(Map.of("icdCodes", List.of("C50%"))));
+        assertThrows(IllegalArgumentException.class, () -> ScopeFilter.compile(
+                Map.of("accessionDateFrom", "2024-02-01", "accessionDateTo", "2024-01-01")));
+    }
+
+    @Test
+    void matchesSlide_ShouldRequireEveryCriterion() {
+        ScopeFilter filter = ScopeFilter.compile(BREAST_CANCER);
+        LocalDate june = LocalDate.of(2024, 6, 1);
+
+        assertTrue(filter.matchesSlide(new SlideFacts("clinical", june, Set.of("C50.912"), "Breast", "h&e")));
+        assertFalse(filter.matchesSlide(new SlideFacts("clinical", june, Set.of("C50.912"), "Breast", "ER")));
+        assertFalse(filter.matchesSlide(new SlideFacts("clinical", june, Set.of("C34.1"), "Lung", "H&E")));
+        assertFalse(filter.matchesSlide(new SlideFacts("clinical", null, Set.of("C50.9"), "Breast", "H&E")));
+        assertFalse(filter.matchesSlide(new SlideFacts("educational", june, Set.of("C50.9"), "Breast", "H&E")));
+        assertFalse(filter.coversWholeCase());
+    }
+
+    @Test
+    void toSql_ShouldRenderTheSameCriteriaAsParameters() {
+        SqlPredicate predicate = ScopeFilter.compile(BREAST_CANCER).toSql();
+
+        assertEquals("c.collection IN (?) AND c.accession_date >= ? AND c.accession_date <= ? AND "
+                + "EXISTS (SELECT 1 FROM wsi.case_icd_codes i WHERE i.case_id = c.id AND (upper(i.icd_code) LIKE ?)) AND "
+                + "lower(s.stain) IN (?)", predicate.sql());
+        assertEquals(List.of("clinical", LocalDate.of(2024, 1, 1), LocalDate.of(2024, 12, 31), "C50%", "h&e"),
+                predicate.args());
+    }
+}
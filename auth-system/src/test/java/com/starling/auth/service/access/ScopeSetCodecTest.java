@@ -0,0 +1,37 @@
+package com.starling.auth.service.access;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ScopeSetCodecTest {
+
+    @Test
+    void contains_ShouldMatchExactlyTheEncodedIdentifiers() {
+        List<String> slides = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            slides.add("S26-" + i + "-A1-HE");
+        }
+
+        String encoded = ScopeSetCodec.encode(slides);
+
+        for (String slide : slides) {
+            assertTrue(ScopeSetCodec.contains(encoded, slide), slide);
+        }
+        for (int i = 300; i < 1300; i++) {
+            assertFalse(ScopeSetCodec.contains(encoded, "S26-" + i + "-A1-HE"));
+        }
+        // About p + 1.5 bits per member, well under a plain list of 64-bit keys.
+        assertTrue(encoded.length() * 3 / 4 < slides.size() * 6, "encoded " + encoded.length());
+    }
+
+    @Test
+    void encode_ShouldIgnoreDuplicatesAndHandleEmptySets() {
+        assertEquals(ScopeSetCodec.encode(Set.of("A")), ScopeSetCodec.encode(List.of("A", "A")));
+        assertFalse(ScopeSetCodec.contains(ScopeSetCodec.encode(List.of()), "A"));
+    }
+}
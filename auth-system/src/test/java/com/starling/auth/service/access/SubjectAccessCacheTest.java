@@ -0,0 +1,81 @@
+package com.starling.auth.service.access;
+
+import com.starling.auth.service.access.AccessScopeService.AccessScope;
+import com.starling.auth.service.access.SubjectAccessCache.Entry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SubjectAccessCacheTest {
+
+    private static final Instant NOW = Instant.parse("2026-10-01T12:00:00Z");
+
+    @Test
+    void get_ShouldExpireEntriesAtTheirGrantExpiry() {
+        SubjectAccessCache cache = new SubjectAccessCache(10);
+        AccessScope scope = new AccessScope(false, Set.of(), Set.of("S1"), List.of(), NOW.plusSeconds(5));
+        cache.put(new Entry("alice", UUID.randomUUID(), scope, scope.validUntil()), cache.generation());
+
+        assertTrue(cache.get("alice", NOW).scope().canReadSlide("S1"));
+        assertNull(cache.get("alice", NOW.plusSeconds(5)));
+        assertEquals(1, cache.evictExpired(NOW.plusSeconds(5)));
+    }
+
+    @Test
+    void invalidateIdentity_ShouldDropThatSubjectOnlyAndRejectItsLoadsStartedBefore() {
+        SubjectAccessCache cache = new SubjectAccessCache(10);
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        UUID carol = UUID.randomUUID();
+        cache.put(new Entry("alice", alice, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), cache.generation());
+        cache.put(new Entry("bob", bob, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), cache.generation());
+        cache.put(new Entry("carol", null, AccessScope.NONE, NOW.plusSeconds(30)), cache.generation());
+        cache.put(new Entry("nobody", null, AccessScope.NONE, NOW.plusSeconds(30)), cache.generation());
+        long generation = cache.generation();
+
+        cache.invalidateIdentity(alice, "alice");
+        // Carol's first login creates the identity her negative entry was missing
+        cache.invalidateIdentity(carol, "carol");
+
+        assertNull(cache.get("alice", NOW));
+        assertNull(cache.get("carol", NOW));
+        assertNotNull(cache.get("nobody", NOW));
+        assertNotNull(cache.get("bob", NOW));
+        assertFalse(cache.put(new Entry("alice", alice, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), generation));
+        assertFalse(cache.put(new Entry("carol", carol, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), generation));
+        assertTrue(cache.put(new Entry("bob", bob, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), generation));
+    }
+
+    @Test
+    void invalidateIdentity_WithoutSubject_ShouldDropEveryEntryOfTheIdentity() {
+        SubjectAccessCache cache = new SubjectAccessCache(10);
+        UUID alice = UUID.randomUUID();
+        cache.put(new Entry("alice", alice, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), cache.generation());
+        cache.put(new Entry("nobody", null, AccessScope.NONE, NOW.plusSeconds(30)), cache.generation());
+        long generation = cache.generation();
+
+        cache.invalidateIdentity(alice, null);
+
+        assertNull(cache.get("alice", NOW));
+        assertNotNull(cache.get("nobody", NOW));
+        assertFalse(cache.put(new Entry("alice", alice, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), generation));
+    }
+
+    @Test
+    void evictExpired_ShouldRejectLoadsStartedBeforeInvalidationsItPrunes() {
+        SubjectAccessCache cache = new SubjectAccessCache(10);
+        UUID alice = UUID.randomUUID();
+        long generation = cache.generation();
+        cache.invalidateIdentity(alice, "alice");
+
+        cache.evictExpired(NOW);
+
+        assertFalse(cache.put(new Entry("alice", alice, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), generation));
+        assertTrue(cache.put(new Entry("alice", alice, AccessScope.UNRESTRICTED, NOW.plusSeconds(60)), cache.generation()));
+    }
+}
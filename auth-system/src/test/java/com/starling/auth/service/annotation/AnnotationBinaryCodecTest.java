@@ -0,0 +1,84 @@
+package com.starling.auth.service.annotation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotationBinaryCodecTest {
+
+    @Test
+    void roundTrip_ShouldPreserveFeaturesAcrossSlides() throws Exception {
+        UUID id = UUID.randomUUID();
+        Map<String, Object> polygon = Map.of("type", "Polygon", "coordinates", List.of(List.of(
+                List.of(100.25, 200.0), List.of(180.0, 200.0), List.of(180.0, 260.5), List.of(100.25, 200.0))));
+        Map<String, Object> point = Map.of("type", "Point", "coordinates", List.of(5.0, 7.0));
+        List<AnnotationFeature> features = List.of(
+                new AnnotationFeature("S1", id, "region", "Tumor", null, "{\"score\":0.93}", polygon),
+                new AnnotationFeature("S1", null, "point", null, "mitosis", null, point),
+                new AnnotationFeature("S2", null, "region", null, null, null, polygon));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationBinaryCodec.Writer writer = new AnnotationBinaryCodec.Writer(out);
+        for (AnnotationFeature feature : features) {
+            writer.write(feature);
+        }
+        writer.finish();
+
+        AnnotationBinaryCodec.Reader reader = new AnnotationBinaryCodec.Reader(new ByteArrayInputStream(out.toByteArray()));
+        List<AnnotationFeature> decoded = new ArrayList<>();
+        AnnotationFeature feature;
+        while ((feature = reader.next()) != null) {
+            decoded.add(feature);
+        }
+
+        assertEquals(features, decoded);
+    }
+
+    @Test
+    void encoding_ShouldBeMuchSmallerThanGeoJson() throws Exception {
+        List<List<Double>> ring = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            double angle = 2 * Math.PI * i / 500;
+            ring.add(List.of(Math.round((84_000 + 300 * Math.cos(angle)) * 4) / 4.0,
+                    Math.round((61_000 + 300 * Math.sin(angle)) * 4) / 4.0));
+        }
+        ring.add(ring.getFirst());
+        Map<String, Object> polygon = Map.of("type", "Polygon", "coordinates", List.of(ring));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        AnnotationBinaryCodec.Writer writer = new AnnotationBinaryCodec.Writer(out);
+        writer.write(new AnnotationFeature("S1", null, "region", null, null, null, polygon));
+        writer.finish();
+
+        int json = new ObjectMapper().writeValueAsBytes(polygon).length;
+        assertTrue(out.size() * 5 < json, "binary " + out.size() + " vs json " + json);
+    }
+
+    @Test
+    void reader_ShouldRejectTruncatedAndForeignStreams() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new AnnotationBinaryCodec.Reader(new ByteArrayInputStream("{\"type\"".getBytes())));
+
+        byte[] truncated = {'S', 'A', 'N', 'N', 1, 2, 1, 2, 'S'};
+        assertThrows(IllegalArgumentException.class, () -> {
+            AnnotationBinaryCodec.Reader reader = new AnnotationBinaryCodec.Reader(new ByteArrayInputStream(truncated));
+            reader.next();
+        });
+    }
+
+    @Test
+    void zigzag_ShouldRoundTripSignedDeltas() {
+        for (long value : new long[]{0, 1, -1, 63, -64, Long.MAX_VALUE, Long.MIN_VALUE}) {
+            assertEquals(value, AnnotationBinaryCodec.unzigzag(AnnotationBinaryCodec.zigzag(value)));
+        }
+        assertEquals(1, AnnotationBinaryCodec.zigzag(-1));
+    }
+}
@@ -0,0 +1,106 @@
+package com.starling.auth.service.annotation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnnotationImportPipelineTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AnnotationImportPipeline pipeline =
+            new AnnotationImportPipeline(null, null, objectMapper, 1, 100, 1000);
+
+    @AfterEach
+    void shutdown() {
+        pipeline.shutdown();
+    }
+
+    @Test
+    void geoJsonReader_ShouldStreamFeaturesAndSplitReservedProperties() throws Exception {
+        String json = """
+                {"type": "FeatureCollection", "name": "model-v3", "features": [
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [1, 2]},
+                   "properties": {"label": "Mitosis", "score": 0.91}},
+                  {"type": "Feature", "geometry": {"type": "Point", "coordinates": [3, 4]},
+                   "properties": {"slideId": "S2", "annotationType": "point"}}
+                ]}
+                """;
+        GeoJsonFeatureReader reader = new GeoJsonFeatureReader(objectMapper,
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), "S1");
+
+        List<AnnotationFeature> features = new ArrayList<>();
+        AnnotationFeature feature;
+        while ((feature = reader.next()) != null) {
+            features.add(feature);
+        }
+
+        assertEquals(2, features.size());
+        assertEquals("S1", features.get(0).slideId());
+        assertEquals("Mitosis", features.get(0).label());
+        assertEquals("{\"score\":0.91}", features.get(0).propertiesJson());
+        assertEquals("S2", features.get(1).slideId());
+        assertEquals("point", features.get(1).annotationType());
+        assertNull(features.get(1).propertiesJson());
+    }
+
+    @Test
+    void prepare_ShouldRenderValidRowsAndRejectBadFeaturesByIndex() {
+        UUID caseId = UUID.randomUUID();
+        UUID slideUuid = UUID.randomUUID();
+        AnnotationImportPipeline.ImportTarget target = new AnnotationImportPipeline.ImportTarget(
+                caseId, UUID.randomUUID(), Map.of("S1", slideUuid));
+        Map<String, Object> point = Map.of("type", "Point", "coordinates", List.of(10, 20));
+        List<AnnotationFeature> features = List.of(
+                new AnnotationFeature("S1", null, null, "say \"hi\"", null, null, point),
+                new AnnotationFeature("S1", null, null, null, null, null, Map.of("type", "Circle")),
+                new AnnotationFeature("S1", null, null, null, null, "[1]", point));
+
+        AnnotationImportPipeline.PreparedChunk chunk = pipeline.prepare(target, features, 40);
+
+        assertEquals(1, chunk.rows());
+        String csv = new String(chunk.csv(), StandardCharsets.UTF_8);
+        assertTrue(csv.startsWith("\"" + caseId + "\",\"" + slideUuid + "\""), csv);
+        assertTrue(csv.contains("\"region\""), csv);
+        assertTrue(csv.contains("\"say \"\"hi\"\"\""), csv);
+        assertTrue(csv.contains(",,\"{}\","), csv);
+        assertEquals(List.of(41, 42), chunk.rejections().stream().map(r -> r.index()).toList());
+    }
+
+    @Test
+    void withVersion_ShouldPrependTheSlideVersionToEveryRow() {
+        AnnotationImportPipeline.ImportTarget target = new AnnotationImportPipeline.ImportTarget(
+                UUID.randomUUID(), UUID.randomUUID(), Map.of("S1", UUID.randomUUID()));
+        Map<String, Object> point = Map.of("type", "Point", "coordinates", List.of(10, 20));
+        AnnotationImportPipeline.PreparedChunk chunk = pipeline.prepare(target, List.of(
+                new AnnotationFeature("S1", null, null, "Zellkern ä", null, null, point),
+                new AnnotationFeature("S1", null, null, null, null, null, point)), 0);
+
+        String[] rows = new String(chunk.withVersion(17), StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(2, rows.length);
+        assertTrue(rows[0].startsWith("17,\"") && rows[0].contains("Zellkern ä"), rows[0]);
+        assertTrue(rows[1].startsWith("17,\""), rows[1]);
+    }
+
+    @Test
+    void prepare_ShouldRejectWholeChunkForUnknownSlide() {
+        AnnotationImportPipeline.ImportTarget target = new AnnotationImportPipeline.ImportTarget(
+                UUID.randomUUID(), UUID.randomUUID(), Map.of());
+        Map<String, Object> point = Map.of("type", "Point", "coordinates", List.of(10, 20));
+
+        AnnotationImportPipeline.PreparedChunk chunk = pipeline.prepare(target, List.of(
+                new AnnotationFeature("S9", null, null, null, null, null, point)), 0);
+
+        assertEquals(0, chunk.rows());
+        assertEquals("Slide not found in case", chunk.rejections().getFirst().reason());
+    }
+}
@@ -0,0 +1,91 @@
+package com.starling.auth.service.annotation;
+
+import com.starling.auth.service.annotation.AnnotationGeometry.Bounds;
+import com.starling.auth.service.annotation.QuadTreeKey.Cell;
+import com.starling.auth.service.annotation.QuadTreeKey.Cover;
+import com.starling.auth.service.annotation.QuadTreeKey.Range;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuadTreeKeyTest {
+
+    @Test
+    void cellFor_ShouldUseLeafForTileSizedBoxAndRootForStraddlingBox() {
+        Cell leaf = QuadTreeKey.cellFor(new Bounds(300, 300, 400, 400));
+        assertEquals(QuadTreeKey.MAX_DEPTH, leaf.depth());
+        assertEquals(QuadTreeKey.morton(1, 1), leaf.key());
+
+        // Crosses the centre of the plane, so only the root contains it
+        double centre = 1 << (QuadTreeKey.WORLD_BITS - 1);
+        Cell root = QuadTreeKey.cellFor(new Bounds(centre - 1, 10, centre + 1, 20));
+        assertEquals(0, root.depth());
+        assertEquals(0L, root.key());
+    }
+
+    @Test
+    void cover_ShouldMatchEveryIntersectingAnnotation() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; round++) {
+            Bounds viewport = randomBox(random, 200_000);
+            Cover cover = QuadTreeKey.cover(viewport);
+            for (int i = 0; i < 200; i++) {
+                Bounds annotation = randomBox(random, random.nextBoolean() ? 2_000 : 150_000);
+                if (annotation.intersects(viewport)) {
+                    assertTrue(matches(cover, QuadTreeKey.cellFor(annotation)),
+                            "viewport " + viewport + " missed " + annotation);
+                }
+            }
+        }
+    }
+
+    @Test
+    void cover_ShouldStayWithinThreeCellsPerAxis() {
+        Cover cover = QuadTreeKey.cover(new Bounds(10_000, 20_000, 14_000, 23_000));
+
+        long cells = cover.ranges().stream()
+                .mapToLong(r -> (r.hi() - r.lo() + 1) >> (2 * (QuadTreeKey.MAX_DEPTH - cover.depth())))
+                .sum();
+        assertTrue(cells <= 9, "cells: " + cells);
+        assertTrue(cover.depth() > 0 && !cover.ancestorKeys().isEmpty());
+    }
+
+    @Test
+    void mergeRanges_ShouldJoinAdjacentRanges() {
+        List<Range> merged = QuadTreeKey.mergeRanges(List.of(
+                new Range(8, 11), new Range(0, 3), new Range(4, 7), new Range(16, 19)));
+
+        assertEquals(List.of(new Range(0, 11), new Range(16, 19)), merged);
+    }
+
+    @Test
+    void validateAndBound_ShouldBoundPolygonAndRejectOpenRing() {
+        Map<String, Object> polygon = Map.of("type", "Polygon", "coordinates", List.of(List.of(
+                List.of(10, 20), List.of(50, 20), List.of(50.5, 80), List.of(10, 20))));
+        assertEquals(new Bounds(10, 20, 50.5, 80), AnnotationGeometry.validateAndBound(polygon));
+
+        Map<String, Object> open = Map.of("type", "Polygon", "coordinates", List.of(List.of(
+                List.of(10, 20), List.of(50, 20), List.of(50, 80), List.of(10, 21))));
+        assertThrows(IllegalArgumentException.class, () -> AnnotationGeometry.validateAndBound(open));
+        assertThrows(IllegalArgumentException.class,
+                () -> AnnotationGeometry.validateAndBound(Map.of("type", "Circle", "coordinates", List.of(1, 2))));
+    }
+
+    /** Mirrors the SQL predicate built by AnnotationService.appendViewportFilter. */
+    private static boolean matches(Cover cover, Cell cell) {
+        if (cell.depth() >= cover.depth()) {
+            return cover.ranges().stream().anyMatch(r -> cell.key() >= r.lo() && cell.key() <= r.hi());
+        }
+        return cover.ancestorKeys().contains(cell.key());
+    }
+
+    private static Bounds randomBox(Random random, int maxSize) {
+        double x = random.nextInt(1_000_000);
+        double y = random.nextInt(1_000_000);
+        return new Bounds(x, y, x + random.nextInt(maxSize), y + random.nextInt(maxSize));
+    }
+}
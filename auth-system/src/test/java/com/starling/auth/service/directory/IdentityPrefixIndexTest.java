@@ -0,0 +1,96 @@
+package com.starling.auth.service.directory;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdentityPrefixIndexTest {
+
+    private static IdentityDirectoryEntry entry(String displayName, String username, String email,
+                                                String given, String family) {
+        return new IdentityDirectoryEntry(UUID.randomUUID(), displayName, null, username, email,
+                given, family, List.of("PATHOLOGIST"));
+    }
+
+    @Test
+    void search_ShouldRankWholeFieldPrefixAheadOfWordPrefix() {
+        IdentityDirectoryEntry smith = entry("Anna Smith", "asmith", "anna.smith@example.org", "Anna", "Smith");
+        IdentityDirectoryEntry smithers = entry("Smithers Wayland", "wsmithers", "w@example.org", "Wayland", "Smithers");
+        IdentityPrefixIndex index = IdentityPrefixIndex.of(List.of(smith, smithers));
+
+        List<IdentityDirectoryEntry> results = index.search("smi", 10);
+
+        assertEquals(List.of(smithers, smith), results);
+    }
+
+    @Test
+    void search_ShouldMatchSubstringsOfThreeOrMoreCharactersLast() {
+        IdentityDirectoryEntry smith = entry("Anna Smith", "asmith", "anna.smith@example.org", "Anna", "Smith");
+        IdentityDirectoryEntry mitchell = entry("Mitchell Reed", "mreed", "m.reed@example.org", "Mitchell", "Reed");
+        IdentityPrefixIndex index = IdentityPrefixIndex.of(List.of(smith, mitchell));
+
+        assertEquals(List.of(mitchell, smith), index.search("mit", 10));
+        assertEquals(List.of(smith), index.search("mith", 10));
+        assertTrue(index.search("it", 10).isEmpty());
+    }
+
+    @Test
+    void search_ShouldIgnoreCaseAndDiacritics() {
+        IdentityDirectoryEntry jose = entry("José Núñez", "jnunez", null, "José", "Núñez");
+        IdentityPrefixIndex index = IdentityPrefixIndex.of(List.of(jose));
+
+        assertEquals(List.of(jose), index.search("NUN", 10));
+        assertEquals(List.of(jose), index.search("jose", 10));
+    }
+
+    @Test
+    void search_ShouldReturnEachIdentityOnceAndRespectLimit() {
+        IdentityDirectoryEntry a = entry("Alex Alvarez", "aalvarez", "alex.alvarez@example.org", "Alex", "Alvarez");
+        IdentityDirectoryEntry b = entry("Alma Bond", "abond", "alma@example.org", "Alma", "Bond");
+        IdentityPrefixIndex index = IdentityPrefixIndex.of(List.of(a, b));
+
+        assertEquals(2, index.search("al", 10).size());
+        assertEquals(1, index.search("al", 1).size());
+        assertTrue(index.search("zz", 10).isEmpty());
+    }
+
+    @Test
+    void apply_ShouldReplaceAndRemoveEntriesWithoutTouchingOthers() {
+        IdentityDirectoryEntry keep = entry("Keep Me", "keep", null, "Keep", "Me");
+        IdentityDirectoryEntry rename = entry("Old Name", "oname", null, "Old", "Name");
+        IdentityDirectoryEntry drop = entry("Drop Me", "drop", null, "Drop", "Me");
+        IdentityPrefixIndex index = IdentityPrefixIndex.of(List.of(keep, rename, drop));
+
+        IdentityDirectoryEntry renamed = new IdentityDirectoryEntry(rename.identityId(), "New Name",
+                null, "nname", null, "New", "Name", List.of());
+        IdentityPrefixIndex updated = index.apply(List.of(renamed), Set.of(drop.identityId()));
+
+        assertEquals(2, updated.size());
+        assertTrue(updated.search("old", 10).isEmpty());
+        assertEquals(List.of(renamed), updated.search("new", 10));
+        assertTrue(updated.search("drop", 10).isEmpty());
+        assertEquals(List.of(keep), updated.search("keep", 10));
+        // The original snapshot is unchanged
+        assertEquals(List.of(rename), index.search("old", 10));
+    }
+
+    @Test
+    void apply_ShouldKeepSubstringMatchesInStepWithTheEntries() {
+        IdentityDirectoryEntry smith = entry("Anna Smith", "asmith", null, "Anna", "Smith");
+        IdentityPrefixIndex index = IdentityPrefixIndex.of(List.of(smith));
+
+        IdentityDirectoryEntry renamed = new IdentityDirectoryEntry(smith.identityId(), "Anna Goldsmith",
+                null, "agoldsmith", null, "Anna", "Goldsmith", List.of());
+        IdentityDirectoryEntry jones = entry("Bo Jones", "bjones", null, "Bo", "Jones");
+        IdentityPrefixIndex updated = index.apply(List.of(renamed, jones), List.of());
+
+        assertEquals(List.of(renamed), updated.search("ldsm", 10));
+        assertEquals(List.of(jones), updated.search("one", 10));
+        assertTrue(index.search("ldsm", 10).isEmpty());
+        assertTrue(updated.apply(List.of(), Set.of(jones.identityId())).search("one", 10).isEmpty());
+    }
+}
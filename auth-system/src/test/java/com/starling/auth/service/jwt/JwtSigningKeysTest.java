@@ -0,0 +1,59 @@
+package com.starling.auth.service.jwt;
+
+import com.nimbusds.jose.jwk.ECKey;
+import com.starling.auth.service.jwt.JwtSigningKeys.SigningKey;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtSigningKeysTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+    private static final Duration DELAY = Duration.ofMinutes(10);
+
+    private static SigningKey key(Instant createdAt) {
+        return new SigningKey(JwtSigningKeys.generateKey(createdAt), createdAt);
+    }
+
+    @Test
+    void selectActive_ShouldWaitForNewKeyToBePublished() {
+        SigningKey old = key(NOW.minus(Duration.ofDays(30)));
+        SigningKey fresh = key(NOW.minus(Duration.ofMinutes(5)));
+
+        assertEquals(old, JwtSigningKeys.selectActive(List.of(old, fresh), null, NOW, DELAY));
+        assertEquals(fresh, JwtSigningKeys.selectActive(List.of(old, fresh), null, NOW.plus(DELAY), DELAY));
+        assertEquals(fresh, JwtSigningKeys.selectActive(List.of(fresh), null, NOW, DELAY));
+        assertEquals(fresh, JwtSigningKeys.selectActive(List.of(old, fresh), fresh.kid(), NOW, DELAY));
+    }
+
+    @Test
+    void managedKeyDir_ShouldGenerateKeyAndPublishOnlyPublicParts(@TempDir Path dir) throws Exception {
+        JwtSigningKeys keys = new JwtSigningKeys("ES256", dir.toString(), "", 600, 30, true, 3);
+
+        ECKey active = keys.activeKey();
+        assertTrue(Files.exists(dir.resolve(active.getKeyID() + JwtSigningKeys.KEY_FILE_SUFFIX)));
+        assertEquals(active, JwtSigningKeys.readKey(dir.resolve(active.getKeyID() + JwtSigningKeys.KEY_FILE_SUFFIX)).key());
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> published = (List<Map<String, Object>>) keys.jwks().get("keys");
+        assertEquals(1, published.size());
+        assertEquals(active.getKeyID(), published.getFirst().get("kid"));
+        assertFalse(published.getFirst().containsKey("d"));
+    }
+
+    @Test
+    void hs256Mode_ShouldPublishNoKeys() {
+        JwtSigningKeys keys = new JwtSigningKeys("HS256", "", "", 600, 30, false, 3);
+
+        assertFalse(keys.isAsymmetric());
+        assertEquals(List.of(), keys.jwks().get("keys"));
+    }
+}
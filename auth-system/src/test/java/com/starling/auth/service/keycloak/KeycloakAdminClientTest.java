@@ -0,0 +1,124 @@
+package com.starling.auth.service.keycloak;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Runs the client against a local stub HTTP server that fails on demand. */
+class KeycloakAdminClientTest {
+
+    private HttpServer server;
+    private KeycloakAdminClient client;
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/realms/master/protocol/openid-connect/token", exchange -> {
+            hit("token");
+            respond(exchange, 200, "{\"access_token\":\"t\",\"expires_in\":300}");
+        });
+        server.createContext("/admin/realms/starling/users/", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/admin/realms/starling/users/".length());
+            int count = hit(id);
+            switch (id) {
+                case "flaky" -> respond(exchange, count == 1 ? 503 : 200, user(id));
+                case "throttled" -> {
+                    exchange.getResponseHeaders().add("Retry-After", "0");
+                    respond(exchange, count == 1 ? 429 : 200, user(id));
+                }
+                case "slow" -> {
+                    sleep(200);
+                    respond(exchange, 200, user(id));
+                }
+                default -> respond(exchange, 404, "{}");
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        client = new KeycloakAdminClient(RestClient.builder(), baseUrl, "master", "admin-cli", "",
+                "admin", "secret", 1000, 5000, 3, 1, 10, 60, 100);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void getUserById_ShouldRetryServerErrorsAndThrottling() {
+        assertEquals("flaky", client.getUserById("starling", "flaky").id());
+        assertEquals("throttled", client.getUserById("starling", "throttled").id());
+
+        assertEquals(2, hits.get("flaky").get());
+        assertEquals(2, hits.get("throttled").get());
+        assertEquals(1, hits.get("token").get());
+    }
+
+    @Test
+    void getUserById_ShouldNotRetryClientErrors() {
+        assertThrows(HttpClientErrorException.NotFound.class, () -> client.getUserById("starling", "missing"));
+
+        assertEquals(1, hits.get("missing").get());
+    }
+
+    @Test
+    void getUserById_ShouldCoalesceConcurrentLookupsAndCacheTheResult() throws Exception {
+        List<Future<KeycloakAdminClient.KeycloakUser>> results = new ArrayList<>();
+        try (ExecutorService callers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> client.getUserById("starling", "slow")));
+            }
+        }
+        for (Future<KeycloakAdminClient.KeycloakUser> result : results) {
+            assertEquals("slow", result.get().id());
+        }
+        client.getUserById("starling", "slow");
+
+        assertEquals(1, hits.get("slow").get());
+    }
+
+    private int hit(String key) {
+        return hits.computeIfAbsent(key, k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    private static String user(String id) {
+        return "{\"id\":\"" + id + "\",\"username\":\"" + id + "\",\"enabled\":true}";
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(status, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
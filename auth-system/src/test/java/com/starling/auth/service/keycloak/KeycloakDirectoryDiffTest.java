@@ -0,0 +1,77 @@
+package com.starling.auth.service.keycloak;
+
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.HeldRole;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.LocalIdentity;
+import com.starling.auth.service.keycloak.KeycloakDirectoryDiff.RoleChange;
+import com.starling.auth.service.keycloak.KeycloakDirectoryReader.DirectoryUser;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeycloakDirectoryDiffTest {
+
+    private static final UUID PATHOLOGIST = UUID.randomUUID();
+    private static final UUID RESIDENT = UUID.randomUUID();
+    private static final UUID ADMIN = UUID.randomUUID();
+    private static final Map<String, Set<UUID>> ROLES_BY_GROUP = Map.of(
+            "Starling_Pathologists", Set.of(PATHOLOGIST),
+            "Starling_Residents", Set.of(RESIDENT));
+
+    @Test
+    void compute_ShouldEmitNothingForAnIdentityAlreadyInSync() {
+        UUID id = UUID.randomUUID();
+        DirectoryUser user = user("kc-1", "jdoe", true, Set.of("Starling_Pathologists"));
+        LocalIdentity local = new LocalIdentity(id, "kc-1", "jdoe", "jdoe@example.org", "Jane", "Doe", "Dr. Jane Doe", true);
+
+        KeycloakDirectoryDiff diff = KeycloakDirectoryDiff.compute(Map.of("kc-1", user), List.of(local),
+                List.of(new HeldRole(id, PATHOLOGIST, "IDP_GROUP")), ROLES_BY_GROUP, true);
+
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    void compute_ShouldInsertNewUsersWithTheirMappedRoles() {
+        DirectoryUser user = user("kc-2", "asmith", true, Set.of("Starling_Residents", "Unmapped"));
+
+        KeycloakDirectoryDiff diff = KeycloakDirectoryDiff.compute(Map.of("kc-2", user), List.of(), List.of(),
+                ROLES_BY_GROUP, true);
+
+        assertEquals(1, diff.inserts().size());
+        UUID id = diff.inserts().getFirst().identityId();
+        assertEquals("Jane Doe", diff.inserts().getFirst().displayName());
+        assertEquals(List.of(new RoleChange(id, RESIDENT, "Starling_Residents")), diff.roleGrants());
+    }
+
+    @Test
+    void compute_ShouldEndOnlyIdpRolesAndDeactivateMissingIdentities() {
+        UUID kept = UUID.randomUUID();
+        UUID missing = UUID.randomUUID();
+        DirectoryUser user = user("kc-1", "jdoe", false, Set.of());
+        List<LocalIdentity> local = List.of(
+                new LocalIdentity(kept, "kc-1", "jdoe", "jdoe@example.org", "Jane", "Doe", "Dr. Jane Doe", true),
+                new LocalIdentity(missing, "kc-gone", "old", null, null, null, "Old", true));
+        List<HeldRole> held = List.of(
+                new HeldRole(kept, PATHOLOGIST, "IDP_GROUP"),
+                new HeldRole(kept, ADMIN, "LOCAL_ADMIN"),
+                new HeldRole(missing, RESIDENT, "IDP_GROUP"));
+
+        KeycloakDirectoryDiff diff = KeycloakDirectoryDiff.compute(Map.of("kc-1", user), local, held,
+                ROLES_BY_GROUP, true);
+
+        assertEquals(Set.of(new RoleChange(kept, PATHOLOGIST, null), new RoleChange(missing, RESIDENT, null)),
+                Set.copyOf(diff.roleEnds()));
+        assertTrue(diff.roleGrants().isEmpty());
+        assertEquals(2, diff.updates().size());
+        assertTrue(diff.updates().stream().noneMatch(u -> u.active()));
+        assertEquals("Dr. Jane Doe", diff.updates().getFirst().displayName());
+    }
+
+    private static DirectoryUser user(String id, String username, boolean enabled, Set<String> groups) {
+        return new DirectoryUser(id, username, username + "@example.org", "Jane", "Doe", enabled, groups);
+    }
+}
@@ -0,0 +1,126 @@
+package com.starling.auth.service.keycloak;
+
+import com.starling.auth.service.keycloak.KeycloakDirectoryReader.DirectoryUser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/** Reads a stub realm of 23 users served by a local HTTP server. */
+class KeycloakDirectoryReaderTest {
+
+    private static final int USERS = 23;
+
+    private HttpServer server;
+    private KeycloakDirectoryReader reader;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/realms/master/protocol/openid-connect/token",
+                exchange -> respond(exchange, "{\"access_token\":\"t\",\"expires_in\":300}"));
+        server.createContext("/admin/realms/starling/users/count",
+                exchange -> respond(exchange, String.valueOf(USERS)));
+        server.createContext("/admin/realms/starling/users", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.startsWith("/admin/realms/starling/users/")) {
+                String id = path.substring(path.lastIndexOf('/') + 1);
+                if (id.matches("u\\d+") && Integer.parseInt(id.substring(1)) < USERS) {
+                    respond(exchange, "{\"id\":\"" + id + "\",\"enabled\":true}");
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                    exchange.close();
+                }
+                return;
+            }
+            Map<String, String> query = query(exchange.getRequestURI());
+            respond(exchange, users(Integer.parseInt(query.get("first")), Integer.parseInt(query.get("max")), USERS));
+        });
+        server.createContext("/admin/realms/starling/groups", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            if (path.endsWith("/groups")) {
+                // Mapped group nested below an unmapped parent
+                respond(exchange, """
+                        [{"id":"g-parent","name":"Starling","path":"/Starling","subGroups":[
+                          {"id":"g-path","name":"Starling_Pathologists","path":"/Starling/Starling_Pathologists"}]}]
+                        """);
+            } else if (path.endsWith("/g-path/members")) {
+                Map<String, String> query = query(exchange.getRequestURI());
+                // Every third user is a member
+                int first = Integer.parseInt(query.get("first"));
+                int max = Integer.parseInt(query.get("max"));
+                List<String> members = IntStream.range(0, USERS).filter(i -> i % 3 == 0)
+                        .mapToObj(i -> "{\"id\":\"u" + i + "\"}").toList();
+                respond(exchange, "[" + String.join(",",
+                        members.subList(Math.min(first, members.size()), Math.min(first + max, members.size()))) + "]");
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                exchange.close();
+            }
+        });
+        server.start();
+
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        KeycloakAdminClient client = new KeycloakAdminClient(RestClient.builder(), baseUrl, "master", "admin-cli", "",
+                "admin", "secret", 1000, 5000, 3, 1, 10, 60, 100);
+        reader = new KeycloakDirectoryReader(client, 5, 3);
+    }
+
+    @AfterEach
+    void stopStub() {
+        server.stop(0);
+    }
+
+    @Test
+    void read_ShouldPageThroughAllUsersAndMapGroupMemberships() {
+        Map<String, DirectoryUser> users = reader.read("starling", List.of("Starling_Pathologists"));
+
+        assertEquals(USERS, users.size());
+        assertEquals(Set.of("Starling_Pathologists"), users.get("u9").groups());
+        assertEquals(Set.of(), users.get("u10").groups());
+        assertEquals("user10", users.get("u10").username());
+        assertEquals(8, users.values().stream().filter(u -> !u.groups().isEmpty()).count());
+    }
+
+    @Test
+    void stillPresent_ShouldKeepOnlyUsersKeycloakStillHas() {
+        assertEquals(Set.of("u4", "u22"), reader.stillPresent("starling", List.of("u4", "u22", "u23", "deleted")));
+    }
+
+    private static String users(int first, int max, int total) {
+        return IntStream.range(first, Math.min(first + max, total))
+                .mapToObj(i -> "{\"id\":\"u" + i + "\",\"username\":\"user" + i + "\",\"enabled\":true}")
+                .collect(Collectors.joining(",", "[", "]"));
+    }
+
+    private static Map<String, String> query(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        for (String pair : Objects.requireNonNullElse(uri.getQuery(), "").split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        exchange.getResponseBody().write(bytes);
+        exchange.close();
+    }
+}
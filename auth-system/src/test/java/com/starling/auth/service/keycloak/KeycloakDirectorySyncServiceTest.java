@@ -0,0 +1,90 @@
+package com.starling.auth.service.keycloak;
+
+import com.starling.auth.repository.AuditEventRepository;
+import com.starling.auth.service.keycloak.KeycloakDirectorySyncService.SyncRun;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class KeycloakDirectorySyncServiceTest {
+
+    @Mock
+    private KeycloakDirectoryReader directoryReader;
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private PlatformTransactionManager transactionManager;
+    @Mock
+    private AuditEventRepository auditEventRepository;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private KeycloakDirectorySyncService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new KeycloakDirectorySyncService(directoryReader, jdbcTemplate, transactionManager,
+                auditEventRepository, eventPublisher, "starling", "provider", 500, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void start_ShouldRunInTheBackgroundAndRefuseASecondRun() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        when(directoryReader.read(eq("starling"), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Map.of();
+        });
+
+        SyncRun run = service.start().orElseThrow();
+
+        assertEquals("RUNNING", run.status());
+        assertTrue(service.start().isEmpty());
+        release.countDown();
+        // An empty realm fails the run rather than deactivating everyone
+        SyncRun finished = awaitFinished(run.id());
+        assertEquals("FAILED", finished.status());
+        assertTrue(finished.error().contains("returned no users"), finished.error());
+    }
+
+    @Test
+    void getRun_ShouldReportUnknownRunsAsNotFound() {
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> service.getRun(UUID.randomUUID()));
+        assertTrue(e.getMessage().contains("not found"));
+    }
+
+    private SyncRun awaitFinished(UUID runId) throws InterruptedException {
+        Instant deadline = Instant.now().plus(Duration.ofSeconds(5));
+        while (Instant.now().isBefore(deadline)) {
+            SyncRun run = service.getRun(runId);
+            if (!"RUNNING".equals(run.status())) {
+                return run;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Sync run did not finish");
+    }
+}
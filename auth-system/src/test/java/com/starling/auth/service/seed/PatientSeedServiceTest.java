@@ -0,0 +1,112 @@
+package com.starling.auth.service.seed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.starling.auth.repository.AuditEventRepository;
+import com.starling.auth.service.seed.PatientSeedService.SeedRunResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class PatientSeedServiceTest {
+
+    private static final int PARAMS_PER_ROW = 11;
+
+    @TempDir
+    Path tempDir;
+
+    /** MRNs committed so far, standing in for core.patients. */
+    private final Set<String> committed = new HashSet<>();
+
+    /** The MRNs of each upsert statement, in order. */
+    private final List<List<String>> statements = new ArrayList<>();
+
+    @Test
+    void seedFromFile_ShouldUpsertInChunksOfTheConfiguredSize() throws IOException {
+        committed.add("MRN-2");
+
+        SeedRunResult result = service(2, "MRN-1", "MRN-2", "MRN-3").seedFromFile();
+
+        assertEquals(List.of(List.of("MRN-1", "MRN-2"), List.of("MRN-3")), statements);
+        assertEquals(3, result.total());
+        assertEquals(2, result.created());
+        assertEquals(1, result.updated());
+        assertEquals(2, result.chunks());
+        assertTrue(result.failures().isEmpty());
+    }
+
+    @Test
+    void seedFromFile_ShouldFlushBeforeARepeatedMrnSoItUpdatesTheCommittedRow() throws IOException {
+        SeedRunResult result = service(10, "MRN-1", "MRN-2", "MRN-1").seedFromFile();
+
+        // The repeat is its own statement, so ON CONFLICT merges its metadata into the first row's
+        assertEquals(List.of(List.of("MRN-1", "MRN-2"), List.of("MRN-1")), statements);
+        assertEquals(3, result.total());
+        assertEquals(2, result.created());
+        assertEquals(1, result.updated());
+        assertEquals(0, result.failed());
+    }
+
+    @Test
+    void seedFromFile_ShouldRetryARejectedChunkRowByRowSoOnlyTheBadRowFails() throws IOException {
+        SeedRunResult result = service(10, "MRN-1", "BAD", "MRN-3").seedFromFile();
+
+        assertEquals(List.of(
+                List.of("MRN-1", "BAD", "MRN-3"),
+                List.of("MRN-1"), List.of("BAD"), List.of("MRN-3")), statements);
+        assertEquals(Set.of("MRN-1", "MRN-3"), committed);
+        assertEquals(2, result.created());
+        assertEquals(1, result.failed());
+        assertEquals("BAD", result.failures().getFirst().mrn());
+        assertEquals("FAILED", result.failures().getFirst().status());
+    }
+
+    @SuppressWarnings("unchecked")
+    private PatientSeedService service(int chunkSize, String... mrns) throws IOException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class))).thenAnswer(invocation -> {
+            // [sql, mapper, params..] with PARAMS_PER_ROW params per row, MRN first
+            Object[] args = invocation.getArguments();
+            List<String> rows = new ArrayList<>();
+            for (int i = 2; i < args.length; i += PARAMS_PER_ROW) {
+                rows.add((String) args[i]);
+            }
+            statements.add(rows);
+            if (rows.contains("BAD")) {
+                throw new DataIntegrityViolationException("violates check constraint");
+            }
+            List<Boolean> inserted = rows.stream().map(mrn -> !committed.contains(mrn)).toList();
+            committed.addAll(rows);
+            return inserted;
+        });
+
+        String patients = Arrays.stream(mrns)
+                .map(mrn -> """
+                        {"mrn": "%s", "name": {"given": "Ada", "family": "Lovelace"}, "flags": ["edge_%s"]}"""
+                        .formatted(mrn, mrn))
+                .collect(Collectors.joining(", "));
+        Path seedFile = Files.writeString(tempDir.resolve("patients.json"),
+                "{\"seed\": \"test-seed\", \"patients\": [" + patients + "]}");
+
+        return new PatientSeedService(new ObjectMapper(), jdbcTemplate, mock(PlatformTransactionManager.class),
+                mock(AuditEventRepository.class), seedFile.toString(), chunkSize);
+    }
+}
@@ -0,0 +1,33 @@
+package com.starling.auth.service.seed.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WsiIngestPipelineTest {
+
+    @Test
+    void appendCsv_ShouldQuoteValuesAndLeaveNullUnquoted() {
+        StringBuilder out = new StringBuilder();
+
+        WsiIngestPipeline.appendCsv(out, "Tumor, \"margin\" A");
+        out.append(',');
+        WsiIngestPipeline.appendCsv(out, null);
+        out.append(',');
+        WsiIngestPipeline.appendCsv(out, "");
+        out.append(',');
+        WsiIngestPipeline.appendCsv(out, LocalDate.of(2026, 1, 15));
+
+        assertEquals("\"Tumor, \"\"margin\"\" A\",,\"\",\"2026-01-15\"", out.toString());
+    }
+
+    @Test
+    void parsePathList_ShouldSplitAndTrimCommaSeparatedPaths() {
+        assertEquals(List.of(Path.of("a.json"), Path.of("dir/b.json")),
+                WsiIngestPipeline.parsePathList(" a.json , dir/b.json,"));
+    }
+}
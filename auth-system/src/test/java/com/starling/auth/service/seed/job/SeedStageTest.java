@@ -0,0 +1,19 @@
+package com.starling.auth.service.seed.job;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeedStageTest {
+
+    @Test
+    void declarationOrder_ShouldBeTopological() {
+        // SeedJobService wires futures in declaration order and relies on dependencies coming first
+        for (SeedStage stage : SeedStage.values()) {
+            for (SeedStage dependency : stage.dependencies()) {
+                assertTrue(dependency.ordinal() < stage.ordinal(),
+                        stage + " is declared before its dependency " + dependency);
+            }
+        }
+    }
+}
@@ -4,6 +4,7 @@ import type {
 	EduCaseDetail,
 	EduNamedCollection,
 	EduNamedCollectionDetail,
+	EduNamedCollectionPage,
 	EduSearchFilters,
 	EduFacets,
 	EduPageResponse
@@ -13,6 +14,7 @@ class EduStore {
 	// Data state
 	cases = $state<EduCaseListItem[]>([]);
 	collections = $state<EduNamedCollection[]>([]);
+	collectionsCursor = $state<string | null>(null);
 	selectedCase = $state<EduCaseDetail | null>(null);
 	selectedCollection = $state<EduNamedCollectionDetail | null>(null);
 	facets = $state<EduFacets | null>(null);
@@ -119,17 +121,23 @@ class EduStore {
 		}
 	}
 
-	async loadCollections(): Promise<void> {
+	async loadCollections(more = false): Promise<void> {
+		if (more && !this.collectionsCursor) return;
 		this.isLoading = true;
 		this.error = null;
 
 		try {
-			const response = await fetch('/api/edu/collections');
+			const params = new URLSearchParams();
+			if (more && this.collectionsCursor) params.set('cursor', this.collectionsCursor);
+
+			const response = await fetch(`/api/edu/collections?${params.toString()}`);
 			if (!response.ok) {
 				throw new Error(`Failed to load collections: ${response.statusText}`);
 			}
 
-			this.collections = await response.json();
+			const data: EduNamedCollectionPage = await response.json();
+			this.collections = more ? [...this.collections, ...data.items] : data.items;
+			this.collectionsCursor = data.nextCursor;
 		} catch (e) {
 			const message = e instanceof Error ? e.message : 'Unknown error';
 			this.error = message;
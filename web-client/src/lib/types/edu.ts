@@ -104,6 +104,12 @@ export interface EduNamedCollection {
 	createdAt: string;
 }
 
+/** Keyset-paginated collection listing */
+export interface EduNamedCollectionPage {
+	items: EduNamedCollection[];
+	nextCursor: string | null;
+}
+
 /** Named collection with member cases */
 export interface EduNamedCollectionDetail {
 	id: string;